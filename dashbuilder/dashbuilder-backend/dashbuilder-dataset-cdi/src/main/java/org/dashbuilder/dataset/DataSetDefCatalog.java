@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * In-memory catalog of the data set definitions stored in the file system, indexed by
+ * UUID and visibility.
+ * <p>Writes are serialized and invalidate the listing snapshots, which are built again on the next
+ * read. Lookups and listings don't block once the snapshots are built and return immutable views,
+ * so their cost doesn't depend on the number of definitions registered.</p>
+ */
+public class DataSetDefCatalog {
+
+    private final Map<String, DataSetDef> defs = new ConcurrentHashMap<>();
+    private final Set<String> publicIndex = ConcurrentHashMap.newKeySet();
+
+    private volatile List<DataSetDef> allSnapshot;
+    private volatile List<DataSetDef> publicSnapshot;
+
+    public synchronized void load(Collection<DataSetDef> defs) {
+        clear();
+        for (DataSetDef def : defs) {
+            put(def);
+        }
+    }
+
+    public synchronized void put(DataSetDef def) {
+        if (def == null || def.getUUID() == null) {
+            return;
+        }
+        DataSetDef previous = defs.put(def.getUUID(), def);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(def);
+        invalidateSnapshots();
+    }
+
+    public synchronized DataSetDef remove(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        DataSetDef previous = defs.remove(uuid);
+        if (previous != null) {
+            unindex(previous);
+            invalidateSnapshots();
+        }
+        return previous;
+    }
+
+    public synchronized void clear() {
+        defs.clear();
+        publicIndex.clear();
+        invalidateSnapshots();
+    }
+
+    public DataSetDef get(String uuid) {
+        return uuid != null ? defs.get(uuid) : null;
+    }
+
+    public boolean contains(String uuid) {
+        return uuid != null && defs.containsKey(uuid);
+    }
+
+    public int size() {
+        return defs.size();
+    }
+
+    public List<DataSetDef> getAll() {
+        List<DataSetDef> snapshot = allSnapshot;
+        return snapshot != null ? snapshot : buildAllSnapshot();
+    }
+
+    public List<DataSetDef> getPublic() {
+        List<DataSetDef> snapshot = publicSnapshot;
+        return snapshot != null ? snapshot : buildPublicSnapshot();
+    }
+
+    // Snapshots are built under the write lock so a concurrent write can't be lost
+
+    protected synchronized List<DataSetDef> buildAllSnapshot() {
+        if (allSnapshot == null) {
+            allSnapshot = snapshot(defs.keySet());
+        }
+        return allSnapshot;
+    }
+
+    protected synchronized List<DataSetDef> buildPublicSnapshot() {
+        if (publicSnapshot == null) {
+            publicSnapshot = snapshot(publicIndex);
+        }
+        return publicSnapshot;
+    }
+
+    protected void index(DataSetDef def) {
+        if (def.isPublic()) {
+            publicIndex.add(def.getUUID());
+        }
+    }
+
+    protected void unindex(DataSetDef def) {
+        publicIndex.remove(def.getUUID());
+    }
+
+    protected void invalidateSnapshots() {
+        allSnapshot = null;
+        publicSnapshot = null;
+    }
+
+    protected List<DataSetDef> snapshot(Set<String> uuids) {
+        List<DataSetDef> result = new ArrayList<>(uuids.size());
+        for (String uuid : uuids) {
+            DataSetDef def = defs.get(uuid);
+            if (def != null) {
+                result.add(def);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
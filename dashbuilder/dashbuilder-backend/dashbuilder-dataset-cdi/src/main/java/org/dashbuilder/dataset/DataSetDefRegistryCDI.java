@@ -16,17 +16,25 @@
 package org.dashbuilder.dataset;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.DataSetCore;
 import org.dashbuilder.config.Config;
@@ -42,8 +50,10 @@ import org.dashbuilder.dataset.json.DataSetDefJSONMarshaller;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
 import org.dashbuilder.exception.ExceptionManager;
 import org.dashbuilder.scheduler.SchedulerCDI;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.backend.server.spaces.SpacesAPIImpl;
 import org.uberfire.backend.server.util.Paths;
+import org.uberfire.commons.cluster.ClusterParameters;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.options.CommentedOption;
@@ -56,6 +66,9 @@ import org.uberfire.java.nio.file.SimpleFileVisitor;
 import org.uberfire.java.nio.file.StandardDeleteOption;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.spaces.SpacesAPI;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceRenamed;
 
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
 import static org.uberfire.java.nio.file.Files.walkFileTree;
@@ -64,6 +77,10 @@ import static org.uberfire.java.nio.file.Files.walkFileTree;
  * Data set definition registry implementation which stores data sets under GIT
  * <p>It's provided as an extension to the default in-memory based registry and it's
  * also the default CDI implementation available.</p>
+ * <p>The definitions stored are read once on startup into a {@link DataSetDefCatalog}, which serves
+ * the lookups and listings of the registry. It's kept up to date on every write and, when running on a
+ * cluster, from the changes the other nodes commit into the data sets file system. Both are applied
+ * through the registry write methods, so the catalog and the registered entries never diverge.</p>
  */
 @ApplicationScoped
 public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSVFileStorage {
@@ -80,9 +97,15 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
     protected Event<DataSetDefRegisteredEvent> dataSetDefRegisteredEvent;
     protected Event<DataSetDefRemovedEvent> dataSetDefRemovedEvent;
     protected Event<DataSetStaleEvent> dataSetStaleEvent;
+    protected WatchEventRouter watchEventRouter;
 
     protected FileSystem fileSystem;
     protected Path root;
+    protected DataSetDefCatalog catalog = new DataSetDefCatalog();
+    // The JSON last written or read for every definition, to tell apart the changes made by this node
+    protected Map<String, String> storedJson = new ConcurrentHashMap<>();
+
+    private WatchEventRouter.Subscription subscription;
 
     public DataSetDefRegistryCDI() {
         super();
@@ -98,7 +121,8 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
                                  Event<DataSetDefModifiedEvent> dataSetDefModifiedEvent,
                                  Event<DataSetDefRegisteredEvent> dataSetDefRegisteredEvent,
                                  Event<DataSetDefRemovedEvent> dataSetDefRemovedEvent,
-                                 Event<DataSetStaleEvent> dataSetStaleEvent) {
+                                 Event<DataSetStaleEvent> dataSetStaleEvent,
+                                 WatchEventRouter watchEventRouter) {
 
         super(dataSetProviderRegistry,
               scheduler);
@@ -111,6 +135,7 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
         this.dataSetDefRegisteredEvent = dataSetDefRegisteredEvent;
         this.dataSetDefRemovedEvent = dataSetDefRemovedEvent;
         this.dataSetStaleEvent = dataSetStaleEvent;
+        this.watchEventRouter = watchEventRouter;
     }
 
     @PostConstruct
@@ -118,6 +143,14 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
         initFileSystem();
         deleteTempFiles();
         registerDataSetDefs();
+        watchFileSystem();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
     }
 
     public DataSetDefJSONMarshaller getDataSetDefJsonMarshaller() {
@@ -165,13 +198,121 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
         this.root = fileSystem.getRootDirectories().iterator().next();
     }
 
-    protected void registerDataSetDefs() {
-        for (DataSetDef def : listDataSetDefs()) {
+    protected synchronized void registerDataSetDefs() {
+        catalog.load(readDataSetDefs());
+        for (DataSetDef def : catalog.getAll()) {
             super.dataSetDefMap.put(def.getUUID(),
                                     new DataSetDefEntry(def));
         }
     }
 
+    @Override
+    public List<DataSetDef> getDataSetDefs(boolean onlyPublic) {
+        return new ArrayList<>(onlyPublic ? catalog.getPublic() : catalog.getAll());
+    }
+
+    @Override
+    public DataSetDef getDataSetDef(String uuid) {
+        return catalog.get(uuid);
+    }
+
+    /**
+     * Other cluster nodes commit their changes directly into the data sets file system, so the
+     * definitions they add, modify or remove are applied to the catalog as the file system notifies them
+     * through the {@link WatchEventRouter}. Local changes are applied by the registry write methods.
+     */
+    protected void watchFileSystem() {
+        if (!new ClusterParameters().isAppFormerClustered()) {
+            return;
+        }
+
+        subscription = watchEventRouter.subscribe(root.toUri().toString(),
+                                                  this::onDataSetDefFilesChanged,
+                                                  this::onDataSetDefFilesOverflow);
+    }
+
+    protected void onDataSetDefFilesChanged(ResourceBatchChangesEvent event) {
+        for (Map.Entry<org.uberfire.backend.vfs.Path, Collection<ResourceChange>> entry : event.getBatch().entrySet()) {
+            onDataSetDefFileChanged(entry.getKey().getFileName());
+            for (ResourceChange change : entry.getValue()) {
+                if (change instanceof ResourceRenamed) {
+                    onDataSetDefFileChanged(((ResourceRenamed) change).getDestinationPath().getFileName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Some changes were discarded before being delivered, so every definition either stored or in the catalog is
+     * checked against its file.
+     */
+    protected void onDataSetDefFilesOverflow() {
+        final Set<String> fileNames = new HashSet<>();
+        for (DataSetDef def : catalog.getAll()) {
+            fileNames.add(def.getUUID() + DATASET_EXT);
+        }
+        if (ioService.exists(root)) {
+            walkFileTree(root,
+                         new SimpleFileVisitor<Path>() {
+                             @Override
+                             public FileVisitResult visitFile(final Path file,
+                                                              final BasicFileAttributes attrs) throws IOException {
+                                 final String fileName = file.getFileName().toString();
+                                 if (fileName.endsWith(DATASET_EXT) && attrs.isRegularFile()) {
+                                     fileNames.add(fileName);
+                                 }
+                                 return FileVisitResult.CONTINUE;
+                             }
+                         });
+        }
+        fileNames.forEach(this::onDataSetDefFileChanged);
+    }
+
+    /**
+     * Applies the change of a definition file through the registry write methods. The changes this node made
+     * itself are already applied, so they are ignored.
+     */
+    protected void onDataSetDefFileChanged(String fileName) {
+        if (fileName == null || !fileName.endsWith(DATASET_EXT)) {
+            return;
+        }
+
+        String uuid = fileName.substring(0, fileName.length() - DATASET_EXT.length());
+        Path defPath = getDataSetsPath().resolve(fileName);
+        synchronized (this) {
+            String json = null;
+            DataSetDef def = null;
+            try {
+                if (ioService.exists(defPath)) {
+                    json = ioService.readAllString(defPath);
+                    if (json.equals(storedJson.get(uuid))) {
+                        return;
+                    }
+                    def = getDataSetDefJsonMarshaller().fromJson(json);
+                }
+            } catch (Exception e) {
+                log.error("Data set definition read error: " + fileName,
+                          e);
+                return;
+            }
+
+            if (def != null) {
+                storedJson.put(uuid,
+                               json);
+                super.registerDataSetDef(def,
+                                         null,
+                                         null);
+                catalog.put(def);
+            } else if (catalog.contains(uuid)) {
+                storedJson.remove(uuid);
+                super.removeDataSetDef(uuid,
+                                       null,
+                                       null);
+                catalog.remove(uuid);
+            }
+        }
+    }
+
     public org.uberfire.backend.vfs.Path resolveVfsPath(DataSetDef def) {
         return convert(resolveNioPath(def));
     }
@@ -208,9 +349,14 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
             if (def instanceof CSVDataSetDef) {
                 saveCSVFile((CSVDataSetDef) def);
             }
-            super.registerDataSetDef(def,
-                                     subjectId,
-                                     message);
+            synchronized (this) {
+                storedJson.put(def.getUUID(),
+                               defJson);
+                super.registerDataSetDef(def,
+                                         subjectId,
+                                         message);
+                catalog.put(def);
+            }
         } catch (Exception e) {
             throw exceptionManager.handleException(
                     new Exception("Can't register the data set definition\n" + def,
@@ -269,12 +415,24 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
                 ioService.endBatch();
             }
         }
-        return super.removeDataSetDef(def.getUUID(),
-                                      subjectId,
-                                      message);
+        synchronized (this) {
+            storedJson.remove(def.getUUID());
+            DataSetDef removed = super.removeDataSetDef(def.getUUID(),
+                                                        subjectId,
+                                                        message);
+            catalog.remove(def.getUUID());
+            return removed;
+        }
     }
 
+    /**
+     * @return The definitions stored in the file system, served from the in-memory catalog.
+     */
     public Collection<DataSetDef> listDataSetDefs() {
+        return catalog.getAll();
+    }
+
+    protected Collection<DataSetDef> readDataSetDefs() {
         final Collection<DataSetDef> result = new ArrayList<>();
 
         if (ioService.exists(root)) {
@@ -293,6 +451,8 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
                                      if (file.getFileName().toString().endsWith(DATASET_EXT) && attrs.isRegularFile()) {
                                          String json = ioService.readAllString(file);
                                          DataSetDef def = getDataSetDefJsonMarshaller().fromJson(json);
+                                         storedJson.put(def.getUUID(),
+                                                        json);
                                          result.add(def);
                                      }
                                  } catch (final Exception e) {
@@ -354,9 +514,14 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
             ioService.write(clonePath,
                             defJson);
 
-            super.registerDataSetDef(clone,
-                                     subjectId,
-                                     message);
+            synchronized (this) {
+                storedJson.put(clone.getUUID(),
+                               defJson);
+                super.registerDataSetDef(clone,
+                                         subjectId,
+                                         message);
+                catalog.put(clone);
+            }
             return clone;
         } catch (Exception e) {
             throw exceptionManager.handleException(
@@ -426,6 +591,9 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
     // CSV files storage
     //
 
+    /**
+     * Reads the whole CSV file into memory, {@link #getCSVInputStream(CSVDataSetDef)} should be used instead.
+     */
     @Override
     public String getCSVString(CSVDataSetDef def) {
         Path nioPath = resolveCsvPath(def);
@@ -487,11 +655,11 @@ public class DataSetDefRegistryCDI extends DataSetDefRegistryImpl implements CSV
                 throw exceptionManager.handleException(new Exception(msg));
             }
 
-            try {
-                Path defPath = resolveCsvPath(def);
-                String csvContent = FileUtils.readFileToString(csvFile);
-                ioService.write(defPath,
-                                csvContent);
+            Path defPath = resolveCsvPath(def);
+            try (InputStream in = new FileInputStream(csvFile);
+                 OutputStream out = ioService.newOutputStream(defPath)) {
+                IOUtils.copy(in,
+                             out);
             } catch (Exception e) {
                 String msg = "Error saving CSV file: " + csvFile;
                 throw exceptionManager.handleException(new Exception(msg,
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.def.DataSetDefFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataSetDefCatalogTest {
+
+    DataSetDefCatalog catalog;
+    DataSetDef csvDef;
+    DataSetDef beanDef;
+
+    @Before
+    public void setUp() {
+        catalog = new DataSetDefCatalog();
+        csvDef = DataSetDefFactory.newCSVDataSetDef().uuid("csv").buildDef();
+        beanDef = DataSetDefFactory.newBeanDataSetDef().uuid("bean").buildDef();
+        beanDef.setPublic(false);
+        catalog.load(Arrays.asList(csvDef, beanDef));
+    }
+
+    @Test
+    public void testLookup() {
+        assertEquals(2, catalog.size());
+        assertSame(csvDef, catalog.get("csv"));
+        assertNull(catalog.get("none"));
+        assertEquals(2, catalog.getAll().size());
+    }
+
+    @Test
+    public void testIndexes() {
+        assertEquals(Arrays.asList(csvDef), catalog.getPublic());
+        assertTrue(catalog.contains("bean"));
+        assertFalse(catalog.contains("none"));
+    }
+
+    @Test
+    public void testSnapshotsAreRefreshedOnWrite() {
+        List<DataSetDef> all = catalog.getAll();
+        assertSame(all, catalog.getAll());
+
+        DataSetDef modified = DataSetDefFactory.newBeanDataSetDef().uuid("csv").buildDef();
+        catalog.put(modified);
+
+        assertNotSame(all, catalog.getAll());
+        assertEquals(2, catalog.getAll().size());
+        assertSame(modified, catalog.get("csv"));
+        assertEquals(Arrays.asList(modified), catalog.getPublic());
+
+        assertSame(modified, catalog.remove("csv"));
+        assertNull(catalog.remove("csv"));
+        assertEquals(Arrays.asList(beanDef), catalog.getAll());
+        assertTrue(catalog.getPublic().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotsAreImmutable() {
+        catalog.getAll().clear();
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.backend.server.spaces.SpacesAPIImpl;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.StandardDeleteOption;
@@ -86,7 +87,8 @@ public class DataSetDefRegistryCDITest extends BaseCDITest {
                 dataSetDefModifiedEvent,
                 dataSetDefRegisteredEvent,
                 dataSetDefRemovedEvent,
-                dataSetStaleEvent));
+                dataSetStaleEvent,
+                new WatchEventRouter()));
 
         dataSetDefRegistry.init();
 
@@ -45,4 +45,9 @@ public class NavigationServicesImpl implements NavigationServices {
     public void saveNavTree(NavTree navTree) {
         storage.saveNavTree(navTree);
     }
+
+    @Override
+    public void saveNavTree(NavTree navTree, NavTree baseTree) {
+        storage.saveNavTree(navTree, baseTree);
+    }
 }
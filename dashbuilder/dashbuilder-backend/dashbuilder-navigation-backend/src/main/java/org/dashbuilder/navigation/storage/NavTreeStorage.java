@@ -15,45 +15,94 @@
  */
 package org.dashbuilder.navigation.storage;
 
-import java.net.URI;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.dashbuilder.navigation.NavFactory;
+import org.dashbuilder.navigation.NavItem;
 import org.dashbuilder.navigation.NavTree;
 import org.dashbuilder.navigation.json.NavTreeJSONMarshaller;
+import org.dashbuilder.navigation.service.NavTreeConflictException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
-import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
 import org.uberfire.java.nio.file.Path;
 
+/**
+ * Stores the navigation tree split by root item: every root item subtree is stored in its own file and an index
+ * file keeps the order of the root items plus a stamp for each of them, the hash of the subtree file content. The
+ * former single file layout (navtree.json) is still read and it's replaced on first save.
+ * <p>
+ * The parsed tree is cached in memory along with the hash of the index it was read from. Changes on the navigation
+ * files, received through a {@link WatchEventRouter} subscription, mark the cache as stale, in which case only the
+ * index is read again and just the subtrees whose stamp changed are parsed. As stamps derive from the content, nodes writing different trees never share a stamp.
+ * <p>
+ * Saves given the base tree are compare-and-set merges: only the subtrees changed from the base are written, and only
+ * if the stored subtree is still the base one, so concurrent editors changing different subtrees don't overwrite
+ * each other. The index is read again holding the file system lock, so the comparison is made against the tree
+ * stored by any node.
+ */
 @ApplicationScoped
 public class NavTreeStorage {
 
+    static final String INDEX_FILE = "navtree.index";
+
     private IOService ioService;
     private NavTreeJSONMarshaller jsonMarshaller;
     private Path root;
     private Logger log = LoggerFactory.getLogger(NavTreeStorage.class);
     private FileSystem fileSystem;
+    private WatchEventRouter watchEventRouter;
+    private WatchEventRouter.Subscription subscription;
+    private volatile StoredTree storedTree;
+    private volatile boolean stale = true;
 
     public NavTreeStorage() {
     }
 
     @Inject
     public NavTreeStorage(@Named("ioStrategy") IOService ioService,
-                          @Named("pluginsFS") FileSystem fileSystem) {
+                          @Named("pluginsFS") FileSystem fileSystem,
+                          WatchEventRouter watchEventRouter) {
         this.ioService = ioService;
         this.fileSystem = fileSystem;
+        this.watchEventRouter = watchEventRouter;
         this.jsonMarshaller = NavTreeJSONMarshaller.get();
     }
 
     @PostConstruct
     public void init() {
         this.root = fileSystem.getRootDirectories().iterator().next();
+        this.subscription = watchEventRouter.subscribe(getNavRootPath().toUri().toString(),
+                                                       event -> stale = true,
+                                                       () -> stale = true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
     }
 
     protected Path getNavRootPath() {
@@ -64,14 +113,202 @@ public class NavTreeStorage {
         return getNavRootPath().resolve("navtree.json");
     }
 
+    protected Path getNavTreeIndexPath() {
+        return getNavTreeRootPath().resolve(INDEX_FILE);
+    }
+
+    protected Path getNavTreeRootPath() {
+        return getNavRootPath().resolve("tree");
+    }
+
+    protected Path getNavItemPath(String key) {
+        try {
+            return getNavTreeRootPath().resolve(URLEncoder.encode(key, "UTF-8") + ".json");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public NavTree loadNavTree() {
-        Path path = getNavTreePath();
-        if (!ioService.exists(path)) {
-            return null;
+        StoredTree current = storedTree;
+        if (current == null || stale) {
+            synchronized (this) {
+                current = refresh();
+            }
+        }
+        return current.toNavTree();
+    }
+
+    /**
+     * Overwrites the stored tree, writing only the subtrees that differ from the stored ones.
+     */
+    public void saveNavTree(NavTree navTree) {
+        try {
+            saveNavTree(navTree, null);
+        } catch (Exception e) {
+            log.error("Can't save the navigation tree.",
+                      e);
+        }
+    }
+
+    /**
+     * Saves the changes made to the base tree. When the base tree is null the stored tree is overwritten.
+     *
+     * @throws NavTreeConflictException If a subtree changed from the base tree was also changed in the storage
+     */
+    public synchronized void saveNavTree(NavTree navTree, NavTree baseTree) {
+        ioService.startBatch(fileSystem);
+        try {
+            stale = true;
+            storedTree = merge(refresh(), navTree, baseTree);
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    /**
+     * @return the tree stored after merging the changes, which must be called holding the file system lock.
+     */
+    private StoredTree merge(StoredTree current, NavTree navTree, NavTree baseTree) {
+        Map<String, String> mine = toJson(navTree);
+        Map<String, String> base = baseTree != null ? toJson(baseTree) : current.getJson();
+        Map<String, String> stored = current.getJson();
+
+        Map<String, String> writes = new LinkedHashMap<>();
+        Set<String> deletes = new HashSet<>();
+        Set<String> keys = new LinkedHashSet<>(mine.keySet());
+        keys.addAll(base.keySet());
+        for (String key : keys) {
+            String item = mine.get(key);
+            String baseItem = base.get(key);
+            String storedItem = stored.get(key);
+            if (Objects.equals(item, baseItem) || Objects.equals(item, storedItem)) {
+                continue;
+            }
+            if (!Objects.equals(storedItem, baseItem)) {
+                throw new NavTreeConflictException(key);
+            }
+            if (item == null) {
+                deletes.add(key);
+            } else {
+                writes.put(key, item);
+            }
+        }
+
+        List<String> order = mergeOrder(new ArrayList<>(base.keySet()),
+                                        new ArrayList<>(mine.keySet()),
+                                        current.order);
+        Set<String> remaining = new HashSet<>(stored.keySet());
+        remaining.removeAll(deletes);
+        remaining.addAll(writes.keySet());
+        order.retainAll(remaining);
+        for (String key : mine.keySet()) {
+            if (remaining.contains(key) && !order.contains(key)) {
+                order.add(key);
+            }
+        }
+        for (String key : current.order) {
+            if (remaining.contains(key) && !order.contains(key)) {
+                order.add(key);
+            }
+        }
+
+        if (writes.isEmpty() && deletes.isEmpty() && order.equals(current.order) && current.exists && !current.legacy) {
+            return current;
+        }
+        return write(current, order, writes, deletes);
+    }
+
+    /**
+     * Merges the root item order: if only one side reordered its order is kept, otherwise the stored order is kept
+     * after removing the items deleted from the base and adding the new ones after their predecessor.
+     */
+    List<String> mergeOrder(List<String> base, List<String> mine, List<String> stored) {
+        if (mine.equals(base)) {
+            return new ArrayList<>(stored);
+        }
+        if (stored.equals(base)) {
+            return new ArrayList<>(mine);
+        }
+        List<String> baseKept = base.stream().filter(mine::contains).collect(Collectors.toList());
+        List<String> mineKept = mine.stream().filter(base::contains).collect(Collectors.toList());
+        if (!baseKept.equals(mineKept)) {
+            throw new NavTreeConflictException(null);
+        }
+        List<String> result = new ArrayList<>(stored);
+        result.removeIf(key -> base.contains(key) && !mine.contains(key));
+        for (int i = 0; i < mine.size(); i++) {
+            String key = mine.get(i);
+            if (base.contains(key) || result.contains(key)) {
+                continue;
+            }
+            int position = 0;
+            for (int j = i - 1; j >= 0; j--) {
+                int predecessor = result.indexOf(mine.get(j));
+                if (predecessor >= 0) {
+                    position = predecessor + 1;
+                    break;
+                }
+            }
+            result.add(position, key);
+        }
+        return result;
+    }
+
+    private StoredTree refresh() {
+        StoredTree current = storedTree;
+        if (current != null && !stale) {
+            return current;
+        }
+        stale = false;
+        Path indexPath = getNavTreeIndexPath();
+        if (ioService.exists(indexPath)) {
+            current = readIndex(indexPath, current);
+        } else {
+            current = readLegacy();
+        }
+        storedTree = current;
+        return current;
+    }
+
+    private StoredTree readIndex(Path indexPath, StoredTree cached) {
+        String index = ioService.readAllString(indexPath);
+        String stamp = stamp(index);
+        if (cached != null && !cached.legacy && stamp.equals(cached.stamp)) {
+            return cached;
         }
+        StoredTree result = new StoredTree(stamp, false, true);
+        for (String line : index.split("\n")) {
+            int separator = line.indexOf(' ');
+            if (separator < 0) {
+                continue;
+            }
+            String itemStamp = line.substring(0, separator);
+            String key = line.substring(separator + 1);
+            StoredItem item = cached != null ? cached.items.get(key) : null;
+            if (item == null || !item.stamp.equals(itemStamp)) {
+                item = readItem(key, itemStamp);
+            }
+            if (item != null) {
+                result.add(key, item);
+            }
+        }
+        return result;
+    }
+
+    private StoredItem readItem(String key, String stamp) {
+        Path path = getNavItemPath(key);
         try {
             String json = ioService.readAllString(path);
-            return jsonMarshaller.fromJson(json);
+            NavTree navTree = jsonMarshaller.fromJson(json);
+            if (navTree == null || navTree.getRootItems().isEmpty()) {
+                return null;
+            }
+            NavItem navItem = navTree.getRootItems().get(0);
+            return new StoredItem(stamp, toJson(navItem), navItem);
         } catch (Exception e) {
             log.error("Error parsing json definition: " + path.getFileName(),
                       e);
@@ -79,18 +316,152 @@ public class NavTreeStorage {
         }
     }
 
-    public void saveNavTree(NavTree navTree) {
-        ioService.startBatch(fileSystem);
+    private StoredTree readLegacy() {
+        Path path = getNavTreePath();
+        if (!ioService.exists(path)) {
+            return new StoredTree(null, false, false);
+        }
+        StoredTree result = new StoredTree(null, true, true);
         try {
-            String json = jsonMarshaller.toJson(navTree).toString();
-            Path path = getNavTreePath();
-            ioService.write(path,
-                            json);
+            NavTree navTree = jsonMarshaller.fromJson(ioService.readAllString(path));
+            if (navTree != null) {
+                toItems(navTree).forEach((key, navItem) -> result.add(key, new StoredItem(null, toJson(navItem), navItem)));
+            }
         } catch (Exception e) {
-            log.error("Can't save the navigation tree.",
+            log.error("Error parsing json definition: " + path.getFileName(),
                       e);
-        } finally {
-            ioService.endBatch();
+            return new StoredTree(null, false, false);
+        }
+        return result;
+    }
+
+    private StoredTree write(StoredTree current,
+                             List<String> order,
+                             Map<String, String> writes,
+                             Set<String> deletes) {
+        Map<String, StoredItem> items = new LinkedHashMap<>();
+        StringBuilder index = new StringBuilder();
+        for (String key : order) {
+            String json = writes.get(key);
+            StoredItem item = current.items.get(key);
+            if (json != null || current.legacy) {
+                if (json == null) {
+                    json = item.json;
+                }
+                String content = wrap(json);
+                ioService.write(getNavItemPath(key), content);
+                item = new StoredItem(stamp(content), json, parse(json));
+            }
+            items.put(key, item);
+            index.append(item.stamp).append(' ').append(key).append('\n');
+        }
+        for (String key : deletes) {
+            ioService.deleteIfExists(getNavItemPath(key));
+        }
+        ioService.write(getNavTreeIndexPath(), index.toString());
+        if (current.legacy) {
+            ioService.deleteIfExists(getNavTreePath());
+        }
+        StoredTree result = new StoredTree(stamp(index.toString()), false, true);
+        items.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * @return the hex encoded SHA-1 hash of the content.
+     */
+    static String stamp(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder();
+            for (byte b : hash) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, String> toJson(NavTree navTree) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (navTree != null) {
+            toItems(navTree).forEach((key, navItem) -> result.put(key, toJson(navItem)));
+        }
+        return result;
+    }
+
+    private Map<String, NavItem> toItems(NavTree navTree) {
+        Map<String, NavItem> result = new LinkedHashMap<>();
+        List<NavItem> rootItems = navTree.getRootItems();
+        for (int i = 0; i < rootItems.size(); i++) {
+            NavItem navItem = rootItems.get(i);
+            result.put(navItem.getId() != null ? navItem.getId() : "#" + i, navItem);
+        }
+        return result;
+    }
+
+    private String toJson(NavItem navItem) {
+        return jsonMarshaller.toJson(navItem).toString();
+    }
+
+    private String wrap(String itemJson) {
+        return "{\"root_items\":[" + itemJson + "]}";
+    }
+
+    private NavItem parse(String itemJson) {
+        return jsonMarshaller.fromJson(wrap(itemJson)).getRootItems().get(0);
+    }
+
+    private static class StoredItem {
+
+        private final String stamp;
+        private final String json;
+        private final NavItem navItem;
+
+        private StoredItem(String stamp, String json, NavItem navItem) {
+            this.stamp = stamp;
+            this.json = json;
+            this.navItem = navItem;
+        }
+    }
+
+    private static class StoredTree {
+
+        private final String stamp;
+        private final boolean legacy;
+        private final boolean exists;
+        private final List<String> order = new ArrayList<>();
+        private final Map<String, StoredItem> items = new HashMap<>();
+
+        private StoredTree(String stamp, boolean legacy, boolean exists) {
+            this.stamp = stamp;
+            this.legacy = legacy;
+            this.exists = exists;
+        }
+
+        private void add(String key, StoredItem item) {
+            order.add(key);
+            items.put(key, item);
+        }
+
+        private Map<String, String> getJson() {
+            Map<String, String> result = new LinkedHashMap<>();
+            order.forEach(key -> result.put(key, items.get(key).json));
+            return result;
+        }
+
+        private NavTree toNavTree() {
+            if (!exists) {
+                return null;
+            }
+            NavTree navTree = NavFactory.get().createNavTree();
+            for (String key : order) {
+                NavItem navItem = items.get(key).navItem.cloneItem();
+                navItem.setParent(null);
+                navTree.getRootItems().add(navItem);
+            }
+            return navTree;
         }
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.navigation.storage;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dashbuilder.navigation.NavTree;
+import org.dashbuilder.navigation.impl.NavTreeBuilder;
+import org.dashbuilder.navigation.service.NavTreeConflictException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NavTreeStorageTest {
+
+    @Mock
+    IOService ioService;
+
+    @Mock
+    FileSystem fileSystem;
+
+    @Mock
+    Path root;
+
+    @Mock
+    Path navRoot;
+
+    @Mock
+    Path legacyPath;
+
+    @Mock
+    Path treeRoot;
+
+    Map<String, Path> paths = new HashMap<>();
+    Map<Path, String> files = new HashMap<>();
+    // Whether the file system lock was held by every read of the index
+    List<Boolean> indexReads = new ArrayList<>();
+    int batches = 0;
+    WatchEventRouter watchEventRouter = new WatchEventRouter();
+    NavTreeStorage storage;
+
+    NavTree NAV_TREE = new NavTreeBuilder()
+            .group("A", "A", "A", true)
+            .item("A1", "A1", "A1", true)
+            .endGroup()
+            .group("B", "B", "B", true)
+            .item("B1", "B1", "B1", true)
+            .endGroup()
+            .build();
+
+    @Before
+    public void setUp() {
+        when(fileSystem.getRootDirectories()).thenReturn(Collections.singletonList(root));
+        when(root.resolve("navigation")).thenReturn(navRoot);
+        when(navRoot.resolve("navtree.json")).thenReturn(legacyPath);
+        when(navRoot.resolve("tree")).thenReturn(treeRoot);
+        when(navRoot.toUri()).thenReturn(URI.create("default://plugins/navigation"));
+        doAnswer(invocation -> paths.computeIfAbsent(invocation.getArgumentAt(0, String.class),
+                                                     name -> mock(Path.class)))
+                .when(treeRoot).resolve(anyString());
+
+        setUpFiles();
+
+        storage = new NavTreeStorage(ioService, fileSystem, watchEventRouter);
+        storage.init();
+    }
+
+    void setUpFiles() {
+        doAnswer(invocation -> files.containsKey(invocation.getArgumentAt(0, Path.class)))
+                .when(ioService).exists(any(Path.class));
+        doAnswer(invocation -> {
+            Path path = invocation.getArgumentAt(0, Path.class);
+            if (path == paths.get(NavTreeStorage.INDEX_FILE)) {
+                indexReads.add(batches > 0);
+            }
+            return files.get(path);
+        }).when(ioService).readAllString(any(Path.class));
+        doAnswer(invocation -> batches++).when(ioService).startBatch(any(FileSystem.class));
+        doAnswer(invocation -> batches--).when(ioService).endBatch();
+        doAnswer(invocation -> files.put(invocation.getArgumentAt(0, Path.class), invocation.getArgumentAt(1, String.class)))
+                .when(ioService).write(any(Path.class), anyString());
+        doAnswer(invocation -> files.remove(invocation.getArgumentAt(0, Path.class)) != null)
+                .when(ioService).deleteIfExists(any(Path.class));
+    }
+
+    @Test
+    public void testNoTreeStored() {
+        assertNull(storage.loadNavTree());
+    }
+
+    @Test
+    public void testRootItemsAreStoredSeparately() {
+        storage.saveNavTree(NAV_TREE);
+
+        assertTrue(files.containsKey(paths.get("A.json")));
+        assertTrue(files.containsKey(paths.get("B.json")));
+        assertEquals(index("A", "B"), files.get(paths.get(NavTreeStorage.INDEX_FILE)));
+
+        NavTree navTree = storage.loadNavTree();
+        assertEquals(2, navTree.getRootItems().size());
+        assertEquals("A", navTree.getRootItems().get(0).getId());
+        assertEquals("B1", navTree.getItemById("B1").getId());
+    }
+
+    @Test
+    public void testOnlyChangedRootItemsAreWritten() {
+        storage.saveNavTree(NAV_TREE);
+        NavTree navTree = storage.loadNavTree();
+        navTree.setItemName("B1", "changed");
+        storage.saveNavTree(navTree, storage.loadNavTree());
+
+        verify(ioService, times(1)).write(eq(paths.get("A.json")), anyString());
+        verify(ioService, times(2)).write(eq(paths.get("B.json")), anyString());
+        assertEquals(index("A", "B"), files.get(paths.get(NavTreeStorage.INDEX_FILE)));
+        assertEquals("changed", storage.loadNavTree().getItemById("B1").getName());
+    }
+
+    @Test
+    public void testConcurrentChangesOfDifferentRootItemsAreMerged() {
+        storage.saveNavTree(NAV_TREE);
+        NavTree base = storage.loadNavTree();
+
+        NavTree first = base.cloneTree();
+        first.setItemName("A1", "first");
+        storage.saveNavTree(first, base);
+
+        NavTree second = base.cloneTree();
+        second.setItemName("B1", "second");
+        second.addGroup("C", "C", "C", null, true);
+        storage.saveNavTree(second, base);
+
+        NavTree navTree = storage.loadNavTree();
+        assertEquals("first", navTree.getItemById("A1").getName());
+        assertEquals("second", navTree.getItemById("B1").getName());
+        assertEquals("C", navTree.getRootItems().get(2).getId());
+    }
+
+    @Test
+    public void testConcurrentChangesOfTheSameRootItemConflict() {
+        storage.saveNavTree(NAV_TREE);
+        NavTree base = storage.loadNavTree();
+
+        NavTree first = base.cloneTree();
+        first.setItemName("B1", "first");
+        storage.saveNavTree(first, base);
+
+        NavTree second = base.cloneTree();
+        second.deleteItem("B1");
+        try {
+            storage.saveNavTree(second, base);
+            fail("Should throw exception before this point");
+        } catch (NavTreeConflictException e) {
+            assertEquals("B", e.getItemId());
+        }
+        assertEquals("first", storage.loadNavTree().getItemById("B1").getName());
+    }
+
+    @Test
+    public void testStaleCacheParsesOnlyChangedRootItems() {
+        storage.saveNavTree(NAV_TREE);
+        storage.loadNavTree();
+        storage.loadNavTree();
+        verify(ioService, never()).readAllString(paths.get(NavTreeStorage.INDEX_FILE));
+
+        // Another node changes the B subtree
+        NavTreeStorage otherNode = otherNode();
+        NavTree navTree = otherNode.loadNavTree();
+        navTree.setItemName("B1", "remote");
+        otherNode.saveNavTree(navTree);
+        reset(ioService);
+        setUpFiles();
+
+        // The change arrives after the file system change
+        notifyChange("default://plugins/navigation/tree/B.json");
+
+        assertEquals("remote", storage.loadNavTree().getItemById("B1").getName());
+        verify(ioService, times(1)).readAllString(paths.get(NavTreeStorage.INDEX_FILE));
+        verify(ioService, never()).readAllString(paths.get("A.json"));
+        verify(ioService, times(1)).readAllString(paths.get("B.json"));
+    }
+
+    @Test
+    public void testChangesOutsideNavigationAreIgnored() {
+        storage.saveNavTree(NAV_TREE);
+        storage.loadNavTree();
+        files.put(paths.get(NavTreeStorage.INDEX_FILE), index("A"));
+
+        notifyChange("default://plugins/navigation2/tree/navtree.index");
+        notifyChange("default://plugins/perspectives/navtree.index");
+
+        assertEquals(2, storage.loadNavTree().getRootItems().size());
+    }
+
+    @Test
+    public void testTreeOverwrittenByOtherNodeIsRead() {
+        storage.saveNavTree(NAV_TREE);
+        NavTreeStorage otherNode = otherNode();
+        NavTree remote = otherNode.loadNavTree();
+
+        NavTree local = storage.loadNavTree();
+        local.setItemName("B1", "local");
+        storage.saveNavTree(local);
+
+        // Another node, not notified of the local save yet, overwrites the tree with the same number of changes
+        remote.setItemName("B1", "remote");
+        otherNode.saveNavTree(remote);
+
+        notifyChange("default://plugins/navigation/tree/navtree.index");
+        assertEquals("remote", storage.loadNavTree().getItemById("B1").getName());
+    }
+
+    @Test
+    public void testSaveComparesWithTheTreeStoredByOtherNodes() {
+        storage.saveNavTree(NAV_TREE);
+        NavTree base = storage.loadNavTree();
+
+        // Another node changes the B subtree and this node is not notified yet
+        NavTreeStorage otherNode = otherNode();
+        NavTree remote = otherNode.loadNavTree();
+        remote.setItemName("B1", "remote");
+        otherNode.saveNavTree(remote);
+
+        NavTree first = base.cloneTree();
+        first.setItemName("B1", "first");
+        indexReads.clear();
+        try {
+            storage.saveNavTree(first, base);
+            fail("Should throw exception before this point");
+        } catch (NavTreeConflictException e) {
+            assertEquals("B", e.getItemId());
+        }
+        // The index was read again holding the file system lock
+        assertEquals(Arrays.asList(true), indexReads);
+
+        NavTree second = base.cloneTree();
+        second.setItemName("A1", "second");
+        storage.saveNavTree(second, base);
+        NavTree navTree = storage.loadNavTree();
+        assertEquals("second", navTree.getItemById("A1").getName());
+        assertEquals("remote", navTree.getItemById("B1").getName());
+    }
+
+    @Test
+    public void testLegacyTreeIsMigratedOnSave() {
+        storage.saveNavTree(NAV_TREE);
+        String legacyJson = files.get(paths.get("A.json"));
+        files.clear();
+        paths.clear();
+        files.put(legacyPath, legacyJson);
+        storage = new NavTreeStorage(ioService, fileSystem, watchEventRouter);
+        storage.init();
+
+        NavTree navTree = storage.loadNavTree();
+        assertEquals("A", navTree.getRootItems().get(0).getId());
+
+        storage.saveNavTree(navTree, navTree.cloneTree());
+        assertFalse(files.containsKey(legacyPath));
+        assertTrue(files.containsKey(paths.get("A.json")));
+        assertEquals(index("A"), files.get(paths.get(NavTreeStorage.INDEX_FILE)));
+    }
+
+    NavTreeStorage otherNode() {
+        NavTreeStorage otherNode = new NavTreeStorage(ioService, fileSystem, new WatchEventRouter());
+        otherNode.init();
+        return otherNode;
+    }
+
+    void notifyChange(String uri) {
+        Map<org.uberfire.backend.vfs.Path, Collection<ResourceChange>> changes = new HashMap<>();
+        changes.put(PathFactory.newPath(uri.substring(uri.lastIndexOf('/') + 1), uri),
+                    Collections.singletonList(new ResourceUpdated("")));
+        watchEventRouter.route(changes, "", mock(SessionInfo.class));
+    }
+
+    String index(String... keys) {
+        StringBuilder index = new StringBuilder();
+        for (String key : keys) {
+            index.append(NavTreeStorage.stamp(files.get(paths.get(key + ".json")))).append(' ').append(key).append('\n');
+        }
+        return index.toString();
+    }
+}
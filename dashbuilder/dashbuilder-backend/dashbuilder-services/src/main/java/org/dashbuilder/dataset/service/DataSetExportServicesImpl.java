@@ -16,6 +16,7 @@
 package org.dashbuilder.dataset.service;
 
 import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
@@ -23,12 +24,11 @@ import java.math.BigInteger;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -56,6 +56,7 @@ import org.dashbuilder.dataset.DataSetDefRegistryCDI;
 import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetManagerCDI;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.sort.DataSetSort;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
 import org.dashbuilder.exception.ExceptionManager;
 import org.jboss.errai.bus.server.annotations.Service;
@@ -70,6 +71,9 @@ import org.uberfire.java.nio.file.Path;
 public class DataSetExportServicesImpl implements DataSetExportServices {
 
     private static final String TEXT_CELL = "text_cell";
+    private static final String EXPORT_CHUNK_SIZE_PROPERTY = "org.dashbuilder.dataset.export.chunkSize";
+    private static final int WIDTH_SAMPLE_ROWS = 100;
+    private static final int MAX_COLUMN_WIDTH = 255;
     protected static Logger log = LoggerFactory.getLogger(DataSetExportServicesImpl.class);
     protected DataSetManagerCDI dataSetManager;
     protected DataSetDefRegistryCDI gitStorage;
@@ -83,8 +87,7 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
     protected String dateFormatPattern = "dd/MM/yyyy HH:mm:ss";
     protected String numberFormatPattern = "#,###.##########";
 
-    protected DecimalFormat decf = new DecimalFormat(numberFormatPattern);
-    protected DateFormat datef = new SimpleDateFormat(dateFormatPattern);
+    protected int exportChunkSize = Integer.getInteger(EXPORT_CHUNK_SIZE_PROPERTY, 10000);
 
     public DataSetExportServicesImpl() {
     }
@@ -100,8 +103,16 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
     }
 
     public org.uberfire.backend.vfs.Path exportDataSetCSV(DataSetLookup lookup) {
-        DataSet dataSet = dataSetManager.lookupDataSet(lookup);
-        return exportDataSetCSV(dataSet);
+        try {
+            Path tempCsvPath = gitStorage.createTempFile(uuidGenerator.newUuid() + ".csv");
+            try (OutputStream os = Files.newOutputStream(tempCsvPath)) {
+                writeCSV(lookup, os);
+            }
+            return Paths.convert(tempCsvPath);
+        }
+        catch (Exception e) {
+            throw exceptionManager.handleException(e);
+        }
     }
 
     public org.uberfire.backend.vfs.Path exportDataSetCSV(DataSet dataSet) {
@@ -109,38 +120,12 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
             if (dataSet == null) {
                 throw new IllegalArgumentException("Null dataSet specified!");
             }
-            int columnCount = dataSet.getColumns().size();
-            int rowCount = dataSet.getRowCount();
-
-            List<String[]> lines = new ArrayList<>(rowCount+1);
-
-            String[] line = new String[columnCount];
-            for (int cc = 0; cc < columnCount; cc++) {
-                DataColumn dc = dataSet.getColumnByIndex(cc);
-                line[cc] = dc.getId();
-            }
-            lines.add(line);
-
-            for (int rc = 0; rc < rowCount; rc++) {
-                line = new String[columnCount];
-                for (int cc = 0; cc < columnCount; cc++) {
-                    line[cc] = formatAsString(dataSet.getValueAt(rc, cc));
-                }
-                lines.add(line);
+            Path tempCsvPath = gitStorage.createTempFile(uuidGenerator.newUuid() + ".csv");
+            try (OutputStream os = Files.newOutputStream(tempCsvPath)) {
+                CsvExport export = new CsvExport(os);
+                export.append(dataSet);
+                export.flush();
             }
-
-            String tempCsvFile = uuidGenerator.newUuid() + ".csv";
-            Path tempCsvPath = gitStorage.createTempFile(tempCsvFile);
-
-            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tempCsvPath)));
-            CSVWriter writer = new CSVWriter(bw,
-                    DEFAULT_SEPARATOR_CHAR.charAt(0),
-                    DEFAULT_QUOTE_CHAR.charAt(0),
-                    DEFAULT_ESCAPE_CHAR.charAt(0));
-            writer.writeAll(lines);
-            writer.close();
-            writer.flush();
-            writer.close();
             return Paths.convert(tempCsvPath);
         }
         catch (Exception e) {
@@ -148,17 +133,35 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
         }
     }
 
+    //Package private to enable testing
+    void writeCSV(DataSetLookup lookup, OutputStream os) throws IOException {
+        CsvExport export = new CsvExport(os);
+        lookupInChunks(lookup, export::append);
+        export.flush();
+    }
+
     @Override
     public org.uberfire.backend.vfs.Path exportDataSetExcel(DataSetLookup dataSetLookup) {
-        DataSet dataSet = dataSetManager.lookupDataSet( dataSetLookup );
-        return exportDataSetExcel( dataSet );
+        try {
+            WorkbookExport export = new WorkbookExport();
+            lookupInChunks(dataSetLookup, export::append);
+            return writeWorkbook(export.finish());
+        } catch (Exception e) {
+            throw exceptionManager.handleException(e);
+        }
     }
 
     @Override
     public org.uberfire.backend.vfs.Path exportDataSetExcel(DataSet dataSet) {
         try {
-            SXSSFWorkbook wb = dataSetToWorkbook(dataSet);
+            return writeWorkbook(dataSetToWorkbook(dataSet));
+        } catch (Exception e) {
+            throw exceptionManager.handleException(e);
+        }
+    }
 
+    private org.uberfire.backend.vfs.Path writeWorkbook(SXSSFWorkbook wb) throws IOException {
+        try {
             // Write workbook to Path
             String tempXlsFile = uuidGenerator.newUuid() + ".xlsx";
             Path tempXlsPath = gitStorage.createTempFile(tempXlsFile);
@@ -166,95 +169,215 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
                 wb.write(os);
                 os.flush();
             }
-
+            return Paths.convert(tempXlsPath);
+        } finally {
             // Dispose of temporary files backing this workbook on disk
             if (!wb.dispose()) {
                 log.warn("Could not dispose of temporary file associated to data export!");
             }
-            return Paths.convert(tempXlsPath);
-        } catch (Exception e) {
-            throw exceptionManager.handleException(e);
         }
     }
 
     //Package private to enable testing
     SXSSFWorkbook dataSetToWorkbook(DataSet dataSet) {
-        // TODO?: Excel 2010 limits: 1,048,576 rows by 16,384 columns; row width 255 characters
         if (dataSet == null) {
             throw new IllegalArgumentException("Null dataSet specified!");
         }
-        int columnCount = dataSet.getColumns().size();
-        int rowCount = dataSet.getRowCount() + 1; //Include header row;
-        int row = 0;
-
-        SXSSFWorkbook wb = new SXSSFWorkbook(100); // keep 100 rows in memory, exceeding rows will be flushed to disk
-        Map<String, CellStyle> styles = createStyles(wb);
-        SXSSFSheet sh = wb.createSheet("Sheet 1");
-
-        // General setup
-        sh.setDisplayGridlines(true);
-        sh.setPrintGridlines(false);
-        sh.setFitToPage(true);
-        sh.setHorizontallyCenter(true);
-        sh.trackAllColumnsForAutoSizing();
-        PrintSetup printSetup = sh.getPrintSetup();
-        printSetup.setLandscape(true);
-
-        // Create header
-        Row header = sh.createRow(row++);
-        header.setHeightInPoints(20f);
-        for (int i = 0; i < columnCount; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellStyle(styles.get("header"));
-            cell.setCellValue(dataSet.getColumnByIndex(i).getId());
+        WorkbookExport export = new WorkbookExport();
+        export.append(dataSet);
+        return export.finish();
+    }
+
+    /**
+     * Runs the lookup in chunks of {@link #exportChunkSize} rows, so only one chunk of the data set
+     * is held in memory at a time. The row offset and number of rows of the lookup are honoured.
+     * A lookup without a sort is run in a single pass, because providers do not guarantee the same
+     * row order between lookups and the chunks could then skip or repeat rows.
+     */
+    void lookupInChunks(DataSetLookup lookup, Consumer<DataSet> consumer) {
+        if (lookup.getOperationList(DataSetSort.class).isEmpty()) {
+            DataSet dataSet = dataSetManager.lookupDataSet(lookup);
+            if (dataSet == null) {
+                throw new IllegalArgumentException("Null dataSet specified!");
+            }
+            consumer.accept(dataSet);
+            return;
+        }
+        int offset = Math.max(lookup.getRowOffset(), 0);
+        int limit = lookup.getNumberOfRows();
+        int exported = 0;
+        while (true) {
+            int chunkSize = limit > 0 ? Math.min(exportChunkSize, limit - exported) : exportChunkSize;
+            DataSetLookup chunkLookup = lookup.cloneInstance();
+            chunkLookup.setRowOffset(offset + exported);
+            chunkLookup.setNumberOfRows(chunkSize);
+
+            DataSet chunk = dataSetManager.lookupDataSet(chunkLookup);
+            if (chunk == null) {
+                if (exported == 0) {
+                    throw new IllegalArgumentException("Null dataSet specified!");
+                }
+                return;
+            }
+            consumer.accept(chunk);
+            exported += chunk.getRowCount();
+            if (chunk.getRowCount() < chunkSize || (limit > 0 && exported >= limit)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Formatters are not thread safe, every export gets its own instances.
+     */
+    private class ValueFormatter {
+
+        private final DecimalFormat decf = new DecimalFormat(numberFormatPattern);
+        private final DateFormat datef = new SimpleDateFormat(dateFormatPattern);
+
+        private String formatAsString(Object value) {
+            if (value == null) return "";
+            if (value instanceof Number) return decf.format(value);
+            else if (value instanceof Date) return datef.format(value);
+            // TODO verify if this is correct
+            else if (value instanceof Interval) return ((Interval)value).getName();
+            else return value.toString();
+        }
+    }
+
+    private class CsvExport {
+
+        private final ValueFormatter formatter = new ValueFormatter();
+        private final CSVWriter writer;
+        private boolean headerWritten = false;
+
+        private CsvExport(OutputStream os) {
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(os));
+            writer = new CSVWriter(bw,
+                    DEFAULT_SEPARATOR_CHAR.charAt(0),
+                    DEFAULT_QUOTE_CHAR.charAt(0),
+                    DEFAULT_ESCAPE_CHAR.charAt(0));
         }
 
-        // Create data rows
-        for (; row < rowCount; row++) {
-            Row _row = sh.createRow(row);
-            for (int cellnum = 0; cellnum < columnCount; cellnum++) {
-                Cell cell = _row.createCell(cellnum);
-                Object value = dataSet.getValueAt(row - 1,
-                                                  cellnum);
-                if (value instanceof Short || value instanceof Long || value instanceof Integer || value instanceof BigInteger) {
-                    cell.setCellType(CellType.NUMERIC);
-                    cell.setCellStyle(styles.get("integer_number_cell"));
-                    cell.setCellValue(((Number) value).doubleValue());
-                } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
-                    cell.setCellType(CellType.NUMERIC);
-                    cell.setCellStyle(styles.get("decimal_number_cell"));
-                    cell.setCellValue(((Number) value).doubleValue());
-                } else if (value instanceof Date) {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get("date_cell"));
-                    cell.setCellValue((Date) value);
-                } else if (value instanceof Interval) {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get(TEXT_CELL));
-                    cell.setCellValue(((Interval) value).getName());
-                } else {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get(TEXT_CELL));
-                    String val = value == null ? "" : value.toString();
-                    cell.setCellValue(val);
+        private void append(DataSet dataSet) {
+            int columnCount = dataSet.getColumns().size();
+            String[] line = new String[columnCount];
+            if (!headerWritten) {
+                for (int cc = 0; cc < columnCount; cc++) {
+                    DataColumn dc = dataSet.getColumnByIndex(cc);
+                    line[cc] = dc.getId();
                 }
+                writer.writeNext(line);
+                headerWritten = true;
+            }
+
+            int rowCount = dataSet.getRowCount();
+            for (int rc = 0; rc < rowCount; rc++) {
+                for (int cc = 0; cc < columnCount; cc++) {
+                    line[cc] = formatter.formatAsString(dataSet.getValueAt(rc, cc));
+                }
+                writer.writeNext(line);
             }
         }
 
-        // Adjust column size
-        for (int i = 0; i < columnCount; i++) {
-            sh.autoSizeColumn(i);
+        private void flush() throws IOException {
+            // Closing the underlying stream is up to the caller
+            writer.flush();
         }
-        return wb;
     }
 
-    private String formatAsString(Object value) {
-        if (value == null) return "";
-        if (value instanceof Number) return decf.format(value);
-        else if (value instanceof Date) return datef.format(value);
-        // TODO verify if this is correct
-        else if (value instanceof Interval) return ((Interval)value).getName();
-        else return value.toString();
+    /**
+     * Rows are streamed to the workbook, which keeps only a window of them in memory.
+     * Column widths are estimated from the first {@link #WIDTH_SAMPLE_ROWS} rows, as
+     * auto sizing the columns of a streaming sheet tracks every single cell written.
+     */
+    private class WorkbookExport {
+
+        private final ValueFormatter formatter = new ValueFormatter();
+        private final SXSSFWorkbook wb = new SXSSFWorkbook(100); // keep 100 rows in memory, exceeding rows will be flushed to disk
+        private final Map<String, CellStyle> styles = createStyles(wb);
+        private final SXSSFSheet sh = wb.createSheet("Sheet 1");
+        private int[] columnWidths;
+        private int row = 0;
+
+        private WorkbookExport() {
+            // General setup
+            sh.setDisplayGridlines(true);
+            sh.setPrintGridlines(false);
+            sh.setFitToPage(true);
+            sh.setHorizontallyCenter(true);
+            PrintSetup printSetup = sh.getPrintSetup();
+            printSetup.setLandscape(true);
+        }
+
+        private void append(DataSet dataSet) {
+            // TODO?: Excel 2010 limits: 1,048,576 rows by 16,384 columns; row width 255 characters
+            int columnCount = dataSet.getColumns().size();
+            if (columnWidths == null) {
+                columnWidths = new int[columnCount];
+
+                // Create header
+                Row header = sh.createRow(row++);
+                header.setHeightInPoints(20f);
+                for (int i = 0; i < columnCount; i++) {
+                    Cell cell = header.createCell(i);
+                    cell.setCellStyle(styles.get("header"));
+                    String id = dataSet.getColumnByIndex(i).getId();
+                    cell.setCellValue(id);
+                    sampleWidth(i, id);
+                }
+            }
+
+            // Create data rows
+            int rowCount = dataSet.getRowCount();
+            for (int rc = 0; rc < rowCount; rc++, row++) {
+                Row _row = sh.createRow(row);
+                for (int cellnum = 0; cellnum < columnCount; cellnum++) {
+                    Cell cell = _row.createCell(cellnum);
+                    Object value = dataSet.getValueAt(rc,
+                                                      cellnum);
+                    if (value instanceof Short || value instanceof Long || value instanceof Integer || value instanceof BigInteger) {
+                        cell.setCellType(CellType.NUMERIC);
+                        cell.setCellStyle(styles.get("integer_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
+                        cell.setCellType(CellType.NUMERIC);
+                        cell.setCellStyle(styles.get("decimal_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Date) {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get("date_cell"));
+                        cell.setCellValue((Date) value);
+                    } else if (value instanceof Interval) {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get(TEXT_CELL));
+                        cell.setCellValue(((Interval) value).getName());
+                    } else {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get(TEXT_CELL));
+                        String val = value == null ? "" : value.toString();
+                        cell.setCellValue(val);
+                    }
+                    if (row <= WIDTH_SAMPLE_ROWS) {
+                        sampleWidth(cellnum, formatter.formatAsString(value));
+                    }
+                }
+            }
+        }
+
+        private void sampleWidth(int column, String value) {
+            columnWidths[column] = Math.max(columnWidths[column], value.length());
+        }
+
+        private SXSSFWorkbook finish() {
+            // Adjust column size
+            if (columnWidths != null) {
+                for (int i = 0; i < columnWidths.length; i++) {
+                    sh.setColumnWidth(i, Math.min(columnWidths[i] + 2, MAX_COLUMN_WIDTH) * 256);
+                }
+            }
+            return wb;
+        }
     }
 
     private Map<String, CellStyle> createStyles(Workbook wb){
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.dashbuilder.config.Config;
+import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetDefRegistryCDI;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.events.DataSetDefModifiedEvent;
+import org.dashbuilder.dataset.events.DataSetDefRegisteredEvent;
+import org.dashbuilder.dataset.events.DataSetDefRemovedEvent;
+import org.dashbuilder.dataset.events.DataSetStaleEvent;
+
+/**
+ * Bounded cache of data set lookup results.
+ *
+ * <p>Entries are keyed on the lookup, the data set UUID and the version of its definition. The version
+ * is increased on every register, modify, remove or stale event of the definition, so results computed
+ * against a previous version are never served again, even if the lookup was in flight at the time.</p>
+ *
+ * <p>Only lookups against registered definitions whose data can be kept in memory are cached: definitions
+ * with the backend cache enabled (stale events are fired when they need a refresh) and CSV files.</p>
+ */
+@ApplicationScoped
+public class DataSetLookupCache {
+
+    protected DataSetDefRegistryCDI dataSetDefRegistry;
+    protected int maxEntries;
+    protected int maxRows;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<CacheKey, DataSet> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public DataSetLookupCache() {
+    }
+
+    @Inject
+    public DataSetLookupCache(DataSetDefRegistryCDI dataSetDefRegistry,
+                              @Config("500") int maxEntries,
+                              @Config("10000") int maxRows) {
+        this.dataSetDefRegistry = dataSetDefRegistry;
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Returns the cached result of the lookup, or runs it and caches the result if possible.
+     */
+    public DataSet lookupDataSet(DataSetLookup lookup, Function<DataSetLookup, DataSet> loader) {
+        if (!isCacheable(lookup)) {
+            return loader.apply(lookup);
+        }
+
+        // The version is read before running the lookup: if the definition changes meanwhile the result is stored under a stale key
+        CacheKey key = new CacheKey(lookup.getDataSetUUID(), version(lookup.getDataSetUUID()).get(), lookup.cloneInstance());
+        synchronized (entries) {
+            DataSet cached = entries.get(key);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                return cached;
+            }
+        }
+
+        missCount.incrementAndGet();
+        DataSet dataSet = loader.apply(lookup);
+        if (dataSet != null && dataSet.getRowCount() <= maxRows) {
+            put(key, dataSet);
+        }
+        return dataSet;
+    }
+
+    public void invalidate(String uuid) {
+        if (uuid == null) {
+            return;
+        }
+        version(uuid).incrementAndGet();
+        synchronized (entries) {
+            Iterator<CacheKey> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (uuid.equals(it.next().uuid)) {
+                    it.remove();
+                    evictionCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        synchronized (entries) {
+            evictionCount.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Listen to changes on the data set definition registry
+
+    protected void onDataSetDefRegisteredEvent(@Observes DataSetDefRegisteredEvent event) {
+        invalidate(event.getDataSetDef().getUUID());
+    }
+
+    protected void onDataSetDefModifiedEvent(@Observes DataSetDefModifiedEvent event) {
+        invalidate(event.getOldDataSetDef().getUUID());
+        invalidate(event.getNewDataSetDef().getUUID());
+    }
+
+    protected void onDataSetDefRemovedEvent(@Observes DataSetDefRemovedEvent event) {
+        invalidate(event.getDataSetDef().getUUID());
+        versions.remove(event.getDataSetDef().getUUID());
+    }
+
+    protected void onDataSetStaleEvent(@Observes DataSetStaleEvent event) {
+        invalidate(event.getDataSetDef().getUUID());
+    }
+
+    protected boolean isCacheable(DataSetLookup lookup) {
+        if (maxEntries <= 0 || lookup == null || lookup.getDataSetUUID() == null) {
+            return false;
+        }
+        DataSetDef def = dataSetDefRegistry.getDataSetDef(lookup.getDataSetUUID());
+        return def != null && (def.isCacheEnabled() || DataSetProviderType.CSV.equals(def.getProvider()));
+    }
+
+    private AtomicLong version(String uuid) {
+        return versions.computeIfAbsent(uuid, k -> new AtomicLong());
+    }
+
+    private void put(CacheKey key, DataSet dataSet) {
+        synchronized (entries) {
+            if (key.version != version(key.uuid).get()) {
+                return;
+            }
+            entries.put(key, dataSet);
+            Iterator<CacheKey> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static class CacheKey {
+
+        private final String uuid;
+        private final long version;
+        private final DataSetLookup lookup;
+
+        private CacheKey(String uuid, long version, DataSetLookup lookup) {
+            this.uuid = uuid;
+            this.version = version;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return version == other.version && uuid.equals(other.uuid) && lookup.equals(other.lookup);
+        }
+
+        @Override
+        public int hashCode() {
+            // Coarse on purpose, the lookup operations are only compared on equals
+            return Objects.hash(uuid, version, lookup.getRowOffset(), lookup.getNumberOfRows(), lookup.getOperationList().size());
+        }
+    }
+}
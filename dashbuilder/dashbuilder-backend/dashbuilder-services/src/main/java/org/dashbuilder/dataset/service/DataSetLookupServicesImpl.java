@@ -16,6 +16,12 @@
 package org.dashbuilder.dataset.service;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -35,6 +41,7 @@ import org.jboss.errai.bus.server.annotations.Service;
 import org.jboss.errai.bus.server.api.RpcContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.concurrent.Managed;
 
 @ApplicationScoped
 @Service
@@ -45,6 +52,8 @@ public class DataSetLookupServicesImpl implements DataSetLookupServices {
     protected UUIDGenerator uuidGenerator;
     protected DataSetDefDeployerCDI dataSetDefDeployer;
     protected ExceptionManager exceptionManager;
+    protected DataSetLookupCache lookupCache;
+    protected ExecutorService executorService;
 
     public DataSetLookupServicesImpl() {
     }
@@ -52,11 +61,15 @@ public class DataSetLookupServicesImpl implements DataSetLookupServices {
     @Inject
     public DataSetLookupServicesImpl(DataSetManagerCDI dataSetManager,
                                      DataSetDefDeployerCDI dataSetDefDeployer,
-                                     ExceptionManager exceptionManager) {
+                                     ExceptionManager exceptionManager,
+                                     DataSetLookupCache lookupCache,
+                                     @Managed ExecutorService executorService) {
         this.dataSetManager = dataSetManager;
         this.uuidGenerator = DataSetCore.get().getUuidGenerator();
         this.dataSetDefDeployer = dataSetDefDeployer;
         this.exceptionManager = exceptionManager;
+        this.lookupCache = lookupCache;
+        this.executorService = executorService;
     }
 
     @PostConstruct
@@ -75,7 +88,7 @@ public class DataSetLookupServicesImpl implements DataSetLookupServices {
     public DataSet lookupDataSet(DataSetLookup lookup) throws Exception {
         DataSet _d = null;
         try {
-            _d = dataSetManager.lookupDataSet(lookup);
+            _d = lookupCache.lookupDataSet(lookup, dataSetManager::lookupDataSet);
         } catch (DataSetLookupException e) {
             throw exceptionManager.handleException(e);
         }
@@ -83,6 +96,68 @@ public class DataSetLookupServicesImpl implements DataSetLookupServices {
         return _d;
     }
 
+    public List<DataSetLookupResult> lookupDataSets(List<DataSetLookup> lookups) throws Exception {
+        // Remove duplicates, many displayers on the same page usually share the same lookup
+        List<DataSetLookup> distinct = new ArrayList<>();
+        int[] distinctIndex = new int[lookups.size()];
+        for (int i = 0; i < lookups.size(); i++) {
+            int index = distinct.indexOf(lookups.get(i));
+            if (index < 0) {
+                index = distinct.size();
+                distinct.add(lookups.get(i));
+            }
+            distinctIndex[i] = index;
+        }
+
+        Map<String, DataSetMetadata> metadataMap = new HashMap<>();
+        for (DataSetLookup lookup : distinct) {
+            String uuid = lookup.getDataSetUUID();
+            if (uuid != null && !metadataMap.containsKey(uuid)) {
+                metadataMap.put(uuid, lookupMetadata(uuid));
+            }
+        }
+
+        List<DataSetLookupResult> distinctResults = new ArrayList<>(distinct.size());
+        if (executorService == null || distinct.size() == 1) {
+            for (DataSetLookup lookup : distinct) {
+                distinctResults.add(lookupResult(lookup, metadataMap));
+            }
+        } else {
+            List<Future<DataSetLookupResult>> futures = new ArrayList<>(distinct.size());
+            for (DataSetLookup lookup : distinct) {
+                futures.add(executorService.submit(() -> lookupResult(lookup, metadataMap)));
+            }
+            for (Future<DataSetLookupResult> future : futures) {
+                distinctResults.add(future.get());
+            }
+        }
+
+        List<DataSetLookupResult> results = new ArrayList<>(lookups.size());
+        for (int index : distinctIndex) {
+            results.add(distinctResults.get(index));
+        }
+        return results;
+    }
+
+    protected DataSetLookupResult lookupResult(DataSetLookup lookup, Map<String, DataSetMetadata> metadataMap) {
+        try {
+            DataSet dataSet = lookupCache.lookupDataSet(lookup, dataSetManager::lookupDataSet);
+            return new DataSetLookupResult(dataSet, metadataMap.get(lookup.getDataSetUUID()), null);
+        } catch (Exception e) {
+            log.error("Data set lookup failed: " + lookup.getDataSetUUID(), e);
+            return new DataSetLookupResult(null, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    protected DataSetMetadata lookupMetadata(String uuid) {
+        try {
+            return dataSetManager.getDataSetMetadata(uuid);
+        } catch (Exception e) {
+            // The lookup itself will report the error
+            return null;
+        }
+    }
+
     public DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup) throws Exception {
         try {
             // Although if using a not registered definition, it must have an uuid set for performing lookups.
@@ -1,11 +1,19 @@
 package org.dashbuilder.dataset.service;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.poi.xssf.streaming.SXSSFRow;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetDefRegistryCDI;
 import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetManagerCDI;
+import org.dashbuilder.dataset.sort.ColumnSort;
+import org.dashbuilder.dataset.sort.DataSetSort;
+import org.dashbuilder.dataset.sort.SortOrder;
 import org.dashbuilder.exception.ExceptionManager;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,6 +21,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataSetExportServicesTest {
@@ -54,4 +64,128 @@ public class DataSetExportServicesTest {
         assertEquals("", secondRow.getCell(1).getStringCellValue());
         assertEquals("", secondRow.getCell(2).getStringCellValue());
     }
+
+    @Test
+    public void exportToCSVRunsTheLookupInChunks() throws Exception {
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+        exporter.exportChunkSize = 2;
+
+        DataSet dataSet = DataSetFactory.newDataSetBuilder()
+                .label("Name")
+                .number("Amount")
+                .row("a", 1d)
+                .row("b", 2d)
+                .row("c", 3d)
+                .row("d", 4d)
+                .row("e", 5d)
+                .buildDataSet();
+
+        List<Integer> offsets = new ArrayList<>();
+        when(dataSetManagerM.lookupDataSet(any(DataSetLookup.class))).thenAnswer(invocation -> {
+            DataSetLookup lookup = (DataSetLookup) invocation.getArguments()[0];
+            offsets.add(lookup.getRowOffset());
+            int rows = Math.min(lookup.getNumberOfRows(), dataSet.getRowCount() - lookup.getRowOffset());
+            return rows > 0 ? dataSet.trim(lookup.getRowOffset(), rows) : dataSet.cloneEmpty();
+        });
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        exporter.writeCSV(sortedLookup("Name"), os);
+
+        String[] lines = os.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertEquals("\"Name\";\"Amount\"", lines[0]);
+        assertEquals("\"a\";\"1\"", lines[1]);
+        assertEquals("\"e\";\"5\"", lines[5]);
+        assertEquals("[0, 2, 4]", offsets.toString());
+    }
+
+    @Test
+    public void exportToCSVHonoursTheLookupLimit() throws Exception {
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+        exporter.exportChunkSize = 2;
+
+        DataSet dataSet = DataSetFactory.newDataSetBuilder()
+                .label("Name")
+                .row("a")
+                .row("b")
+                .row("c")
+                .row("d")
+                .buildDataSet();
+
+        List<Integer> sizes = new ArrayList<>();
+        when(dataSetManagerM.lookupDataSet(any(DataSetLookup.class))).thenAnswer(invocation -> {
+            DataSetLookup lookup = (DataSetLookup) invocation.getArguments()[0];
+            sizes.add(lookup.getNumberOfRows());
+            int rows = Math.min(lookup.getNumberOfRows(), dataSet.getRowCount() - lookup.getRowOffset());
+            return rows > 0 ? dataSet.trim(lookup.getRowOffset(), rows) : dataSet.cloneEmpty();
+        });
+
+        DataSetLookup lookup = sortedLookup("Name");
+        lookup.setRowOffset(1);
+        lookup.setNumberOfRows(3);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        exporter.writeCSV(lookup, os);
+
+        String[] lines = os.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("\"b\"", lines[1]);
+        assertEquals("\"d\"", lines[3]);
+        assertEquals("[2, 1]", sizes.toString());
+    }
+
+    @Test
+    public void exportToCSVReadsAnUnsortedLookupInOnePass() throws Exception {
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+        exporter.exportChunkSize = 2;
+
+        DataSet dataSet = DataSetFactory.newDataSetBuilder()
+                .label("Name")
+                .row("a")
+                .row("b")
+                .row("c")
+                .buildDataSet();
+
+        DataSetLookup lookup = new DataSetLookup();
+        when(dataSetManagerM.lookupDataSet(lookup)).thenReturn(dataSet);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        exporter.writeCSV(lookup, os);
+
+        String[] lines = os.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("\"c\"", lines[3]);
+        verify(dataSetManagerM, times(1)).lookupDataSet(any(DataSetLookup.class));
+    }
+
+    @Test
+    public void exportToExcelEstimatesColumnWidths() {
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+
+        DataSet dataSet = DataSetFactory.newDataSetBuilder()
+                .label("Id")
+                .label("Description")
+                .row("1", "A much longer description")
+                .buildDataSet();
+
+        SXSSFWorkbook workbook = exporter.dataSetToWorkbook(dataSet);
+
+        assertEquals(("Id".length() + 2) * 256, workbook.getSheetAt(0).getColumnWidth(0));
+        assertEquals(("A much longer description".length() + 2) * 256, workbook.getSheetAt(0).getColumnWidth(1));
+    }
+
+    private DataSetLookup sortedLookup(String columnId) {
+        DataSetSort sortOp = new DataSetSort();
+        sortOp.addSortColumn(new ColumnSort(columnId, SortOrder.ASCENDING));
+        DataSetLookup lookup = new DataSetLookup();
+        lookup.addOperation(sortOp);
+        return lookup;
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetDefRegistryCDI;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.events.DataSetDefModifiedEvent;
+import org.dashbuilder.dataset.events.DataSetStaleEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataSetLookupCacheTest {
+
+    private static final String UUID = "expenses";
+
+    @Mock
+    DataSetDefRegistryCDI dataSetDefRegistry;
+
+    DataSetDef dataSetDef;
+    DataSet dataSet;
+    AtomicInteger lookups;
+    Function<DataSetLookup, DataSet> loader;
+    DataSetLookupCache cache;
+
+    @Before
+    public void setUp() {
+        dataSetDef = new DataSetDef();
+        dataSetDef.setUUID(UUID);
+        dataSetDef.setCacheEnabled(true);
+        when(dataSetDefRegistry.getDataSetDef(UUID)).thenReturn(dataSetDef);
+
+        dataSet = DataSetFactory.newDataSetBuilder()
+                .label("Name")
+                .row("a")
+                .row("b")
+                .buildDataSet();
+        lookups = new AtomicInteger();
+        loader = lookup -> {
+            lookups.incrementAndGet();
+            return dataSet;
+        };
+        cache = new DataSetLookupCache(dataSetDefRegistry, 2, 100);
+    }
+
+    @Test
+    public void testRepeatedLookupIsCached() {
+        assertSame(dataSet, cache.lookupDataSet(lookup(0), loader));
+        assertSame(dataSet, cache.lookupDataSet(lookup(0), loader));
+        cache.lookupDataSet(lookup(1), loader);
+
+        assertEquals(2, lookups.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        cache.lookupDataSet(lookup(0), loader);
+        cache.lookupDataSet(lookup(1), loader);
+        cache.lookupDataSet(lookup(2), loader);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        // The least recently used entry is the one evicted
+        cache.lookupDataSet(lookup(0), loader);
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void testDefinitionEventsInvalidate() {
+        cache.lookupDataSet(lookup(0), loader);
+        cache.onDataSetStaleEvent(new DataSetStaleEvent(dataSetDef));
+        assertEquals(0, cache.size());
+
+        cache.lookupDataSet(lookup(0), loader);
+        cache.onDataSetDefModifiedEvent(new DataSetDefModifiedEvent(dataSetDef, dataSetDef));
+        cache.lookupDataSet(lookup(0), loader);
+
+        assertEquals(3, lookups.get());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testResultOfAnInvalidatedLookupIsNotCached() {
+        cache.lookupDataSet(lookup(0), lookup -> {
+            cache.invalidate(UUID);
+            return dataSet;
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNonCacheableLookups() {
+        dataSetDef.setCacheEnabled(false);
+        cache.lookupDataSet(lookup(0), loader);
+        cache.lookupDataSet(lookup(0), loader);
+        assertEquals(2, lookups.get());
+
+        dataSetDef.setCacheEnabled(true);
+        cache = new DataSetLookupCache(dataSetDefRegistry, 2, 1);
+        cache.lookupDataSet(lookup(0), loader);
+        assertEquals(0, cache.size());
+    }
+
+    private DataSetLookup lookup(int offset) {
+        return DataSetFactory.newDataSetLookupBuilder()
+                .dataset(UUID)
+                .rowOffset(offset)
+                .buildLookup();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetDefDeployerCDI;
+import org.dashbuilder.dataset.DataSetDefRegistryCDI;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetManagerCDI;
+import org.dashbuilder.dataset.DataSetMetadata;
+import org.dashbuilder.dataset.exception.DataSetLookupException;
+import org.dashbuilder.exception.ExceptionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataSetLookupServicesImplTest {
+
+    @Mock
+    DataSetManagerCDI dataSetManager;
+    @Mock
+    DataSetDefDeployerCDI dataSetDefDeployer;
+    @Mock
+    DataSetDefRegistryCDI dataSetDefRegistry;
+    @Mock
+    ExceptionManager exceptionManager;
+    @Mock
+    DataSet salesDataSet;
+    @Mock
+    DataSetMetadata salesMetadata;
+
+    ExecutorService executorService;
+    DataSetLookupServicesImpl lookupServices;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(2);
+        lookupServices = new DataSetLookupServicesImpl(dataSetManager,
+                                                       dataSetDefDeployer,
+                                                       exceptionManager,
+                                                       new DataSetLookupCache(dataSetDefRegistry, 10, 10),
+                                                       executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testLookupDataSetsRemovesDuplicates() throws Exception {
+        DataSetLookup sales = new DataSetLookup("sales");
+        DataSetLookup missing = new DataSetLookup("missing");
+        when(dataSetManager.lookupDataSet(sales)).thenReturn(salesDataSet);
+        when(dataSetManager.getDataSetMetadata("sales")).thenReturn(salesMetadata);
+
+        List<DataSetLookupResult> results = lookupServices.lookupDataSets(Arrays.asList(sales, missing, sales));
+
+        assertEquals(3, results.size());
+        assertSame(salesDataSet, results.get(0).getDataSet());
+        assertSame(salesMetadata, results.get(0).getMetadata());
+        assertNull(results.get(1).getDataSet());
+        assertFalse(results.get(1).isError());
+        assertSame(results.get(0), results.get(2));
+        verify(dataSetManager, times(1)).lookupDataSet(sales);
+        verify(dataSetManager, times(1)).getDataSetMetadata("sales");
+    }
+
+    @Test
+    public void testFailedLookupDoesNotFailTheBatch() throws Exception {
+        DataSetLookup sales = new DataSetLookup("sales");
+        DataSetLookup broken = new DataSetLookup("broken");
+        when(dataSetManager.lookupDataSet(sales)).thenReturn(salesDataSet);
+        when(dataSetManager.lookupDataSet(broken)).thenThrow(new DataSetLookupException("broken", "Lookup failed"));
+
+        List<DataSetLookupResult> results = lookupServices.lookupDataSets(Arrays.asList(sales, broken));
+
+        assertSame(salesDataSet, results.get(0).getDataSet());
+        assertTrue(results.get(1).isError());
+        assertNull(results.get(1).getDataSet());
+    }
+}
@@ -42,6 +42,7 @@ import org.dashbuilder.dataset.events.DataSetStaleEvent;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
 import org.dashbuilder.dataset.service.DataSetDefServices;
 import org.dashbuilder.dataset.service.DataSetExportServices;
+import org.dashbuilder.dataset.service.DataSetLookupResult;
 import org.dashbuilder.dataset.service.DataSetLookupServices;
 import org.jboss.errai.bus.client.api.messaging.Message;
 import org.jboss.errai.common.client.api.Caller;
@@ -402,6 +403,85 @@ public class DataSetClientServices {
         }
     }
 
+    /**
+     * Process several data set lookup requests at once. Requests over data sets already on the client are
+     * resolved locally, the rest are sent to the server in a single call and the metadata returned is kept
+     * for further requests. Unlike {@link #lookupDataSet(DataSetLookup, DataSetReadyCallback)} the remote
+     * data sets are never pushed to the client.
+     *
+     * @param requests  The data set lookup requests
+     * @param listeners The callback of every request, in the same order
+     * @throws Exception It there is an unexpected error trying to execute the lookup requests.
+     */
+    public void lookupDataSets(final List<DataSetLookup> requests,
+                               final List<DataSetReadyCallback> listeners) throws Exception {
+        checkNotNull("requests",
+                     requests);
+        checkNotNull("listeners",
+                     listeners);
+        if (requests.size() != listeners.size()) {
+            throw new IllegalArgumentException("A callback is required for every lookup request");
+        }
+
+        final List<DataSetLookup> remoteRequests = new ArrayList<DataSetLookup>();
+        final List<DataSetReadyCallback> remoteListeners = new ArrayList<DataSetReadyCallback>();
+        for (int i = 0; i < requests.size(); i++) {
+            DataSetLookup request = requests.get(i);
+            if (clientDataSetManager.getDataSet(request.getDataSetUUID()) != null) {
+                listeners.get(i).callback(clientDataSetManager.lookupDataSet(request));
+            } else if (dataSetLookupServices != null) {
+                remoteRequests.add(request);
+                remoteListeners.add(listeners.get(i));
+            } else {
+                listeners.get(i).notFound();
+            }
+        }
+        if (remoteRequests.isEmpty()) {
+            return;
+        }
+
+        try {
+            dataSetLookupServices.call(
+                    new RemoteCallback<List<DataSetLookupResult>>() {
+                        public void callback(List<DataSetLookupResult> results) {
+                            for (int i = 0; i < remoteListeners.size(); i++) {
+                                DataSetLookupResult result = results.get(i);
+                                DataSetReadyCallback listener = remoteListeners.get(i);
+                                if (result.getMetadata() != null) {
+                                    remoteMetadataMap.put(remoteRequests.get(i).getDataSetUUID(),
+                                                          result.getMetadata());
+                                }
+                                if (result.isError()) {
+                                    listener.onError(new ClientRuntimeError(result.getErrorMessage()));
+                                } else if (result.getDataSet() == null) {
+                                    listener.notFound();
+                                } else {
+                                    listener.callback(result.getDataSet());
+                                }
+                            }
+                        }
+                    },
+                    new ErrorCallback<Message>() {
+                        @Override
+                        public boolean error(Message message,
+                                             Throwable throwable) {
+                            boolean handled = false;
+                            for (DataSetReadyCallback listener : remoteListeners) {
+                                if (listener.onError(new ClientRuntimeError(throwable))) {
+                                    handled = true;
+                                }
+                            }
+                            return handled;
+                        }
+                    })
+                    .lookupDataSets(remoteRequests);
+        } catch (Exception e) {
+            for (DataSetReadyCallback listener : remoteListeners) {
+                listener.onError(new ClientRuntimeError(e));
+            }
+        }
+    }
+
     private void _lookupDataSet(DataSetLookup request,
                                 final DataSetReadyCallback listener) {
         try {
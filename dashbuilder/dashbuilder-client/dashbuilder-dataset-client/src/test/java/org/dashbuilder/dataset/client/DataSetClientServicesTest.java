@@ -16,8 +16,15 @@
 
 package org.dashbuilder.dataset.client;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.dashbuilder.common.client.error.ClientRuntimeError;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetMetadata;
+import org.dashbuilder.dataset.service.DataSetLookupResult;
 import org.dashbuilder.dataset.service.DataSetLookupServices;
 import org.junit.Before;
 import org.junit.Test;
@@ -164,6 +171,82 @@ public class DataSetClientServicesTest {
         assertNull(services.getRemoteMetadataMap().get(uuid));
     }
 
+    @Test
+    public void testLookupDataSetsInASingleRemoteCall() throws Exception {
+        final DataSetClientServices services = makeDataSetClientServices(clientDataSetManager,
+                                                                         dataSetLookupServicesCallerMock);
+        final DataSet clientDataSet = mock(DataSet.class);
+        final DataSet remoteDataSet = mock(DataSet.class);
+        final DataSetLookup clientLookup = new DataSetLookup("client");
+        final DataSetLookup remoteLookup = new DataSetLookup("remote");
+        final DataSetLookup missingLookup = new DataSetLookup("missing");
+        final DataSetLookup failingLookup = new DataSetLookup("failing");
+
+        when(clientDataSetManager.getDataSet("client")).thenReturn(clientDataSet);
+        when(clientDataSetManager.lookupDataSet(clientLookup)).thenReturn(clientDataSet);
+        when(dataSetLookupServices.lookupDataSets(Arrays.asList(remoteLookup,
+                                                                missingLookup,
+                                                                failingLookup)))
+                .thenReturn(Arrays.asList(new DataSetLookupResult(remoteDataSet,
+                                                                  dataSetMetadata,
+                                                                  null),
+                                          new DataSetLookupResult(null,
+                                                                  null,
+                                                                  null),
+                                          new DataSetLookupResult(null,
+                                                                  null,
+                                                                  "error")));
+
+        final List<String> outcomes = new ArrayList<>();
+        services.lookupDataSets(Arrays.asList(clientLookup,
+                                              remoteLookup,
+                                              missingLookup,
+                                              failingLookup),
+                                Arrays.asList(makeDataSetReadyCallback(clientDataSet,
+                                                                       outcomes),
+                                              makeDataSetReadyCallback(remoteDataSet,
+                                                                       outcomes),
+                                              makeDataSetReadyCallback(null,
+                                                                       outcomes),
+                                              makeDataSetReadyCallback(null,
+                                                                       outcomes)));
+
+        assertEquals(Arrays.asList("callback",
+                                   "callback",
+                                   "notFound",
+                                   "error"),
+                     outcomes);
+        assertEquals(dataSetMetadata,
+                     services.getRemoteMetadataMap().get("remote"));
+        verify(dataSetLookupServices,
+               times(1)).lookupDataSets(any());
+        verify(dataSetLookupServices,
+               never()).lookupDataSet(any(DataSetLookup.class));
+    }
+
+    private DataSetReadyCallback makeDataSetReadyCallback(final DataSet expected,
+                                                          final List<String> outcomes) {
+        return new DataSetReadyCallback() {
+            @Override
+            public void callback(final DataSet dataSet) {
+                assertSame(expected,
+                           dataSet);
+                outcomes.add("callback");
+            }
+
+            @Override
+            public void notFound() {
+                outcomes.add("notFound");
+            }
+
+            @Override
+            public boolean onError(final ClientRuntimeError error) {
+                outcomes.add("error");
+                return false;
+            }
+        };
+    }
+
     private DataSetMetadataCallback makeDataSetMetadataCallback() {
         return new DataSetMetadataCallback() {
             @Override
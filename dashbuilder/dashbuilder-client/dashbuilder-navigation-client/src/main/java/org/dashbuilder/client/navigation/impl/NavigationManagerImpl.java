@@ -26,12 +26,16 @@ import org.dashbuilder.client.navigation.NavigationManager;
 import org.dashbuilder.client.navigation.event.NavItemGotoEvent;
 import org.dashbuilder.client.navigation.event.NavTreeChangedEvent;
 import org.dashbuilder.client.navigation.event.NavTreeLoadedEvent;
+import org.dashbuilder.client.navigation.resources.i18n.NavigationConstants;
 import org.dashbuilder.navigation.NavItem;
 import org.dashbuilder.navigation.NavTree;
+import org.dashbuilder.navigation.service.NavTreeConflictException;
 import org.dashbuilder.navigation.service.NavigationServices;
 import org.dashbuilder.navigation.workbench.NavSecurityController;
+import org.jboss.errai.bus.client.api.messaging.Message;
 import org.jboss.errai.common.client.api.Caller;
 import org.uberfire.mvp.Command;
+import org.uberfire.workbench.events.NotificationEvent;
 
 @ApplicationScoped
 public class NavigationManagerImpl implements NavigationManager {
@@ -40,8 +44,10 @@ public class NavigationManagerImpl implements NavigationManager {
     private Event<NavItemGotoEvent> navItemGotoEvent;
     private Event<NavTreeLoadedEvent> navTreeLoadedEvent;
     private Event<NavTreeChangedEvent> navTreeChangedEvent;
+    private Event<NotificationEvent> workbenchNotification;
     private NavSecurityController navController;
     private NavTree navTree;
+    private NavTree savedNavTree;
     private NavTree defaultNavTree;
 
     @Inject
@@ -49,18 +55,21 @@ public class NavigationManagerImpl implements NavigationManager {
                                  NavSecurityController navController,
                                  Event<NavTreeLoadedEvent> navTreeLoadedEvent,
                                  Event<NavTreeChangedEvent> navTreeChangedEvent,
-                                 Event<NavItemGotoEvent> navItemGotoEvent) {
+                                 Event<NavItemGotoEvent> navItemGotoEvent,
+                                 Event<NotificationEvent> workbenchNotification) {
         this.navServices = navServices;
         this.navController = navController;
         this.navTreeLoadedEvent = navTreeLoadedEvent;
         this.navTreeChangedEvent = navTreeChangedEvent;
         this.navItemGotoEvent = navItemGotoEvent;
+        this.workbenchNotification = workbenchNotification;
     }
 
     @Override
     public void init(Command afterInit) {
         navServices.call((NavTree n) -> {
             navTree = n;
+            savedNavTree = n != null ? n.cloneTree() : null;
             if (afterInit != null) {
                 afterInit.execute();
             }
@@ -90,13 +99,30 @@ public class NavigationManagerImpl implements NavigationManager {
 
     @Override
     public void saveNavTree(NavTree newTree, Command afterSave) {
-        navServices.call((Void v) -> {
+        // The tree last loaded or saved is sent as the base, so only the changes made here are stored
+        NavTree baseTree = savedNavTree;
+        NavigationServices services = navServices.call((Void v) -> {
             navTree = newTree;
+            savedNavTree = newTree.cloneTree();
             navTreeChangedEvent.fire(new NavTreeChangedEvent(newTree));
             if (afterSave != null) {
                 afterSave.execute();
             }
-        }).saveNavTree(newTree);
+        }, (Message message, Throwable throwable) -> {
+            if (throwable instanceof NavTreeConflictException) {
+                // Someone else changed the same items, so the stored tree is loaded again for the user to redo the changes
+                workbenchNotification.fire(new NotificationEvent(NavigationConstants.INSTANCE.navTreeConflict(),
+                                                                 NotificationEvent.NotificationType.WARNING));
+                init(null);
+                return false;
+            }
+            return true;
+        });
+        if (baseTree != null) {
+            services.saveNavTree(newTree, baseTree);
+        } else {
+            services.saveNavTree(newTree);
+        }
     }
 
     @Override
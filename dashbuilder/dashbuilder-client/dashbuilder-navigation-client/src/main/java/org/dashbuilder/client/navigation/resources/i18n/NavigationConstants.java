@@ -48,6 +48,8 @@ public interface NavigationConstants extends Messages {
 
     String saveChanges();
 
+    String navTreeConflict();
+
     String save();
 
     String cancel();
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.client.navigation.impl;
+
+import com.google.gwtmockito.GwtMockitoTestRunner;
+import org.dashbuilder.client.navigation.event.NavItemGotoEvent;
+import org.dashbuilder.client.navigation.event.NavTreeChangedEvent;
+import org.dashbuilder.client.navigation.event.NavTreeLoadedEvent;
+import org.dashbuilder.navigation.NavTree;
+import org.dashbuilder.navigation.impl.NavTreeBuilder;
+import org.dashbuilder.navigation.service.NavTreeConflictException;
+import org.dashbuilder.navigation.service.NavigationServices;
+import org.dashbuilder.navigation.workbench.NavSecurityController;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.uberfire.mocks.CallerMock;
+import org.uberfire.mocks.EventSourceMock;
+import org.uberfire.mvp.Command;
+import org.uberfire.workbench.events.NotificationEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class NavigationManagerImplTest {
+
+    @Mock
+    NavigationServices navServices;
+
+    @Mock
+    NavSecurityController navController;
+
+    @Mock
+    EventSourceMock<NavTreeLoadedEvent> navTreeLoadedEvent;
+
+    @Mock
+    EventSourceMock<NavTreeChangedEvent> navTreeChangedEvent;
+
+    @Mock
+    EventSourceMock<NavItemGotoEvent> navItemGotoEvent;
+
+    @Mock
+    EventSourceMock<NotificationEvent> workbenchNotification;
+
+    @Mock
+    Command afterSave;
+
+    NavigationManagerImpl navigationManager;
+
+    NavTree NAV_TREE = new NavTreeBuilder()
+            .group("A", "A", "A", true)
+            .item("A1", "A1", "A1", true)
+            .endGroup()
+            .group("B", "B", "B", true)
+            .item("B1", "B1", "B1", true)
+            .endGroup()
+            .build();
+
+    @Before
+    public void setUp() {
+        navigationManager = new NavigationManagerImpl(new CallerMock<>(navServices),
+                                                      navController,
+                                                      navTreeLoadedEvent,
+                                                      navTreeChangedEvent,
+                                                      navItemGotoEvent,
+                                                      workbenchNotification);
+    }
+
+    @Test
+    public void testLoadedTreeIsTheBase() {
+        when(navServices.loadNavTree()).thenReturn(NAV_TREE.cloneTree());
+        navigationManager.init(null);
+
+        // Callers edit the manager's tree in place
+        NavTree navTree = navigationManager.getNavTree();
+        navTree.setItemName("A1", "changed");
+        navigationManager.saveNavTree(navTree, afterSave);
+
+        ArgumentCaptor<NavTree> baseTree = ArgumentCaptor.forClass(NavTree.class);
+        verify(navServices).saveNavTree(eq(navTree), baseTree.capture());
+        assertEquals("A1", baseTree.getValue().getItemById("A1").getName());
+        verify(afterSave).execute();
+        verify(navTreeChangedEvent).fire(any(NavTreeChangedEvent.class));
+    }
+
+    @Test
+    public void testSavedTreeIsTheBaseOfTheNextSave() {
+        when(navServices.loadNavTree()).thenReturn(NAV_TREE.cloneTree());
+        navigationManager.init(null);
+
+        NavTree navTree = navigationManager.getNavTree();
+        navTree.setItemName("A1", "first");
+        navigationManager.saveNavTree(navTree, null);
+        navTree.setItemName("A1", "second");
+        navigationManager.saveNavTree(navTree, null);
+
+        ArgumentCaptor<NavTree> baseTree = ArgumentCaptor.forClass(NavTree.class);
+        verify(navServices, times(2)).saveNavTree(eq(navTree), baseTree.capture());
+        assertEquals("A1", baseTree.getAllValues().get(0).getItemById("A1").getName());
+        assertEquals("first", baseTree.getAllValues().get(1).getItemById("A1").getName());
+    }
+
+    @Test
+    public void testTreeIsOverwrittenWhenNoneWasLoaded() {
+        navigationManager.init(null);
+        navigationManager.saveNavTree(NAV_TREE, afterSave);
+
+        verify(navServices).saveNavTree(NAV_TREE);
+        verify(navServices, never()).saveNavTree(any(NavTree.class), any(NavTree.class));
+        verify(afterSave).execute();
+    }
+
+    @Test
+    public void testConflictReloadsTheTree() {
+        when(navServices.loadNavTree()).thenReturn(NAV_TREE.cloneTree());
+        navigationManager.init(null);
+
+        NavTree stored = NAV_TREE.cloneTree();
+        stored.setItemName("B1", "remote");
+        when(navServices.loadNavTree()).thenReturn(stored);
+        doThrow(new NavTreeConflictException("B")).when(navServices).saveNavTree(any(NavTree.class), any(NavTree.class));
+        NavTree navTree = navigationManager.getNavTree().cloneTree();
+        navTree.setItemName("B1", "local");
+        navigationManager.saveNavTree(navTree, afterSave);
+
+        verify(afterSave, never()).execute();
+        verify(navTreeChangedEvent, never()).fire(any(NavTreeChangedEvent.class));
+        verify(workbenchNotification).fire(any(NotificationEvent.class));
+        verify(navTreeLoadedEvent, times(2)).fire(any(NavTreeLoadedEvent.class));
+        assertEquals("remote", navigationManager.getNavTree().getItemById("B1").getName());
+
+        // The reloaded tree is the base of the next save
+        reset(navServices);
+        navigationManager.saveNavTree(navTree, afterSave);
+        ArgumentCaptor<NavTree> baseTree = ArgumentCaptor.forClass(NavTree.class);
+        verify(navServices).saveNavTree(eq(navTree), baseTree.capture());
+        assertEquals("remote", baseTree.getValue().getItemById("B1").getName());
+    }
+}
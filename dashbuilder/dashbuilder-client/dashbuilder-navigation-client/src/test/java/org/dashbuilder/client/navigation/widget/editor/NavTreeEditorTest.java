@@ -33,6 +33,7 @@ import org.uberfire.mocks.CallerMock;
 import org.uberfire.mocks.EventSourceMock;
 import org.uberfire.mvp.Command;
 import org.uberfire.mvp.ParameterizedCommand;
+import org.uberfire.workbench.events.NotificationEvent;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -81,6 +82,9 @@ public class NavTreeEditorTest {
     @Mock
     EventSourceMock<NavTreeChangedEvent> navTreeChangedEvent;
 
+    @Mock
+    EventSourceMock<NotificationEvent> workbenchNotification;
+
     @Mock
     NavigationServices navServices;
 
@@ -137,7 +141,8 @@ public class NavTreeEditorTest {
                                                           navController,
                                                           navTreeLoadedEvent,
                                                           navTreeChangedEvent,
-                                                          navItemGotoEvent));
+                                                          navItemGotoEvent,
+                                                          workbenchNotification));
 
         navTreeEditor = spy(new NavTreeEditor(view,
                                               navigationManager,
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.navigation.service;
+
+import org.jboss.errai.common.client.api.annotations.MapsTo;
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Thrown when a navigation tree can't be saved because an item changed by the save was also changed by someone else
+ * since the tree was loaded.
+ */
+@Portable
+public class NavTreeConflictException extends RuntimeException {
+
+    private String itemId;
+
+    public NavTreeConflictException(@MapsTo("itemId") String itemId) {
+        this.itemId = itemId;
+    }
+
+    /**
+     * @return the id of the root item in conflict, or null when the root items were reordered concurrently.
+     */
+    public String getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public String getMessage() {
+        if (itemId == null) {
+            return "The navigation tree was reordered by someone else";
+        }
+        return "The navigation item [" + itemId + "] was changed by someone else";
+    }
+}
@@ -27,4 +27,13 @@ public interface NavigationServices {
     NavTree loadNavTree();
 
     void saveNavTree(NavTree navTree);
+
+    /**
+     * Saves only the changes made to the base tree, keeping the changes others saved meanwhile.
+     *
+     * @param navTree The tree to save
+     * @param baseTree The tree as it was loaded before being changed
+     * @throws NavTreeConflictException If an item was changed both in this tree and by someone else
+     */
+    void saveNavTree(NavTree navTree, NavTree baseTree);
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.service;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetMetadata;
+import org.jboss.errai.common.client.api.annotations.MapsTo;
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * The outcome of a single lookup of a {@link DataSetLookupServices#lookupDataSets(java.util.List)} batch:
+ * the resulting data set (null if not found), the metadata of the data set looked up and, if the lookup
+ * failed, the error message.
+ */
+@Portable
+public class DataSetLookupResult {
+
+    private final DataSet dataSet;
+    private final DataSetMetadata metadata;
+    private final String errorMessage;
+
+    public DataSetLookupResult(@MapsTo("dataSet") DataSet dataSet,
+                               @MapsTo("metadata") DataSetMetadata metadata,
+                               @MapsTo("errorMessage") String errorMessage) {
+        this.dataSet = dataSet;
+        this.metadata = metadata;
+        this.errorMessage = errorMessage;
+    }
+
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    public DataSetMetadata getMetadata() {
+        return metadata;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isError() {
+        return errorMessage != null;
+    }
+}
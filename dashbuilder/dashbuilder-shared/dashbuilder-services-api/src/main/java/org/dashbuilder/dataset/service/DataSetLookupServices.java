@@ -15,6 +15,8 @@
  */
 package org.dashbuilder.dataset.service;
 
+import java.util.List;
+
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetMetadata;
@@ -34,6 +36,15 @@ public interface DataSetLookupServices {
      */
     DataSet lookupDataSet(DataSetLookup lookup) throws Exception;
 
+    /**
+     * Process several lookup requests in a single call. Duplicated lookups are only processed once and
+     * the distinct ones run in parallel.
+     *
+     * @return One result per lookup, in the same order, including the metadata of the data set looked up.
+     * A failed lookup does not fail the whole batch, its result holds the error instead.
+     */
+    List<DataSetLookupResult> lookupDataSets(List<DataSetLookup> lookups) throws Exception;
+
     /**
      * Load a data set and apply several operations (filter, sort, group, ...) on top of it for a given definition.
      * Index and cache are not used.
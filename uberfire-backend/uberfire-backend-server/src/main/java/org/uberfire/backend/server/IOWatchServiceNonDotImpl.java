@@ -22,6 +22,7 @@ import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.uberfire.backend.server.io.watch.AbstractIOWatchService;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.commons.concurrent.Unmanaged;
 import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.file.Path;
@@ -45,14 +46,16 @@ public class IOWatchServiceNonDotImpl extends AbstractIOWatchService {
                                     Event<ResourceRenamedEvent> resourceRenamedEvent,
                                     Event<ResourceDeletedEvent> resourceDeletedEvent,
                                     Event<ResourceAddedEvent> resourceAddedEvent,
-                                    @Unmanaged ExecutorService executorService) {
+                                    @Unmanaged ExecutorService executorService,
+                                    WatchEventRouter watchEventRouter) {
 
         super(resourceBatchChanges,
               resourceUpdatedEvent,
               resourceRenamedEvent,
               resourceDeletedEvent,
               resourceAddedEvent,
-              executorService);
+              executorService,
+              watchEventRouter);
     }
 
     @Override
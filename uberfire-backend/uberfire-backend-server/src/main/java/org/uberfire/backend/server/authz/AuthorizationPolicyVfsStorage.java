@@ -16,30 +16,38 @@
 package org.uberfire.backend.server.authz;
 
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
-import static org.uberfire.java.nio.file.Files.walkFileTree;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.jboss.errai.security.shared.api.Group;
+import org.jboss.errai.security.shared.api.Role;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.authz.AuthorizationPolicyStorage;
 import org.uberfire.backend.server.spaces.SpacesAPIImpl;
 import org.uberfire.io.IOService;
-import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileSystemAlreadyExistsException;
-import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Path;
-import org.uberfire.java.nio.file.SimpleFileVisitor;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.security.authz.AuthorizationPolicy;
 import org.uberfire.security.authz.PermissionManager;
@@ -48,10 +56,25 @@ import org.uberfire.spaces.SpacesAPI;
 
 /**
  * An implementation that stores the authorization policy in property files.
+ * <p>
+ * The default entries are kept in the <i>security-policy.properties</i> file and the entries of every role and group
+ * in a file of their own, so saving a policy only writes (and commits) the files of the roles and groups whose
+ * entries changed. The entries last read from or written to each file are kept in memory along with the file key
+ * (the blob id in git) they were read from. Every load and save lists the files again and only reads those whose key
+ * changed, so changes made by other nodes or pushed through git are seen without reading every file. Policies stored
+ * by previous versions in a single file are split the first time they are saved. The <i>security-module-*.properties</i>
+ * files of the {@link AuthorizationPolicyDeployer} are never written nor deleted, their entries are read before those
+ * of the role and group files.
  */
 @ApplicationScoped
 public class AuthorizationPolicyVfsStorage implements AuthorizationPolicyStorage {
 
+    static final String POLICY_FILE = "security-policy.properties";
+    static final String ROLE_FILE_PREFIX = "security-role-";
+    static final String GROUP_FILE_PREFIX = "security-group-";
+    static final String MODULE_FILE_PREFIX = "security-module-";
+    static final String FILE_EXTENSION = ".properties";
+
     private Logger logger = LoggerFactory.getLogger(AuthorizationPolicyVfsStorage.class);
 
     private PermissionManager permissionManager;
@@ -59,6 +82,8 @@ public class AuthorizationPolicyVfsStorage implements AuthorizationPolicyStorage
     private IOService ioService;
     private FileSystem fileSystem;
     private Path root;
+    // The policy files last read or written, by file name
+    private final Map<String, StoredFile> storedFiles = new HashMap<>();
 
     public AuthorizationPolicyVfsStorage() {
     }
@@ -111,51 +136,55 @@ public class AuthorizationPolicyVfsStorage implements AuthorizationPolicyStorage
     }
 
     public AuthorizationPolicy loadPolicyFromVfs() {
-        Path authzPath = getAuthzPath();
-        if (!ioService.exists(authzPath)) {
+        if (!ioService.exists(getAuthzPath())) {
             return null;
         }
+        final Map<String, NonEscapedProperties> entries = getStoredEntries();
+
+        // Files of roles and groups are read last, so their entries overwrite those of the files of previous versions
+        final List<Map> input = new ArrayList<>();
+        entries.forEach((fileName, fileEntries) -> {
+            if (!isSubjectFile(fileName)) {
+                input.add(fileEntries);
+            }
+        });
+        entries.forEach((fileName, fileEntries) -> {
+            if (isSubjectFile(fileName)) {
+                input.add(fileEntries);
+            }
+        });
+
         AuthorizationPolicyBuilder builder = permissionManager.newAuthorizationPolicy();
-        AuthorizationPolicyMarshaller marshaller = new AuthorizationPolicyMarshaller();
-
-        walkFileTree(authzPath,
-                     new SimpleFileVisitor<Path>() {
-                         @Override
-                         public FileVisitResult visitFile(final Path file,
-                                                          final BasicFileAttributes attrs) throws IOException {
-                             try {
-                                 checkNotNull("file",
-                                              file);
-                                 checkNotNull("attrs",
-                                              attrs);
-
-                                 if (isPolicyFile(file)) {
-                                     String content = ioService.readAllString(file);
-                                     NonEscapedProperties props = new NonEscapedProperties();
-                                     props.load(new StringReader(content));
-                                     marshaller.read(builder,
-                                                     props);
-                                 }
-                             } catch (final Exception e) {
-                                 logger.error("Authz policy file VFS read error: " + file.getFileName(),
-                                              e);
-                                 return FileVisitResult.TERMINATE;
-                             }
-                             return FileVisitResult.CONTINUE;
-                         }
-                     });
+        new AuthorizationPolicyMarshaller().read(builder,
+                                                 input.toArray(new Map[input.size()]));
         return builder.build();
     }
 
     public boolean isPolicyFile(Path p) {
-        String fileName = p.getName(p.getNameCount() - 1).toString();
-        return fileName.equals("security-policy.properties") || fileName.startsWith("security-module-");
+        return isPolicyFile(p.getName(p.getNameCount() - 1).toString());
     }
 
     public void savePolicyIntoVfs(AuthorizationPolicy policy,
                                   String subjectId,
                                   String message) {
 
+        final Map<String, NonEscapedProperties> storedEntries = getStoredEntries();
+        final Map<String, NonEscapedProperties> entries = splitEntries(policy);
+        final Map<String, NonEscapedProperties> changed = new LinkedHashMap<>();
+        entries.forEach((fileName, fileEntries) -> {
+            if (!fileEntries.equals(storedEntries.get(fileName))) {
+                changed.put(fileName,
+                            fileEntries);
+            }
+        });
+        // Only the files of roles and groups no longer in the policy are deleted, module files are kept as deployed
+        final Set<String> removed = new HashSet<>(storedEntries.keySet());
+        removed.removeAll(entries.keySet());
+        removed.removeIf(fileName -> !isSubjectFile(fileName));
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
         if (subjectId == null || message == null) {
             ioService.startBatch(fileSystem);
         } else {
@@ -165,24 +194,28 @@ public class AuthorizationPolicyVfsStorage implements AuthorizationPolicyStorage
         }
 
         try {
-            // Dump the entire authz policy into a properties map
-            AuthorizationPolicyMarshaller marshaller = new AuthorizationPolicyMarshaller();
-            NonEscapedProperties entries = new NonEscapedProperties();
-            marshaller.write(policy,
-                             entries);
-
-            // Store the entries into a properties file
-            StringWriter sw = new StringWriter();
-            entries.store(sw,
-                          "Authorization Policy",
-                          "Last update: " + new Date().toString());
-            String policyContent = sw.toString();
-            Path policyPath = getAuthzPath().resolve("security-policy.properties");
-            ioService.write(policyPath,
-                            policyContent);
+            for (Map.Entry<String, NonEscapedProperties> entry : changed.entrySet()) {
+                // Store the entries into a properties file
+                StringWriter sw = new StringWriter();
+                entry.getValue().store(sw,
+                                       "Authorization Policy",
+                                       "Last update: " + new Date().toString());
+                final Path file = getAuthzPath().resolve(entry.getKey());
+                ioService.write(file,
+                                sw.toString());
+                storedFiles.put(entry.getKey(),
+                                new StoredFile(getFileKey(file),
+                                               entry.getValue()));
+            }
+            for (String fileName : removed) {
+                ioService.deleteIfExists(getAuthzPath().resolve(fileName));
+                storedFiles.remove(fileName);
+            }
         } catch (Exception e) {
             logger.error("Authz policy write error.",
                          e);
+            // Read the files again, as only part of them may have been written
+            storedFiles.clear();
         } finally {
             ioService.endBatch();
         }
@@ -193,4 +226,140 @@ public class AuthorizationPolicyVfsStorage implements AuthorizationPolicyStorage
                      root);
         return root.resolve("authz");
     }
+
+    /**
+     * Dumps the policy into the entries of every policy file, by file name.
+     */
+    Map<String, NonEscapedProperties> splitEntries(AuthorizationPolicy policy) {
+        final AuthorizationPolicyMarshaller marshaller = new AuthorizationPolicyMarshaller();
+        final Map<String, NonEscapedProperties> entries = new LinkedHashMap<>();
+
+        final NonEscapedProperties defaultEntries = new NonEscapedProperties();
+        marshaller.write(policy.getHomePerspective(),
+                         defaultEntries);
+        marshaller.write(policy.getPermissions(),
+                         defaultEntries);
+        entries.put(POLICY_FILE,
+                    defaultEntries);
+
+        for (Role role : policy.getRoles()) {
+            final NonEscapedProperties roleEntries = new NonEscapedProperties();
+            marshaller.write(role,
+                             policy.getHomePerspective(role),
+                             roleEntries);
+            marshaller.write(role,
+                             policy.getPriority(role),
+                             roleEntries);
+            marshaller.write(role,
+                             policy.getPermissions(role),
+                             roleEntries);
+            entries.put(getFileName(ROLE_FILE_PREFIX,
+                                    role.getName()),
+                        roleEntries);
+        }
+        for (Group group : policy.getGroups()) {
+            final NonEscapedProperties groupEntries = new NonEscapedProperties();
+            marshaller.write(group,
+                             policy.getHomePerspective(group),
+                             groupEntries);
+            marshaller.write(group,
+                             policy.getPriority(group),
+                             groupEntries);
+            marshaller.write(group,
+                             policy.getPermissions(group),
+                             groupEntries);
+            entries.put(getFileName(GROUP_FILE_PREFIX,
+                                    group.getName()),
+                        groupEntries);
+        }
+        return entries;
+    }
+
+    /**
+     * Lists the policy files and reads again those whose file key is not the one they were last read with.
+     */
+    private Map<String, NonEscapedProperties> getStoredEntries() {
+        final Map<String, NonEscapedProperties> entries = new LinkedHashMap<>();
+        final Map<String, StoredFile> files = new HashMap<>();
+        final Path authzPath = getAuthzPath();
+        if (ioService.exists(authzPath)) {
+            try (final DirectoryStream<Path> stream = ioService.newDirectoryStream(authzPath)) {
+                for (Path file : stream) {
+                    final String fileName = file.getFileName().toString();
+                    if (!isPolicyFile(fileName)) {
+                        continue;
+                    }
+                    final Object fileKey = getFileKey(file);
+                    StoredFile storedFile = storedFiles.get(fileName);
+                    if (storedFile == null || fileKey == null || !fileKey.equals(storedFile.fileKey)) {
+                        storedFile = new StoredFile(fileKey,
+                                                    readEntries(file));
+                    }
+                    files.put(fileName,
+                              storedFile);
+                    entries.put(fileName,
+                                storedFile.entries);
+                }
+            } catch (final Exception e) {
+                logger.error("Authz policy files VFS read error.",
+                             e);
+            }
+        }
+        storedFiles.clear();
+        storedFiles.putAll(files);
+        return entries;
+    }
+
+    private NonEscapedProperties readEntries(Path file) throws java.io.IOException {
+        final NonEscapedProperties props = new NonEscapedProperties();
+        props.load(new StringReader(ioService.readAllString(file)));
+        return props;
+    }
+
+    /**
+     * @return the key identifying the content of the file, or null if the file system has none.
+     */
+    private Object getFileKey(Path file) {
+        final BasicFileAttributeView view = ioService.getFileAttributeView(file,
+                                                                           BasicFileAttributeView.class);
+        if (view == null) {
+            return null;
+        }
+        final BasicFileAttributes attributes = view.readAttributes();
+        if (attributes.fileKey() != null) {
+            return attributes.fileKey();
+        }
+        return attributes.size() + "-" + attributes.lastModifiedTime();
+    }
+
+    private boolean isPolicyFile(String fileName) {
+        return fileName.equals(POLICY_FILE) || fileName.startsWith(MODULE_FILE_PREFIX) || isSubjectFile(fileName);
+    }
+
+    private boolean isSubjectFile(String fileName) {
+        return fileName.startsWith(ROLE_FILE_PREFIX) || fileName.startsWith(GROUP_FILE_PREFIX);
+    }
+
+    private String getFileName(String prefix,
+                               String subjectName) {
+        try {
+            // Role and group names may contain characters not valid in file names
+            return prefix + URLEncoder.encode(subjectName,
+                                              "UTF-8") + FILE_EXTENSION;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class StoredFile {
+
+        private final Object fileKey;
+        private final NonEscapedProperties entries;
+
+        private StoredFile(Object fileKey,
+                           NonEscapedProperties entries) {
+            this.fileKey = fileKey;
+            this.entries = entries;
+        }
+    }
 }
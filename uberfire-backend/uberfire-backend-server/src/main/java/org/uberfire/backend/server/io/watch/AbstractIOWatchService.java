@@ -16,10 +16,9 @@
 
 package org.uberfire.backend.server.io.watch;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -56,18 +55,23 @@ public abstract class AbstractIOWatchService implements IOWatchService,
     private static final Integer AWAIT_TERMINATION_TIMEOUT = Integer.parseInt(System.getProperty("org.uberfire.watcher.quitetimeout",
                                                                                                  "3"));
 
-    private final List<String> fileSystems = new ArrayList<>();
-    private final List<WatchService> watchServices = new ArrayList<>();
-    protected boolean isDisposed = false;
+    private static final Long POLL_INTERVAL = Long.getLong("org.uberfire.watcher.pollinterval",
+                                                           50);
+
+    private final List<String> fileSystems = new CopyOnWriteArrayList<>();
+    //All the watch services are polled by a single loop, rather than a blocking thread per file system
+    private final List<WatchService> watchServices = new CopyOnWriteArrayList<>();
+    private final List<WatchService> activeWatchServices = new CopyOnWriteArrayList<>();
+    protected volatile boolean isDisposed = false;
 
     private boolean started;
-    private final Set<AsyncWatchService> watchThreads = new HashSet<>();
     private Event<ResourceBatchChangesEvent> resourceBatchChanges;
     private Event<ResourceUpdatedEvent> resourceUpdatedEvent;
     private Event<ResourceRenamedEvent> resourceRenamedEvent;
     private Event<ResourceDeletedEvent> resourceDeletedEvent;
     private Event<ResourceAddedEvent> resourceAddedEvent;
     private ExecutorService executorService;
+    private WatchEventRouter watchEventRouter;
 
     private IOWatchServiceExecutor executor = null;
 
@@ -76,13 +80,12 @@ public abstract class AbstractIOWatchService implements IOWatchService,
     public AbstractIOWatchService() {
     }
 
-    @Inject
     public AbstractIOWatchService(Event<ResourceBatchChangesEvent> resourceBatchChanges,
                                   Event<ResourceUpdatedEvent> resourceUpdatedEvent,
                                   Event<ResourceRenamedEvent> resourceRenamedEvent,
                                   Event<ResourceDeletedEvent> resourceDeletedEvent,
                                   Event<ResourceAddedEvent> resourceAddedEvent,
-                                  @Unmanaged ExecutorService executorService) {
+                                  ExecutorService executorService) {
 
         this.resourceBatchChanges = resourceBatchChanges;
         this.resourceUpdatedEvent = resourceUpdatedEvent;
@@ -92,6 +95,23 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         this.executorService = executorService;
     }
 
+    @Inject
+    public AbstractIOWatchService(Event<ResourceBatchChangesEvent> resourceBatchChanges,
+                                  Event<ResourceUpdatedEvent> resourceUpdatedEvent,
+                                  Event<ResourceRenamedEvent> resourceRenamedEvent,
+                                  Event<ResourceDeletedEvent> resourceDeletedEvent,
+                                  Event<ResourceAddedEvent> resourceAddedEvent,
+                                  @Unmanaged ExecutorService executorService,
+                                  WatchEventRouter watchEventRouter) {
+        this(resourceBatchChanges,
+             resourceUpdatedEvent,
+             resourceRenamedEvent,
+             resourceDeletedEvent,
+             resourceAddedEvent,
+             executorService);
+        this.watchEventRouter = watchEventRouter;
+    }
+
     @PostConstruct
     public void initialize() {
         final boolean autostart = Boolean.parseBoolean(System.getProperty("org.uberfire.watcher.autostart",
@@ -104,22 +124,112 @@ public abstract class AbstractIOWatchService implements IOWatchService,
     public synchronized void start() {
         if (!started) {
             this.started = true;
-            for (final AsyncWatchService watchThread : watchThreads) {
-                final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
-                jobs.add(executorService.submit(new DescriptiveRunnable() {
-                    @Override
-                    public String getDescription() {
-                        return watchThread.getDescription();
+            final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
+            final AsyncWatchService pollingLoop = new AsyncWatchService() {
+                @Override
+                public void execute(final IOWatchServiceExecutor wsExecutor) {
+                    while (!isDisposed) {
+                        if (!pollWatchServices(wsExecutor)) {
+                            try {
+                                Thread.sleep(POLL_INTERVAL);
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
                     }
+                }
 
-                    @Override
-                    public void run() {
-                        watchThread.execute(watchServiceExecutor);
-                    }
-                }));
+                @Override
+                public String getDescription() {
+                    return AbstractIOWatchService.this.getClass().getName() + "(" + fileSystems + ")";
+                }
+            };
+            jobs.add(executorService.submit(new DescriptiveRunnable() {
+                @Override
+                public String getDescription() {
+                    return pollingLoop.getDescription();
+                }
+
+                @Override
+                public void run() {
+                    pollingLoop.execute(watchServiceExecutor);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Processes the pending changes of all the watched file systems.
+     * @return true if any change was processed.
+     */
+    boolean pollWatchServices(final IOWatchServiceExecutor wsExecutor) {
+        boolean processed = false;
+        for (final WatchService ws : activeWatchServices) {
+            final WatchKey wk;
+            try {
+                wk = ws.isClose() ? null : ws.poll();
+            } catch (final Exception ex) {
+                activeWatchServices.remove(ws);
+                continue;
+            }
+            if (wk == null) {
+                if (ws.isClose()) {
+                    activeWatchServices.remove(ws);
+                }
+                continue;
+            }
+            processed = true;
+
+            try {
+                wsExecutor.execute(wk,
+                                   this);
+            } catch (final Exception ex) {
+                LOG.error("Unexpected error during WatchService execution",
+                          ex);
+            }
+
+            // Reset the key -- this step is critical if you want to
+            // receive further watch events.  If the key is no longer valid,
+            // the directory is inaccessible so stop watching it.
+            if (!wk.reset()) {
+                activeWatchServices.remove(ws);
             }
-            watchThreads.clear();
         }
+        return pollRoutedWatchServices() || processed;
+    }
+
+    //The file systems only routed to the WatchEventRouter subscribers share this loop
+    private boolean pollRoutedWatchServices() {
+        if (watchEventRouter == null) {
+            return false;
+        }
+        boolean processed = false;
+        for (final WatchService ws : watchEventRouter.getWatchServices()) {
+            final WatchKey wk;
+            try {
+                wk = ws.isClose() ? null : ws.poll();
+            } catch (final Exception ex) {
+                continue;
+            }
+            if (wk == null) {
+                continue;
+            }
+            processed = true;
+
+            try {
+                watchEventRouter.route(wk.pollEvents());
+            } catch (final Exception ex) {
+                LOG.error("Unexpected error routing the WatchService changes",
+                          ex);
+            }
+            wk.reset();
+        }
+        return processed;
+    }
+
+    boolean isWatching(final WatchService ws) {
+        return activeWatchServices.contains(ws);
     }
 
     @PreDestroy
@@ -163,58 +273,7 @@ public abstract class AbstractIOWatchService implements IOWatchService,
                                 final WatchService ws) {
         fileSystems.add(fs.getName());
         watchServices.add(ws);
-
-        final AsyncWatchService asyncWatchService = new AsyncWatchService() {
-            @Override
-            public void execute(final IOWatchServiceExecutor wsExecutor) {
-                while (!isDisposed) {
-                    final WatchKey wk;
-                    try {
-                        wk = ws.take();
-                    } catch (final Exception ex) {
-                        break;
-                    }
-
-                    try {
-                        wsExecutor.execute(wk,
-                                           AbstractIOWatchService.this);
-                    } catch (final Exception ex) {
-                        LOG.error("Unexpected error during WatchService execution",
-                                  ex);
-                    }
-
-                    // Reset the key -- this step is critical if you want to
-                    // receive further watch events.  If the key is no longer valid,
-                    // the directory is inaccessible so exit the loop.
-                    boolean valid = wk.reset();
-                    if (!valid) {
-                        break;
-                    }
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return AbstractIOWatchService.this.getClass().getName() + "(" + ws.toString() + ")";
-            }
-        };
-
-        if (started) {
-            final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
-            executorService.execute(new DescriptiveRunnable() {
-                @Override
-                public String getDescription() {
-                    return asyncWatchService.getDescription();
-                }
-
-                @Override
-                public void run() {
-                    asyncWatchService.execute(watchServiceExecutor);
-                }
-            });
-        } else {
-            watchThreads.add(asyncWatchService);
-        }
+        activeWatchServices.add(ws);
     }
 
     public void configureOnEvent(@Observes ApplicationStarted applicationStartedEvent) {
@@ -236,6 +295,7 @@ public abstract class AbstractIOWatchService implements IOWatchService,
                                                                    resourceRenamedEvent,
                                                                    resourceDeletedEvent,
                                                                    resourceAddedEvent);
+                ((IOWatchServiceExecutorImpl) _executor).setWatchEventRouter(watchEventRouter);
             }
             executor = _executor;
         }
@@ -18,6 +18,7 @@ package org.uberfire.backend.server.io.watch;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +75,9 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
     @Inject
     private Event<ResourceAddedEvent> resourceAddedEvent;
 
+    @Inject
+    private WatchEventRouter watchEventRouter;
+
     public void setEvents(final Event<ResourceBatchChangesEvent> resourceBatchChanges,
                           final Event<ResourceUpdatedEvent> resourceUpdatedEvent,
                           final Event<ResourceRenamedEvent> resourceRenamedEvent,
@@ -86,6 +90,10 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
         this.resourceAddedEvent = resourceAddedEvent;
     }
 
+    public void setWatchEventRouter(final WatchEventRouter watchEventRouter) {
+        this.watchEventRouter = watchEventRouter;
+    }
+
     @Override
     public void execute(final WatchKey wk,
                         final Filter<WatchEvent<?>> filter) {
@@ -133,6 +141,10 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
                                                                         message(firstContext),
                                                                         sessionInfo(firstContext)));
             }
+            if (!changes.isEmpty()) {
+                route(changes,
+                      firstContext);
+            }
         } else if (events.size() == 1) {
             final WatchEvent<?> event = events.get(0);
             if (!filter.doFilter(event)) {
@@ -149,11 +161,34 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
                     resourceDeletedEvent.fire(buildEvent(ResourceDeletedEvent.class,
                                                          event).getK2());
                 }
+                if (isRouting()) {
+                    final Pair<Path, ResourceChange> result = buildChange(event);
+                    if (result != null) {
+                        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+                        changes.put(result.getK1(),
+                                    Collections.singletonList(result.getK2()));
+                        route(changes,
+                              (WatchContext) event.context());
+                    }
+                }
             }
         }
     }
 
-    private String message(final WatchContext context) {
+    private boolean isRouting() {
+        return watchEventRouter != null && watchEventRouter.hasSubscriptions();
+    }
+
+    private void route(final Map<Path, Collection<ResourceChange>> changes,
+                       final WatchContext context) {
+        if (isRouting()) {
+            watchEventRouter.route(changes,
+                                   message(context),
+                                   sessionInfo(context));
+        }
+    }
+
+    static String message(final WatchContext context) {
         if (context == null) {
             return null;
         }
@@ -199,7 +234,7 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
                             result);
     }
 
-    private Pair<Path, ResourceChange> buildChange(final WatchEvent<?> event) {
+    static Pair<Path, ResourceChange> buildChange(final WatchEvent<?> event) {
         final WatchContext context = (WatchContext) event.context();
 
         final Path _affectedPath;
@@ -253,7 +288,7 @@ public class IOWatchServiceExecutorImpl implements IOWatchServiceExecutor {
         return null;
     }
 
-    private SessionInfo sessionInfo(final WatchContext context) {
+    static SessionInfo sessionInfo(final WatchContext context) {
         final String sessionId;
         final String user;
         if (context.getSessionId() == null) {
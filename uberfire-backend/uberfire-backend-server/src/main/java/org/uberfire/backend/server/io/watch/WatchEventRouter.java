@@ -0,0 +1,415 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.commons.async.DescriptiveRunnable;
+import org.uberfire.commons.concurrent.Unmanaged;
+import org.uberfire.commons.data.Pair;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchService;
+import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+
+/**
+ * Routes the changes detected by the file system watch services to the subscribers of the affected paths.
+ * <p>
+ * Subscriptions are either path prefixes (e.g. "default://master@repo/src/main") or globs, where "*" and "?" match
+ * within a path segment and "**" across segments (e.g. "default://master@repo/**&#47;*.java"), so "**&#47;" also
+ * matches no directory at all. They are indexed by
+ * their literal leading segments in a trie, so routing a change only visits the subscriptions that may match it.
+ * <p>
+ * Each subscriber receives the matching changes of a batch as a single {@link ResourceBatchChangesEvent}, delivered
+ * asynchronously and in order through a bounded queue. When the queue of a slow subscriber is full its queued changes
+ * are discarded and replaced by a single call to its overflow listener, meaning that anything may have changed, so
+ * subscribers keeping state derived from the files should drop it all.
+ * <p>
+ * The file systems of the IO services without an IO watch service, such as the configIO one, are routed once
+ * {@link #watch(FileSystem)} is called: their watch services are polled by the loop of the IO watch service and
+ * their changes are only delivered to the subscribers, no resource event is fired for them.
+ */
+@ApplicationScoped
+public class WatchEventRouter {
+
+    public static final String QUEUE_SIZE = "org.uberfire.watcher.subscription.queuesize";
+
+    private static final Logger LOG = LoggerFactory.getLogger(WatchEventRouter.class);
+
+    private final Node root = new Node();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong subscriptions = new AtomicLong();
+    private final ConcurrentMap<FileSystem, WatchService> watchedFileSystems = new ConcurrentHashMap<>();
+    private ExecutorService executorService;
+
+    public WatchEventRouter() {
+    }
+
+    @Inject
+    public WatchEventRouter(@Unmanaged ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @PreDestroy
+    public void dispose() {
+        for (WatchService watchService : watchedFileSystems.values()) {
+            watchService.close();
+        }
+        watchedFileSystems.clear();
+        lock.writeLock().lock();
+        try {
+            root.clear();
+            subscriptions.set(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Subscribes without an overflow listener: the changes discarded when the queue is full are lost.
+     */
+    public Subscription subscribe(final String pattern,
+                                  final Consumer<ResourceBatchChangesEvent> listener) {
+        return subscribe(pattern,
+                         listener,
+                         null);
+    }
+
+    /**
+     * @param overflowListener called, in order with the changes, in place of the changes discarded because the queue
+     * was full.
+     */
+    public Subscription subscribe(final String pattern,
+                                  final Consumer<ResourceBatchChangesEvent> listener,
+                                  final Runnable overflowListener) {
+        return subscribe(pattern,
+                         listener,
+                         overflowListener,
+                         Integer.getInteger(QUEUE_SIZE,
+                                            1000));
+    }
+
+    public Subscription subscribe(final String pattern,
+                                  final Consumer<ResourceBatchChangesEvent> listener,
+                                  final Runnable overflowListener,
+                                  final int queueSize) {
+        final Subscription subscription = new Subscription(pattern,
+                                                           listener,
+                                                           overflowListener,
+                                                           queueSize);
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            for (String segment : subscription.literalSegments) {
+                node = node.children.computeIfAbsent(segment,
+                                                     k -> new Node());
+            }
+            node.subscriptions.add(subscription);
+            subscription.node = node;
+            subscriptions.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return subscription;
+    }
+
+    public boolean hasSubscriptions() {
+        return subscriptions.get() > 0;
+    }
+
+    /**
+     * Routes the changes of a file system that is not already watched by an IO watch service. Watching it again is a
+     * no-op.
+     */
+    public void watch(final FileSystem fileSystem) {
+        watchedFileSystems.computeIfAbsent(fileSystem,
+                                           FileSystem::newWatchService);
+    }
+
+    /**
+     * @return the watch services of the file systems registered through {@link #watch(FileSystem)}.
+     */
+    Collection<WatchService> getWatchServices() {
+        return watchedFileSystems.values();
+    }
+
+    /**
+     * Delivers the changes of a watch service registered through {@link #watch(FileSystem)}.
+     */
+    void route(final List<WatchEvent<?>> events) {
+        if (!hasSubscriptions()) {
+            return;
+        }
+        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+        WatchContext firstContext = null;
+        for (WatchEvent<?> event : events) {
+            final Pair<Path, ResourceChange> change = IOWatchServiceExecutorImpl.buildChange(event);
+            if (change != null) {
+                if (firstContext == null) {
+                    firstContext = (WatchContext) event.context();
+                }
+                changes.computeIfAbsent(change.getK1(),
+                                        k -> new ArrayList<>()).add(change.getK2());
+            }
+        }
+        if (!changes.isEmpty()) {
+            route(changes,
+                  IOWatchServiceExecutorImpl.message(firstContext),
+                  IOWatchServiceExecutorImpl.sessionInfo(firstContext));
+        }
+    }
+
+    /**
+     * Delivers the changes to the subscribers of the affected paths.
+     */
+    public void route(final Map<Path, Collection<ResourceChange>> changes,
+                      final String message,
+                      final SessionInfo sessionInfo) {
+        if (!hasSubscriptions()) {
+            return;
+        }
+        final Map<Subscription, Map<Path, Collection<ResourceChange>>> routed = new IdentityHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Path, Collection<ResourceChange>> entry : changes.entrySet()) {
+                for (Subscription subscription : match(entry.getKey().toURI())) {
+                    routed.computeIfAbsent(subscription,
+                                           k -> new HashMap<>()).put(entry.getKey(),
+                                                                     entry.getValue());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Map.Entry<Subscription, Map<Path, Collection<ResourceChange>>> entry : routed.entrySet()) {
+            entry.getKey().offer(new ResourceBatchChangesEvent(entry.getValue(),
+                                                               message,
+                                                               sessionInfo));
+        }
+    }
+
+    //Must be called holding the read lock
+    private List<Subscription> match(final String uri) {
+        final List<Subscription> matches = new ArrayList<>();
+        final String[] segments = uri.split("/");
+        Node node = root;
+        int i = 0;
+        while (node != null) {
+            for (Subscription subscription : node.subscriptions) {
+                if (subscription.matches(uri)) {
+                    matches.add(subscription);
+                }
+            }
+            node = i < segments.length ? node.children.get(segments[i++]) : null;
+        }
+        return matches;
+    }
+
+    private void unsubscribe(final Subscription subscription) {
+        lock.writeLock().lock();
+        try {
+            if (subscription.node != null && subscription.node.subscriptions.remove(subscription)) {
+                subscriptions.decrementAndGet();
+            }
+            subscription.node = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Subscription> subscriptions = new ArrayList<>();
+
+        private void clear() {
+            children.clear();
+            subscriptions.clear();
+        }
+    }
+
+    public class Subscription {
+
+        private final String pattern;
+        private final List<String> literalSegments = new ArrayList<>();
+        private final Pattern glob;
+        private final Consumer<ResourceBatchChangesEvent> listener;
+        private final Runnable overflowListener;
+        private final BlockingQueue<ResourceBatchChangesEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean overflowed = new AtomicBoolean(false);
+        private final AtomicLong dropped = new AtomicLong();
+        private Node node;
+
+        private Subscription(final String pattern,
+                             final Consumer<ResourceBatchChangesEvent> listener,
+                             final Runnable overflowListener,
+                             final int queueSize) {
+            this.pattern = pattern;
+            this.listener = listener;
+            this.overflowListener = overflowListener;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+
+            boolean wildcard = false;
+            for (String segment : pattern.split("/")) {
+                if (segment.contains("*") || segment.contains("?")) {
+                    wildcard = true;
+                    break;
+                }
+                literalSegments.add(segment);
+            }
+            this.glob = wildcard ? toRegex(pattern) : null;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return the number of batches that were discarded because the queue was full.
+         */
+        public long getDroppedEvents() {
+            return dropped.get();
+        }
+
+        public void close() {
+            unsubscribe(this);
+            queue.clear();
+            overflowed.set(false);
+        }
+
+        //Prefix subscriptions match any path of their trie node or below it
+        private boolean matches(final String uri) {
+            return glob == null || glob.matcher(uri).matches();
+        }
+
+        private void offer(final ResourceBatchChangesEvent event) {
+            if (!queue.offer(event)) {
+                //The overflow signal covers the queued changes and this one
+                final List<ResourceBatchChangesEvent> discarded = new ArrayList<>();
+                queue.drainTo(discarded);
+                dropped.addAndGet(discarded.size() + 1);
+                if (overflowed.compareAndSet(false,
+                                             true)) {
+                    LOG.warn("Subscription queue for '" + pattern + "' is full, the queued changes were discarded.");
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false,
+                                        true)) {
+                return;
+            }
+            final DescriptiveRunnable drain = new DescriptiveRunnable() {
+                @Override
+                public String getDescription() {
+                    return "WatchEventRouter(" + pattern + ")";
+                }
+
+                @Override
+                public void run() {
+                    drain();
+                }
+            };
+            if (executorService == null) {
+                drain.run();
+            } else {
+                executorService.execute(drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                if (overflowed.getAndSet(false) && overflowListener != null) {
+                    try {
+                        overflowListener.run();
+                    } catch (Exception e) {
+                        LOG.error("Error notifying the overflow to subscription '" + pattern + "'",
+                                  e);
+                    }
+                }
+                final ResourceBatchChangesEvent event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                try {
+                    listener.accept(event);
+                } catch (Exception e) {
+                    LOG.error("Error delivering changes to subscription '" + pattern + "'",
+                              e);
+                }
+            }
+            draining.set(false);
+            //Changes may have been queued after the last poll but before releasing the drain
+            if (!queue.isEmpty() || overflowed.get()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    static Pattern toRegex(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*') {
+                if (glob.startsWith("**/",
+                                    i)) {
+                    //Any number of directories, including none
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
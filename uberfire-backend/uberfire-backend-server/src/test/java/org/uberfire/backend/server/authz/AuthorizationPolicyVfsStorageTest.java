@@ -0,0 +1,284 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.authz;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.jboss.errai.security.shared.api.RoleImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+import org.uberfire.security.authz.AuthorizationPolicy;
+import org.uberfire.security.authz.AuthorizationResult;
+import org.uberfire.security.authz.PermissionManager;
+import org.uberfire.security.impl.authz.DefaultPermissionManager;
+import org.uberfire.security.impl.authz.DefaultPermissionTypeRegistry;
+import org.uberfire.spaces.SpacesAPI;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthorizationPolicyVfsStorageTest {
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private SpacesAPI spaces;
+
+    @Mock
+    private FileSystem fileSystem;
+
+    @Mock
+    private Path root;
+
+    @Mock
+    private Path authzPath;
+
+    private Map<String, Path> files = new HashMap<>();
+    // The content and the file key of the stored files
+    private Map<Path, String> contents = new HashMap<>();
+    private Map<Path, Integer> fileKeys = new HashMap<>();
+    private int nextFileKey = 0;
+    private PermissionManager permissionManager;
+    private AuthorizationPolicyVfsStorage storage;
+
+    @Before
+    public void setUp() {
+        permissionManager = new DefaultPermissionManager(new DefaultPermissionTypeRegistry());
+        when(spaces.resolveFileSystemURI(any(),
+                                         any(),
+                                         anyString())).thenReturn(URI.create("default://system/security"));
+        when(ioService.newFileSystem(any(URI.class),
+                                     anyMap())).thenReturn(fileSystem);
+        when(fileSystem.getRootDirectories()).thenReturn(Collections.singletonList(root));
+        when(root.resolve("authz")).thenReturn(authzPath);
+        doAnswer(invocationOnMock -> files.computeIfAbsent(invocationOnMock.getArgumentAt(0,
+                                                                                          String.class),
+                                                           this::file))
+                .when(authzPath).resolve(anyString());
+        doAnswer(invocationOnMock -> !contents.isEmpty()).when(ioService).exists(authzPath);
+        doAnswer(invocationOnMock -> directoryStream()).when(ioService).newDirectoryStream(authzPath);
+        doAnswer(invocationOnMock -> {
+            store(invocationOnMock.getArgumentAt(0,
+                                                 Path.class),
+                  invocationOnMock.getArgumentAt(1,
+                                                 String.class));
+            return null;
+        }).when(ioService).write(any(Path.class),
+                                 anyString());
+        doAnswer(invocationOnMock -> contents.remove(invocationOnMock.getArgumentAt(0,
+                                                                                    Path.class)) != null)
+                .when(ioService).deleteIfExists(any(Path.class));
+        doAnswer(invocationOnMock -> contents.get(invocationOnMock.getArgumentAt(0,
+                                                                                 Path.class)))
+                .when(ioService).readAllString(any(Path.class));
+        doAnswer(invocationOnMock -> attributeView(invocationOnMock.getArgumentAt(0,
+                                                                                  Path.class)))
+                .when(ioService).getFileAttributeView(any(Path.class),
+                                                      eq(BasicFileAttributeView.class));
+
+        storage = new AuthorizationPolicyVfsStorage(ioService,
+                                                    permissionManager,
+                                                    spaces);
+        storage.initFileSystem();
+    }
+
+    @Test
+    public void testPolicyIsSplitByRoleAndGroup() {
+        final Map<String, NonEscapedProperties> entries = storage.splitEntries(policy(true));
+
+        assertEquals(3,
+                     entries.size());
+        assertEquals("false",
+                     entries.get("security-policy.properties").get("default.permission.perspective.read"));
+        assertEquals("true",
+                     entries.get("security-role-admin.properties").get("role.admin.permission.perspective.read"));
+        assertEquals("5",
+                     entries.get("security-group-kie+group.properties").get("group.kie group.priority"));
+    }
+
+    @Test
+    public void testOnlyChangedFilesAreWritten() {
+        storage.savePolicy(policy(true));
+
+        verify(ioService,
+               times(3)).write(any(Path.class),
+                               anyString());
+        verify(ioService,
+               times(1)).startBatch(eq(fileSystem),
+                                    any(CommentedOption.class));
+
+        //Nothing changed, nothing is committed
+        storage.savePolicy(policy(true));
+        verify(ioService,
+               times(3)).write(any(Path.class),
+                               anyString());
+        verify(ioService,
+               times(1)).startBatch(eq(fileSystem),
+                                    any(CommentedOption.class));
+
+        storage.savePolicy(policy(false));
+        verify(ioService,
+               times(4)).write(any(Path.class),
+                               anyString());
+        verify(ioService,
+               times(2)).write(eq(files.get("security-role-admin.properties")),
+                               anyString());
+    }
+
+    @Test
+    public void testRemovedGroupFileIsDeleted() {
+        storage.savePolicy(policy(true));
+
+        storage.savePolicy(permissionManager.newAuthorizationPolicy()
+                                   .bydefault().permission("perspective.read",
+                                                           false)
+                                   .role("admin").permission("perspective.read",
+                                                             true)
+                                   .build());
+
+        verify(ioService).deleteIfExists(files.get("security-group-kie+group.properties"));
+        verify(ioService,
+               times(3)).write(any(Path.class),
+                               anyString());
+    }
+
+    @Test
+    public void testModuleFilesAreKept() {
+        final Path moduleFile = authzPath.resolve("security-module-test.properties");
+        store(moduleFile,
+              "role.manager.permission.perspective.read=true");
+
+        storage.savePolicy(policy(true));
+        storage.savePolicy(policy(false));
+
+        verify(ioService,
+               never()).deleteIfExists(moduleFile);
+        verify(ioService,
+               never()).write(eq(moduleFile),
+                              anyString());
+        assertEquals(AuthorizationResult.ACCESS_GRANTED,
+                     storage.loadPolicy().getPermissions(new RoleImpl("manager")).get("perspective.read").getResult());
+    }
+
+    @Test
+    public void testFilesChangedBehindTheStorageAreReadAgain() {
+        storage.savePolicy(policy(true));
+        assertEquals(AuthorizationResult.ACCESS_GRANTED,
+                     storage.loadPolicy().getPermissions(new RoleImpl("admin")).get("perspective.read").getResult());
+
+        //Another node stores a new version of the admin file
+        final Path adminFile = files.get("security-role-admin.properties");
+        store(adminFile,
+              "role.admin.permission.perspective.read=false");
+
+        assertEquals(AuthorizationResult.ACCESS_DENIED,
+                     storage.loadPolicy().getPermissions(new RoleImpl("admin")).get("perspective.read").getResult());
+        //Only the changed file was read again
+        verify(ioService,
+               times(1)).readAllString(adminFile);
+        verify(ioService,
+               never()).readAllString(files.get("security-policy.properties"));
+
+        //The save is compared with the new version, so the admin file is written again
+        storage.savePolicy(policy(true));
+        verify(ioService,
+               times(2)).write(eq(adminFile),
+                               anyString());
+        assertEquals(AuthorizationResult.ACCESS_GRANTED,
+                     storage.loadPolicy().getPermissions(new RoleImpl("admin")).get("perspective.read").getResult());
+    }
+
+    @Test
+    public void testFileRemovedBehindTheStorageIsWrittenAgain() {
+        storage.savePolicy(policy(true));
+        contents.remove(files.get("security-group-kie+group.properties"));
+
+        storage.savePolicy(policy(true));
+
+        verify(ioService,
+               times(2)).write(eq(files.get("security-group-kie+group.properties")),
+                               anyString());
+        verify(ioService,
+               times(4)).write(any(Path.class),
+                               anyString());
+    }
+
+    private AuthorizationPolicy policy(final boolean adminCanRead) {
+        return permissionManager.newAuthorizationPolicy()
+                .bydefault().permission("perspective.read",
+                                        false)
+                .role("admin").permission("perspective.read",
+                                          adminCanRead)
+                .group("kie group").priority(5)
+                .build();
+    }
+
+    private Path file(final String fileName) {
+        final Path file = mock(Path.class);
+        final Path name = mock(Path.class);
+        when(name.toString()).thenReturn(fileName);
+        when(file.getFileName()).thenReturn(name);
+        return file;
+    }
+
+    private void store(final Path file,
+                       final String content) {
+        contents.put(file,
+                     content);
+        fileKeys.put(file,
+                     nextFileKey++);
+    }
+
+    private DirectoryStream<Path> directoryStream() {
+        final Iterator<Path> iterator = new ArrayList<>(contents.keySet()).iterator();
+        return new DirectoryStream<Path>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Iterator<Path> iterator() {
+                return iterator;
+            }
+        };
+    }
+
+    private BasicFileAttributeView attributeView(final Path file) {
+        final BasicFileAttributes attributes = mock(BasicFileAttributes.class);
+        when(attributes.fileKey()).thenReturn(fileKeys.get(file));
+        final BasicFileAttributeView view = mock(BasicFileAttributeView.class);
+        when(view.readAttributes()).thenReturn(attributes);
+        return view;
+    }
+}
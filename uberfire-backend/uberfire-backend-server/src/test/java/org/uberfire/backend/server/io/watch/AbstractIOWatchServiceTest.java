@@ -16,9 +16,10 @@
 
 package org.uberfire.backend.server.io.watch;
 
-import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -28,16 +29,20 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.uberfire.backend.server.util.Filter;
 import org.uberfire.commons.async.DescriptiveThreadFactory;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.file.ClosedWatchServiceException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.InterruptedException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
 import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.WatchKey;
 import org.uberfire.java.nio.file.WatchService;
 import org.uberfire.java.nio.file.Watchable;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AbstractIOWatchServiceTest {
@@ -68,9 +73,15 @@ public class AbstractIOWatchServiceTest {
                 public void close() throws IOException {
                 }
 
+                private boolean polled = false;
+
                 @Override
                 public WatchKey poll() throws ClosedWatchServiceException {
-                    return null;
+                    if (polled) {
+                        return null;
+                    }
+                    polled = true;
+                    return take();
                 }
 
                 @Override
@@ -95,7 +106,7 @@ public class AbstractIOWatchServiceTest {
 
                         @Override
                         public boolean reset() {
-                            return false; // exit the loop in asyncWatchService.execute()
+                            return false; // stop watching the file system
                         }
 
                         @Override
@@ -118,26 +129,79 @@ public class AbstractIOWatchServiceTest {
             service.addWatchService(mock(FileSystem.class),
                                     ws);
 
-            Set<AsyncWatchService> watchThreads = null;
-            try {
-                Field field = AbstractIOWatchService.class.getDeclaredField("watchThreads");
-                field.setAccessible(true);
-                watchThreads = (Set<AsyncWatchService>) field.get(service);
-            } catch (Exception e) {
-                fail(e.getMessage());
-            }
-            AsyncWatchService asyncWatchService = watchThreads.iterator().next();
-
             IOWatchServiceExecutor wsExecutor = (watchKey, filter) -> {
                 throw new RuntimeException("dummy");
             };
 
             try {
-                asyncWatchService.execute(wsExecutor);
-                assertTrue(true);
+                assertTrue(service.pollWatchServices(wsExecutor));
             } catch (Exception e) {
-                fail("Exception is thrown from asyncWatchService.execute()");
+                fail("Exception is thrown from pollWatchServices()");
             }
+            assertFalse(service.isWatching(ws));
+            assertFalse(service.pollWatchServices(wsExecutor));
+        } finally {
+            System.clearProperty("org.uberfire.watcher.autostart");
+        }
+    }
+
+    @Test
+    public void testRoutedFileSystemsArePolled() {
+        try {
+            System.setProperty("org.uberfire.watcher.autostart",
+                               "false");
+
+            final WatchEventRouter watchEventRouter = new WatchEventRouter();
+            final AbstractIOWatchService service = new AbstractIOWatchService(null,
+                                                                              null,
+                                                                              null,
+                                                                              null,
+                                                                              null,
+                                                                              Executors.newCachedThreadPool(new DescriptiveThreadFactory()),
+                                                                              watchEventRouter) {
+
+                @Override
+                public boolean doFilter(WatchEvent<?> t) {
+                    return false;
+                }
+            };
+
+            final FileSystem fileSystem = mock(FileSystem.class);
+            final WatchService ws = mock(WatchService.class);
+            when(fileSystem.newWatchService()).thenReturn(ws);
+            when(fileSystem.supportedFileAttributeViews()).thenReturn(Collections.emptySet());
+            final Path path = mock(Path.class);
+            final Path fileName = mock(Path.class);
+            when(fileName.toString()).thenReturn("file.txt");
+            when(path.getFileName()).thenReturn(fileName);
+            when(path.toUri()).thenReturn(URI.create("default://master@config/file.txt"));
+            when(path.getFileSystem()).thenReturn(fileSystem);
+            final WatchContext context = mock(WatchContext.class);
+            when(context.getOldPath()).thenReturn(path);
+            final WatchEvent<?> event = mock(WatchEvent.class);
+            doReturn(StandardWatchEventKind.ENTRY_MODIFY).when(event).kind();
+            doReturn(context).when(event).context();
+            final WatchKey wk = mock(WatchKey.class);
+            when(wk.pollEvents()).thenReturn(Collections.singletonList(event));
+            when(ws.poll()).thenReturn(wk,
+                                       null);
+
+            final List<ResourceBatchChangesEvent> routed = new ArrayList<>();
+            watchEventRouter.subscribe("default://master@config",
+                                       routed::add);
+            watchEventRouter.watch(fileSystem);
+            watchEventRouter.watch(fileSystem);
+
+            final IOWatchServiceExecutor wsExecutor = (watchKey, filter) -> fail("Routed changes must not fire events");
+            assertTrue(service.pollWatchServices(wsExecutor));
+            assertFalse(service.pollWatchServices(wsExecutor));
+
+            verify(fileSystem,
+                   times(1)).newWatchService();
+            assertEquals(1,
+                         routed.size());
+            assertEquals("default://master@config/file.txt",
+                         routed.get(0).getBatch().keySet().iterator().next().toURI());
         } finally {
             System.clearProperty("org.uberfire.watcher.autostart");
         }
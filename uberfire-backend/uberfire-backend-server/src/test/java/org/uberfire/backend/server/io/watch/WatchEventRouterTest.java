@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class WatchEventRouterTest {
+
+    private static final String JAVA_FILE = "default://master@repo/src/main/java/org/Test.java";
+    private static final String DRL_FILE = "default://master@repo/src/main/resources/org/test.drl";
+    private static final String OTHER_BRANCH_FILE = "default://dev@repo/src/main/java/org/Test.java";
+
+    @Test
+    public void testPrefixSubscription() {
+        final WatchEventRouter router = new WatchEventRouter();
+        final List<ResourceBatchChangesEvent> received = new ArrayList<>();
+        router.subscribe("default://master@repo/src/main/java",
+                         received::add);
+
+        router.route(changes(JAVA_FILE,
+                             DRL_FILE,
+                             OTHER_BRANCH_FILE),
+                     "message",
+                     mock(SessionInfo.class));
+
+        assertEquals(1,
+                     received.size());
+        assertEquals(Collections.singletonList(JAVA_FILE),
+                     uris(received.get(0)));
+    }
+
+    @Test
+    public void testGlobSubscription() {
+        final WatchEventRouter router = new WatchEventRouter();
+        final List<ResourceBatchChangesEvent> received = new ArrayList<>();
+        router.subscribe("default://*@repo/**/*.java",
+                         received::add);
+
+        router.route(changes(JAVA_FILE,
+                             DRL_FILE,
+                             OTHER_BRANCH_FILE),
+                     "message",
+                     mock(SessionInfo.class));
+
+        assertEquals(1,
+                     received.size());
+        final List<String> uris = uris(received.get(0));
+        assertEquals(2,
+                     uris.size());
+        assertTrue(uris.contains(JAVA_FILE));
+        assertTrue(uris.contains(OTHER_BRANCH_FILE));
+    }
+
+    @Test
+    public void testDoubleStarMatchesNoDirectory() {
+        assertTrue(WatchEventRouter.toRegex("a/**/b").matcher("a/b").matches());
+        assertTrue(WatchEventRouter.toRegex("a/**/b").matcher("a/x/y/b").matches());
+        assertFalse(WatchEventRouter.toRegex("a/**/b").matcher("a/xb").matches());
+
+        final WatchEventRouter router = new WatchEventRouter();
+        final List<ResourceBatchChangesEvent> received = new ArrayList<>();
+        router.subscribe("default://master@repo/**/pom.xml",
+                         received::add);
+
+        router.route(changes("default://master@repo/pom.xml",
+                             "default://master@repo/module/pom.xml",
+                             JAVA_FILE),
+                     "message",
+                     mock(SessionInfo.class));
+
+        assertEquals(1,
+                     received.size());
+        final List<String> uris = uris(received.get(0));
+        assertEquals(2,
+                     uris.size());
+        assertTrue(uris.contains("default://master@repo/pom.xml"));
+        assertTrue(uris.contains("default://master@repo/module/pom.xml"));
+    }
+
+    @Test
+    public void testClosedSubscription() {
+        final WatchEventRouter router = new WatchEventRouter();
+        final List<ResourceBatchChangesEvent> received = new ArrayList<>();
+        final WatchEventRouter.Subscription subscription = router.subscribe("default://master@repo",
+                                                                            received::add);
+        subscription.close();
+
+        assertFalse(router.hasSubscriptions());
+        router.route(changes(JAVA_FILE),
+                     "message",
+                     mock(SessionInfo.class));
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testFullQueueIsReplacedByOverflowSignal() {
+        //The deliveries only run when the test runs them, so the queue fills up
+        final ExecutorService executorService = mock(ExecutorService.class);
+        final List<Runnable> deliveries = new ArrayList<>();
+        doAnswer(invocation -> deliveries.add((Runnable) invocation.getArguments()[0]))
+                .when(executorService).execute(any(Runnable.class));
+        final WatchEventRouter router = new WatchEventRouter(executorService);
+        final List<String> received = new ArrayList<>();
+        final WatchEventRouter.Subscription subscription = router.subscribe("default://master@repo",
+                                                                            event -> received.addAll(uris(event)),
+                                                                            () -> received.add("overflow"),
+                                                                            2);
+        for (int i = 0; i < 3; i++) {
+            router.route(changes(JAVA_FILE),
+                         "message",
+                         mock(SessionInfo.class));
+        }
+        router.route(changes(DRL_FILE),
+                     "message",
+                     mock(SessionInfo.class));
+
+        assertEquals(3,
+                     subscription.getDroppedEvents());
+        assertEquals(1,
+                     deliveries.size());
+        deliveries.remove(0).run();
+
+        //The discarded changes are replaced by a single signal, delivered before the changes queued after it
+        assertEquals(Arrays.asList("overflow",
+                                   DRL_FILE),
+                     received);
+        assertTrue(deliveries.isEmpty());
+    }
+
+    private Map<Path, Collection<ResourceChange>> changes(final String... uris) {
+        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+        for (String uri : uris) {
+            changes.put(PathFactory.newPath(uri.substring(uri.lastIndexOf('/') + 1),
+                                            uri),
+                        Collections.singletonList(new ResourceUpdated("message")));
+        }
+        return changes;
+    }
+
+    private List<String> uris(final ResourceBatchChangesEvent event) {
+        final List<String> uris = new ArrayList<>();
+        for (Path path : event.getBatch().keySet()) {
+            uris.add(path.toURI());
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.plugin.backend;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.uberfire.ext.plugin.model.CodeType;
+import org.uberfire.ext.plugin.model.DynamicMenu;
+import org.uberfire.ext.plugin.model.Framework;
+import org.uberfire.ext.plugin.model.Language;
+import org.uberfire.ext.plugin.model.Media;
+import org.uberfire.ext.plugin.model.Plugin;
+import org.uberfire.ext.plugin.model.PluginContent;
+import org.uberfire.ext.plugin.model.PluginType;
+import org.uberfire.ext.plugin.model.RuntimePlugin;
+
+/**
+ * Everything the workbench needs from a single plugin directory: its plugin files, the runtime scripts and the
+ * dynamic menu are read when the bundle is built, the sources edited in the plugin editor the first time they are
+ * requested. A bundle is never changed, a change to the plugin builds a new one with a higher version.
+ */
+class PluginBundle {
+
+    private final String name;
+    private final long version;
+    private final Collection<Plugin> plugins;
+    private final Collection<RuntimePlugin> runtimePlugins;
+    private final DynamicMenu dynamicMenu;
+    private final Set<String> fileNames;
+    private final String css;
+    private final Set<Framework> frameworks;
+    private volatile Sources sources;
+
+    PluginBundle(final String name,
+                 final long version,
+                 final Collection<Plugin> plugins,
+                 final Collection<RuntimePlugin> runtimePlugins,
+                 final DynamicMenu dynamicMenu,
+                 final Set<String> fileNames,
+                 final String css,
+                 final Set<Framework> frameworks) {
+        this.name = name;
+        this.version = version;
+        this.plugins = Collections.unmodifiableCollection(plugins);
+        this.runtimePlugins = Collections.unmodifiableCollection(runtimePlugins);
+        this.dynamicMenu = dynamicMenu;
+        this.fileNames = Collections.unmodifiableSet(fileNames);
+        this.css = css;
+        this.frameworks = Collections.unmodifiableSet(frameworks);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    Collection<Plugin> getPlugins() {
+        return plugins;
+    }
+
+    Collection<RuntimePlugin> getRuntimePlugins() {
+        return runtimePlugins;
+    }
+
+    DynamicMenu getDynamicMenu() {
+        return dynamicMenu;
+    }
+
+    boolean containsFile(final String fileName) {
+        return fileNames.contains(fileName);
+    }
+
+    /**
+     * @return a new content, so callers may change it without affecting the bundle.
+     */
+    PluginContent getContent(final PluginType type,
+                             final org.uberfire.backend.vfs.Path path,
+                             final Supplier<Sources> loader) {
+        Sources current = sources;
+        if (current == null) {
+            current = loader.get();
+            sources = current;
+        }
+        return new PluginContent(name,
+                                 type,
+                                 path,
+                                 current.template,
+                                 css,
+                                 new HashMap<>(current.codeMap),
+                                 new HashSet<>(frameworks),
+                                 Language.JAVASCRIPT,
+                                 new HashSet<>(current.mediaLibrary));
+    }
+
+    static class Sources {
+
+        private final String template;
+        private final Map<CodeType, String> codeMap;
+        private final Set<Media> mediaLibrary;
+
+        Sources(final String template,
+                final Map<CodeType, String> codeMap,
+                final Set<Media> mediaLibrary) {
+            this.template = template;
+            this.codeMap = new HashMap<>(codeMap);
+            this.mediaLibrary = new HashSet<>(mediaLibrary);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.ext.plugin.backend;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.ext.plugin.model.DynamicMenu;
+import org.uberfire.ext.plugin.model.Plugin;
+import org.uberfire.ext.plugin.model.RuntimePlugin;
+
+/**
+ * In memory registry of the installed plugins, so listing and loading plugins doesn't walk the plugins file system.
+ * <p>
+ * The plugin directories are scanned and their bundles built on first use. Afterwards a change to a plugin only
+ * marks it stale: the next read rebuilds the bundles of the stale plugins, keeping the others, and publishes a new
+ * snapshot whose lists are shared by all reads until the next change.
+ */
+class PluginRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginRegistry.class);
+
+    private final Supplier<Collection<String>> scanner;
+    private final BiFunction<String, Long, PluginBundle> loader;
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rescan = new AtomicBoolean(true);
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+
+    /**
+     * @param scanner lists the names of the plugin directories.
+     * @param loader builds the bundle of a plugin with the given version, or returns null when it no longer exists.
+     */
+    PluginRegistry(final Supplier<Collection<String>> scanner,
+                   final BiFunction<String, Long, PluginBundle> loader) {
+        this.scanner = scanner;
+        this.loader = loader;
+    }
+
+    Collection<Plugin> getPlugins() {
+        return new ArrayList<>(getSnapshot().plugins);
+    }
+
+    Collection<RuntimePlugin> getRuntimePlugins() {
+        return new ArrayList<>(getSnapshot().runtimePlugins);
+    }
+
+    Collection<DynamicMenu> getDynamicMenus() {
+        return new ArrayList<>(getSnapshot().dynamicMenus);
+    }
+
+    Collection<PluginBundle> getBundles() {
+        return getSnapshot().bundles.values();
+    }
+
+    /**
+     * @return the bundle of the plugin, or null if there's no such plugin.
+     */
+    PluginBundle getBundle(final String pluginName) {
+        return getSnapshot().bundles.get(pluginName);
+    }
+
+    /**
+     * The plugin is reloaded on next read. The plugin doesn't need to exist, so it can be used for added plugins.
+     */
+    void invalidate(final String pluginName) {
+        stale.add(pluginName);
+    }
+
+    /**
+     * The plugin directories are scanned and all the plugins reloaded on next read.
+     */
+    void invalidateAll() {
+        rescan.set(true);
+    }
+
+    private Snapshot getSnapshot() {
+        if (!rescan.get() && stale.isEmpty()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            final boolean full = rescan.getAndSet(false);
+            final Set<String> names = new HashSet<>();
+            for (String name : stale) {
+                stale.remove(name);
+                names.add(name);
+            }
+            if (!full && names.isEmpty()) {
+                return snapshot;
+            }
+
+            final Map<String, PluginBundle> bundles = new TreeMap<>();
+            if (full) {
+                try {
+                    names.addAll(scanner.get());
+                } catch (final RuntimeException e) {
+                    rescan.set(true);
+                    stale.addAll(names);
+                    throw e;
+                }
+            } else {
+                bundles.putAll(snapshot.bundles);
+            }
+
+            final long nextVersion = version.incrementAndGet();
+            for (String name : names) {
+                final PluginBundle bundle = load(name,
+                                                 nextVersion);
+                if (bundle == null) {
+                    bundles.remove(name);
+                } else {
+                    bundles.put(name,
+                                bundle);
+                }
+            }
+
+            snapshot = new Snapshot(bundles);
+            return snapshot;
+        }
+    }
+
+    private PluginBundle load(final String name,
+                              final long version) {
+        try {
+            return loader.apply(name,
+                                version);
+        } catch (final Exception e) {
+            logger.error("Failed to load plugin " + name + ", it is ignored until it changes.",
+                         e);
+            return null;
+        }
+    }
+
+    private static class Snapshot {
+
+        private final Map<String, PluginBundle> bundles;
+        private final Collection<Plugin> plugins = new ArrayList<>();
+        private final Collection<RuntimePlugin> runtimePlugins = new ArrayList<>();
+        private final Collection<DynamicMenu> dynamicMenus = new ArrayList<>();
+
+        private Snapshot(final Map<String, PluginBundle> bundles) {
+            this.bundles = Collections.unmodifiableMap(bundles);
+            for (PluginBundle bundle : bundles.values()) {
+                plugins.addAll(bundle.getPlugins());
+                runtimePlugins.addAll(bundle.getRuntimePlugins());
+                if (bundle.getDynamicMenu() != null) {
+                    dynamicMenus.add(bundle.getDynamicMenu());
+                }
+            }
+        }
+    }
+}
@@ -29,8 +29,10 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -42,9 +44,11 @@ import org.jboss.errai.bus.server.annotations.Service;
 import org.jboss.errai.security.shared.api.identity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.ext.editor.commons.backend.service.SaveAndRenameServiceImpl;
 import org.uberfire.ext.editor.commons.backend.validation.DefaultFileNameValidator;
 import org.uberfire.ext.editor.commons.file.DefaultMetadata;
+import org.uberfire.ext.plugin.event.MediaAdded;
 import org.uberfire.ext.plugin.event.MediaDeleted;
 import org.uberfire.ext.plugin.event.PluginAdded;
 import org.uberfire.ext.plugin.event.PluginDeleted;
@@ -78,6 +82,10 @@ import org.uberfire.java.nio.file.SimpleFileVisitor;
 import org.uberfire.java.nio.file.StandardDeleteOption;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceRenamed;
 
 import static org.kie.soup.commons.validation.PortablePreconditions.checkCondition;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpty;
@@ -106,6 +114,9 @@ public class PluginServicesImpl implements PluginServices {
     private SaveAndRenameServiceImpl<Plugin, DefaultMetadata> saveAndRenameService;
     private FileSystem fileSystem;
     private Path root;
+    private PluginRegistry pluginRegistry;
+    private WatchEventRouter watchEventRouter;
+    private WatchEventRouter.Subscription subscription;
 
     public PluginServicesImpl() {
     }
@@ -122,7 +133,8 @@ public class PluginServicesImpl implements PluginServices {
                               final DefaultFileNameValidator defaultFileNameValidator,
                               final User identity,
                               final @Named("pluginsFS") FileSystem fileSystem,
-                              final SaveAndRenameServiceImpl<Plugin, DefaultMetadata> saveAndRenameService) {
+                              final SaveAndRenameServiceImpl<Plugin, DefaultMetadata> saveAndRenameService,
+                              final WatchEventRouter watchEventRouter) {
         this.ioService = ioService;
         this.mediaServletURI = mediaServletURI;
         this.sessionInfo = sessionInfo;
@@ -135,16 +147,30 @@ public class PluginServicesImpl implements PluginServices {
         this.identity = identity;
         this.fileSystem = fileSystem;
         this.saveAndRenameService = saveAndRenameService;
+        this.watchEventRouter = watchEventRouter;
     }
 
     @PostConstruct
     public void init() {
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         this.root = resolveRoot();
+        this.pluginRegistry = new PluginRegistry(this::scanPluginNames,
+                                                 this::loadBundle);
+        //Changes discarded by the router may have touched any plugin
+        this.subscription = watchEventRouter.subscribe(root.toUri().toString(),
+                                                       this::onPluginsChanged,
+                                                       () -> pluginRegistry.invalidateAll());
 
         saveAndRenameService.init(this);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
     Path resolveRoot() {
         return fileSystem.getRootDirectories().iterator().next();
     }
@@ -156,57 +182,90 @@ public class PluginServicesImpl implements PluginServices {
 
     @Override
     public Collection<RuntimePlugin> listRuntimePlugins() {
-        return listRuntimePlugins(root);
+        return pluginRegistry.getRuntimePlugins();
     }
 
     @Override
     public Collection<RuntimePlugin> listPluginRuntimePlugins(final org.uberfire.backend.vfs.Path pluginPath) {
-        return listRuntimePlugins(convert(pluginPath).getParent());
+        final PluginBundle bundle = pluginRegistry.getBundle(convert(pluginPath).getParent().getFileName().toString());
+        if (bundle == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(bundle.getRuntimePlugins());
     }
 
-    private Collection<RuntimePlugin> listRuntimePlugins(Path path) {
-        final Collection<RuntimePlugin> result = new ArrayList<RuntimePlugin>();
-
-        if (getIoService().exists(path)) {
-            walkFileTree(checkNotNull("path",
-                                      path),
-                         new SimpleFileVisitor<Path>() {
-                             @Override
-                             public FileVisitResult visitFile(final Path file,
-                                                              final BasicFileAttributes attrs) throws IOException {
-                                 try {
-                                     checkNotNull("file",
-                                                  file);
-                                     checkNotNull("attrs",
-                                                  attrs);
-
-                                     if (attrs.isRegularFile()) {
-                                         result.addAll(buildPluginRuntimePlugins(file));
-                                     }
-                                 } catch (final Exception ex) {
-                                     logger.error("An unexpected exception was thrown: ",
-                                                  ex);
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 return FileVisitResult.CONTINUE;
-                             }
-                         });
+    Collection<String> scanPluginNames() {
+        final Collection<String> result = new ArrayList<>();
+        if (getIoService().exists(root)) {
+            try (final DirectoryStream<Path> stream = getIoService().newDirectoryStream(root)) {
+                for (final Path path : stream) {
+                    result.add(path.getFileName().toString());
+                }
+            }
         }
-
         return result;
     }
 
-    private Collection<RuntimePlugin> buildPluginRuntimePlugins(final Path pluginPath) {
-        final Collection<RuntimePlugin> result = new ArrayList<RuntimePlugin>();
+    /**
+     * Builds the bundle of a plugin directory from its direct children: the plugin files, the runtime registry
+     * script and the dynamic menu items. Returns null when there's no such directory.
+     */
+    PluginBundle loadBundle(final String pluginName,
+                            final long version) {
+        final Path pluginRoot = getPluginPath(pluginName);
+        if (!getIoService().exists(pluginRoot)) {
+            return null;
+        }
 
-        if (pluginPath.getFileName().toString().endsWith(".registry.js")) {
-            final String pluginName = pluginPath.getParent().getFileName().toString();
-            result.addAll(buildRuntimePluginsFromFrameworks(loadFramework(pluginName)));
-            result.add(new RuntimePlugin(loadCss(pluginName),
-                                         getIoService().readAllString(pluginPath)));
+        final Collection<Plugin> plugins = new ArrayList<>();
+        final Set<String> fileNames = new HashSet<>();
+        String registryScript = null;
+        DynamicMenu dynamicMenu = null;
+        try (final DirectoryStream<Path> stream = getIoService().newDirectoryStream(pluginRoot)) {
+            for (final Path file : stream) {
+                final String fileName = file.getFileName().toString();
+                fileNames.add(fileName);
+                if (fileName.endsWith(".plugin")) {
+                    final org.uberfire.backend.vfs.Path path = convert(file);
+                    plugins.add(new Plugin(pluginName,
+                                           TypeConverterUtil.fromPath(path),
+                                           path));
+                } else if (fileName.endsWith(".registry.js")) {
+                    registryScript = getIoService().readAllString(file);
+                } else if (fileName.equalsIgnoreCase("info.dynamic")) {
+                    dynamicMenu = new DynamicMenu(pluginName,
+                                                  PluginType.DYNAMIC_MENU,
+                                                  convert(pluginRoot),
+                                                  loadMenuItems(pluginName));
+                }
+            }
+        } catch (final NotDirectoryException exception) {
+            return null;
         }
 
-        return result;
+        final String css = loadCss(pluginName);
+        final Set<Framework> frameworks = loadFramework(pluginName);
+        final Collection<RuntimePlugin> runtimePlugins = new ArrayList<>();
+        if (registryScript != null) {
+            runtimePlugins.addAll(buildRuntimePluginsFromFrameworks(frameworks));
+            runtimePlugins.add(new RuntimePlugin(css,
+                                                 registryScript));
+        }
+
+        return new PluginBundle(pluginName,
+                                version,
+                                plugins,
+                                runtimePlugins,
+                                dynamicMenu,
+                                fileNames,
+                                css,
+                                frameworks);
+    }
+
+    private PluginBundle.Sources loadSources(final String pluginName) {
+        return new PluginBundle.Sources(loadTemplate(pluginName),
+                                        loadCodeMap(pluginName),
+                                        loadMediaLibrary(pluginName));
     }
 
     private Collection<RuntimePlugin> buildRuntimePluginsFromFrameworks(Collection<Framework> frameworks) {
@@ -237,36 +296,7 @@ public class PluginServicesImpl implements PluginServices {
 
     @Override
     public Collection<Plugin> listPlugins() {
-        final Collection<Plugin> result = new ArrayList<>();
-
-        if (getIoService().exists(root)) {
-            walkFileTree(checkNotNull("root",
-                                      root),
-                         new SimpleFileVisitor<Path>() {
-                             @Override
-                             public FileVisitResult visitFile(final Path file,
-                                                              final BasicFileAttributes attrs) throws IOException {
-                                 try {
-                                     checkNotNull("file",
-                                                  file);
-                                     checkNotNull("attrs",
-                                                  attrs);
-
-                                     if (file.getFileName().toString().endsWith(".plugin") && attrs.isRegularFile()) {
-                                         final org.uberfire.backend.vfs.Path path = convert(file);
-                                         result.add(new Plugin(file.getParent().getFileName().toString(),
-                                                               TypeConverterUtil.fromPath(path),
-                                                               path));
-                                     }
-                                 } catch (final Exception ex) {
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 return FileVisitResult.CONTINUE;
-                             }
-                         });
-        }
-
-        return result;
+        return pluginRegistry.getPlugins();
     }
 
     @Override
@@ -314,6 +344,8 @@ public class PluginServicesImpl implements PluginServices {
             getIoService().endBatch();
         }
 
+        pluginRegistry.invalidate(plugin.getName());
+
         if (isNewPlugIn) {
             pluginAddedEvent.fire(new PluginAdded(plugin,
                                                   sessionInfo));
@@ -326,6 +358,12 @@ public class PluginServicesImpl implements PluginServices {
     @Override
     public PluginContent getPluginContent(final org.uberfire.backend.vfs.Path path) {
         final String pluginName = convert(path).getParent().getFileName().toString();
+        final PluginBundle bundle = pluginRegistry.getBundle(pluginName);
+        if (bundle != null) {
+            return bundle.getContent(TypeConverterUtil.fromPath(path),
+                                     path,
+                                     () -> loadSources(pluginName));
+        }
         return new PluginContent(pluginName,
                                  TypeConverterUtil.fromPath(path),
                                  path,
@@ -387,6 +425,7 @@ public class PluginServicesImpl implements PluginServices {
                          isNewPlugin);
         } finally {
             getIoService().endBatch();
+            pluginRegistry.invalidate(plugin.getName());
         }
 
         return plugin.getPath();
@@ -555,6 +594,7 @@ public class PluginServicesImpl implements PluginServices {
                                               StandardDeleteOption.NON_EMPTY_DIRECTORIES);
             } finally {
                 getIoService().endBatch();
+                pluginRegistry.invalidate(pluginPath.getParent().getFileName().toString());
             }
 
             pluginDeletedEvent.fire(new PluginDeleted(plugin,
@@ -596,7 +636,8 @@ public class PluginServicesImpl implements PluginServices {
         final org.uberfire.backend.vfs.Path result = convert(newPath.resolve(path.getFileName()));
         final PluginContent pluginContent = getPluginContent(result);
         removeRegistry(newPath);
-        String registry = createRegistry(pluginContent);
+        createRegistry(pluginContent);
+        pluginRegistry.invalidate(newPath.getFileName().toString());
 
         pluginAddedEvent.fire(new PluginAdded(pluginContent,
                                               sessionInfo));
@@ -629,7 +670,9 @@ public class PluginServicesImpl implements PluginServices {
 
         final org.uberfire.backend.vfs.Path result = convert(newPath.resolve(path.getFileName()));
         final PluginContent pluginContent = getPluginContent(result);
-        String registry = createRegistry(pluginContent);
+        createRegistry(pluginContent);
+        pluginRegistry.invalidate(oldPluginName);
+        pluginRegistry.invalidate(newName);
 
         pluginRenamedEvent.fire(new PluginRenamed(oldPluginName,
                                                   pluginContent,
@@ -678,6 +721,7 @@ public class PluginServicesImpl implements PluginServices {
             getIoService().delete(mediaPath);
         } finally {
             getIoService().endBatch();
+            pluginRegistry.invalidate(mediaPath.getParent().getParent().getFileName().toString());
         }
 
         mediaDeletedEvent.fire(new MediaDeleted(mediaPath.getParent().getParent().getFileName().toString(),
@@ -745,6 +789,7 @@ public class PluginServicesImpl implements PluginServices {
                          isNewPlugin);
         } finally {
             getIoService().endBatch();
+            pluginRegistry.invalidate(plugin.getName());
         }
 
         return plugin.getPath();
@@ -771,6 +816,7 @@ public class PluginServicesImpl implements PluginServices {
                          isNewPlugin);
         } finally {
             getIoService().endBatch();
+            pluginRegistry.invalidate(plugin.getName());
         }
         return plugin.getPath();
     }
@@ -782,66 +828,19 @@ public class PluginServicesImpl implements PluginServices {
 
     @Override
     public Collection<DynamicMenu> listDynamicMenus() {
-        final Collection<DynamicMenu> result = new ArrayList<DynamicMenu>();
-
-        if (getIoService().exists(root)) {
-            walkFileTree(checkNotNull("root",
-                                      root),
-                         new SimpleFileVisitor<Path>() {
-                             @Override
-                             public FileVisitResult visitFile(final Path file,
-                                                              final BasicFileAttributes attrs) throws IOException {
-                                 try {
-                                     checkNotNull("file",
-                                                  file);
-                                     checkNotNull("attrs",
-                                                  attrs);
-
-                                     if (file.getFileName().toString().equalsIgnoreCase("info.dynamic") && attrs.isRegularFile()) {
-                                         final String pluginName = file.getParent().getFileName().toString();
-                                         result.add(new DynamicMenu(pluginName,
-                                                                    PluginType.DYNAMIC_MENU,
-                                                                    convert(file.getParent()),
-                                                                    loadMenuItems(pluginName)));
-                                     }
-                                 } catch (final Exception ex) {
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 return FileVisitResult.CONTINUE;
-                             }
-                         });
-        }
-
-        return result;
+        return pluginRegistry.getDynamicMenus();
     }
 
     @Override
     public Collection<LayoutEditorModel> listLayoutEditor(final PluginType pluginType) {
         final Collection<LayoutEditorModel> result = new ArrayList<LayoutEditorModel>();
+        final String fileName = pluginType.toString().toLowerCase();
 
-        if (getIoService().exists(root)) {
-            walkFileTree(checkNotNull("root",
-                                      root),
-                         new SimpleFileVisitor<Path>() {
-                             @Override
-                             public FileVisitResult visitFile(final Path file,
-                                                              final BasicFileAttributes attrs) throws IOException {
-                                 try {
-                                     checkNotNull("file",
-                                                  file);
-                                     checkNotNull("attrs",
-                                                  attrs);
-                                     if (file.getFileName().toString().equalsIgnoreCase(pluginType.toString().toLowerCase()) && attrs.isRegularFile()) {
-                                         final LayoutEditorModel layoutEditorModel = getLayoutEditor(convert(file),
-                                                                                                     pluginType);
-                                         result.add(layoutEditorModel);
-                                     }
-                                 } catch (final Exception ex) {
-                                     return FileVisitResult.TERMINATE;
-                                 }
-                                 return FileVisitResult.CONTINUE;
-                             }
-                         });
+        for (final PluginBundle bundle : pluginRegistry.getBundles()) {
+            if (bundle.containsFile(fileName)) {
+                result.add(getLayoutEditor(convert(getPluginPath(bundle.getName()).resolve(fileName)),
+                                           pluginType));
+            }
         }
 
         return result;
@@ -867,6 +866,48 @@ public class PluginServicesImpl implements PluginServices {
         return ioService;
     }
 
+    public void onMediaAdded(@Observes final MediaAdded event) {
+        pluginRegistry.invalidate(event.getPluginName());
+    }
+
+    public void onResourceCopied(@Observes final ResourceCopiedEvent event) {
+        invalidate(event.getDestinationPath());
+    }
+
+    /**
+     * Receives the changes of the plugins file system detected by the watch service.
+     */
+    void onPluginsChanged(final ResourceBatchChangesEvent event) {
+        for (Map.Entry<org.uberfire.backend.vfs.Path, Collection<ResourceChange>> entry : event.getBatch().entrySet()) {
+            invalidate(entry.getKey());
+            for (ResourceChange change : entry.getValue()) {
+                if (change instanceof ResourceRenamed) {
+                    invalidate(((ResourceRenamed) change).getDestinationPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the plugin a changed resource belongs to as stale, changes outside the plugins file system are ignored.
+     */
+    void invalidate(final org.uberfire.backend.vfs.Path path) {
+        if (path == null || !isPluginsPath(path)) {
+            return;
+        }
+        final Path pluginsPath = convert(path);
+        if (pluginsPath.getNameCount() > 0) {
+            pluginRegistry.invalidate(pluginsPath.getName(0).toString());
+        }
+    }
+
+    private boolean isPluginsPath(final org.uberfire.backend.vfs.Path path) {
+        //Compares whole segments, so file systems sharing a prefix (e.g. "plugins2") don't match
+        final String rootUri = root.toUri().toString();
+        final String prefix = rootUri.endsWith("/") ? rootUri : rootUri + "/";
+        return (path.toURI() + "/").startsWith(prefix);
+    }
+
     private Path getMenuItemsPath(final Path rootPlugin) {
         return rootPlugin.resolve("info.dynamic");
     }
@@ -18,10 +18,15 @@ package org.uberfire.ext.plugin.backend;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.enterprise.event.Event;
 import javax.enterprise.inject.Instance;
@@ -33,6 +38,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.PathFactory;
@@ -59,13 +65,19 @@ import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.mocks.FileSystemTestingUtils;
 import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceUpdated;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
@@ -109,6 +121,10 @@ public class PluginServicesImplTest {
     @Mock
     private User identity;
 
+    private WatchEventRouter watchEventRouter;
+
+    private List<Runnable> heldDeliveries;
+
     private IOServiceDotFileImpl ioService;
 
     private PluginServicesImpl pluginServices;
@@ -128,6 +144,18 @@ public class PluginServicesImplTest {
         doReturn(fileSystemTestingUtils.getFileSystem().getRootDirectories()).when(fileSystem).getRootDirectories();
         doNothing().when(ioService).startBatch(any(FileSystem.class));
         doNothing().when(ioService).endBatch();
+        //Changes are delivered straight away, unless a test holds them
+        final ExecutorService executorService = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            final Runnable delivery = (Runnable) invocation.getArguments()[0];
+            if (heldDeliveries == null) {
+                delivery.run();
+            } else {
+                heldDeliveries.add(delivery);
+            }
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+        watchEventRouter = new WatchEventRouter(executorService);
         pluginServices = spy(new PluginServicesImpl(ioService,
                                                     mediaServletURI,
                                                     sessionInfo,
@@ -139,7 +167,8 @@ public class PluginServicesImplTest {
                                                     defaultFileNameValidator,
                                                     identity,
                                                     fileSystemTestingUtils.getFileSystem(),
-                                                    saveAndRenameService) {
+                                                    saveAndRenameService,
+                                                    watchEventRouter) {
             @Override
             String getFrameworkScript(Framework framework) throws IOException {
                 return "script";
@@ -311,6 +340,126 @@ public class PluginServicesImplTest {
                      runtimePlugins.size());
     }
 
+    @Test
+    public void testPluginsAreLoadedOnce() {
+        createPlugin("emptyScreen",
+                     PluginType.SCREEN,
+                     null);
+        createPlugin("angularScreen",
+                     PluginType.SCREEN,
+                     Framework.ANGULAR);
+
+        assertEquals(3,
+                     pluginServices.listRuntimePlugins().size());
+        assertEquals(3,
+                     pluginServices.listRuntimePlugins().size());
+        assertEquals(2,
+                     pluginServices.listPlugins().size());
+        assertEquals(0,
+                     pluginServices.listDynamicMenus().size());
+
+        verify(pluginServices,
+               times(1)).scanPluginNames();
+        verify(pluginServices,
+               times(1)).loadBundle(eq("emptyScreen"),
+                                    anyLong());
+        verify(pluginServices,
+               times(1)).loadBundle(eq("angularScreen"),
+                                    anyLong());
+    }
+
+    @Test
+    public void testOnlyChangedPluginsAreReloaded() {
+        createPlugin("emptyScreen",
+                     PluginType.SCREEN,
+                     null);
+        createPlugin("angularScreen",
+                     PluginType.SCREEN,
+                     Framework.ANGULAR);
+        pluginServices.listRuntimePlugins();
+
+        pluginServices.save(buildPlugin("emptyScreen",
+                                        PluginType.SCREEN,
+                                        Framework.KNOCKOUT),
+                            "");
+        assertEquals(4,
+                     pluginServices.listRuntimePlugins().size());
+
+        verify(pluginServices,
+               times(2)).loadBundle(eq("emptyScreen"),
+                                    anyLong());
+        verify(pluginServices,
+               times(1)).loadBundle(eq("angularScreen"),
+                                    anyLong());
+    }
+
+    @Test
+    public void testResourceChangeInvalidatesItsPlugin() {
+        createPlugin("emptyScreen",
+                     PluginType.SCREEN,
+                     null);
+        pluginServices.listRuntimePlugins();
+
+        final org.uberfire.java.nio.file.Path root = fileSystemTestingUtils.getFileSystem().getRootDirectories().iterator().next();
+        notifyChange(Paths.convert(root.resolve("emptyScreen/template.html")));
+        notifyChange(PathFactory.newPath("file",
+                                         "default://master@other/emptyScreen/file"));
+        pluginServices.listRuntimePlugins();
+
+        verify(pluginServices,
+               times(2)).loadBundle(eq("emptyScreen"),
+                                    anyLong());
+    }
+
+    @Test
+    public void testRouterOverflowReloadsAllPlugins() {
+        createPlugin("emptyScreen",
+                     PluginType.SCREEN,
+                     null);
+        pluginServices.listRuntimePlugins();
+
+        //The changes are held until the subscription queue overflows
+        heldDeliveries = new ArrayList<>();
+        final org.uberfire.java.nio.file.Path root = fileSystemTestingUtils.getFileSystem().getRootDirectories().iterator().next();
+        final Path otherScreen = Paths.convert(root.resolve("otherScreen/template.html"));
+        for (int i = 0; i <= Integer.getInteger(WatchEventRouter.QUEUE_SIZE,
+                                                1000); i++) {
+            notifyChange(otherScreen);
+        }
+        heldDeliveries.forEach(Runnable::run);
+        pluginServices.listRuntimePlugins();
+
+        //Only otherScreen changed, but the discarded changes may have touched any plugin
+        verify(pluginServices,
+               times(2)).scanPluginNames();
+        verify(pluginServices,
+               times(2)).loadBundle(eq("emptyScreen"),
+                                    anyLong());
+    }
+
+    @Test
+    public void testCopyToAnotherFileSystemIsIgnored() {
+        createPlugin("emptyScreen",
+                     PluginType.SCREEN,
+                     null);
+        pluginServices.listRuntimePlugins();
+
+        //A file system whose name starts with the name of the plugins one
+        final String rootUri = fileSystemTestingUtils.getFileSystem().getRootDirectories().iterator().next().toUri().toString();
+        final Path sibling = PathFactory.newPath("file",
+                                                 rootUri.replaceAll("/$",
+                                                                    "") + "2/emptyScreen/file");
+        pluginServices.onResourceCopied(new ResourceCopiedEvent(sibling,
+                                                                sibling,
+                                                                "",
+                                                                sessionInfo));
+        pluginServices.listRuntimePlugins();
+
+        verify(pluginServices,
+               times(1)).loadBundle(eq("emptyScreen"),
+                                    anyLong());
+    }
+
     @Test
     public void testLoadEmptyLayout() {
         Path pluginPath = createPlugin("emptyLayout",
@@ -425,6 +574,15 @@ public class PluginServicesImplTest {
                                        null);
     }
 
+    private void notifyChange(final Path path) {
+        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+        changes.put(path,
+                    Collections.singletonList(new ResourceUpdated("")));
+        watchEventRouter.route(changes,
+                               "",
+                               sessionInfo);
+    }
+
     private boolean contains(Collection<RuntimePlugin> runtimePlugins,
                              String pluginName) {
         for (RuntimePlugin runtimePlugin : runtimePlugins) {
@@ -87,6 +87,10 @@ public class SocialPaged implements Serializable {
         lastFileIndex = lastFileIndex + 1;
     }
 
+    public void updateLastFileIndex(int numberOfEventsRead) {
+        lastFileIndex = lastFileIndex + numberOfEventsRead;
+    }
+
     public int freshIndex() {
         return freshIndex;
     }
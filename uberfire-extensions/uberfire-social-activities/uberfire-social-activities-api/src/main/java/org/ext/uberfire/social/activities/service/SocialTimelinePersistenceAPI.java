@@ -31,6 +31,14 @@ public interface SocialTimelinePersistenceAPI extends PriorityDisposable {
     List<SocialActivitiesEvent> getTimeline(SocialEventType type,
                                             String timelineFile);
 
+    /**
+     * Reads a page of a timeline file, skipping the {@code offset} most recent events of the file.
+     */
+    List<SocialActivitiesEvent> getTimeline(SocialEventType type,
+                                            String timelineFile,
+                                            int offset,
+                                            int numberOfEvents);
+
     List<SocialActivitiesEvent> getLastEvents(SocialUser user);
 
     List<SocialActivitiesEvent> getRecentEvents(SocialUser user);
@@ -45,6 +53,14 @@ public interface SocialTimelinePersistenceAPI extends PriorityDisposable {
     List<SocialActivitiesEvent> getTimeline(SocialUser socialUser,
                                             String timelineFile);
 
+    /**
+     * Reads a page of a timeline file, skipping the {@code offset} most recent events of the file.
+     */
+    List<SocialActivitiesEvent> getTimeline(SocialUser socialUser,
+                                            String timelineFile,
+                                            int offset,
+                                            int numberOfEvents);
+
     List<SocialActivitiesEvent> getRecentEvents(SocialEventType type);
 
     Integer getUserMostRecentFileIndex(SocialUser user);
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.Gson;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.channels.SeekableByteChannel;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardOpenOption;
+
+/**
+ * A timeline segment: an immutable file holding a batch of social events.
+ * <p>
+ * Layout:
+ * <pre>
+ * header  | int magic | byte version |
+ * records | int length | length bytes of UTF-8 json | ... (in write order)
+ * index   | long record offset | ... (one per record)
+ * footer  | int record count | long index offset | int magic |
+ * </pre>
+ * The footer and the offset index allow a page of events to be read with one
+ * read of the index slice and one contiguous read of the records, regardless
+ * of the segment size.
+ */
+public class SocialSegmentFile {
+
+    static final int MAGIC = 0x534F4331;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    static final int FOOTER_SIZE = 16;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final IOService ioService;
+    private final Gson gson;
+
+    public SocialSegmentFile(final Path path,
+                             final IOService ioService,
+                             final Gson gson) {
+        this.path = path;
+        this.ioService = ioService;
+        this.gson = gson;
+    }
+
+    /**
+     * Writes the events, in the given order, as a new segment. Callers are
+     * expected to run inside a batch together with the timeline index update.
+     */
+    public void write(final List<SocialActivitiesEvent> events) {
+        ioService.write(path,
+                        toBytes(events));
+    }
+
+    byte[] toBytes(final List<SocialActivitiesEvent> events) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            final long[] offsets = new long[events.size()];
+            for (int i = 0; i < events.size(); i++) {
+                offsets[i] = out.size();
+                final byte[] json = gson.toJson(events.get(i)).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(json.length);
+                out.write(json);
+            }
+
+            final long indexOffset = out.size();
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+
+            out.writeInt(events.size());
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new ErrorAccessingSegment(e);
+        }
+    }
+
+    /**
+     * Number of events stored on this segment, read from the footer.
+     */
+    public int size() {
+        if (!ioService.exists(path)) {
+            return -1;
+        }
+        try (SeekableByteChannel channel = openForReading()) {
+            return readFooter(channel).count;
+        } catch (IOException e) {
+            throw new ErrorAccessingSegment(e);
+        }
+    }
+
+    /**
+     * Reads all the events of the segment, most recent first.
+     */
+    public List<SocialActivitiesEvent> readSocialEvents() {
+        return readSocialEvents(0,
+                                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a page of events, most recent first.
+     * @param skip number of most recent events to skip.
+     * @param numberOfEvents maximum number of events to return.
+     */
+    public List<SocialActivitiesEvent> readSocialEvents(final int skip,
+                                                        final int numberOfEvents) {
+        final List<SocialActivitiesEvent> events = new ArrayList<>();
+        if (!ioService.exists(path) || numberOfEvents <= 0) {
+            return events;
+        }
+
+        try (SeekableByteChannel channel = openForReading()) {
+            final Footer footer = readFooter(channel);
+            final int last = footer.count - 1 - Math.max(skip,
+                                                         0);
+            if (last < 0) {
+                return events;
+            }
+            final int first = Math.max(0,
+                                       last - numberOfEvents + 1);
+
+            // the offset of the record following the page, if any, delimits the block to read
+            final boolean hasNext = last + 1 < footer.count;
+            final ByteBuffer index = read(channel,
+                                          footer.indexOffset + (long) first * Long.BYTES,
+                                          (last - first + (hasNext ? 2 : 1)) * Long.BYTES);
+            final long start = index.getLong(0);
+            final long end = hasNext ? index.getLong((last - first + 1) * Long.BYTES) : footer.indexOffset;
+
+            final ByteBuffer records = read(channel,
+                                            start,
+                                            (int) (end - start));
+            while (records.remaining() >= Integer.BYTES) {
+                final int length = records.getInt();
+                final String json = new String(records.array(),
+                                               records.position(),
+                                               length,
+                                               StandardCharsets.UTF_8);
+                records.position(records.position() + length);
+                try {
+                    events.add(gson.fromJson(json,
+                                             SocialActivitiesEvent.class));
+                } catch (Exception e) {
+                    //ignore json error, try read next
+                }
+            }
+        } catch (IOException e) {
+            throw new ErrorAccessingSegment(e);
+        }
+
+        Collections.reverse(events);
+        return events;
+    }
+
+    /**
+     * Checks if the file was written on the segment format.
+     */
+    public boolean isSegment() {
+        if (!ioService.exists(path)) {
+            return false;
+        }
+        try (SeekableByteChannel channel = openForReading()) {
+            if (channel.size() < HEADER_SIZE + FOOTER_SIZE) {
+                return false;
+            }
+            final ByteBuffer header = read(channel,
+                                           0,
+                                           HEADER_SIZE);
+            return header.getInt(0) == MAGIC && header.get(4) == VERSION;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private SeekableByteChannel openForReading() {
+        return ioService.newByteChannel(path,
+                                        StandardOpenOption.READ);
+    }
+
+    private Footer readFooter(final SeekableByteChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size < HEADER_SIZE + FOOTER_SIZE) {
+            throw new ErrorAccessingSegment("Invalid social segment " + path);
+        }
+        final ByteBuffer footer = read(channel,
+                                       size - FOOTER_SIZE,
+                                       FOOTER_SIZE);
+        if (footer.getInt(12) != MAGIC) {
+            throw new ErrorAccessingSegment("Invalid social segment " + path);
+        }
+        return new Footer(footer.getInt(0),
+                          footer.getLong(4));
+    }
+
+    private ByteBuffer read(final SeekableByteChannel channel,
+                            final long position,
+                            final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        while (buffer.position() < length) {
+            buffer.limit(Math.min(length,
+                                  buffer.position() + BLOCK_SIZE));
+            if (channel.read(buffer) < 0) {
+                throw new ErrorAccessingSegment("Unexpected end of social segment " + path);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class Footer {
+
+        private final int count;
+        private final long indexOffset;
+
+        private Footer(final int count,
+                       final long indexOffset) {
+            this.count = count;
+            this.indexOffset = indexOffset;
+        }
+    }
+
+    static class ErrorAccessingSegment extends RuntimeException {
+
+        ErrorAccessingSegment(final String message) {
+            super(message);
+        }
+
+        ErrorAccessingSegment(final Exception e) {
+            super(e);
+        }
+    }
+}
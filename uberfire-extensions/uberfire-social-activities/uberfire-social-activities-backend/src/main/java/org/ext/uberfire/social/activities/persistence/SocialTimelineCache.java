@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+
+/**
+ * In-memory view of the stored timelines, one bounded ring buffer per key.
+ * <p>
+ * Timelines are loaded lazily on first access. Every timeline keeps at most
+ * {@value #TIMELINE_SIZE_PROPERTY} events and all the timelines together at most
+ * {@value #BUDGET_PROPERTY} events: when the budget is exceeded the least recently
+ * accessed timelines are dropped, and loaded again from the file system on their next access.
+ */
+public class SocialTimelineCache<K> {
+
+    public static final String TIMELINE_SIZE_PROPERTY = "org.uberfire.social.cache.timeline.size";
+    public static final String BUDGET_PROPERTY = "org.uberfire.social.cache.budget";
+    private static final int DEFAULT_TIMELINE_SIZE = 1000;
+    private static final long DEFAULT_BUDGET = 100000;
+
+    private final Map<K, Timeline> timelines = new ConcurrentHashMap<>();
+    private final AtomicLong cachedEvents = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final int timelineSize;
+    private final long budget;
+
+    public SocialTimelineCache() {
+        this(Integer.getInteger(TIMELINE_SIZE_PROPERTY,
+                                DEFAULT_TIMELINE_SIZE),
+             Long.getLong(BUDGET_PROPERTY,
+                          DEFAULT_BUDGET));
+    }
+
+    public SocialTimelineCache(final int timelineSize,
+                               final long budget) {
+        this.timelineSize = Math.max(1,
+                                     timelineSize);
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the cached timeline of the key, loading it if it is not in memory.
+     */
+    public List<SocialActivitiesEvent> get(final K key,
+                                           final Function<K, List<SocialActivitiesEvent>> loader) {
+        final Timeline timeline = timelines.get(key);
+        if (timeline != null) {
+            return timeline.snapshot();
+        }
+        final List<SocialActivitiesEvent> events = loader.apply(key);
+        final Timeline loaded = newTimeline(events);
+        final Timeline current = timelines.putIfAbsent(key,
+                                                       loaded);
+        if (current != null) {
+            return current.snapshot();
+        }
+        cachedEvents.addAndGet(loaded.size());
+        enforceBudget(key);
+        return loaded.snapshot();
+    }
+
+    /**
+     * Returns the cached timeline of the key, or null if it is not in memory.
+     */
+    public List<SocialActivitiesEvent> get(final K key) {
+        final Timeline timeline = timelines.get(key);
+        return timeline != null ? timeline.snapshot() : null;
+    }
+
+    public void put(final K key,
+                    final List<SocialActivitiesEvent> events) {
+        final Timeline timeline = newTimeline(events);
+        final Timeline previous = timelines.put(key,
+                                                timeline);
+        cachedEvents.addAndGet(timeline.size() - (previous != null ? previous.size() : 0));
+        enforceBudget(key);
+    }
+
+    public void remove(final K key) {
+        final Timeline previous = timelines.remove(key);
+        if (previous != null) {
+            cachedEvents.addAndGet(-previous.size());
+        }
+    }
+
+    public boolean containsKey(final K key) {
+        return timelines.containsKey(key);
+    }
+
+    public Set<K> keySet() {
+        return timelines.keySet();
+    }
+
+    public long getCachedEvents() {
+        return cachedEvents.get();
+    }
+
+    private Timeline newTimeline(final List<SocialActivitiesEvent> events) {
+        final Timeline timeline = new Timeline(timelineSize);
+        if (events != null) {
+            events.forEach(timeline::add);
+        }
+        return timeline;
+    }
+
+    private void enforceBudget(final K keep) {
+        while (cachedEvents.get() > budget) {
+            K eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<K, Timeline> entry : timelines.entrySet()) {
+                if (!entry.getKey().equals(keep) && entry.getValue().lastAccess < eldestAccess) {
+                    eldest = entry.getKey();
+                    eldestAccess = entry.getValue().lastAccess;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            remove(eldest);
+        }
+    }
+
+    /**
+     * Fixed size ring buffer; writers claim a slot with a single atomic increment, so
+     * readers never block and only see the most recent {@code capacity} events.
+     */
+    private class Timeline {
+
+        private final AtomicReferenceArray<SocialActivitiesEvent> slots;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long lastAccess = clock.incrementAndGet();
+
+        private Timeline(final int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void add(final SocialActivitiesEvent event) {
+            final long sequence = tail.getAndIncrement();
+            slots.set((int) (sequence % slots.length()),
+                      event);
+        }
+
+        private int size() {
+            return (int) Math.min(tail.get(),
+                                  slots.length());
+        }
+
+        private List<SocialActivitiesEvent> snapshot() {
+            lastAccess = clock.incrementAndGet();
+            final long end = tail.get();
+            final long start = Math.max(0,
+                                        end - slots.length());
+            final List<SocialActivitiesEvent> events = new ArrayList<>((int) (end - start));
+            for (long sequence = start; sequence < end; sequence++) {
+                final SocialActivitiesEvent event = slots.get((int) (sequence % slots.length()));
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.ext.uberfire.social.activities.persistence;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.gson.Gson;
@@ -79,11 +80,9 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
 
     @Override
     public void saveAllEvents() {
-        if (!typeEventsTimelineCache.keySet().isEmpty()) {
+        if (!typeEventsFreshEvents.isEmpty() || !userEventsTimelineFreshEvents.isEmpty()) {
             try {
-                final SocialEventType sampleType = typeEventsTimelineCache.keySet().iterator().next();
-                Path timeLineDir = userServicesBackend.buildPath(SOCIAL_FILES,
-                                                                 sampleType.name());
+                Path timeLineDir = getRootUserTimelineDirectory();
                 ioService.startBatch(timeLineDir.getFileSystem());
                 socialClusterMessaging.notifySomeInstanceIsOnShutdown();
                 saveAllTypeEvents();
@@ -98,19 +97,14 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
 
     private void registerNewEvent(SocialUser user,
                                   SocialActivitiesEvent event) {
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            userEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        userEvents.add(event);
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          userEvents);
+        registerFreshEvents(user.getUserName(),
+                            Collections.singletonList(event));
         cacheControl(user);
     }
 
     private void syncCluster(SocialUser user) {
-        List<SocialActivitiesEvent> myFreshEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
+        List<SocialActivitiesEvent> myFreshEvents = new ArrayList<SocialActivitiesEvent>(getFreshEvents(user.getUserName()));
+        SocialCacheControl socialCacheControl = getCacheControl(user.getUserName());
         socialCacheControl.reset();
         List<SocialActivitiesEvent> actualTypeTimeline = createOrGetUserTimeline(user.getUserName());
         refreshCache(user.getUserName(),
@@ -121,8 +115,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     }
 
     private void syncCluster(SocialEventType eventType) {
-        List<SocialActivitiesEvent> myFreshEvents = typeEventsFreshEvents.get(eventType);
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(eventType);
+        List<SocialActivitiesEvent> myFreshEvents = new ArrayList<SocialActivitiesEvent>(getFreshEvents(eventType));
+        SocialCacheControl socialCacheControl = getCacheControl(eventType);
         socialCacheControl.reset();
         List<SocialActivitiesEvent> actualTypeTimeline = createOrGetTypeTimeline(eventType);
         refreshCache(eventType,
@@ -155,10 +149,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     private void registerNewEvent(SocialActivitiesEvent event,
                                   SocialEventType eventType,
                                   boolean sendClusterMsg) {
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(eventType);
-        typeEvents.add(event);
-        typeEventsFreshEvents.put(eventType,
-                                  typeEvents);
+        registerFreshEvents(eventType,
+                            Collections.singletonList(event));
         cacheControl(event,
                      eventType);
 
@@ -178,10 +170,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
                                                                     storedTimeline);
 
         if (!unsavedEvents.isEmpty()) {
-            List<SocialActivitiesEvent> cacheEvents = typeEventsFreshEvents.get(eventType);
-            cacheEvents.addAll(unsavedEvents);
-            typeEventsFreshEvents.put(eventType,
-                                      cacheEvents);
+            registerFreshEvents(eventType,
+                                unsavedEvents);
         }
     }
 
@@ -191,10 +181,8 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
         List<SocialActivitiesEvent> unsavedEvents = findStaleEvents(myFreshEvents,
                                                                     storedTimeline);
         if (!unsavedEvents.isEmpty()) {
-            List<SocialActivitiesEvent> cacheEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-            cacheEvents.addAll(unsavedEvents);
-            userEventsTimelineFreshEvents.put(user.getUserName(),
-                                              cacheEvents);
+            registerFreshEvents(user.getUserName(),
+                                unsavedEvents);
         }
     }
 
@@ -218,12 +206,7 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     }
 
     private void cacheControl(SocialUser user) {
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
-        if (socialCacheControl == null) {
-            socialCacheControl = new SocialCacheControl();
-            userEventsCacheControl.put(user.getUserName(),
-                                       socialCacheControl);
-        }
+        SocialCacheControl socialCacheControl = getCacheControl(user.getUserName());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             Path userDir = getUserDirectory(user.getUserName());
@@ -242,7 +225,7 @@ public class SocialTimelineCacheClusterPersistence extends SocialTimelineCachePe
     private void cacheControl(SocialActivitiesEvent event,
                               SocialEventType eventType) {
         SocialEventType type = socialEventTypeRepository.findType(event.getType());
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(type);
+        SocialCacheControl socialCacheControl = getCacheControl(type);
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
             Path timeLineDir = userServicesBackend.buildPath(SOCIAL_FILES,
@@ -16,8 +16,7 @@
 package org.ext.uberfire.social.activities.persistence;
 
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 
 import com.google.gson.Gson;
 import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
@@ -55,13 +54,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     @Override
     public void persist(SocialActivitiesEvent event) {
         SocialEventType type = findType(event);
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(type);
-        if (typeEvents == null) {
-            typeEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        typeEvents.add(event);
-        typeEventsFreshEvents.put(type,
-                                  typeEvents);
+        registerFreshEvents(type,
+                            Collections.singletonList(event));
         cacheControl(event);
     }
 
@@ -72,13 +66,8 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     @Override
     public void persist(SocialUser user,
                         SocialActivitiesEvent event) {
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            userEvents = new ArrayList<SocialActivitiesEvent>();
-        }
-        userEvents.add(event);
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          userEvents);
+        registerFreshEvents(user.getUserName(),
+                            Collections.singletonList(event));
         cacheControl(user);
     }
 
@@ -89,27 +78,29 @@ public class SocialTimelineCacheInstancePersistence extends SocialTimelineCacheP
     }
 
     void cacheControl(SocialUser user) {
-        SocialCacheControl socialCacheControl = userEventsCacheControl.get(user.getUserName());
-        if (socialCacheControl == null) {
-            socialCacheControl = new SocialCacheControl();
-            userEventsCacheControl.put(user.getUserName(),
-                                       socialCacheControl);
-        }
+        SocialCacheControl socialCacheControl = getCacheControl(user.getUserName());
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
-            storeTimeLineInFile(user);
-
-            socialCacheControl.reset();
+            synchronized (socialCacheControl) {
+                if (socialCacheControl.needToPersist()) {
+                    storeTimeLineInFile(user);
+                    socialCacheControl.reset();
+                }
+            }
         }
     }
 
     void cacheControl(SocialActivitiesEvent event) {
         SocialEventType type = findType(event);
-        SocialCacheControl socialCacheControl = typeEventsCacheControl.get(type);
+        SocialCacheControl socialCacheControl = getCacheControl(type);
         socialCacheControl.registerNewEvent();
         if (socialCacheControl.needToPersist()) {
-            storeTimeLineInFile(type);
-            socialCacheControl.reset();
+            synchronized (socialCacheControl) {
+                if (socialCacheControl.needToPersist()) {
+                    storeTimeLineInFile(type);
+                    socialCacheControl.reset();
+                }
+            }
         }
     }
 }
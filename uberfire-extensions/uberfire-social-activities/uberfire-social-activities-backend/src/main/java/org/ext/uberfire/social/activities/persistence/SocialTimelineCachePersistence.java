@@ -15,12 +15,14 @@
 
 package org.ext.uberfire.social.activities.persistence;
 
-import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.gson.Gson;
 import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
@@ -40,9 +42,9 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     public static final String SOCIAL_FILES = "social-files";
     public static final String THRESHOLD_PROPERTY = "org.uberfire.social.threshold";
     private static final int DEFAULT_THRESHOLD = 100;
-    Map<SocialEventType, List<SocialActivitiesEvent>> typeEventsTimelineCache = new HashMap<SocialEventType, List<SocialActivitiesEvent>>();
-    Map<SocialEventType, List<SocialActivitiesEvent>> typeEventsFreshEvents = new HashMap<SocialEventType, List<SocialActivitiesEvent>>();
-    Map<SocialEventType, SocialCacheControl> typeEventsCacheControl = new HashMap<SocialEventType, SocialCacheControl>();
+    SocialTimelineCache<SocialEventType> typeEventsTimelineCache = new SocialTimelineCache<SocialEventType>();
+    Map<SocialEventType, List<SocialActivitiesEvent>> typeEventsFreshEvents = new ConcurrentHashMap<SocialEventType, List<SocialActivitiesEvent>>();
+    Map<SocialEventType, SocialCacheControl> typeEventsCacheControl = new ConcurrentHashMap<SocialEventType, SocialCacheControl>();
     int threshold;
     IOService ioService;
 
@@ -59,48 +61,80 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     SocialUserServicesExtendedBackEndImpl userServicesBackend;
 
     SocialSecurityConstraintsManager socialSecurityConstraintsManager;
-    Map<String, List<SocialActivitiesEvent>> userEventsTimelineCache = new HashMap<String, List<SocialActivitiesEvent>>();
-    Map<String, List<SocialActivitiesEvent>> userEventsTimelineFreshEvents = new HashMap<String, List<SocialActivitiesEvent>>();
-    Map<String, SocialCacheControl> userEventsCacheControl = new HashMap<String, SocialCacheControl>();
+    SocialTimelineCache<String> userEventsTimelineCache = new SocialTimelineCache<String>();
+    Map<String, List<SocialActivitiesEvent>> userEventsTimelineFreshEvents = new ConcurrentHashMap<String, List<SocialActivitiesEvent>>();
+    Map<String, SocialCacheControl> userEventsCacheControl = new ConcurrentHashMap<String, SocialCacheControl>();
 
     @Override
     public void setup() {
-        createCacheStructure();
-        createCacheControl();
+        // timelines, fresh events and cache controls are created lazily, on the first access to each key
     }
 
-    private void createCacheControl() {
-        for (SocialEventType type : socialEventTypeRepository.findAll()) {
-            typeEventsCacheControl.put(type,
-                                       new SocialCacheControl());
-        }
-        for (String username : socialUserPersistenceAPI.getSocialUsersName()) {
-            userEventsCacheControl.put(username,
-                                       new SocialCacheControl());
+    SocialCacheControl getCacheControl(SocialEventType type) {
+        return typeEventsCacheControl.computeIfAbsent(type,
+                                                      t -> new SocialCacheControl());
+    }
+
+    SocialCacheControl getCacheControl(String userName) {
+        return userEventsCacheControl.computeIfAbsent(userName,
+                                                      u -> new SocialCacheControl());
+    }
+
+    void registerFreshEvents(SocialEventType type,
+                             List<SocialActivitiesEvent> events) {
+        typeEventsFreshEvents.compute(type,
+                                      (t, freshEvents) -> append(freshEvents,
+                                                                 events));
+    }
+
+    void registerFreshEvents(String userName,
+                             List<SocialActivitiesEvent> events) {
+        userEventsTimelineFreshEvents.compute(userName,
+                                              (u, freshEvents) -> append(freshEvents,
+                                                                         events));
+    }
+
+    List<SocialActivitiesEvent> getFreshEvents(SocialEventType type) {
+        return typeEventsFreshEvents.getOrDefault(type,
+                                                  Collections.emptyList());
+    }
+
+    List<SocialActivitiesEvent> getFreshEvents(String userName) {
+        return userEventsTimelineFreshEvents.getOrDefault(userName,
+                                                          Collections.emptyList());
+    }
+
+    private List<SocialActivitiesEvent> append(List<SocialActivitiesEvent> freshEvents,
+                                               List<SocialActivitiesEvent> events) {
+        if (freshEvents == null) {
+            freshEvents = new CopyOnWriteArrayList<SocialActivitiesEvent>();
         }
+        freshEvents.addAll(events);
+        return freshEvents;
     }
 
-    private void createCacheStructure() {
-        for (SocialEventType type : socialEventTypeRepository.findAll()) {
-            List<SocialActivitiesEvent> events = createOrGetTypeTimeline(type);
-            typeEventsTimelineCache.put(type,
-                                        events);
-            typeEventsFreshEvents.put(type,
-                                      new ArrayList<SocialActivitiesEvent>());
+    /**
+     * Fresh events registered while the stored ones were being persisted are kept.
+     */
+    private List<SocialActivitiesEvent> pendingEvents(List<SocialActivitiesEvent> freshEvents,
+                                                      List<SocialActivitiesEvent> storedEvents) {
+        if (storedEvents.isEmpty() || freshEvents.size() < storedEvents.size()) {
+            return new CopyOnWriteArrayList<SocialActivitiesEvent>();
         }
-        for (String username : socialUserPersistenceAPI.getSocialUsersName()) {
-            List<SocialActivitiesEvent> events = createOrGetUserTimeline(username);
-            userEventsTimelineCache.put(username,
-                                        events);
-            userEventsTimelineFreshEvents.put(username,
-                                              new ArrayList<SocialActivitiesEvent>());
+        for (int i = 0; i < storedEvents.size(); i++) {
+            if (freshEvents.get(i) != storedEvents.get(i)) {
+                return new CopyOnWriteArrayList<SocialActivitiesEvent>();
+            }
         }
+        return new CopyOnWriteArrayList<SocialActivitiesEvent>(freshEvents.subList(storedEvents.size(),
+                                                                                   freshEvents.size()));
     }
 
     List<SocialActivitiesEvent> createOrGetTimeline(Path timelineDir) {
         List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
         try {
             if (getIoService().exists(timelineDir)) {
+                migrateTimeline(timelineDir);
                 Integer lastFileIndex = getLastFileIndex(timelineDir);
                 if (thereIsSomethingToRead(lastFileIndex)) {
                     events = getTimeline(timelineDir,
@@ -119,19 +153,65 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
                                             String fileIndex) {
         List<SocialActivitiesEvent> events;
         Path fileTimeline = timelineDir.resolve(fileIndex);
-        String numberOfEvents = getItemsMetadata(timelineDir,
-                                                 fileIndex);
-        SocialFile socialFile = createSocialFile(fileTimeline);
-        events = socialFile.readSocialEvents(Integer.valueOf(numberOfEvents));
+        migrateTimeline(timelineDir);
+        if (isSegmentTimeline(timelineDir)) {
+            events = createSegmentFile(fileTimeline).readSocialEvents();
+        } else {
+            String numberOfEvents = getItemsMetadata(timelineDir,
+                                                     fileIndex);
+            SocialFile socialFile = createSocialFile(fileTimeline);
+            events = socialFile.readSocialEvents(Integer.valueOf(numberOfEvents));
+        }
         return applySocialSecurityConstraints(events);
     }
 
+    List<SocialActivitiesEvent> getTimeline(Path timelineDir,
+                                            String fileIndex,
+                                            int offset,
+                                            int numberOfEvents) {
+        migrateTimeline(timelineDir);
+        if (isSegmentTimeline(timelineDir)) {
+            List<SocialActivitiesEvent> events = createSegmentFile(timelineDir.resolve(fileIndex)).readSocialEvents(offset,
+                                                                                                                    numberOfEvents);
+            return applySocialSecurityConstraints(events);
+        }
+        List<SocialActivitiesEvent> timeline = getTimeline(timelineDir,
+                                                           fileIndex);
+        int fromIndex = Math.min(offset,
+                                 timeline.size());
+        int toIndex = Math.min(fromIndex + numberOfEvents,
+                               timeline.size());
+        return new ArrayList<SocialActivitiesEvent>(timeline.subList(fromIndex,
+                                                                     toIndex));
+    }
+
     SocialFile createSocialFile(Path fileTimeline) {
         return new SocialFile(fileTimeline,
                               ioService,
                               gson);
     }
 
+    SocialSegmentFile createSegmentFile(Path fileTimeline) {
+        return new SocialSegmentFile(fileTimeline,
+                                     getIoService(),
+                                     gson);
+    }
+
+    SocialTimelineMigrator createTimelineMigrator() {
+        return new SocialTimelineMigrator(getIoService(),
+                                          gson);
+    }
+
+    boolean isSegmentTimeline(Path timelineDir) {
+        return getIoService().exists(timelineDir.resolve(Constants.SEGMENTS.name()));
+    }
+
+    void migrateTimeline(Path timelineDir) {
+        if (!isSegmentTimeline(timelineDir)) {
+            createTimelineMigrator().migrate(timelineDir);
+        }
+    }
+
     private boolean thereIsSomethingToRead(Integer lastFileIndex) {
         return lastFileIndex >= 0;
     }
@@ -149,34 +229,32 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     void createPersistenceStructure(Path timelineDir) {
         String lastIndex = "-1";
-        updateLastIndexFile(timelineDir,
-                            lastIndex);
+        try {
+            getIoService().startBatch(timelineDir.getFileSystem());
+            updateLastIndexFile(timelineDir,
+                                lastIndex);
+            createTimelineMigrator().markAsMigrated(timelineDir);
+        } finally {
+            getIoService().endBatch();
+        }
     }
 
     private void updateLastIndexFile(Path directory,
                                      String lastIndex) {
         Path lastFileIndex = directory.resolve(Constants.LAST_FILE_INDEX.name());
-        try {
-            getIoService().startBatch(lastFileIndex.getFileSystem());
-            getIoService().write(lastFileIndex,
-                                 lastIndex);
-        } finally {
-            getIoService().endBatch();
-        }
+        getIoService().write(lastFileIndex,
+                             lastIndex);
     }
 
     private String persistEvents(List<SocialActivitiesEvent> newEvents,
                                  Path timeLineDir) {
+        migrateTimeline(timeLineDir);
         Integer lastFileIndex = getLastFileIndex(timeLineDir);
         lastFileIndex = lastFileIndex + 1;
         Path timelineFile = timeLineDir.resolve(lastFileIndex.toString());
         try {
             getIoService().startBatch(timeLineDir.getFileSystem());
-            writeItems(timelineFile,
-                       newEvents);
-            writeItemsMetadata(timeLineDir,
-                               lastFileIndex.toString(),
-                               newEvents.size());
+            createSegmentFile(timelineFile).write(newEvents);
             updateLastIndexFile(timeLineDir,
                                 lastFileIndex.toString());
             return lastFileIndex.toString();
@@ -185,20 +263,6 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         }
     }
 
-    private void writeItemsMetadata(Path timeLineDir,
-                                    String originalFilename,
-                                    int size) {
-        String metadataFileName = originalFilename + Constants.METADATA;
-        Path timelineFile = timeLineDir.resolve(metadataFileName);
-        try {
-            getIoService().startBatch(timelineFile.getFileSystem());
-            getIoService().write(timelineFile,
-                                 size + "");
-        } finally {
-            getIoService().endBatch();
-        }
-    }
-
     String getItemsMetadata(Path timeLineDir,
                             String originalFilename) {
         String metadataFileName = originalFilename + Constants.METADATA;
@@ -210,22 +274,6 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         return "-1";
     }
 
-    private void writeItems(final Path timeLineFile,
-                            final List<SocialActivitiesEvent> newEvents) {
-        SocialFile socialFile = new SocialFile(timeLineFile,
-                                               ioService,
-                                               gson);
-
-        try {
-            ioService.startBatch(timeLineFile.getFileSystem());
-            socialFile.write(newEvents);
-        } catch (IOException e) {
-            throw new ErrorAccessingTimeline(e);
-        } finally {
-            ioService.endBatch();
-        }
-    }
-
     IOService getIoService() {
         return ioService;
     }
@@ -252,13 +300,14 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     @Override
     public List<SocialActivitiesEvent> getLastEvents(SocialEventType key) {
         List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
-        events.addAll(typeEventsTimelineCache.get(key));
-        events.addAll(typeEventsFreshEvents.get(key));
+        events.addAll(typeEventsTimelineCache.get(key,
+                                                  this::createOrGetTypeTimeline));
+        events.addAll(getFreshEvents(key));
         return applySocialSecurityConstraints(events);
     }
 
     List<SocialActivitiesEvent> storeTimeLineInFile(SocialEventType type) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = typeEventsFreshEvents.get(type);
+        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>(getFreshEvents(type));
         persistEvents(type,
                       socialActivitiesEvents);
         refreshCache(type,
@@ -268,8 +317,11 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     void refreshCache(SocialEventType type,
                       List<SocialActivitiesEvent> socialActivitiesEvents) {
-        typeEventsFreshEvents.put(type,
-                                  new ArrayList<SocialActivitiesEvent>());
+        typeEventsFreshEvents.compute(type,
+                                      (t, freshEvents) -> freshEvents == null ?
+                                              new CopyOnWriteArrayList<SocialActivitiesEvent>() :
+                                              pendingEvents(freshEvents,
+                                                            socialActivitiesEvents));
         typeEventsTimelineCache.put(type,
                                     socialActivitiesEvents);
     }
@@ -292,11 +344,7 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     @Override
     public List<SocialActivitiesEvent> getRecentEvents(SocialEventType type) {
-        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> typeEvents = typeEventsFreshEvents.get(type);
-        if (typeEvents != null) {
-            events.addAll(typeEvents);
-        }
+        List<SocialActivitiesEvent> events = new ArrayList<SocialActivitiesEvent>(getFreshEvents(type));
         return applySocialSecurityConstraints(events);
     }
 
@@ -318,6 +366,19 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         return timeline;
     }
 
+    @Override
+    public List<SocialActivitiesEvent> getTimeline(SocialEventType type,
+                                                   String timelineFile,
+                                                   int offset,
+                                                   int numberOfEvents) {
+        Path timelineDir = userServicesBackend.buildPath(SOCIAL_FILES,
+                                                         type.name());
+        return getTimeline(timelineDir,
+                           timelineFile,
+                           offset,
+                           numberOfEvents);
+    }
+
     //USER STUFF
 
     List<SocialActivitiesEvent> createOrGetUserTimeline(String userName) {
@@ -343,35 +404,20 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     public List<SocialActivitiesEvent> getLastEvents(SocialUser user) {
 
         List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineCache.get(user.getUserName());
-        if (userEvents == null) {
-            createCacheStructureForNewUsers(user);
-        }
-        socialActivitiesEvents.addAll(userEventsTimelineCache.get(user.getUserName()));
-        socialActivitiesEvents.addAll(userEventsTimelineFreshEvents.get(user.getUserName()));
+        socialActivitiesEvents.addAll(userEventsTimelineCache.get(user.getUserName(),
+                                                                  this::createOrGetUserTimeline));
+        socialActivitiesEvents.addAll(getFreshEvents(user.getUserName()));
         return applySocialSecurityConstraints(socialActivitiesEvents);
     }
 
     @Override
     public List<SocialActivitiesEvent> getRecentEvents(SocialUser user) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>();
-        List<SocialActivitiesEvent> userEvents = userEventsTimelineFreshEvents.get(user.getUserName());
-        if (userEvents == null) {
-            createCacheStructureForNewUsers(user);
-        }
-        socialActivitiesEvents.addAll(userEventsTimelineFreshEvents.get(user.getUserName()));
+        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>(getFreshEvents(user.getUserName()));
         return applySocialSecurityConstraints(socialActivitiesEvents);
     }
 
-    private void createCacheStructureForNewUsers(SocialUser user) {
-        userEventsTimelineCache.put(user.getUserName(),
-                                    new ArrayList<SocialActivitiesEvent>());
-        userEventsTimelineFreshEvents.put(user.getUserName(),
-                                          new ArrayList<SocialActivitiesEvent>());
-    }
-
     List<SocialActivitiesEvent> storeTimeLineInFile(SocialUser user) {
-        List<SocialActivitiesEvent> socialActivitiesEvents = userEventsTimelineFreshEvents.get(user.getUserName());
+        List<SocialActivitiesEvent> socialActivitiesEvents = new ArrayList<SocialActivitiesEvent>(getFreshEvents(user.getUserName()));
         persistEvents(user,
                       socialActivitiesEvents);
         refreshCache(user.getUserName(),
@@ -381,8 +427,11 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     void refreshCache(String userName,
                       List<SocialActivitiesEvent> socialActivitiesEvents) {
-        userEventsTimelineFreshEvents.put(userName,
-                                          new ArrayList<SocialActivitiesEvent>());
+        userEventsTimelineFreshEvents.compute(userName,
+                                              (u, freshEvents) -> freshEvents == null ?
+                                                      new CopyOnWriteArrayList<SocialActivitiesEvent>() :
+                                                      pendingEvents(freshEvents,
+                                                                    socialActivitiesEvents));
         userEventsTimelineCache.put(userName,
                                     socialActivitiesEvents);
     }
@@ -408,6 +457,18 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
         return timeline;
     }
 
+    @Override
+    public List<SocialActivitiesEvent> getTimeline(SocialUser socialUser,
+                                                   String timelineFile,
+                                                   int offset,
+                                                   int numberOfEvents) {
+        Path userDirectory = getUserDirectory(socialUser.getUserName());
+        return getTimeline(userDirectory,
+                           timelineFile,
+                           offset,
+                           numberOfEvents);
+    }
+
     void saveAllUserTimelines() {
         for (String userName : userEventsTimelineFreshEvents.keySet()) {
             List<SocialActivitiesEvent> socialActivitiesEvents = userEventsTimelineFreshEvents.get(userName);
@@ -438,6 +499,10 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
 
     Integer getNumberOfEventsOnPath(String originalFilename,
                                     Path path) {
+        migrateTimeline(path);
+        if (isSegmentTimeline(path)) {
+            return createSegmentFile(path.resolve(originalFilename)).size();
+        }
         String itemsMetadata = getItemsMetadata(path,
                                                 originalFilename);
         try {
@@ -472,27 +537,28 @@ public abstract class SocialTimelineCachePersistence implements SocialTimelinePe
     enum Constants {
         LAST_FILE_INDEX,
         USER_TIMELINE,
-        METADATA;
+        METADATA,
+        SEGMENTS;
     }
 
     protected class SocialCacheControl {
 
-        private int sizeOfcache;
+        private final AtomicInteger sizeOfcache = new AtomicInteger();
 
         public SocialCacheControl() {
             reset();
         }
 
         public void registerNewEvent() {
-            sizeOfcache = sizeOfcache + 1;
+            sizeOfcache.incrementAndGet();
         }
 
         public boolean needToPersist() {
-            return sizeOfcache > getThreshold();
+            return sizeOfcache.get() > getThreshold();
         }
 
         public void reset() {
-            sizeOfcache = 0;
+            sizeOfcache.set(0);
         }
     }
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.Gson;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.Path;
+
+import static org.ext.uberfire.social.activities.persistence.SocialTimelineCachePersistence.Constants.LAST_FILE_INDEX;
+import static org.ext.uberfire.social.activities.persistence.SocialTimelineCachePersistence.Constants.METADATA;
+import static org.ext.uberfire.social.activities.persistence.SocialTimelineCachePersistence.Constants.SEGMENTS;
+
+/**
+ * Converts a timeline directory written with {@link SocialFile} (separator delimited records plus one
+ * metadata file per timeline file) to {@link SocialSegmentFile} segments. The whole directory is converted
+ * in a single batch and flagged with a marker file, so the migration only runs once per timeline.
+ */
+public class SocialTimelineMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SocialTimelineMigrator.class);
+
+    private final IOService ioService;
+    private final Gson gson;
+
+    public SocialTimelineMigrator(final IOService ioService,
+                                  final Gson gson) {
+        this.ioService = ioService;
+        this.gson = gson;
+    }
+
+    public boolean isMigrated(final Path timelineDir) {
+        return ioService.exists(timelineDir.resolve(SEGMENTS.name()));
+    }
+
+    /**
+     * Migrates the timeline directory, if it is still on the legacy format.
+     * @return true if the directory was migrated.
+     */
+    public boolean migrate(final Path timelineDir) {
+        if (!ioService.exists(timelineDir) || isMigrated(timelineDir)) {
+            return false;
+        }
+
+        final int lastFileIndex = getLastFileIndex(timelineDir);
+        try {
+            ioService.startBatch(timelineDir.getFileSystem());
+            for (int index = 0; index <= lastFileIndex; index++) {
+                migrateFile(timelineDir,
+                            String.valueOf(index));
+            }
+            markAsMigrated(timelineDir);
+        } finally {
+            ioService.endBatch();
+        }
+
+        LOGGER.info("Social timeline '{}' migrated to the segment format ({} files).",
+                    timelineDir,
+                    lastFileIndex + 1);
+        return true;
+    }
+
+    void markAsMigrated(final Path timelineDir) {
+        ioService.write(timelineDir.resolve(SEGMENTS.name()),
+                        String.valueOf(SocialSegmentFile.VERSION));
+    }
+
+    private void migrateFile(final Path timelineDir,
+                             final String fileIndex) {
+        final Path timelineFile = timelineDir.resolve(fileIndex);
+        final Path metadataFile = timelineDir.resolve(fileIndex + METADATA);
+        if (!ioService.exists(timelineFile)) {
+            ioService.deleteIfExists(metadataFile);
+            return;
+        }
+
+        final List<SocialActivitiesEvent> events = new SocialFile(timelineFile,
+                                                                  ioService,
+                                                                  gson).readSocialEvents(readNumberOfEvents(metadataFile));
+        // legacy files are read most recent first, segments keep the write order
+        Collections.reverse(events);
+        new SocialSegmentFile(timelineFile,
+                              ioService,
+                              gson).write(events);
+        ioService.deleteIfExists(metadataFile);
+    }
+
+    private int readNumberOfEvents(final Path metadataFile) {
+        if (!ioService.exists(metadataFile)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(ioService.readAllString(metadataFile).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private int getLastFileIndex(final Path timelineDir) {
+        final Path lastFileIndex = timelineDir.resolve(LAST_FILE_INDEX.name());
+        if (!ioService.exists(lastFileIndex)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(ioService.readAllString(lastFileIndex).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 import javax.inject.Inject;
 
 import org.ext.uberfire.social.activities.adapters.CommandTimelineFilter;
@@ -73,24 +74,33 @@ public abstract class SocialPageRepository {
         }
     }
 
+    /**
+     * Reads the events of a stored timeline file starting from the (file, offset) cursor of the query.
+     * Only the events still missing on the page are read from the file, and the cursor is moved by the
+     * number of stored events read, whether they passed the predicate or not.
+     */
+    void readStoredEvents(SocialPaged socialPaged,
+                          List<SocialActivitiesEvent> events,
+                          int numberOfEventsOnFile,
+                          BiFunction<Integer, Integer, List<SocialActivitiesEvent>> timelinePage,
+                          SocialPredicate<SocialActivitiesEvent> predicate) {
+        while (!foundEnoughtEvents(socialPaged,
+                                   events) && socialPaged.lastFileIndex() < numberOfEventsOnFile) {
+            int offset = socialPaged.lastFileIndex();
+            int numberOfEvents = Math.min(socialPaged.getPageSize() - events.size(),
+                                          numberOfEventsOnFile - offset);
+            events.addAll(filterList(predicate,
+                                     timelinePage.apply(offset,
+                                                        numberOfEvents)));
+            socialPaged.updateLastFileIndex(numberOfEvents);
+        }
+    }
+
     protected boolean foundEnoughtEvents(SocialPaged socialPaged,
                                          List<SocialActivitiesEvent> events) {
         return (events.size() >= socialPaged.getPageSize());
     }
 
-    void readEvents(SocialPaged socialPaged,
-                    List<SocialActivitiesEvent> events,
-                    List<SocialActivitiesEvent> timeline) {
-        for (int i = 0; i < timeline.size(); i++) {
-            events.add(timeline.get(i));
-            socialPaged.updateLastFileIndex();
-            if (foundEnoughtEvents(socialPaged,
-                                   events)) {
-                break;
-            }
-        }
-    }
-
     void searchEvents(SocialPaged socialPaged,
                       List<SocialActivitiesEvent> events,
                       List<SocialActivitiesEvent> freshEvents) {
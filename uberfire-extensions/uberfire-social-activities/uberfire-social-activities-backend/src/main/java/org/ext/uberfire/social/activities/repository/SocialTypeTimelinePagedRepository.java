@@ -166,20 +166,17 @@ public class SocialTypeTimelinePagedRepository extends SocialPageRepository impl
                                SocialEventType type,
                                List<SocialActivitiesEvent> events,
                                SocialPredicate<SocialActivitiesEvent> predicate) {
-        String nextFileToRead = socialPaged.getNextFileToRead();
-        if (thereIsMoreFilesToRead(nextFileToRead)) {
+        while (!foundEnoughtEvents(socialPaged,
+                                   events)) {
+            String nextFileToRead = socialPaged.getNextFileToRead();
+            if (!thereIsMoreFilesToRead(nextFileToRead)) {
+                break;
+            }
             addEventsToTimeline(type,
                                 socialPaged,
                                 events,
                                 nextFileToRead,
                                 predicate);
-            if (!foundEnoughtEvents(socialPaged,
-                                    events)) {
-                readMoreFiles(socialPaged,
-                              type,
-                              events,
-                              predicate);
-            }
         }
         checkIfICanGoForward(socialPaged,
                              events);
@@ -202,38 +199,41 @@ public class SocialTypeTimelinePagedRepository extends SocialPageRepository impl
                                      List<SocialActivitiesEvent> events,
                                      String lastFileReaded,
                                      SocialPredicate<SocialActivitiesEvent> predicate) {
+        Integer numberOfEventsOnFile = getSocialTimelinePersistenceAPI().getNumberOfEventsOnFile(type,
+                                                                                                lastFileReaded);
+        socialPaged.setNumberOfEventsOnFile(numberOfEventsOnFile);
+        if (numberOfEventsOnFile >= 0) {
+            readStoredEvents(socialPaged,
+                             events,
+                             numberOfEventsOnFile,
+                             (offset, numberOfEvents) -> getSocialTimelinePersistenceAPI().getTimeline(type,
+                                                                                                       lastFileReaded,
+                                                                                                       offset,
+                                                                                                       numberOfEvents),
+                             predicate);
+            return;
+        }
+        // the number of events on the file is unknown, the whole file has to be read
         List<SocialActivitiesEvent> timeline = getSocialTimelinePersistenceAPI().getTimeline(type,
                                                                                              lastFileReaded);
         List<SocialActivitiesEvent> filteredList = filterList(predicate,
                                                               timeline);
-        setNumberOfEventsOnFile(socialPaged,
-                                type,
-                                lastFileReaded);
         addEvents(socialPaged,
                   events,
                   filteredList);
     }
 
-    private void setNumberOfEventsOnFile(SocialPaged socialPaged,
-                                         SocialEventType type,
-                                         String lastFileReaded) {
-        socialPaged.setNumberOfEventsOnFile(getSocialTimelinePersistenceAPI().getNumberOfEventsOnFile(type,
-                                                                                                      lastFileReaded));
-    }
-
     private void readMostRecentFile(SocialEventType type,
                                     SocialPaged socialPaged,
                                     List<SocialActivitiesEvent> events,
                                     SocialPredicate<SocialActivitiesEvent> predicate) {
         Integer userMostRecentFileIndex = getSocialTimelinePersistenceAPI().getTypeMostRecentFileIndex(type);
-        List<SocialActivitiesEvent> timeline = getSocialTimelinePersistenceAPI().getTimeline(type,
-                                                                                             userMostRecentFileIndex.toString());
-        List<SocialActivitiesEvent> filteredList = filterList(predicate,
-                                                              timeline);
         socialPaged.setLastFileReaded(userMostRecentFileIndex.toString());
-        readEvents(socialPaged,
-                   events,
-                   filteredList);
+        addEventsToTimeline(type,
+                            socialPaged,
+                            events,
+                            userMostRecentFileIndex.toString(),
+                            predicate);
     }
 
     private SocialPaged searchForRecentEvents(SocialEventType type,
@@ -122,20 +122,17 @@ public class SocialUserTimelinePagedRepository extends SocialPageRepository impl
                                SocialUser socialUser,
                                List<SocialActivitiesEvent> events,
                                SocialPredicate<SocialActivitiesEvent> predicate) {
-        String nextFileToRead = socialPaged.getNextFileToRead();
-        if (thereIsMoreFilesToRead(nextFileToRead)) {
+        while (!foundEnoughtEvents(socialPaged,
+                                   events)) {
+            String nextFileToRead = socialPaged.getNextFileToRead();
+            if (!thereIsMoreFilesToRead(nextFileToRead)) {
+                return;
+            }
             addEventsToTimeline(socialUser,
                                 socialPaged,
                                 events,
                                 nextFileToRead,
                                 predicate);
-            if (!foundEnoughtEvents(socialPaged,
-                                    events)) {
-                readMoreFiles(socialPaged,
-                              socialUser,
-                              events,
-                              predicate);
-            }
         }
     }
 
@@ -156,25 +153,30 @@ public class SocialUserTimelinePagedRepository extends SocialPageRepository impl
                                      List<SocialActivitiesEvent> events,
                                      String lastFileReaded,
                                      SocialPredicate<SocialActivitiesEvent> predicate) {
+        Integer numberOfEventsOnFile = getSocialTimelinePersistenceAPI().getNumberOfEventsOnFile(socialUser,
+                                                                                                lastFileReaded);
+        socialPaged.setNumberOfEventsOnFile(numberOfEventsOnFile);
+        if (numberOfEventsOnFile >= 0) {
+            readStoredEvents(socialPaged,
+                             events,
+                             numberOfEventsOnFile,
+                             (offset, numberOfEvents) -> getSocialTimelinePersistenceAPI().getTimeline(socialUser,
+                                                                                                       lastFileReaded,
+                                                                                                       offset,
+                                                                                                       numberOfEvents),
+                             predicate);
+            return;
+        }
+        // the number of events on the file is unknown, the whole file has to be read
         List<SocialActivitiesEvent> timeline = getSocialTimelinePersistenceAPI().getTimeline(socialUser,
                                                                                              lastFileReaded);
         List<SocialActivitiesEvent> filteredList = filterList(predicate,
                                                               timeline);
-        setNumberOfEventsOnFile(socialPaged,
-                                socialUser,
-                                lastFileReaded);
         addEvents(socialPaged,
                   events,
                   filteredList);
     }
 
-    private void setNumberOfEventsOnFile(SocialPaged socialPaged,
-                                         SocialUser socialUser,
-                                         String lastFileReaded) {
-        socialPaged.setNumberOfEventsOnFile(getSocialTimelinePersistenceAPI().getNumberOfEventsOnFile(socialUser,
-                                                                                                      lastFileReaded));
-    }
-
     private void readMostRecentFile(SocialUser socialUser,
                                     SocialPaged socialPaged,
                                     List<SocialActivitiesEvent> events,
@@ -183,14 +185,12 @@ public class SocialUserTimelinePagedRepository extends SocialPageRepository impl
         if (thereIsNothingToRead(userMostRecentFileIndex)) {
             return;
         }
-        List<SocialActivitiesEvent> timeline = getSocialTimelinePersistenceAPI().getTimeline(socialUser,
-                                                                                             userMostRecentFileIndex.toString());
-        List<SocialActivitiesEvent> filteredList = filterList(predicate,
-                                                              timeline);
         socialPaged.setLastFileReaded(userMostRecentFileIndex.toString());
-        readEvents(socialPaged,
-                   events,
-                   filteredList);
+        addEventsToTimeline(socialUser,
+                            socialPaged,
+                            events,
+                            userMostRecentFileIndex.toString(),
+                            predicate);
     }
 
     private boolean thereIsNothingToRead(Integer userMostRecentFileIndex) {
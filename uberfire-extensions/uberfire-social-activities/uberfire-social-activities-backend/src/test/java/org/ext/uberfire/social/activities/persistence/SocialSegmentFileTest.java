@@ -0,0 +1,272 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.channels.SeekableByteChannel;
+import org.uberfire.java.nio.file.DeleteOption;
+import org.uberfire.java.nio.file.OpenOption;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.*;
+
+public class SocialSegmentFileTest {
+
+    private Map<Path, byte[]> files;
+    private IOService ioService;
+    private Gson gson;
+    private Path timelineDir;
+
+    @Before
+    public void setup() {
+        files = new HashMap<>();
+        gson = new Gson();
+        ioService = mock(IOService.class);
+        timelineDir = directory();
+
+        when(ioService.exists(any(Path.class))).thenAnswer(invocation -> files.containsKey(invocation.getArguments()[0]));
+        when(ioService.readAllString(any(Path.class))).thenAnswer(invocation -> new String(files.get(invocation.getArguments()[0]),
+                                                                                            StandardCharsets.UTF_8));
+        when(ioService.write(any(Path.class),
+                             any(byte[].class),
+                             (OpenOption[]) anyVararg())).thenAnswer(invocation -> {
+            files.put((Path) invocation.getArguments()[0],
+                      (byte[]) invocation.getArguments()[1]);
+            return invocation.getArguments()[0];
+        });
+        when(ioService.write(any(Path.class),
+                             anyString(),
+                             (OpenOption[]) anyVararg())).thenAnswer(invocation -> {
+            files.put((Path) invocation.getArguments()[0],
+                      ((String) invocation.getArguments()[1]).getBytes(StandardCharsets.UTF_8));
+            return invocation.getArguments()[0];
+        });
+        when(ioService.deleteIfExists(any(Path.class),
+                                      (DeleteOption[]) anyVararg())).thenAnswer(invocation -> files.remove(invocation.getArguments()[0]) != null);
+        when(ioService.newByteChannel(any(Path.class),
+                                      (OpenOption[]) anyVararg())).thenAnswer(invocation -> {
+            final Object[] arguments = invocation.getArguments();
+            final boolean read = arguments.length > 1 && arguments[1] == StandardOpenOption.READ;
+            return new InMemoryChannel((Path) arguments[0],
+                                       read);
+        });
+    }
+
+    @Test
+    public void writeAndReadSegmentTest() {
+        final SocialSegmentFile segment = segment(timelineDir.resolve("0"));
+        segment.write(events(5));
+
+        assertTrue(segment.isSegment());
+        assertEquals(5,
+                     segment.size());
+        assertEquals(Arrays.asList("4",
+                                   "3",
+                                   "2",
+                                   "1",
+                                   "0"),
+                     descriptions(segment.readSocialEvents()));
+    }
+
+    @Test
+    public void readPageTest() {
+        final SocialSegmentFile segment = segment(timelineDir.resolve("0"));
+        segment.write(events(5));
+
+        assertEquals(Arrays.asList("3",
+                                   "2"),
+                     descriptions(segment.readSocialEvents(1,
+                                                           2)));
+        assertEquals(Arrays.asList("0"),
+                     descriptions(segment.readSocialEvents(4,
+                                                           10)));
+        assertTrue(segment.readSocialEvents(5,
+                                            1).isEmpty());
+    }
+
+    @Test
+    public void emptySegmentTest() {
+        final SocialSegmentFile segment = segment(timelineDir.resolve("0"));
+        segment.write(new ArrayList<>());
+
+        assertEquals(0,
+                     segment.size());
+        assertTrue(segment.readSocialEvents().isEmpty());
+        assertEquals(-1,
+                     segment(timelineDir.resolve("1")).size());
+    }
+
+    @Test
+    public void legacyFileIsNotASegmentTest() throws Exception {
+        final Path legacyFile = timelineDir.resolve("0");
+        new SocialFile(legacyFile,
+                       ioService,
+                       gson).write(events(2));
+
+        assertFalse(segment(legacyFile).isSegment());
+    }
+
+    @Test
+    public void migrateLegacyTimelineTest() throws Exception {
+        final List<SocialActivitiesEvent> events = events(3);
+        new SocialFile(timelineDir.resolve("0"),
+                       ioService,
+                       gson).write(events);
+        ioService.write(timelineDir.resolve("0" + SocialTimelineCachePersistence.Constants.METADATA),
+                        "3");
+        ioService.write(timelineDir.resolve(SocialTimelineCachePersistence.Constants.LAST_FILE_INDEX.name()),
+                        "0");
+
+        final SocialTimelineMigrator migrator = new SocialTimelineMigrator(ioService,
+                                                                           gson);
+        assertFalse(migrator.isMigrated(timelineDir));
+        assertTrue(migrator.migrate(timelineDir));
+
+        assertTrue(migrator.isMigrated(timelineDir));
+        assertFalse(files.containsKey(timelineDir.resolve("0" + SocialTimelineCachePersistence.Constants.METADATA)));
+        assertEquals(Arrays.asList("2",
+                                   "1",
+                                   "0"),
+                     descriptions(segment(timelineDir.resolve("0")).readSocialEvents()));
+
+        assertFalse(migrator.migrate(timelineDir));
+    }
+
+    private SocialSegmentFile segment(final Path path) {
+        return new SocialSegmentFile(path,
+                                     ioService,
+                                     gson);
+    }
+
+    private List<SocialActivitiesEvent> events(final int size) {
+        final List<SocialActivitiesEvent> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            events.add(new SocialActivitiesEvent().withDescription(String.valueOf(i)));
+        }
+        return events;
+    }
+
+    private List<String> descriptions(final List<SocialActivitiesEvent> events) {
+        final List<String> descriptions = new ArrayList<>();
+        for (SocialActivitiesEvent event : events) {
+            descriptions.add(event.getDescription());
+        }
+        return descriptions;
+    }
+
+    private Path directory() {
+        final Map<String, Path> children = new HashMap<>();
+        final Path directory = mock(Path.class);
+        when(directory.resolve(anyString())).thenAnswer(invocation -> children.computeIfAbsent((String) invocation.getArguments()[0],
+                                                                                                name -> mock(Path.class)));
+        files.put(directory,
+                  new byte[0]);
+        return directory;
+    }
+
+    private class InMemoryChannel implements SeekableByteChannel {
+
+        private final Path path;
+        private final byte[] content;
+        private final ByteArrayOutputStream written;
+        private int position;
+
+        InMemoryChannel(final Path path,
+                        final boolean read) {
+            this.path = path;
+            this.content = read ? files.get(path) : null;
+            this.written = read ? null : new ByteArrayOutputStream();
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) {
+            if (position >= content.length) {
+                return -1;
+            }
+            final int length = Math.min(dst.remaining(),
+                                        content.length - position);
+            dst.put(content,
+                    position,
+                    length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int length = src.remaining();
+            final byte[] bytes = new byte[length];
+            src.get(bytes);
+            written.write(bytes,
+                          0,
+                          length);
+            return length;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(final long newPosition) {
+            position = (int) newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return content != null ? content.length : written.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) {
+            return this;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (written != null) {
+                files.put(path,
+                          written.toByteArray());
+            }
+        }
+    }
+}
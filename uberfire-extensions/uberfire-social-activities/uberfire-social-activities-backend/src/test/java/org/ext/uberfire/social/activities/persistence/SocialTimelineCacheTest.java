@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ext.uberfire.social.activities.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ext.uberfire.social.activities.model.SocialActivitiesEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SocialTimelineCacheTest {
+
+    private SocialTimelineCache<String> cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        cache = new SocialTimelineCache<>(3,
+                                          5);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void timelineIsLoadedLazilyOnceTest() {
+        assertFalse(cache.containsKey("dora"));
+
+        assertEquals(2,
+                     cache.get("dora",
+                               this::load).size());
+        assertEquals(2,
+                     cache.get("dora",
+                               this::load).size());
+
+        assertEquals(1,
+                     loads.get());
+        assertEquals(2,
+                     cache.getCachedEvents());
+    }
+
+    @Test
+    public void timelineKeepsMostRecentEventsTest() {
+        cache.put("dora",
+                  events(5));
+
+        final List<SocialActivitiesEvent> timeline = cache.get("dora");
+        assertEquals(3,
+                     timeline.size());
+        assertEquals("2",
+                     timeline.get(0).getDescription());
+        assertEquals("4",
+                     timeline.get(2).getDescription());
+    }
+
+    @Test
+    public void leastRecentlyUsedTimelineIsEvictedOverBudgetTest() {
+        cache.put("dora",
+                  events(2));
+        cache.put("bento",
+                  events(2));
+        cache.get("dora");
+
+        cache.put("porcelli",
+                  events(2));
+
+        assertTrue(cache.containsKey("dora"));
+        assertFalse(cache.containsKey("bento"));
+        assertTrue(cache.containsKey("porcelli"));
+        assertEquals(4,
+                     cache.getCachedEvents());
+    }
+
+    @Test
+    public void replaceTimelineTest() {
+        cache.put("dora",
+                  events(2));
+        cache.put("dora",
+                  events(1));
+
+        assertEquals(1,
+                     cache.get("dora").size());
+        assertEquals(1,
+                     cache.getCachedEvents());
+        assertNull(cache.get("bento"));
+    }
+
+    private List<SocialActivitiesEvent> load(final String key) {
+        loads.incrementAndGet();
+        return events(2);
+    }
+
+    private List<SocialActivitiesEvent> events(final int size) {
+        final List<SocialActivitiesEvent> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            events.add(new SocialActivitiesEvent().withDescription(String.valueOf(i)));
+        }
+        return events;
+    }
+}
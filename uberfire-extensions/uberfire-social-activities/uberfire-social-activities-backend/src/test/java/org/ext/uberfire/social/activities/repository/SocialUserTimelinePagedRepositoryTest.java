@@ -15,6 +15,8 @@
 
 package org.ext.uberfire.social.activities.repository;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -36,10 +38,11 @@ public class SocialUserTimelinePagedRepositoryTest {
     private SocialUserTimelinePagedRepository repository;
     private SocialUser socialUser;
     private SocialTimelinePersistenceAPI socialTimelinePersistenceFake;
+    private SocialSecurityConstraintsManager socialSecurityConstraintsManager;
 
     @Before
     public void setUp() throws Exception {
-        SocialSecurityConstraintsManager socialSecurityConstraintsManager = new SocialSecurityConstraintsManager() {
+        socialSecurityConstraintsManager = new SocialSecurityConstraintsManager() {
             @Override
             public List<SocialActivitiesEvent> applyConstraints(List<SocialActivitiesEvent> events) {
                 return events;
@@ -109,6 +112,69 @@ public class SocialUserTimelinePagedRepositoryTest {
                           query.socialEvents());
     }
 
+    @Test
+    public void storedEventsAreReadFromTheCursor() {
+        final List<Integer> requestedEvents = new ArrayList<Integer>();
+        socialTimelinePersistenceFake = new SocialTimelineCacheInstancePersistenceUnitTestWrapper(socialSecurityConstraintsManager) {
+            @Override
+            public Integer getNumberOfEventsOnFile(SocialUser socialUser,
+                                                   String originalFilename) {
+                return getTimeline(socialUser,
+                                   originalFilename).size();
+            }
+
+            @Override
+            public List<SocialActivitiesEvent> getTimeline(SocialUser socialUser,
+                                                           String timelineFile,
+                                                           int offset,
+                                                           int numberOfEvents) {
+                requestedEvents.add(numberOfEvents);
+                return new ArrayList<SocialActivitiesEvent>(getTimeline(socialUser,
+                                                                        timelineFile).subList(offset,
+                                                                                              offset + numberOfEvents));
+            }
+        };
+        createFreshCacheEventsEvents(3);
+        SocialPaged socialPaged = new SocialPaged(5);
+
+        PagedSocialQuery query = repository.getUserTimeline(socialUser,
+                                                            socialPaged);
+        assertFreshEvents(query);
+        assertStoredEvent("5",
+                          "0",
+                          3,
+                          query.socialEvents());
+        assertStoredEvent("5",
+                          "1",
+                          4,
+                          query.socialEvents());
+
+        query = repository.getUserTimeline(socialUser,
+                                           socialPaged);
+        assertStoredEvent("5",
+                          "2",
+                          0,
+                          query.socialEvents());
+        assertStoredEvent("5",
+                          "4",
+                          2,
+                          query.socialEvents());
+        assertStoredEvent("4",
+                          "0",
+                          3,
+                          query.socialEvents());
+        assertStoredEvent("4",
+                          "1",
+                          4,
+                          query.socialEvents());
+        assertTrue(socialPaged.canIGoForward());
+
+        assertEquals(Arrays.asList(2,
+                                   3,
+                                   2),
+                     requestedEvents);
+    }
+
     @Test
     public void backAndForwardReadTest() {
 
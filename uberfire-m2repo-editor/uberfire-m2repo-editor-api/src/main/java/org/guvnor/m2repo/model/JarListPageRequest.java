@@ -40,6 +40,7 @@ public class JarListPageRequest extends PageRequest {
     private List<String> fileFormats;
     private String dataSourceName;
     private boolean isAscending;
+    private String cursor;
 
     public JarListPageRequest(@MapsTo("startRowIndex") final int startRowIndex,
                               @MapsTo("pageSize") final Integer pageSize,
@@ -70,4 +71,16 @@ public class JarListPageRequest extends PageRequest {
     public boolean isAscending() {
         return isAscending;
     }
+
+    /**
+     * The row the page starts after, identified as "repositoryName:path" of the last row of the
+     * previous page. When set, it takes precedence over the start row index.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(final String cursor) {
+        this.cursor = cursor;
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Bounded cache of the Maven metadata (pom.xml and pom.properties) embedded in the repository jars.
+ * <p>
+ * Entries are keyed by the artifact checksum, taken from the ".sha1" file deployed next to the artifact,
+ * so a redeployed artifact is never served stale metadata. Artifacts without a checksum file are keyed
+ * by their path, size and timestamp instead.
+ */
+public class ArtifactMetadataCache {
+
+    public static final String CACHE_SIZE = "org.guvnor.m2repo.metadata.cache.size";
+
+    static final String SHA1_EXTENSION = ".sha1";
+
+    private final Map<String, JarMetadata> entries;
+
+    public ArtifactMetadataCache() {
+        this(Integer.getInteger(CACHE_SIZE,
+                                1000));
+    }
+
+    public ArtifactMetadataCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, JarMetadata>(16,
+                                                              0.75f,
+                                                              true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, JarMetadata> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized JarMetadata get(final String checksum) {
+        return entries.get(checksum);
+    }
+
+    public synchronized void put(final String checksum,
+                                 final JarMetadata metadata) {
+        entries.put(checksum,
+                    metadata);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Builds the cache key of a repository file.
+     */
+    public static String checksumOf(final File file) {
+        final File sha1File = new File(file.getPath() + SHA1_EXTENSION);
+        if (sha1File.isFile()) {
+            try {
+                final String sha1 = FileUtils.readFileToString(sha1File,
+                                                               StandardCharsets.UTF_8).trim();
+                // Checksum files may contain the file name after the checksum
+                final int end = sha1.indexOf(' ');
+                return toKey(end > 0 ? sha1.substring(0,
+                                                      end) : sha1,
+                             file.length());
+            } catch (IOException e) {
+                // Fall back to the file attributes
+            }
+        }
+        return file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    public static String toKey(final String sha1,
+                               final long length) {
+        return sha1.toLowerCase() + ":" + length;
+    }
+
+    public static String toKey(final byte[] sha1,
+                               final long length) {
+        final StringBuilder hex = new StringBuilder(sha1.length * 2);
+        for (byte b : sha1) {
+            hex.append(Character.forDigit((b >> 4) & 0xF,
+                                          16))
+                    .append(Character.forDigit(b & 0xF,
+                                               16));
+        }
+        return toKey(hex.toString(),
+                     length);
+    }
+
+    /**
+     * The Maven metadata of a jar, any of them may be null if the jar doesn't contain it.
+     */
+    public static class JarMetadata {
+
+        private final String pomXml;
+        private final String pomProperties;
+
+        public JarMetadata(final String pomXml,
+                           final String pomProperties) {
+            this.pomXml = pomXml;
+            this.pomProperties = pomProperties;
+        }
+
+        public String getPomXml() {
+            return pomXml;
+        }
+
+        public String getPomProperties() {
+            return pomProperties;
+        }
+    }
+}
@@ -23,13 +23,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
@@ -38,18 +49,25 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.IOUtil;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.util.artifact.SubArtifact;
+import org.guvnor.common.services.project.backend.server.ArtifactResolutionCache;
 import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.ArtifactMetadataCache.JarMetadata;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalog;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogEntry;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryService;
 import org.slf4j.Logger;
@@ -66,21 +84,162 @@ public class GuvnorM2Repository {
 
     private static final int BUFFER_SIZE = 1024;
 
+    public static final String CATALOG_DIR = "org.guvnor.m2repo.catalog.dir";
+
     private final List<ArtifactRepository> repositories = new ArrayList<>();
     private final List<ArtifactRepository> pomRepositories = new ArrayList<>();
     private ArtifactRepositoryService artifactRepositoryFactory;
+    private ArtifactResolutionCache resolutionCache;
+    private ArtifactCatalog catalog;
+    private Executor catalogExecutor;
+    private ExecutorService catalogThread;
+    private final ArtifactMetadataCache metadataCache = new ArtifactMetadataCache();
 
     public GuvnorM2Repository() {
     }
 
-    @Inject
     public GuvnorM2Repository(ArtifactRepositoryService factory) {
+        this(factory,
+             null);
+    }
+
+    @Inject
+    public GuvnorM2Repository(ArtifactRepositoryService factory,
+                              ArtifactResolutionCache resolutionCache) {
+        this(factory,
+             resolutionCache,
+             null);
+    }
+
+    /**
+     * @param catalogExecutor runs the catalog build started by {@link #init()}, or null to run it on a thread of its own.
+     */
+    GuvnorM2Repository(ArtifactRepositoryService factory,
+                       ArtifactResolutionCache resolutionCache,
+                       Executor catalogExecutor) {
         this.artifactRepositoryFactory = factory;
+        this.resolutionCache = resolutionCache;
+        this.catalogExecutor = catalogExecutor;
     }
 
     @PostConstruct
     public void init() {
         setM2Repos();
+        initCatalog();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (catalogThread != null) {
+            catalogThread.shutdownNow();
+        }
+    }
+
+    /**
+     * The catalog is stored on the global repository root, unless a directory is set through the
+     * {@value #CATALOG_DIR} system property. The persisted catalog, if any, is served right away
+     * and reconciled with the repositories content in background.
+     */
+    private void initCatalog() {
+        final String catalogDir = System.getProperty(CATALOG_DIR);
+        final File catalogFile;
+        if (catalogDir != null) {
+            catalogFile = new File(catalogDir,
+                                   ArtifactCatalog.CATALOG_FILE_NAME);
+        } else {
+            final String rootDir = this.repositories.stream()
+                    .filter(artifactRepository -> ArtifactRepositoryService.GLOBAL_M2_REPO_NAME.equals(artifactRepository.getName()))
+                    .map(ArtifactRepository::getRootDir)
+                    .filter(dir -> dir != null)
+                    .findFirst()
+                    .orElse(null);
+            if (rootDir == null) {
+                return;
+            }
+            catalogFile = new File(rootDir,
+                                   ArtifactCatalog.CATALOG_FILE_NAME);
+        }
+
+        catalog = new ArtifactCatalog(catalogFile);
+        catalog.load();
+        if (catalogExecutor == null) {
+            catalogThread = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable,
+                                                 "artifact-catalog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            catalogExecutor = catalogThread;
+        }
+        catalogExecutor.execute(this::rebuildCatalog);
+    }
+
+    /**
+     * Rebuilds the artifact catalog from a full scan of the repositories.
+     */
+    public void rebuildCatalog() {
+        if (catalog == null) {
+            return;
+        }
+        try {
+            catalog.beginRebuild();
+            final List<String> wildcards = buildWildcards(null,
+                                                          null);
+            final List<ArtifactCatalogEntry> scanned = new ArrayList<>();
+            for (ArtifactRepository artifactRepository : this.repositories) {
+                for (File file : artifactRepository.listFiles(wildcards)) {
+                    scanned.add(toCatalogEntry(artifactRepository,
+                                               file));
+                }
+            }
+            catalog.completeRebuild(scanned);
+            log.debug("Artifact catalog rebuilt with {} files.",
+                      scanned.size());
+        } catch (RuntimeException e) {
+            log.error("Unable to rebuild the artifact catalog.",
+                      e);
+        }
+    }
+
+    /**
+     * @return the artifact catalog, or null if there's no repository to catalog.
+     */
+    public ArtifactCatalog getArtifactCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Catalogs the deployed files and drops the cached resolutions of the GAV, so GAV conflict checks see it right away.
+     */
+    private void onDeployed(final GAV gav) {
+        updateCatalog(gav);
+        if (resolutionCache != null) {
+            resolutionCache.invalidate(gav);
+        }
+    }
+
+    private void updateCatalog(final GAV gav) {
+        if (catalog == null) {
+            return;
+        }
+        final List<String> wildcards = buildWildcards(null,
+                                                      null);
+        final List<ArtifactCatalogEntry> deployed = new ArrayList<>();
+        for (ArtifactRepository artifactRepository : this.repositories) {
+            for (File file : artifactRepository.listFiles(gav,
+                                                          wildcards)) {
+                deployed.add(toCatalogEntry(artifactRepository,
+                                            file));
+            }
+        }
+        catalog.put(deployed);
+    }
+
+    private ArtifactCatalogEntry toCatalogEntry(final ArtifactRepository artifactRepository,
+                                                final File file) {
+        return ArtifactCatalogEntry.fromFile(artifactRepository.getName(),
+                                             new File(artifactRepository.getRootDir()),
+                                             file);
     }
 
     private void setM2Repos() {
@@ -129,44 +288,62 @@ public class GuvnorM2Repository {
     public void deployArtifact(final InputStream jarStream,
                                final GAV gav,
                                final boolean includeAdditionalRepositories) {
-        //Write JAR to temporary file for deployment
-        File jarFile = new File(System.getProperty("java.io.tmpdir"),
-                                toFileName(gav,
-                                           "jar"));
+        //Write JAR to temporary file for deployment, reading its metadata on the way
+        final File jarFile = new File(System.getProperty("java.io.tmpdir"),
+                                      toFileName(gav,
+                                                 "jar"));
+        final File appendedJarFile = new File(jarFile.getPath() + ".tmp");
 
         try {
+            final InspectedJar inspectedJar = inputStreamToJarFile(jarStream,
+                                                                   jarFile);
 
-            inputStreamToFile(jarStream,
-                              jarFile);
-
-            //Write pom.xml to JAR if it doesn't already exist
-            String pomXML = loadPomFromJar(new File(jarFile.getPath()));
+            //Write pom.xml and pom.properties to JAR if they don't already exist
+            final Map<String, String> missingEntries = new LinkedHashMap<>();
+            String pomXML = inspectedJar.metadata.getPomXml();
             if (pomXML == null) {
                 pomXML = generatePOM(gav);
-                jarFile = appendFileToJar(pomXML,
-                                          getPomXmlPath(gav),
-                                          jarFile.getPath());
+                missingEntries.put(getPomXmlPath(gav),
+                                   pomXML);
             }
-
-            //Write pom.properties to JAR if it doesn't already exist
-            String pomProperties = loadGAVFromJarInternal(new File(jarFile.getPath()));
+            String pomProperties = inspectedJar.metadata.getPomProperties();
             if (pomProperties == null) {
                 pomProperties = generatePomProperties(gav);
-                jarFile = appendFileToJar(pomProperties,
-                                          getPomPropertiesPath(gav),
-                                          jarFile.getPath());
+                missingEntries.put(getPomPropertiesPath(gav),
+                                   pomProperties);
+            }
+
+            File deployedJarFile = jarFile;
+            String checksum = inspectedJar.checksum;
+            if (!missingEntries.isEmpty()) {
+                checksum = appendFilesToJar(missingEntries,
+                                            jarFile,
+                                            appendedJarFile);
+                deployedJarFile = appendedJarFile;
+            }
+            if (checksum != null) {
+                metadataCache.put(checksum,
+                                  new JarMetadata(pomXML,
+                                                  pomProperties));
             }
 
             deployArtifact(gav,
                            pomXML,
-                           jarFile,
+                           deployedJarFile,
                            includeAdditionalRepositories);
         } finally {
-            try {
-                jarFile.delete();
-            } catch (Exception e) {
-                log.warn("Unable to remove temporary file '" + jarFile.getAbsolutePath() + "'");
+            deleteTempFile(jarFile);
+            deleteTempFile(appendedJarFile);
+        }
+    }
+
+    private void deleteTempFile(final File file) {
+        try {
+            if (file.exists()) {
+                file.delete();
             }
+        } catch (Exception e) {
+            log.warn("Unable to remove temporary file '" + file.getAbsolutePath() + "'");
         }
     }
 
@@ -226,6 +403,51 @@ public class GuvnorM2Repository {
         }
     }
 
+    /**
+     * Writes the uploaded jar to the file in a single pass, hashing it and reading its Maven metadata entries.
+     */
+    private InspectedJar inputStreamToJarFile(final InputStream inputStream,
+                                              final File file) {
+        final MessageDigest digest = newDigest();
+        String pomXML = null;
+        String pomProperties = null;
+        try {
+            if (!file.exists()) {
+                file.getParentFile().mkdirs();
+                file.createNewFile();
+            }
+            try (OutputStream fos = new FileOutputStream(file)) {
+                final TeeInputStream tee = new TeeInputStream(new DigestInputStream(inputStream,
+                                                                                    digest),
+                                                              fos);
+                try {
+                    final ZipInputStream zis = new ZipInputStream(tee);
+                    ZipEntry entry;
+                    while ((entry = zis.getNextEntry()) != null) {
+                        if (pomXML == null && isPomXmlEntry(entry.getName())) {
+                            pomXML = IOUtils.toString(zis,
+                                                      StandardCharsets.UTF_8);
+                        } else if (pomProperties == null && isPomPropertiesEntry(entry.getName())) {
+                            pomProperties = IOUtils.toString(zis,
+                                                             StandardCharsets.UTF_8);
+                        }
+                    }
+                } catch (ZipException e) {
+                    log.error(e.getMessage());
+                }
+                //Copy what's left after the last entry (ie. the central directory)
+                IOUtils.copy(tee,
+                             NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new InspectedJar(ArtifactMetadataCache.toKey(digest.digest(),
+                                                            file.length()),
+                                new JarMetadata(pomXML,
+                                                pomProperties));
+    }
+
     public void deployParentPom(final GAV gav) {
         //Write pom.xml to temporary file for deployment
         final File pomXMLFile = new File(System.getProperty("java.io.tmpdir"),
@@ -249,6 +471,7 @@ public class GuvnorM2Repository {
                 artifactRepository.deploy(pomXML,
                                           finalPomXMLArtifact);
             });
+            onDeployed(gav);
         } finally {
             try {
                 pomXMLFile.delete();
@@ -290,6 +513,7 @@ public class GuvnorM2Repository {
             this.repositories.forEach((repository) -> repository.deploy(pomXML,
                                                                         finalJarArtifact,
                                                                         finalPomXMLArtifact));
+            onDeployed(gav);
 
             //Only deploy to additional repositories if required. This flag is principally for Unit Tests
             if (!includeAdditionalRepositories) {
@@ -345,6 +569,7 @@ public class GuvnorM2Repository {
             artifactRepository.deploy(null,
                                       finalPomArtifact);
         });
+        onDeployed(gav);
     }
 
     /**
@@ -374,32 +599,28 @@ public class GuvnorM2Repository {
      * @return an collection of java.io.File with the matching files
      */
     public List<File> listFiles(final String filters,
-                                List<String> fileFormats) {
-        final List<String> wildcards = new ArrayList<String>();
-        String wildcardPrefix = "";
-
-        if (filters != null) {
-            wildcardPrefix = "*" + filters;
-        }
+                                final List<String> fileFormats) {
+        final List<File> files = new ArrayList<File>(getFiles(buildWildcards(filters,
+                                                                             fileFormats)));
 
-        if (fileFormats == null) {
-            fileFormats = new ArrayList<String>();
-            fileFormats.add("jar");
-            fileFormats.add("kjar");
-            fileFormats.add("pom");
-        }
-
-        for (String fileFormat : fileFormats) {
-            wildcards.add(wildcardPrefix + "*." + fileFormat);
-        }
+        return files;
+    }
 
-        final List<File> files = new ArrayList<File>(getFiles(wildcards));
+    public List<Artifact> listArtifacts(final String filters,
+                                        final List<String> fileFormats) {
+        final List<Artifact> files = new ArrayList<>(getArtifacts(buildWildcards(filters,
+                                                                                 fileFormats)));
 
         return files;
     }
 
-    public List<Artifact> listArtifacts(final String filters,
-                                        List<String> fileFormats) {
+    /**
+     * Builds the file name wildcards matching the given filters and formats, ie. "*filter*.jar".
+     * @param filters filter to apply, or null to match any file name.
+     * @param fileFormats file formats to match, or null for [ "jar", "kjar", "pom" ].
+     */
+    public List<String> buildWildcards(final String filters,
+                                       List<String> fileFormats) {
         final List<String> wildcards = new ArrayList<String>();
         String wildcardPrefix = "";
 
@@ -418,9 +639,7 @@ public class GuvnorM2Repository {
             wildcards.add(wildcardPrefix + "*." + fileFormat);
         }
 
-        final List<Artifact> files = new ArrayList<>(getArtifacts(wildcards));
-
-        return files;
+        return wildcards;
     }
 
     protected Collection<File> getFiles(final List<String> wildcards) {
@@ -442,7 +661,7 @@ public class GuvnorM2Repository {
 
         final String normalizedPath = file.toPath().normalize().toString();
         if (isJar(normalizedPath) || isKJar(normalizedPath)) {
-            return loadPomFromJar(file);
+            return getJarMetadata(file).getPomXml();
         } else if (isDeployedPom(normalizedPath)) {
             return loadPom(file);
         } else {
@@ -450,14 +669,37 @@ public class GuvnorM2Repository {
         }
     }
 
-    private static String loadPomFromJar(final File file) {
+    /**
+     * Returns the Maven metadata of a repository jar, reading it from the jar only if it's not cached yet.
+     */
+    JarMetadata getJarMetadata(final File file) {
+        if (!file.isFile()) {
+            return new JarMetadata(null,
+                                   null);
+        }
+        final String checksum = ArtifactMetadataCache.checksumOf(file);
+        JarMetadata metadata = metadataCache.get(checksum);
+        if (metadata == null) {
+            metadata = loadMetadataFromJar(file);
+            metadataCache.put(checksum,
+                              metadata);
+        }
+        return metadata;
+    }
+
+    private static JarMetadata loadMetadataFromJar(final File file) {
+        String pomXML = null;
+        String pomProperties = null;
         try (ZipFile zip = new ZipFile(file)) {
-            for (Enumeration e = zip.entries(); e.hasMoreElements(); ) {
+            for (Enumeration e = zip.entries(); e.hasMoreElements() && (pomXML == null || pomProperties == null); ) {
                 ZipEntry entry = (ZipEntry) e.nextElement();
 
-                if (entry.getName().startsWith("META-INF/maven") && entry.getName().endsWith("pom.xml")) {
-                    return zipEntryToString(zip,
-                                            entry);
+                if (pomXML == null && isPomXmlEntry(entry.getName())) {
+                    pomXML = zipEntryToString(zip,
+                                              entry);
+                } else if (pomProperties == null && isPomPropertiesEntry(entry.getName())) {
+                    pomProperties = zipEntryToString(zip,
+                                                     entry);
                 }
             }
         } catch (ZipException e) {
@@ -466,7 +708,16 @@ public class GuvnorM2Repository {
             log.error(e.getMessage());
         }
 
-        return null;
+        return new JarMetadata(pomXML,
+                               pomProperties);
+    }
+
+    private static boolean isPomXmlEntry(final String entryName) {
+        return entryName.startsWith("META-INF/maven") && entryName.endsWith("pom.xml");
+    }
+
+    private static boolean isPomPropertiesEntry(final String entryName) {
+        return entryName.startsWith("META-INF/maven") && entryName.endsWith("pom.properties");
     }
 
     private static String loadPom(final File file) {
@@ -491,7 +742,10 @@ public class GuvnorM2Repository {
                             jarPath);
 
         try {
-            final String pomProperties = loadGAVFromJarInternal(zip);
+            final String pomProperties = getJarMetadata(zip).getPomProperties();
+            if (pomProperties == null) {
+                return null;
+            }
 
             final Properties props = new Properties();
             props.load(new StringReader(pomProperties));
@@ -510,27 +764,6 @@ public class GuvnorM2Repository {
         return null;
     }
 
-    private String loadGAVFromJarInternal(final File file) {
-        try {
-            ZipFile zip = new ZipFile(file);
-
-            for (Enumeration e = zip.entries(); e.hasMoreElements(); ) {
-                ZipEntry entry = (ZipEntry) e.nextElement();
-
-                if (entry.getName().startsWith("META-INF/maven") && entry.getName().endsWith("pom.properties")) {
-                    return zipEntryToString(zip,
-                                            entry);
-                }
-            }
-        } catch (ZipException e) {
-            log.error(e.getMessage());
-        } catch (IOException e) {
-            log.error(e.getMessage());
-        }
-
-        return null;
-    }
-
     public static String loadPomFromJar(final InputStream jarInputStream) {
         try {
 
@@ -584,29 +817,44 @@ public class GuvnorM2Repository {
         throw new FileNotFoundException("Could not find '" + prefix + "/*/" + suffix + "' in the jar.");
     }
 
-    private File appendFileToJar(final String content,
-                                 final String contentPath,
-                                 final String jarPath) {
-        File originalJarFile = new File(jarPath);
-        File appendedJarFile = new File(jarPath + ".tmp");
-
+    /**
+     * Copies the jar adding the given entries.
+     * @return the checksum of the new jar, or null if it couldn't be written.
+     */
+    private String appendFilesToJar(final Map<String, String> contents,
+                                    final File originalJarFile,
+                                    final File appendedJarFile) {
+        final MessageDigest digest = newDigest();
         try (ZipFile war = new ZipFile(originalJarFile);
-             ZipOutputStream append = new ZipOutputStream(new FileOutputStream(appendedJarFile))) {
+             ZipOutputStream append = new ZipOutputStream(new DigestOutputStream(new FileOutputStream(appendedJarFile),
+                                                                                 digest))) {
 
             // first, copy contents from existing war
             copyEntriesFromExistingWar(war,
                                        append);
 
-            // append pom.xml
-            ZipEntry e = new ZipEntry(contentPath);
-            append.putNextEntry(e);
-            append.write(content.getBytes());
-            append.closeEntry();
+            // append pom.xml and pom.properties
+            for (Map.Entry<String, String> content : contents.entrySet()) {
+                ZipEntry e = new ZipEntry(content.getKey());
+                append.putNextEntry(e);
+                append.write(content.getValue().getBytes());
+                append.closeEntry();
+            }
         } catch (IOException e) {
             log.error(e.getMessage());
+            return null;
         }
 
-        return appendedJarFile;
+        return ArtifactMetadataCache.toKey(digest.digest(),
+                                           appendedJarFile.length());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void copyEntriesFromExistingWar(final ZipFile war,
@@ -704,6 +952,18 @@ public class GuvnorM2Repository {
         return artifacts.get(0);
     }
 
+    private static class InspectedJar {
+
+        private final String checksum;
+        private final JarMetadata metadata;
+
+        private InspectedJar(final String checksum,
+                             final JarMetadata metadata) {
+            this.checksum = checksum;
+            this.metadata = metadata;
+        }
+    }
+
     protected static String zipEntryToString(ZipFile zip,
                                              ZipEntry entry) throws IOException {
         final InputStream is = zip.getInputStream(entry);
@@ -37,6 +37,9 @@ import org.appformer.maven.support.MinimalPomParser;
 import org.appformer.maven.support.PomModel;
 import org.eclipse.aether.artifact.Artifact;
 import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalog;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogEntry;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogPage;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryService;
 import org.guvnor.m2repo.model.JarListPageRequest;
 import org.guvnor.m2repo.model.JarListPageRow;
@@ -114,7 +117,13 @@ public class M2RepoServiceImpl implements M2RepoService,
 
     @Override
     public PageResponse<JarListPageRow> listArtifacts(final JarListPageRequest pageRequest) {
-        //Get unsorted files matching filter
+        final ArtifactCatalog catalog = repository.getArtifactCatalog();
+        if (catalog != null && catalog.isReady()) {
+            return listCatalogArtifacts(catalog,
+                                        pageRequest);
+        }
+
+        //The catalog is being built, get unsorted files matching filter
         final String filters = pageRequest.getFilters();
         final List<String> fileFormats = pageRequest.getFileFormats();
         final String dataSourceName = pageRequest.getDataSourceName();
@@ -206,6 +215,37 @@ public class M2RepoServiceImpl implements M2RepoService,
         return response;
     }
 
+    PageResponse<JarListPageRow> listCatalogArtifacts(final ArtifactCatalog catalog,
+                                                      final JarListPageRequest pageRequest) {
+        final ArtifactCatalogPage page = catalog.query(repository.buildWildcards(pageRequest.getFilters(),
+                                                                                 pageRequest.getFileFormats()),
+                                                       pageRequest.getDataSourceName(),
+                                                       pageRequest.isAscending(),
+                                                       pageRequest.getCursor(),
+                                                       pageRequest.getStartRowIndex(),
+                                                       pageRequest.getPageSize());
+
+        final List<JarListPageRow> responsePageRowList = new ArrayList<JarListPageRow>();
+        for (ArtifactCatalogEntry entry : page.getEntries()) {
+            JarListPageRow jarListPageRow = new JarListPageRow();
+            jarListPageRow.setName(entry.getName());
+            jarListPageRow.setPath(entry.getPath());
+            jarListPageRow.setGav(entry.getGav());
+            jarListPageRow.setLastModified(new Date(entry.getLastModified()));
+            jarListPageRow.setRepositoryName(entry.getRepository());
+            responsePageRowList.add(jarListPageRow);
+        }
+
+        final PageResponse<JarListPageRow> response = new PageResponse<JarListPageRow>();
+        response.setPageRowList(responsePageRowList);
+        response.setStartRowIndex(page.getStartIndex());
+        response.setTotalRowSize(page.getTotalSize());
+        response.setTotalRowSizeExact(true);
+        response.setLastPage(page.getNextCursor() == null);
+
+        return response;
+    }
+
     // The file separator is provided as a parameter so that we can test for correct JAR path creation on both
     // Windows and Linux based Operating Systems in Unit tests running on either platform. See JarPathTest.
     String getJarPath(final String path,
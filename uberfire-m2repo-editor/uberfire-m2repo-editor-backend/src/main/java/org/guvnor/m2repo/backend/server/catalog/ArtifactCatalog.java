@@ -0,0 +1,387 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.model.JarListPageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Catalog of the files of the artifact repositories, with their GAV, size and timestamp.
+ * <p>
+ * The catalog is persisted to a local file: a full snapshot written on every {@link #completeRebuild(Collection)}
+ * followed by a journal of the changes recorded afterwards, one line per change. It's loaded on startup so the
+ * repository can be browsed right away, and rebuilt in background from a scan of the repositories.
+ * <p>
+ * Sorted views are built once per change and filtered results are kept for the last query, so paging through
+ * a result doesn't depend on the repository size.
+ */
+public class ArtifactCatalog {
+
+    public static final String CATALOG_FILE_NAME = ".artifact-catalog";
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCatalog.class);
+
+    private static final String ADDED = "+";
+    private static final String REMOVED = "-";
+    private static final String SEPARATOR = "\t";
+
+    private final File catalogFile;
+    private final Map<String, ArtifactCatalogEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, List<ArtifactCatalogEntry>> sortedViews = new ConcurrentHashMap<>();
+    private volatile long version;
+    private volatile boolean ready;
+    private volatile FilteredView lastFilteredView;
+    private Set<String> changedDuringRebuild;
+
+    public ArtifactCatalog(final File catalogFile) {
+        this.catalogFile = catalogFile;
+    }
+
+    /**
+     * Loads the persisted catalog, if any.
+     * @return true if the catalog was loaded and is ready to be queried.
+     */
+    public synchronized boolean load() {
+        if (!catalogFile.exists()) {
+            return false;
+        }
+        final Map<String, ArtifactCatalogEntry> loaded = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(catalogFile),
+                                                                              StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(SEPARATOR,
+                                                   -1);
+                if (fields.length == 2 && REMOVED.equals(fields[0])) {
+                    loaded.remove(fields[1]);
+                } else if (fields.length == 8 && ADDED.equals(fields[0])) {
+                    final ArtifactCatalogEntry entry = new ArtifactCatalogEntry(fields[1],
+                                                                                fields[2],
+                                                                                new GAV(fields[5],
+                                                                                        fields[6],
+                                                                                        fields[7]),
+                                                                                Long.parseLong(fields[3]),
+                                                                                Long.parseLong(fields[4]));
+                    loaded.put(entry.getKey(),
+                               entry);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load the artifact catalog '" + catalogFile + "', it will be rebuilt.",
+                     e);
+            return false;
+        }
+        entries.clear();
+        entries.putAll(loaded);
+        ready = true;
+        changed();
+        return true;
+    }
+
+    /**
+     * Starts tracking the changes recorded while the repositories are scanned, so they are kept by
+     * {@link #completeRebuild(Collection)}.
+     */
+    public synchronized void beginRebuild() {
+        changedDuringRebuild = new HashSet<>();
+    }
+
+    /**
+     * Replaces the catalog content with the scanned entries and persists a new snapshot.
+     */
+    public synchronized void completeRebuild(final Collection<ArtifactCatalogEntry> scanned) {
+        final Map<String, ArtifactCatalogEntry> rebuilt = new HashMap<>();
+        for (ArtifactCatalogEntry entry : scanned) {
+            rebuilt.put(entry.getKey(),
+                        entry);
+        }
+        if (changedDuringRebuild != null) {
+            for (String key : changedDuringRebuild) {
+                final ArtifactCatalogEntry entry = entries.get(key);
+                if (entry != null) {
+                    rebuilt.put(key,
+                                entry);
+                } else {
+                    rebuilt.remove(key);
+                }
+            }
+            changedDuringRebuild = null;
+        }
+
+        entries.keySet().retainAll(rebuilt.keySet());
+        entries.putAll(rebuilt);
+        writeSnapshot();
+        ready = true;
+        changed();
+    }
+
+    public synchronized void put(final Collection<ArtifactCatalogEntry> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        final List<String> journal = new ArrayList<>(added.size());
+        for (ArtifactCatalogEntry entry : added) {
+            entries.put(entry.getKey(),
+                        entry);
+            trackChange(entry.getKey());
+            journal.add(toLine(entry));
+        }
+        appendJournal(journal);
+        changed();
+    }
+
+    public synchronized void remove(final String key) {
+        if (entries.remove(key) == null) {
+            return;
+        }
+        trackChange(key);
+        appendJournal(Collections.singletonList(REMOVED + SEPARATOR + key));
+        changed();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public ArtifactCatalogEntry get(final String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns a page of the entries whose file name matches any of the wildcards.
+     * @param wildcards case insensitive file name wildcards, ie. "*filter*.jar".
+     * @param sortColumn one of the {@link JarListPageRequest} columns, or null to sort by path.
+     * @param ascending the sort order.
+     * @param cursor the {@link ArtifactCatalogPage#getNextCursor()} of the previous page; when null, or when
+     * the entry it points to is gone, the page starts at startIndex.
+     * @param startIndex the position of the first entry, when no cursor is given.
+     * @param pageSize the maximum number of entries of the page, or null for all.
+     */
+    public ArtifactCatalogPage query(final List<String> wildcards,
+                                     final String sortColumn,
+                                     final boolean ascending,
+                                     final String cursor,
+                                     final int startIndex,
+                                     final Integer pageSize) {
+        final Comparator<ArtifactCatalogEntry> comparator = comparator(sortColumn,
+                                                                       ascending);
+        final List<ArtifactCatalogEntry> result = filteredView(wildcards,
+                                                               sortColumn,
+                                                               ascending,
+                                                               comparator);
+
+        int start = Math.max(0,
+                             startIndex);
+        final ArtifactCatalogEntry last = cursor != null ? entries.get(cursor) : null;
+        if (last != null) {
+            final int position = Collections.binarySearch(result,
+                                                          last,
+                                                          comparator);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+
+        final int end = pageSize == null ? result.size() : (int) Math.min(result.size(),
+                                                                          (long) start + pageSize);
+        final List<ArtifactCatalogEntry> page = start < end ? result.subList(start,
+                                                                             end) : Collections.emptyList();
+        final String nextCursor = end < result.size() && !page.isEmpty() ? page.get(page.size() - 1).getKey() : null;
+        return new ArtifactCatalogPage(new ArrayList<>(page),
+                                       start,
+                                       result.size(),
+                                       nextCursor);
+    }
+
+    private List<ArtifactCatalogEntry> filteredView(final List<String> wildcards,
+                                                    final String sortColumn,
+                                                    final boolean ascending,
+                                                    final Comparator<ArtifactCatalogEntry> comparator) {
+        final long currentVersion = version;
+        final String viewKey = sortColumn + SEPARATOR + ascending;
+        final String filterKey = viewKey + SEPARATOR + wildcards;
+
+        final FilteredView cached = lastFilteredView;
+        if (cached != null && cached.version == currentVersion && cached.key.equals(filterKey)) {
+            return cached.entries;
+        }
+
+        // Sorted views are keyed by version too, so a view built while the catalog changes is never reused
+        final String sortedKey = currentVersion + SEPARATOR + viewKey;
+        List<ArtifactCatalogEntry> sorted = sortedViews.get(sortedKey);
+        if (sorted == null) {
+            sorted = new ArrayList<>(entries.values());
+            sorted.sort(comparator);
+            sorted = Collections.unmodifiableList(sorted);
+            sortedViews.put(sortedKey,
+                            sorted);
+        }
+
+        final List<ArtifactCatalogEntry> filtered = new ArrayList<>();
+        for (ArtifactCatalogEntry entry : sorted) {
+            if (matches(entry.getName(),
+                        wildcards)) {
+                filtered.add(entry);
+            }
+        }
+        final List<ArtifactCatalogEntry> result = Collections.unmodifiableList(filtered);
+        lastFilteredView = new FilteredView(currentVersion,
+                                            filterKey,
+                                            result);
+        return result;
+    }
+
+    private boolean matches(final String name,
+                            final List<String> wildcards) {
+        for (String wildcard : wildcards) {
+            if (FilenameUtils.wildcardMatch(name,
+                                            wildcard,
+                                            IOCase.INSENSITIVE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Comparator<ArtifactCatalogEntry> comparator(final String sortColumn,
+                                                       final boolean ascending) {
+        Comparator<ArtifactCatalogEntry> comparator;
+        if (JarListPageRequest.COLUMN_NAME.equals(sortColumn)) {
+            comparator = Comparator.comparing(ArtifactCatalogEntry::getName);
+        } else if (JarListPageRequest.COLUMN_GAV.equals(sortColumn)) {
+            comparator = Comparator.comparing(entry -> entry.getGav().toString(),
+                                              String.CASE_INSENSITIVE_ORDER);
+        } else if (JarListPageRequest.COLUMN_LAST_MODIFIED.equals(sortColumn)) {
+            comparator = Comparator.comparingLong(ArtifactCatalogEntry::getLastModified);
+        } else {
+            comparator = Comparator.comparing(ArtifactCatalogEntry::getPath);
+        }
+        if (sortColumn != null && !ascending) {
+            comparator = comparator.reversed();
+        }
+        // Ties are broken by key so the order is total and cursors are stable
+        return comparator.thenComparing(ArtifactCatalogEntry::getKey);
+    }
+
+    private void trackChange(final String key) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(key);
+        }
+    }
+
+    private void changed() {
+        version++;
+        sortedViews.clear();
+        lastFilteredView = null;
+    }
+
+    private void appendJournal(final List<String> lines) {
+        // Until the first snapshot is written, the journal alone would be taken as the whole catalog
+        if (!ready || !catalogFile.exists()) {
+            return;
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(catalogFile,
+                                                                                            true),
+                                                                       StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            log.warn("Unable to update the artifact catalog '" + catalogFile + "'.",
+                     e);
+        }
+    }
+
+    private void writeSnapshot() {
+        final File directory = catalogFile.getAbsoluteFile().getParentFile();
+        if (directory == null || !directory.exists()) {
+            return;
+        }
+        final File tempFile = new File(directory,
+                                       catalogFile.getName() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile),
+                                                                           StandardCharsets.UTF_8))) {
+                for (ArtifactCatalogEntry entry : entries.values()) {
+                    writer.write(toLine(entry));
+                    writer.write('\n');
+                }
+            }
+            Files.move(tempFile.toPath(),
+                       catalogFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Unable to write the artifact catalog '" + catalogFile + "'.",
+                     e);
+        }
+    }
+
+    private String toLine(final ArtifactCatalogEntry entry) {
+        return ADDED + SEPARATOR + entry.getRepository()
+                + SEPARATOR + entry.getPath()
+                + SEPARATOR + entry.getSize()
+                + SEPARATOR + entry.getLastModified()
+                + SEPARATOR + entry.getGav().getGroupId()
+                + SEPARATOR + entry.getGav().getArtifactId()
+                + SEPARATOR + entry.getGav().getVersion();
+    }
+
+    private static class FilteredView {
+
+        private final long version;
+        private final String key;
+        private final List<ArtifactCatalogEntry> entries;
+
+        private FilteredView(final long version,
+                             final String key,
+                             final List<ArtifactCatalogEntry> entries) {
+            this.version = version;
+            this.key = key;
+            this.entries = entries;
+        }
+    }
+}
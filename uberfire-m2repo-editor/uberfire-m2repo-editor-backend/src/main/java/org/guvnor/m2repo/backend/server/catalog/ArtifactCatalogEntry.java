@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.File;
+
+import org.guvnor.common.services.project.model.GAV;
+
+/**
+ * A file of an artifact repository, as recorded by the {@link ArtifactCatalog}.
+ */
+public class ArtifactCatalogEntry {
+
+    static final String UNDETERMINED = "<undetermined>";
+
+    private final String repository;
+    private final String path;
+    private final String name;
+    private final GAV gav;
+    private final long size;
+    private final long lastModified;
+
+    public ArtifactCatalogEntry(final String repository,
+                                final String path,
+                                final GAV gav,
+                                final long size,
+                                final long lastModified) {
+        this.repository = repository;
+        this.path = path;
+        this.name = path.substring(path.lastIndexOf('/') + 1);
+        this.gav = gav;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Creates the entry of a repository file, the GAV is resolved from its location on the Maven
+     * repository layout, ie. "group/id/artifactId/version/file".
+     * @param repository the repository name
+     * @param rootDir the repository root directory
+     * @param file the repository file
+     */
+    public static ArtifactCatalogEntry fromFile(final String repository,
+                                                final File rootDir,
+                                                final File file) {
+        final String path = rootDir.toPath().toAbsolutePath().normalize()
+                .relativize(file.toPath().toAbsolutePath().normalize())
+                .toString()
+                .replace(File.separatorChar,
+                         '/');
+        return new ArtifactCatalogEntry(repository,
+                                        path,
+                                        toGAV(path),
+                                        file.length(),
+                                        file.lastModified());
+    }
+
+    static GAV toGAV(final String path) {
+        final String[] segments = path.split("/");
+        if (segments.length < 4) {
+            return new GAV(UNDETERMINED,
+                           UNDETERMINED,
+                           UNDETERMINED);
+        }
+        final StringBuilder groupId = new StringBuilder(segments[0]);
+        for (int i = 1; i < segments.length - 3; i++) {
+            groupId.append('.').append(segments[i]);
+        }
+        return new GAV(groupId.toString(),
+                       segments[segments.length - 3],
+                       segments[segments.length - 2]);
+    }
+
+    public String getKey() {
+        return repository + ":" + path;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public GAV getGav() {
+        return gav;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
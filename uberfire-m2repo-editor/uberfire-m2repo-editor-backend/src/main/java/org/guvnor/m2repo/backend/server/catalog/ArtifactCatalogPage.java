@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.util.List;
+
+/**
+ * A page of {@link ArtifactCatalog} entries.
+ */
+public class ArtifactCatalogPage {
+
+    private final List<ArtifactCatalogEntry> entries;
+    private final int startIndex;
+    private final int totalSize;
+    private final String nextCursor;
+
+    public ArtifactCatalogPage(final List<ArtifactCatalogEntry> entries,
+                               final int startIndex,
+                               final int totalSize,
+                               final String nextCursor) {
+        this.entries = entries;
+        this.startIndex = startIndex;
+        this.totalSize = totalSize;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ArtifactCatalogEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the position of the first entry of the page in the whole filtered and sorted result.
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    public int getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return the cursor to request the following page, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
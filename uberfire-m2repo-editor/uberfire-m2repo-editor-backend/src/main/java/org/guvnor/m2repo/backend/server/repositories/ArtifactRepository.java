@@ -48,6 +48,15 @@ public interface ArtifactRepository {
      */
     Collection<File> listFiles(final List<String> wildcards);
 
+    /**
+     * List the repository files of an artifact filtered by wildcards
+     * @param gav the GAV identifier of the artifact
+     * @param wildcards the filtering wildcards
+     * @return the files
+     */
+    Collection<File> listFiles(final GAV gav,
+                               final List<String> wildcards);
+
     /**
      * List repository artifacts filtered by wildcards
      * @param wildcards the filtering wildcards
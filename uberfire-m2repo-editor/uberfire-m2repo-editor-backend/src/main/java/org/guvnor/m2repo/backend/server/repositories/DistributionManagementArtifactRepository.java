@@ -75,6 +75,12 @@ public class DistributionManagementArtifactRepository implements ArtifactReposit
         return Collections.EMPTY_LIST;
     }
 
+    @Override
+    public Collection<File> listFiles(final GAV gav,
+                                      final List<String> wildcards) {
+        return Collections.EMPTY_LIST;
+    }
+
     @Override
     public Collection<Artifact> listArtifacts(final List<String> wildcards) {
         return Collections.EMPTY_LIST;
@@ -20,6 +20,7 @@ package org.guvnor.m2repo.backend.server.repositories;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -90,6 +91,23 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
                                    DirectoryFileFilter.DIRECTORY);
     }
 
+    @Override
+    public Collection<File> listFiles(final GAV gav,
+                                      final List<String> wildcards) {
+        final File artifactDirectory = new File(this.getRepositoryDirectory(),
+                                                gav.getGroupId().replace('.',
+                                                                         File.separatorChar)
+                                                        + File.separator + gav.getArtifactId()
+                                                        + File.separator + gav.getVersion());
+        if (!artifactDirectory.isDirectory()) {
+            return Collections.emptyList();
+        }
+        return FileUtils.listFiles(artifactDirectory,
+                                   new WildcardFileFilter(wildcards,
+                                                          IOCase.INSENSITIVE),
+                                   null);
+    }
+
     @Override
     public Collection<Artifact> listArtifacts(final List<String> wildcards) {
         final Collection<File> files = this.listFiles(wildcards);
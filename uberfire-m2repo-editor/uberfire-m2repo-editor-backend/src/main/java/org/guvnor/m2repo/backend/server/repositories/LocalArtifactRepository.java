@@ -60,6 +60,12 @@ public class LocalArtifactRepository implements ArtifactRepository {
         return Collections.EMPTY_LIST;
     }
 
+    @Override
+    public Collection<File> listFiles(final GAV gav,
+                                      final List<String> wildcards) {
+        return Collections.EMPTY_LIST;
+    }
+
     @Override
     public Collection<Artifact> listArtifacts(final List<String> wildcards) {
         return Collections.EMPTY_LIST;
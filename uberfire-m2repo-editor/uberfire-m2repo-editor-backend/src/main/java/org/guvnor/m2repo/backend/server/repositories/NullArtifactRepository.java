@@ -44,6 +44,12 @@ public class NullArtifactRepository implements ArtifactRepository {
         return Collections.emptyList();
     }
 
+    @Override
+    public Collection<File> listFiles(GAV gav,
+                                      List<String> wildcards) {
+        return Collections.emptyList();
+    }
+
     @Override
     public Collection<Artifact> listArtifacts(List<String> wildcards) {
         return Collections.emptyList();
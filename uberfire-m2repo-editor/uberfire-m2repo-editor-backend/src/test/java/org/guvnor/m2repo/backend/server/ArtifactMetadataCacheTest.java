@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.FileUtils;
+import org.guvnor.m2repo.backend.server.ArtifactMetadataCache.JarMetadata;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ArtifactMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChecksumFromSha1File() throws Exception {
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final File jar = folder.newFile("test.jar");
+        FileUtils.writeByteArrayToFile(jar,
+                                       content);
+
+        final String key = ArtifactMetadataCache.toKey(MessageDigest.getInstance("SHA-1").digest(content),
+                                                       content.length);
+        assertNotEquals(key,
+                        ArtifactMetadataCache.checksumOf(jar));
+
+        FileUtils.writeStringToFile(new File(folder.getRoot(),
+                                             "test.jar" + ArtifactMetadataCache.SHA1_EXTENSION),
+                                    key.substring(0,
+                                                  40).toUpperCase() + "  test.jar",
+                                    StandardCharsets.UTF_8);
+        assertEquals(key,
+                     ArtifactMetadataCache.checksumOf(jar));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        final ArtifactMetadataCache cache = new ArtifactMetadataCache(2);
+        final JarMetadata metadata = new JarMetadata("<project/>",
+                                                     "version=1");
+        cache.put("a",
+                  metadata);
+        cache.put("b",
+                  metadata);
+        cache.get("a");
+        cache.put("c",
+                  metadata);
+
+        assertEquals(2,
+                     cache.size());
+        assertSame(metadata,
+                   cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+}
@@ -36,6 +36,7 @@ import org.eclipse.aether.installation.InstallResult;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.repository.Authentication;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.guvnor.common.services.project.backend.server.ArtifactResolutionCache;
 import org.guvnor.common.services.project.model.GAV;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryProducer;
@@ -80,6 +81,7 @@ public class GuvnorM2RepositoryTest {
     private static String kieSettingsCustomOriginalValue;
 
     private GuvnorM2Repository repo;
+    private ArtifactResolutionCache resolutionCache;
     private RepositorySystem repositorySystem = mock(RepositorySystem.class);
     private RepositorySystemSession repositorySystemSession = mock(RepositorySystemSession.class);
 
@@ -135,7 +137,9 @@ public class GuvnorM2RepositoryTest {
                                                                            producer.produceDistributionManagementRepository());
         ArtifactRepositoryService factory = new ArtifactRepositoryService(repositories);
 
-        repo = new GuvnorM2Repository(factory);
+        resolutionCache = new ArtifactResolutionCache();
+        repo = new GuvnorM2Repository(factory,
+                                      resolutionCache);
         repo.init();
 
         Aether aether = mock(Aether.class);
@@ -228,6 +232,28 @@ public class GuvnorM2RepositoryTest {
                                 }));
     }
 
+    @Test
+    public void testDeployArtifactDropsCachedResolutions() {
+        final GAV gav = new GAV("org.kie.guvnor",
+                                "guvnor-m2repo-editor-backend",
+                                "0.0.1-SNAPSHOT");
+        final RemoteRepository remoteRepository = new RemoteRepository.Builder("remote",
+                                                                               "default",
+                                                                               "file:///remote").build();
+        //Checked before the artifact was deployed
+        resolutionCache.put(gav,
+                            remoteRepository,
+                            null);
+
+        final InputStream is = this.getClass().getResourceAsStream("guvnor-m2repo-editor-backend-test-with-distribution-management.jar");
+        repo.deployArtifact(is,
+                            gav,
+                            true);
+
+        assertNull(resolutionCache.get(gav,
+                                       remoteRepository));
+    }
+
     @Test
     public void testListFilesWithoutParameters() {
         List<String> wildcards = new ArrayList<String>();
@@ -142,7 +142,10 @@ public class M2MavenRepositoryServiceImplTest {
                                                                            producer.produceGlobalRepository(),
                                                                            producer.produceDistributionManagementRepository());
         ArtifactRepositoryService factory = new ArtifactRepositoryService(repositories);
-        repo = new GuvnorM2Repository(factory);
+        //Builds the catalog before init returns, so the listings don't depend on when the build completes
+        repo = new GuvnorM2Repository(factory,
+                                      null,
+                                      Runnable::run);
         repo.init();
 
         //Create a shell M2RepoService and set the M2Repository
@@ -207,6 +210,23 @@ public class M2MavenRepositoryServiceImplTest {
                    count > 0);
     }
 
+    @Test
+    public void testDeployArtifactCachesMetadata() throws Exception {
+        deployArtifact(gavBackend);
+
+        final File file = repo.getArtifactFileFromRepository(gavBackend);
+        final ArtifactMetadataCache.JarMetadata metadata = repo.getJarMetadata(file);
+        assertNotNull(metadata.getPomXml());
+        assertTrue(metadata.getPomProperties().contains("artifactId=guvnor-m2repo-editor-backend"));
+        assertSame(metadata,
+                   repo.getJarMetadata(file));
+
+        try (JarFile jarFile = new JarFile(file)) {
+            assertNotNull(jarFile.getEntry(repo.getPomXmlPath(gavBackend)));
+            assertNotNull(jarFile.getEntry(repo.getPomPropertiesPath(gavBackend)));
+        }
+    }
+
     @Test
     public void testDeployPom() throws Exception {
         InputStream is = this.getClass().getResourceAsStream("guvnor-m2repo-editor-backend-test-pom.xml");
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.model.JarListPageRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ArtifactCatalogTest {
+
+    private static final List<String> ALL = Arrays.asList("*.jar",
+                                                          "*.kjar",
+                                                          "*.pom");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File catalogFile;
+    private ArtifactCatalog catalog;
+
+    @Before
+    public void setup() {
+        catalogFile = new File(folder.getRoot(),
+                               ArtifactCatalog.CATALOG_FILE_NAME);
+        catalog = new ArtifactCatalog(catalogFile);
+    }
+
+    @Test
+    public void testNotReadyUntilBuilt() {
+        assertFalse(catalog.load());
+        assertFalse(catalog.isReady());
+
+        catalog.beginRebuild();
+        catalog.completeRebuild(Collections.emptyList());
+
+        assertTrue(catalog.isReady());
+        assertTrue(catalogFile.exists());
+    }
+
+    @Test
+    public void testGAVFromRepositoryLayout() {
+        assertEquals(new GAV("org.kie",
+                             "kie-api",
+                             "7.0.0"),
+                     ArtifactCatalogEntry.toGAV("org/kie/kie-api/7.0.0/kie-api-7.0.0.jar"));
+        assertEquals(ArtifactCatalogEntry.UNDETERMINED,
+                     ArtifactCatalogEntry.toGAV("a/b.jar").getGroupId());
+    }
+
+    @Test
+    public void testSortedPaging() {
+        catalog.completeRebuild(entries(10));
+
+        final ArtifactCatalogPage page = catalog.query(ALL,
+                                                       JarListPageRequest.COLUMN_NAME,
+                                                       false,
+                                                       null,
+                                                       2,
+                                                       3);
+        assertEquals(10,
+                     page.getTotalSize());
+        assertEquals(Arrays.asList("artifact7-1.0.jar",
+                                   "artifact6-1.0.jar",
+                                   "artifact5-1.0.jar"),
+                     names(page));
+        assertNotNull(page.getNextCursor());
+
+        final ArtifactCatalogPage next = catalog.query(ALL,
+                                                       JarListPageRequest.COLUMN_NAME,
+                                                       false,
+                                                       page.getNextCursor(),
+                                                       0,
+                                                       10);
+        assertEquals(5,
+                     next.getStartIndex());
+        assertEquals(5,
+                     next.getEntries().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void testFilter() {
+        catalog.completeRebuild(entries(12));
+
+        final ArtifactCatalogPage page = catalog.query(Collections.singletonList("*ACT1*.jar"),
+                                                       JarListPageRequest.COLUMN_PATH,
+                                                       true,
+                                                       null,
+                                                       0,
+                                                       null);
+        assertEquals(Arrays.asList("artifact1-1.0.jar",
+                                   "artifact10-1.0.jar",
+                                   "artifact11-1.0.jar"),
+                     names(page));
+        assertTrue(catalog.query(Collections.singletonList("*.kjar"),
+                                 null,
+                                 true,
+                                 null,
+                                 0,
+                                 null).getEntries().isEmpty());
+    }
+
+    @Test
+    public void testPersistedWithJournal() {
+        catalog.completeRebuild(entries(3));
+        catalog.put(Collections.singletonList(entry(5)));
+        catalog.remove(entry(0).getKey());
+
+        final ArtifactCatalog loaded = new ArtifactCatalog(catalogFile);
+        assertTrue(loaded.load());
+        assertEquals(3,
+                     loaded.size());
+        assertNull(loaded.get(entry(0).getKey()));
+
+        final ArtifactCatalogEntry entry = loaded.get(entry(5).getKey());
+        assertEquals(entry(5).getGav(),
+                     entry.getGav());
+        assertEquals(5,
+                     entry.getSize());
+        assertEquals(5000,
+                     entry.getLastModified());
+    }
+
+    @Test
+    public void testChangesDuringRebuildAreKept() {
+        catalog.completeRebuild(entries(2));
+
+        catalog.beginRebuild();
+        catalog.put(Collections.singletonList(entry(7)));
+        catalog.remove(entry(1).getKey());
+        catalog.completeRebuild(entries(3));
+
+        assertEquals(3,
+                     catalog.size());
+        assertNotNull(catalog.get(entry(7).getKey()));
+        assertNull(catalog.get(entry(1).getKey()));
+    }
+
+    private List<ArtifactCatalogEntry> entries(final int size) {
+        final List<ArtifactCatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            entries.add(entry(i));
+        }
+        return entries;
+    }
+
+    private ArtifactCatalogEntry entry(final int i) {
+        final String path = "org/test/artifact" + i + "/1.0/artifact" + i + "-1.0.jar";
+        return new ArtifactCatalogEntry("global-m2-repo",
+                                        path,
+                                        ArtifactCatalogEntry.toGAV(path),
+                                        i,
+                                        i * 1000L);
+    }
+
+    private List<String> names(final ArtifactCatalogPage page) {
+        final List<String> names = new ArrayList<>();
+        for (ArtifactCatalogEntry entry : page.getEntries()) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+}
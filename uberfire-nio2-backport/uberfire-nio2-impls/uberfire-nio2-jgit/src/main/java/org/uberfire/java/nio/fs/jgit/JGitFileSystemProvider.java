@@ -57,6 +57,7 @@ import org.eclipse.jgit.internal.storage.file.WindowCache;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.storage.file.WindowCacheConfig;
@@ -98,6 +99,7 @@ import org.uberfire.java.nio.base.options.CherryPickCopyOption;
 import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.base.options.MergeCopyOption;
 import org.uberfire.java.nio.base.options.SquashOption;
+import org.uberfire.java.nio.base.options.TreeCopyOption;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
 import org.uberfire.java.nio.base.version.VersionAttributes;
 import org.uberfire.java.nio.channels.AsynchronousFileChannel;
@@ -133,10 +135,12 @@ import org.uberfire.java.nio.fs.jgit.daemon.git.Daemon;
 import org.uberfire.java.nio.fs.jgit.daemon.ssh.BaseGitCommand;
 import org.uberfire.java.nio.fs.jgit.daemon.ssh.GitSSHService;
 import org.uberfire.java.nio.fs.jgit.manager.JGitFileSystemsManager;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollectionScheduler;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 import org.uberfire.java.nio.fs.jgit.util.ProxyAuthenticator;
 import org.uberfire.java.nio.fs.jgit.util.commands.Clone;
 import org.uberfire.java.nio.fs.jgit.util.commands.PathUtil;
+import org.uberfire.java.nio.fs.jgit.util.commands.SharedObjects;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.CopyCommitContent;
@@ -145,6 +149,7 @@ import org.uberfire.java.nio.fs.jgit.util.model.MoveCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.PathType;
 import org.uberfire.java.nio.fs.jgit.util.model.RevertCommitContent;
+import org.uberfire.java.nio.fs.jgit.util.model.TreeCopyCommitContent;
 import org.uberfire.java.nio.fs.jgit.ws.JGitFileSystemsEventsManager;
 import org.uberfire.java.nio.fs.jgit.ws.JGitWatchEvent;
 import org.uberfire.java.nio.security.FileSystemAuthenticator;
@@ -204,6 +209,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
     JGitFileSystemsEventsManager fsEventsManager;
 
+    JGitGarbageCollectionScheduler gcScheduler;
+
     /**
      * Creates a JGit filesystem provider which takes its configuration from system properties. In a normal production
      * deployment of UberFire, this is the constructor that will be invoked by the ServiceLoader mechanism.
@@ -236,6 +243,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
         setupConfigs(gitPrefs);
 
+        setupGarbageCollectionScheduler();
+
         setupFileSystemsManager();
 
         setupFSEvents();
@@ -255,6 +264,11 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         fsEventsManager = new JGitFileSystemsEventsManager();
     }
 
+    private void setupGarbageCollectionScheduler() {
+        gcScheduler = new JGitGarbageCollectionScheduler(config.getGcThreads(),
+                                                         config.getGcLooseRefsLimit());
+    }
+
     private void setupFileSystemsManager() {
         fsManager = new JGitFileSystemsManager(this,
                                                config);
@@ -445,6 +459,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                     }
                 }
 
+                fs.resetCommitCount();
+                gcScheduler.schedule(fs,
+                                     JGitGarbageCollectionScheduler.Priority.HIGH);
+
                 //broadcast changes
             });
         }};
@@ -492,13 +510,17 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
     }
 
     /**
-     * Closes and disposes all open filesystems and stops the Git and SSH daemons if they are running. This filesystem
-     * provider can be reactivated by attempting to open a new filesystem or by creating a new filesystem.
+     * Closes and disposes all open filesystems, stops the Git and SSH daemons if they are running and the pending garbage
+     * collections. This filesystem provider can be reactivated by attempting to open a new filesystem or by creating a
+     * new filesystem.
      */
     public void shutdown() {
         fsManager.getOpenFileSystems().forEach(JGitFileSystem::close);
         shutdownSSH();
         forceStopDaemon();
+        gcScheduler.shutdown();
+        //The file systems opened afterwards are collected by a new scheduler, which starts no thread until then
+        setupGarbageCollectionScheduler();
         fsManager.clear();
     }
 
@@ -509,6 +531,13 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         return config.getGitReposParentDir();
     }
 
+    /**
+     * Returns the scheduler that runs the garbage collection of the file systems in background.
+     */
+    public JGitGarbageCollectionScheduler getGarbageCollectionScheduler() {
+        return gcScheduler;
+    }
+
     @Override
     public synchronized void forceAsDefault() {
         this.isDefault = true;
@@ -668,7 +697,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                    fsName,
                                    credential,
                                    config.isEnableKetch() ? leaders : null,
-                                   config.getHookDir());
+                                   config.getHookDir(),
+                                   config.isForkSharedObjects());
                 } else if (subdirectory != null) {
                     if (isMirror) {
                         throw new UnsupportedOperationException("Cannot make mirror repository when cloning subdirectory.");
@@ -1287,6 +1317,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                 //this operation forces a cache clean freeing any lock -> windows only issue!
                 WindowCache.reconfigure(new WindowCacheConfig());
             }
+            //Forks sharing the objects of this repository need their own copy before it is gone
+            for (File fork : SharedObjects.getForks(gitDir)) {
+                detachFork(fork);
+            }
             FileUtils.delete(gitDir,
                              FileUtils.RECURSIVE | FileUtils.RETRY);
             fsManager.remove(fileSystem.getName());
@@ -1298,6 +1332,25 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         }
     }
 
+    /**
+     * Detaches the fork holding the lock of its file system, so nothing is committed to it meanwhile.
+     */
+    private void detachFork(final File forkDir) throws java.io.IOException {
+        final JGitFileSystem forkFS = fsManager.get(forkDir);
+        if (forkFS == null) {
+            try (final Repository repository = new FileRepositoryBuilder().setGitDir(forkDir).build()) {
+                SharedObjects.detach(repository);
+            }
+            return;
+        }
+        forkFS.lock();
+        try {
+            SharedObjects.detach(forkFS.getGit().getRepository());
+        } finally {
+            forkFS.unlock();
+        }
+    }
+
     private void cleanupParentDir(File gitDir) throws java.io.IOException {
         final File parentDir = gitDir.getParentFile();
         if (parentDir.isDirectory() && parentDirIsEmpty(parentDir) && !parentDir.equals(getGitRepoContainerDir())) {
@@ -1471,6 +1524,10 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
             cherryPick(gSource,
                        gTarget,
                        commits);
+        } else if (containsTreeCopyOption(options)) {
+            copyTree(gSource,
+                     gTarget,
+                     options);
         } else {
             if (isBranch) {
                 copyBranch(gSource,
@@ -1567,6 +1624,60 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         }
     }
 
+    private boolean containsTreeCopyOption(final CopyOption... options) {
+        for (final CopyOption option : options) {
+            if (option instanceof TreeCopyOption) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies a directory, recursively, as a single commit on the target branch. The target tree
+     * is built from the object ids of the source tree, so file content is only transferred when
+     * source and target are different repositories, and only for objects the target doesn't have.
+     */
+    private void copyTree(final JGitPathImpl source,
+                          final JGitPathImpl target,
+                          final CopyOption... options) {
+        final Git sourceGit = source.getFileSystem().getGit();
+        final PathInfo sourceResult = sourceGit.getPathInfo(source.getRefTree(),
+                                                            source.getPath());
+        final PathInfo targetResult = target.getFileSystem().getGit().getPathInfo(target.getRefTree(),
+                                                                                  target.getPath());
+
+        if (sourceResult.getPathType() == NOT_FOUND) {
+            throw new NoSuchFileException(source.toString());
+        }
+
+        if (sourceResult.getPathType() != DIRECTORY) {
+            copyAsset(source,
+                      target,
+                      options);
+            return;
+        }
+
+        if (!isRoot(target) && targetResult.getPathType() != NOT_FOUND) {
+            if (!contains(options,
+                          StandardCopyOption.REPLACE_EXISTING)) {
+                throw new FileAlreadyExistsException(target.toString());
+            }
+        }
+
+        final ObjectId sourceTreeId = isRoot(source) ? sourceGit.getTreeFromRef(source.getRefTree()) : sourceResult.getObjectId();
+        if (sourceTreeId == null) {
+            throw new NoSuchFileException(source.toString());
+        }
+
+        commit(target,
+               buildCommitInfo("copy from {" + source.getPath() + "} to {" + target.getPath() + "}",
+                               Arrays.asList(options)),
+               new TreeCopyCommitContent(sourceGit.getRepository(),
+                                         sourceTreeId,
+                                         PathUtil.normalize(target.getPath())));
+    }
+
     private void copyAssetContent(final JGitPathImpl source,
                                   final JGitPathImpl target,
                                   final CopyOption... options) {
@@ -2329,8 +2440,9 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                 if (hasCommit) {
                     int value = fileSystem.incrementAndGetCommitCount();
                     if (value >= config.getCommitLimit()) {
-                        git.gc();
                         fileSystem.resetCommitCount();
+                        gcScheduler.schedule(fileSystem,
+                                             JGitGarbageCollectionScheduler.Priority.NORMAL);
                     }
                 }
 
@@ -2401,8 +2513,9 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
             int value = fileSystem.incrementAndGetCommitCount();
             if (value >= config.getCommitLimit()) {
-                fileSystem.getGit().gc();
                 fileSystem.resetCommitCount();
+                gcScheduler.schedule(fileSystem,
+                                     JGitGarbageCollectionScheduler.Priority.NORMAL);
             }
         }
     }
@@ -51,6 +51,9 @@ public class JGitFileSystemProviderConfiguration {
     public static final String GIT_SSH_ALGORITHM = "org.uberfire.nio.git.ssh.algorithm";
     public static final String GIT_SSH_PASSPHRASE = "org.uberfire.nio.git.ssh.passphrase";
     public static final String GIT_GC_LIMIT = "org.uberfire.nio.git.gc.limit";
+    public static final String GIT_GC_THREADS = "org.uberfire.nio.git.gc.threads";
+    public static final String GIT_GC_LOOSE_REFS_LIMIT = "org.uberfire.nio.git.gc.loose.refs.limit";
+    public static final String GIT_FORK_SHARED_OBJECTS = "org.uberfire.nio.git.fork.shared.objects";
     public static final String HTTP_PROXY_USER = "http.proxyUser";
     public static final String HTTP_PROXY_PASSWORD = "http.proxyPassword";
     public static final String HTTPS_PROXY_USER = "https.proxyUser";
@@ -82,6 +85,9 @@ public class JGitFileSystemProviderConfiguration {
     public static final String DEFAULT_SSH_ALGORITHM = "RSA";
     public static final String DEFAULT_SSH_CERT_PASSPHRASE = "";
     public static final String DEFAULT_COMMIT_LIMIT_TO_GC = "20";
+    public static final String DEFAULT_GC_THREADS = "2";
+    public static final String DEFAULT_GC_LOOSE_REFS_LIMIT = "100";
+    public static final String DEFAULT_GIT_FORK_SHARED_OBJECTS = "false";
     public static final String DEFAULT_GIT_ENV_KEY_MIGRATE_FROM = "migrate-from";
     public static final String DEFAULT_ENABLE_GIT_KETCH = "false";
     public static final String DEFAULT_JGIT_FILE_SYSTEM_INSTANCES_CACHE = "10000";
@@ -91,6 +97,9 @@ public class JGitFileSystemProviderConfiguration {
     public static final TimeUnit DEFAULT_JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT = TimeUnit.MINUTES;
 
     private int commitLimit;
+    private int gcThreads;
+    private int gcLooseRefsLimit;
+    private boolean forkSharedObjects;
     private boolean daemonEnabled;
     private int daemonPort;
     private String daemonHostAddr;
@@ -164,6 +173,12 @@ public class JGitFileSystemProviderConfiguration {
                                                                                    DEFAULT_SSH_CERT_PASSPHRASE);
         final ConfigProperties.ConfigProperty commitLimitProp = systemConfig.get(GIT_GC_LIMIT,
                                                                                  DEFAULT_COMMIT_LIMIT_TO_GC);
+        final ConfigProperties.ConfigProperty gcThreadsProp = systemConfig.get(GIT_GC_THREADS,
+                                                                               DEFAULT_GC_THREADS);
+        final ConfigProperties.ConfigProperty gcLooseRefsLimitProp = systemConfig.get(GIT_GC_LOOSE_REFS_LIMIT,
+                                                                                      DEFAULT_GC_LOOSE_REFS_LIMIT);
+        final ConfigProperties.ConfigProperty forkSharedObjectsProp = systemConfig.get(GIT_FORK_SHARED_OBJECTS,
+                                                                                       DEFAULT_GIT_FORK_SHARED_OBJECTS);
 
         final ConfigProperties.ConfigProperty httpProxyUserProp = systemConfig.get(HTTP_PROXY_USER,
                                                                                    null);
@@ -213,6 +228,18 @@ public class JGitFileSystemProviderConfiguration {
                                      reposDirNameProp.getValue());
         commitLimit = commitLimitProp.getIntValue();
 
+        gcThreads = gcThreadsProp.getIntValue();
+        if (gcThreads < 1) {
+            gcThreads = Integer.valueOf(DEFAULT_GC_THREADS);
+        }
+
+        gcLooseRefsLimit = gcLooseRefsLimitProp.getIntValue();
+        if (gcLooseRefsLimit < 1) {
+            gcLooseRefsLimit = Integer.valueOf(DEFAULT_GC_LOOSE_REFS_LIMIT);
+        }
+
+        forkSharedObjects = forkSharedObjectsProp.getBooleanValue();
+
         jgitFileSystemsInstancesCache = jgitFileSystemsInstancesCacheProp.getIntValue();
 
         if (jgitFileSystemsInstancesCache < 1) {
@@ -286,6 +313,18 @@ public class JGitFileSystemProviderConfiguration {
         return commitLimit;
     }
 
+    public int getGcThreads() {
+        return gcThreads;
+    }
+
+    public int getGcLooseRefsLimit() {
+        return gcLooseRefsLimit;
+    }
+
+    public boolean isForkSharedObjects() {
+        return forkSharedObjects;
+    }
+
     public boolean isDaemonEnabled() {
         return daemonEnabled;
     }
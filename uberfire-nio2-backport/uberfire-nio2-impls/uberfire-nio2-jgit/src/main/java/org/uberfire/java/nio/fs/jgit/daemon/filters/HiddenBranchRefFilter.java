@@ -22,9 +22,10 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.transport.RefFilter;
+import org.uberfire.java.nio.fs.jgit.util.commands.SharedObjects;
 
 /**
- * This RefFilter is used to exclude hidden branches
+ * This RefFilter is used to exclude hidden branches and the references mirroring the forks
  * from {@link org.eclipse.jgit.transport.UploadPack}.
  * Check {@link org.uberfire.java.nio.fs.jgit.daemon.git.Daemon}
  */
@@ -37,7 +38,7 @@ public class HiddenBranchRefFilter implements RefFilter {
     public Map<String, Ref> filter(final Map<String, Ref> refs) {
         return refs.entrySet()
                 .stream()
-                .filter(ref -> !HiddenBranchRefFilter.isHidden(ref.getKey()))
+                .filter(ref -> !HiddenBranchRefFilter.isHidden(ref.getKey()) && !ref.getKey().startsWith(SharedObjects.FORK_REFS))
                 .collect(Collectors.toMap(Map.Entry::getKey,
                                           Map.Entry::getValue));
     }
@@ -59,13 +59,10 @@ public class GitReceiveCommand extends BaseGitCommand {
         try {
             final ReceivePack rp = receivePackFactory.create(this,
                                                              repository);
+            //The garbage collection is scheduled by the post-receive hook of the pack factory
             rp.receive(in,
                        out,
                        err);
-            rp.setPostReceiveHook((rp1, commands) -> {
-                fileSystem.getGit().gc();
-                fileSystem.resetCommitCount();
-            });
         } catch (final Exception ignored) {
         }
     }
@@ -15,6 +15,8 @@
  */
 package org.uberfire.java.nio.fs.jgit.manager;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -128,7 +130,13 @@ public class JGitFileSystemsManager {
                                                          credential,
                                                          fsEventsManager);
 
-        fs.getGit().gc();
+        final JGitGarbageCollectionScheduler gcScheduler = jGitFileSystemProvider.getGarbageCollectionScheduler();
+        if (gcScheduler != null) {
+            gcScheduler.schedule(fs,
+                                 JGitGarbageCollectionScheduler.Priority.LOW);
+        } else {
+            fs.getGit().gc();
+        }
 
         return fs;
     }
@@ -177,6 +185,14 @@ public class JGitFileSystemsManager {
         return fsCache.get(key);
     }
 
+    /**
+     * @return the file system of a repository git directory, or null if it is unknown.
+     */
+    public JGitFileSystem get(File gitDir) throws IOException {
+        return fsCache.get(extractFSName(config.getGitReposParentDir().getCanonicalFile(),
+                                         gitDir.getCanonicalFile()));
+    }
+
     public Set<JGitFileSystem> getOpenFileSystems() {
         return fsCache.getFileSystems().stream().filter(fsName -> !closedFileSystems.contains(fsName))
                 .map(fsName -> get(fsName)).collect(Collectors.toSet());
@@ -187,7 +203,13 @@ public class JGitFileSystemsManager {
     }
 
     private String extractFSNameFromRepo(Repository db) {
-        final String fullRepoName = config.getGitReposParentDir().toPath().relativize(db.getDirectory().toPath()).toString();
+        return extractFSName(config.getGitReposParentDir(),
+                             db.getDirectory());
+    }
+
+    private String extractFSName(File reposParentDir,
+                                 File gitDir) {
+        final String fullRepoName = reposParentDir.toPath().relativize(gitDir.toPath()).toString();
         return fullRepoName.substring(0, fullRepoName.indexOf(DOT_GIT_EXT)).replace('\\', '/');
     }
 
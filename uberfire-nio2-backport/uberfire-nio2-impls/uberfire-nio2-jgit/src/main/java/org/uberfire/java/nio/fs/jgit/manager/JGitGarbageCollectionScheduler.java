@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+import org.uberfire.java.nio.fs.jgit.util.commands.PackLooseObjects;
+
+/**
+ * Runs the maintenance of the JGit file systems on a bounded pool of background threads, so committing and pushing
+ * threads never wait for a garbage collection.
+ * <p>
+ * Requests are queued by {@link Priority} and coalesced per file system: a file system with a queued or running
+ * maintenance is never scheduled twice. The repository statistics decide what to do:
+ * <ul>
+ * <li>a full GC when the loose objects or pack files exceed the repository's "gc.auto" and "gc.autoPackLimit"
+ * settings (6700 and 50 by default, as in git);</li>
+ * <li>an incremental repack, which packs the loose objects only, when they exceed a quarter of "gc.auto";</li>
+ * <li>packing the refs when only the loose refs exceed the configured limit;</li>
+ * <li>nothing otherwise.</li>
+ * </ul>
+ * Commits keep running while objects are packed: unreachable objects are only pruned once older than
+ * "gc.pruneExpire" and old packs once older than "gc.prunePackExpire". Only packing the refs holds the lock of the
+ * file system, as it rewrites the refs commits update.
+ */
+public class JGitGarbageCollectionScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JGitGarbageCollectionScheduler.class);
+
+    static final int DEFAULT_AUTO_LIMIT = 6700;
+    static final int DEFAULT_AUTO_PACK_LIMIT = 50;
+    static final int INCREMENTAL_REPACK_DIVISOR = 4;
+
+    public enum Priority {
+        //Pushes bring a pack file each
+        HIGH,
+        //The commit limit was reached
+        NORMAL,
+        //The file system has been (re)opened
+        LOW
+    }
+
+    public enum Maintenance {
+        NONE,
+        PACK_REFS,
+        INCREMENTAL_REPACK,
+        FULL_GC
+    }
+
+    private final ConcurrentMap<String, MaintenanceTask> scheduled = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong executedFullGCs = new AtomicLong();
+    private final AtomicLong executedPackRefs = new AtomicLong();
+    private final AtomicLong executedIncrementalRepacks = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    private final int looseRefsLimit;
+
+    public JGitGarbageCollectionScheduler(final int threads,
+                                          final int looseRefsLimit) {
+        this.looseRefsLimit = looseRefsLimit;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads,
+                                               threads,
+                                               60,
+                                               TimeUnit.SECONDS,
+                                               new PriorityBlockingQueue<>(),
+                                               r -> {
+                                                   final Thread thread = new Thread(r,
+                                                                                    "jgit-gc-" + threadCount.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the maintenance of the file system, unless it is already queued or running.
+     * @return true if the maintenance was queued.
+     */
+    public boolean schedule(final JGitFileSystem fs,
+                            final Priority priority) {
+        final MaintenanceTask task = new MaintenanceTask(fs,
+                                                         priority,
+                                                         sequence.incrementAndGet());
+        if (scheduled.putIfAbsent(fs.getName(),
+                                  task) != null) {
+            return false;
+        }
+        try {
+            executor.execute(task);
+        } catch (Exception e) {
+            scheduled.remove(fs.getName(),
+                             task);
+            LOG.warn("Unable to schedule the garbage collection of '" + fs.getName() + "'.",
+                     e);
+            return false;
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getExecutedFullGCs() {
+        return executedFullGCs.get();
+    }
+
+    public long getExecutedPackRefs() {
+        return executedPackRefs.get();
+    }
+
+    public long getExecutedIncrementalRepacks() {
+        return executedIncrementalRepacks.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        scheduled.clear();
+    }
+
+    Maintenance maintain(final JGitFileSystem fs) {
+        final Repository repository = fs.getGit().getRepository();
+        if (!(repository instanceof FileRepository)) {
+            fs.getGit().gc();
+            executedFullGCs.incrementAndGet();
+            return Maintenance.FULL_GC;
+        }
+        try {
+            final GC gc = new GC((FileRepository) repository);
+            final Maintenance maintenance = choose(gc.getStatistics(),
+                                                   repository.getConfig().getInt(ConfigConstants.CONFIG_GC_SECTION,
+                                                                                 "auto",
+                                                                                 DEFAULT_AUTO_LIMIT),
+                                                   repository.getConfig().getInt(ConfigConstants.CONFIG_GC_SECTION,
+                                                                                 "autopacklimit",
+                                                                                 DEFAULT_AUTO_PACK_LIMIT));
+            if (maintenance == Maintenance.FULL_GC) {
+                fs.getGit().gc();
+                executedFullGCs.incrementAndGet();
+            } else if (maintenance == Maintenance.INCREMENTAL_REPACK) {
+                new PackLooseObjects((FileRepository) repository).execute();
+                executedIncrementalRepacks.incrementAndGet();
+            } else if (maintenance == Maintenance.PACK_REFS) {
+                fs.lock();
+                try {
+                    gc.packRefs();
+                } finally {
+                    fs.unlock();
+                }
+                executedPackRefs.incrementAndGet();
+            }
+            return maintenance;
+        } catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    Maintenance choose(final GC.RepoStatistics statistics,
+                       final int autoLimit,
+                       final int autoPackLimit) {
+        if (statistics.numberOfLooseObjects >= autoLimit || statistics.numberOfPackFiles >= autoPackLimit) {
+            return Maintenance.FULL_GC;
+        }
+        if (statistics.numberOfLooseObjects >= autoLimit / INCREMENTAL_REPACK_DIVISOR) {
+            return Maintenance.INCREMENTAL_REPACK;
+        }
+        if (statistics.numberOfLooseRefs >= looseRefsLimit) {
+            return Maintenance.PACK_REFS;
+        }
+        return Maintenance.NONE;
+    }
+
+    private class MaintenanceTask implements Runnable,
+                                             Comparable<MaintenanceTask> {
+
+        private final JGitFileSystem fs;
+        private final Priority priority;
+        private final long sequence;
+
+        private MaintenanceTask(final JGitFileSystem fs,
+                                final Priority priority,
+                                final long sequence) {
+            this.fs = fs;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (fs.isOpen()) {
+                    maintain(fs);
+                }
+            } catch (Exception e) {
+                LOG.warn("Garbage collection of '" + fs.getName() + "' failed.",
+                         e);
+            } finally {
+                scheduled.remove(fs.getName(),
+                                 this);
+            }
+        }
+
+        @Override
+        public int compareTo(final MaintenanceTask other) {
+            final int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence,
+                                                       other.sequence);
+        }
+    }
+}
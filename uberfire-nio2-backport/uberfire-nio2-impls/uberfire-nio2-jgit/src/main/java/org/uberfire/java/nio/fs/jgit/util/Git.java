@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.eclipse.jgit.api.errors.ConcurrentRefUpdateException;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -75,12 +76,29 @@ public interface Git {
                     final CredentialsProvider credential,
                     final KetchLeaderCache leaders,
                     final File hookDir) {
+        return fork(gitRepoContainerDir,
+                    origin,
+                    name,
+                    credential,
+                    leaders,
+                    hookDir,
+                    false);
+    }
+
+    static Git fork(final File gitRepoContainerDir,
+                    final String origin,
+                    final String name,
+                    final CredentialsProvider credential,
+                    final KetchLeaderCache leaders,
+                    final File hookDir,
+                    final boolean shareObjects) {
         return new Fork(gitRepoContainerDir,
                         origin,
                         name,
                         credential,
                         leaders,
-                        hookDir).execute();
+                        hookDir,
+                        shareObjects).execute();
     }
 
     static Git clone(final File repoDest,
@@ -155,6 +173,10 @@ public interface Git {
     List<FileDiff> diffRefs(final String branchA,
                             final String branchB);
 
+    void diffRefs(final String branchA,
+                  final String branchB,
+                  final Consumer<List<FileDiff>> consumer);
+
     void squash(final String branch,
                 final String startCommit,
                 final String commitMessage);
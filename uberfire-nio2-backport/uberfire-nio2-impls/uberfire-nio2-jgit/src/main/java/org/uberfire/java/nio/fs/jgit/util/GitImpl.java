@@ -22,6 +22,7 @@ import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.CloneCommand;
@@ -296,6 +297,15 @@ public class GitImpl implements Git {
                                 branchB).execute();
     }
 
+    @Override
+    public void diffRefs(final String branchA,
+                         final String branchB,
+                         final Consumer<List<FileDiff>> consumer) {
+        new DiffBranches(this,
+                         branchA,
+                         branchB).execute(consumer);
+    }
+
     @Override
     public void squash(final String branch,
                        final String startCommit,
@@ -37,6 +37,7 @@ import org.uberfire.java.nio.fs.jgit.util.model.CopyCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.DefaultCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.MoveCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.RevertCommitContent;
+import org.uberfire.java.nio.fs.jgit.util.model.TreeCopyCommitContent;
 
 import static java.util.Collections.reverse;
 
@@ -125,6 +126,11 @@ public class Commit {
                                                   originId,
                                                   odi,
                                                   (RevertCommitContent) content).execute();
+            } else if (content instanceof TreeCopyCommitContent) {
+                tree = new CreateTreeCopyCommitTree(git,
+                                                    originId,
+                                                    odi,
+                                                    (TreeCopyCommitContent) content).execute();
             } else {
                 tree = Optional.empty();
             }
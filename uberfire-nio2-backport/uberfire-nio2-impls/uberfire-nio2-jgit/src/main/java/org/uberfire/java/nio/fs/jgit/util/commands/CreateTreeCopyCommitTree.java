@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.model.TreeCopyCommitContent;
+
+/**
+ * Builds the commit tree of a {@link TreeCopyCommitContent}: every entry of the source tree is
+ * added under the target path pointing to its existing object id, so no file content is read
+ * or hashed again. Entries already on the target branch are kept, and replaced when the
+ * source tree has the same path.
+ */
+public class CreateTreeCopyCommitTree extends BaseCreateCommitTree<TreeCopyCommitContent> {
+
+    public CreateTreeCopyCommitTree(final Git git,
+                                    final ObjectId headId,
+                                    final ObjectInserter inserter,
+                                    final TreeCopyCommitContent commitContent) {
+        super(git,
+              headId,
+              inserter,
+              commitContent);
+    }
+
+    public Optional<ObjectId> execute() {
+        final Map<String, DirCacheEntry> copied = readSourceTree();
+
+        final DirCacheEditor editor = DirCache.newInCore().editor();
+
+        try {
+            iterateOverTreeWalk(git,
+                                headId,
+                                (walkPath, hTree) -> {
+                                    if (!copied.containsKey(walkPath)) {
+                                        addToTemporaryInCoreIndex(editor,
+                                                                  new DirCacheEntry(walkPath),
+                                                                  hTree.getEntryObjectId(),
+                                                                  hTree.getEntryFileMode());
+                                    }
+                                });
+
+            for (final DirCacheEntry entry : copied.values()) {
+                addToTemporaryInCoreIndex(editor,
+                                          new DirCacheEntry(entry.getPathString()),
+                                          entry.getObjectId(),
+                                          entry.getFileMode());
+            }
+
+            editor.finish();
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return buildTree(editor);
+    }
+
+    private Map<String, DirCacheEntry> readSourceTree() {
+        final Repository sourceRepository = commitContent.getSourceRepository();
+        final Repository targetRepository = git.getRepository();
+        final boolean sameRepository = sourceRepository.getDirectory() != null &&
+                sourceRepository.getDirectory().equals(targetRepository.getDirectory());
+        final ObjectDatabase targetDatabase = targetRepository.getObjectDatabase();
+        final String prefix = commitContent.getTargetPath().isEmpty() ? "" : commitContent.getTargetPath() + "/";
+
+        final Map<String, DirCacheEntry> copied = new HashMap<>();
+        try (final ObjectReader reader = sourceRepository.newObjectReader();
+             final TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(commitContent.getSourceTreeId());
+            treeWalk.setRecursive(true);
+
+            while (treeWalk.next()) {
+                final ObjectId objectId = treeWalk.getObjectId(0);
+                final FileMode fileMode = treeWalk.getFileMode(0);
+                if (!sameRepository &&
+                        fileMode.getObjectType() == Constants.OBJ_BLOB &&
+                        !targetDatabase.has(objectId)) {
+                    transferBlob(reader,
+                                 objectId);
+                }
+
+                final DirCacheEntry entry = new DirCacheEntry(prefix + treeWalk.getPathString());
+                entry.setObjectId(objectId);
+                entry.setFileMode(fileMode);
+                copied.put(entry.getPathString(),
+                           entry);
+            }
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+        return copied;
+    }
+
+    private void transferBlob(final ObjectReader reader,
+                              final ObjectId objectId) throws IOException {
+        final ObjectLoader loader = reader.open(objectId,
+                                                Constants.OBJ_BLOB);
+        try (final InputStream in = loader.openStream()) {
+            odi.insert(Constants.OBJ_BLOB,
+                       loader.getSize(),
+                       in);
+        }
+    }
+}
@@ -21,7 +21,12 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
@@ -41,9 +46,27 @@ import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull
  * It needs the repository, and the two branches from that repository you want
  * to diff.
  * It returns a list of DiffFile with differences between branches.
+ * <p>
+ * Each blob is loaded and split in lines once per diff, no matter how many edits it has. As trees are content
+ * addressed, the diff between two trees never changes, so the results are kept in a cache shared by all the
+ * repositories and bounded by the "org.uberfire.nio.git.diff.cache.size" property (50 by default).
  */
 public class DiffBranches {
 
+    public static final String DIFF_CACHE_SIZE = "org.uberfire.nio.git.diff.cache.size";
+
+    private static final int CACHE_SIZE = Integer.getInteger(DIFF_CACHE_SIZE,
+                                                             50);
+
+    private static final Map<String, List<FileDiff>> DIFF_CACHE = Collections.synchronizedMap(new LinkedHashMap<String, List<FileDiff>>(16,
+                                                                                                                                      0.75f,
+                                                                                                                                      true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, List<FileDiff>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
     private final Git git;
     private final String branchA;
     private final String branchB;
@@ -60,22 +83,70 @@ public class DiffBranches {
     }
 
     public List<FileDiff> execute() {
+        final ObjectId treeA = git.getTreeFromRef(this.branchA);
+        final ObjectId treeB = git.getTreeFromRef(this.branchB);
+        final String key = toKey(treeA,
+                                 treeB);
+
+        final List<FileDiff> cached = DIFF_CACHE.get(key);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
         final List<FileDiff> diffs = new ArrayList<>();
+        execute(treeA,
+                treeB,
+                diffs::addAll);
+
+        if (treeA != null && treeB != null) {
+            DIFF_CACHE.put(key,
+                           Collections.unmodifiableList(new ArrayList<>(diffs)));
+        }
+        return diffs;
+    }
+
+    /**
+     * Streams the differences file by file, only holding the contents of one file at a time. The results are not
+     * cached.
+     * @param consumer receives the differences of each file, in order.
+     */
+    public void execute(final Consumer<List<FileDiff>> consumer) {
+        execute(git.getTreeFromRef(this.branchA),
+                git.getTreeFromRef(this.branchB),
+                consumer);
+    }
 
-        final List<DiffEntry> result = git.listDiffs(git.getTreeFromRef(this.branchA),
-                                                     git.getTreeFromRef(this.branchB));
+    private void execute(final ObjectId treeA,
+                         final ObjectId treeB,
+                         final Consumer<List<FileDiff>> consumer) {
+        final List<DiffEntry> result = git.listDiffs(treeA,
+                                                     treeB);
 
         final DiffFormatter formatter = createFormatter();
 
         result.forEach(elem -> {
             final FileHeader header = getFileHeader(formatter,
                                                     elem);
-            header.toEditList().forEach(edit -> diffs.add(createFileDiff(elem,
-                                                                         header,
-                                                                         edit)));
+            //Blobs of the current file, loaded once for all its edits
+            final Map<ObjectId, List<String>> contents = new HashMap<>();
+            final List<FileDiff> fileDiffs = new ArrayList<>();
+            header.toEditList().forEach(edit -> fileDiffs.add(createFileDiff(elem,
+                                                                             header,
+                                                                             edit,
+                                                                             contents)));
+            if (!fileDiffs.isEmpty()) {
+                consumer.accept(fileDiffs);
+            }
         });
+    }
 
-        return diffs;
+    static void clearCache() {
+        DIFF_CACHE.clear();
+    }
+
+    private String toKey(final ObjectId treeA,
+                         final ObjectId treeB) {
+        return (treeA == null ? "" : treeA.name()) + ".." + (treeB == null ? "" : treeB.name());
     }
 
     private FileHeader getFileHeader(final DiffFormatter formatter,
@@ -98,7 +169,8 @@ public class DiffBranches {
 
     private FileDiff createFileDiff(final DiffEntry elem,
                                     final FileHeader header,
-                                    final Edit edit) {
+                                    final Edit edit,
+                                    final Map<ObjectId, List<String>> contents) {
         try {
             final String changeType = header.getChangeType().toString();
             final int startA = edit.getBeginA();
@@ -111,10 +183,12 @@ public class DiffBranches {
 
             final List<String> linesA = getLines(elem.getOldId().toObjectId(),
                                                  startA,
-                                                 endA);
+                                                 endA,
+                                                 contents);
             final List<String> linesB = getLines(elem.getNewId().toObjectId(),
                                                  startB,
-                                                 endB);
+                                                 endB,
+                                                 contents);
 
             return new FileDiff(pathA,
                                 pathB,
@@ -133,16 +207,23 @@ public class DiffBranches {
 
     private List<String> getLines(final ObjectId id,
                                   final int fromStart,
-                                  final int fromEnd) throws IOException {
+                                  final int fromEnd,
+                                  final Map<ObjectId, List<String>> contents) throws IOException {
         List<String> lines = new ArrayList<>();
         if (!id.equals(ObjectId.zeroId())) {
-            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            final ObjectLoader loader = git.getRepository().open(id);
-            loader.copyTo(stream);
-            final String content = stream.toString();
-            final List<String> filteredLines = Arrays.asList(content.split("\n"));
-            lines = filteredLines.subList(fromStart,
-                                          fromEnd);
+            List<String> allLines = contents.get(id);
+            if (allLines == null) {
+                final ObjectLoader loader = git.getRepository().open(id);
+                final ByteArrayOutputStream stream = new ByteArrayOutputStream((int) Math.min(loader.getSize(),
+                                                                                              Integer.MAX_VALUE - 8));
+                loader.copyTo(stream);
+                allLines = Arrays.asList(stream.toString().split("\n"));
+                contents.put(id,
+                             allLines);
+            }
+            //Copied, so the diff doesn't hold the whole file
+            lines = new ArrayList<>(allLines.subList(fromStart,
+                                                     fromEnd));
         }
         return lines;
     }
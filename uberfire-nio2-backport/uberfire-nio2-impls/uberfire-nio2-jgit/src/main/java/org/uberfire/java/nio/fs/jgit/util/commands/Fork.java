@@ -20,14 +20,34 @@ import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpt
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Map;
 
 import org.eclipse.jgit.internal.ketch.KetchLeaderCache;
+import org.eclipse.jgit.internal.storage.file.WindowCache;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 import org.uberfire.java.nio.fs.jgit.util.exceptions.GitException;
 
+import static java.util.Collections.emptyList;
+
+/**
+ * Forks a repository of the same container.
+ * <p>
+ * By default the fork is a clone with its own copy of every object. A fork that shares objects instead borrows the
+ * objects of the origin through {@link SharedObjects}: only the references are copied, so it takes the same time
+ * whatever the size of the origin, and the objects are stored and cached once. Ketch repositories are always cloned.
+ */
 public class Fork {
 
     private static final String DOT_GIT_EXT = ".git";
@@ -39,6 +59,7 @@ public class Fork {
     private final String target;
     private CredentialsProvider credentialsProvider;
     private final File hookDir;
+    private final boolean shareObjects;
 
     public Fork(final File parentFolder,
                 final String source,
@@ -46,6 +67,22 @@ public class Fork {
                 final CredentialsProvider credentialsProvider,
                 final KetchLeaderCache leaders,
                 final File hookDir) {
+        this(parentFolder,
+             source,
+             target,
+             credentialsProvider,
+             leaders,
+             hookDir,
+             false);
+    }
+
+    public Fork(final File parentFolder,
+                final String source,
+                final String target,
+                final CredentialsProvider credentialsProvider,
+                final KetchLeaderCache leaders,
+                final File hookDir,
+                final boolean shareObjects) {
         this.parentFolder = checkNotNull("parentFolder",
                                          parentFolder);
         this.source = checkNotEmpty("source",
@@ -57,6 +94,7 @@ public class Fork {
         this.leaders = leaders;
         
         this.hookDir = hookDir;
+        this.shareObjects = shareObjects;
     }
 
     public Git execute()  {
@@ -79,6 +117,11 @@ public class Fork {
             throw new GitException(message);
         }
 
+        if (shareObjects && leaders == null) {
+            return forkSharingObjects(origin,
+                                      destination);
+        }
+
         return Git.clone(destination,
                          origin.toPath().toUri().toString(),
                          false,
@@ -86,4 +129,86 @@ public class Fork {
                          leaders,
                          hookDir);
     }
+
+    private Git forkSharingObjects(final File origin,
+                                   final File destination) {
+        if (!new File(origin,
+                      Constants.OBJECTS).isDirectory()) {
+            String message = String.format("Cannot fork because origin repository <%s> does not exist",
+                                           source);
+            logger.error(message);
+            throw new Clone.CloneException(message);
+        }
+
+        try {
+            //The alternates are in place before the repository first looks up an object
+            SharedObjects.share(origin,
+                                destination);
+            final Git git = Git.createRepository(destination,
+                                                 hookDir);
+
+            final Pair<String, String> remote = Pair.newPair("origin",
+                                                             origin.toPath().toUri().toString());
+            git.updateRemoteConfig(remote,
+                                   emptyList());
+            try (final Repository originRepository = new FileRepositoryBuilder()
+                    .setGitDir(origin)
+                    .setMustExist(true)
+                    .build()) {
+                //Same references as a fetch from the origin, the objects are already reachable through the alternates
+                copyRefs(originRepository,
+                         git.getRepository(),
+                         Constants.R_HEADS,
+                         Constants.R_REMOTES + remote.getK1() + "/");
+                copyRefs(originRepository,
+                         git.getRepository(),
+                         Constants.R_TAGS,
+                         Constants.R_TAGS);
+            }
+
+            git.syncRemote(remote);
+            git.setHeadAsInitialized();
+
+            return git;
+        } catch (Exception e) {
+            String message = String.format("Error forking origin <%s>.",
+                                           source);
+            logger.error(message);
+            cleanupDir(destination);
+            throw new Clone.CloneException(message,
+                                           e);
+        }
+    }
+
+    private void copyRefs(final Repository from,
+                          final Repository to,
+                          final String fromPrefix,
+                          final String toPrefix) throws IOException {
+        for (Map.Entry<String, Ref> ref : from.getRefDatabase().getRefs(fromPrefix).entrySet()) {
+            final RefUpdate refUpdate = to.updateRef(toPrefix + ref.getKey());
+            refUpdate.setNewObjectId(ref.getValue().getObjectId());
+            refUpdate.setForceUpdate(true);
+            final RefUpdate.Result result = refUpdate.update();
+            if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FORCED) {
+                throw new IOException(String.format("Unable to create reference <%s>: %s",
+                                                     refUpdate.getName(),
+                                                     result));
+            }
+        }
+    }
+
+    private void cleanupDir(final File gitDir) {
+
+        try {
+            if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+                //this operation forces a cache clean freeing any lock -> windows only issue!
+                WindowCache.reconfigure(new WindowCacheConfig());
+            }
+            FileUtils.delete(gitDir,
+                             FileUtils.RECURSIVE | FileUtils.RETRY);
+        } catch (java.io.IOException e) {
+            throw new org.uberfire.java.nio.IOException("Failed to remove the git repository.",
+                                                        e);
+        }
+    }
 }
@@ -16,8 +16,14 @@
 
 package org.uberfire.java.nio.fs.jgit.util.commands;
 
+import java.io.IOException;
+import java.text.ParseException;
+
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
 import org.eclipse.jgit.internal.storage.reftree.RefTreeDatabase;
+import org.eclipse.jgit.lib.Repository;
 import org.uberfire.java.nio.fs.jgit.util.GitImpl;
 
 public class GarbageCollector {
@@ -29,11 +35,21 @@ public class GarbageCollector {
     }
 
     public void execute() {
+        final Repository repository = git.getRepository();
+        if (repository.getRefDatabase() instanceof RefTreeDatabase) {
+            return;
+        }
         try {
-            if (!(git.getRepository().getRefDatabase() instanceof RefTreeDatabase)) {
+            //An origin keeps every object its forks reach
+            SharedObjects.mirrorForks(repository);
+            if (SharedObjects.borrowsObjects(repository.getDirectory())) {
+                //A fork never packs the objects it borrows, which a full GC would copy
+                SharedObjects.repack((FileRepository) repository);
+                new GC((FileRepository) repository).packRefs();
+            } else {
                 git._gc().call();
             }
-        } catch (GitAPIException e) {
+        } catch (GitAPIException | IOException | ParseException e) {
             throw new RuntimeException(e);
         }
     }
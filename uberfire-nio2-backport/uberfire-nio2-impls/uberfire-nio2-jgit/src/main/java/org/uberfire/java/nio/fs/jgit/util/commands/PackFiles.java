@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Writes the pack files of a file based repository.
+ */
+final class PackFiles {
+
+    private PackFiles() {
+    }
+
+    /**
+     * Writes the objects prepared in the writer as a new pack of the repository, which readers see right away.
+     * @return the pack, or null if there was nothing to pack.
+     */
+    static File write(final Repository repository,
+                      final PackWriter writer) throws IOException {
+        if (writer.getObjectCount() == 0) {
+            return null;
+        }
+        final ObjectDirectory objects = (ObjectDirectory) repository.getObjectDatabase();
+        final File packDir = objects.getPackDirectory();
+        final String name = "pack-" + writer.computeName().name();
+        final File pack = new File(packDir,
+                                   name + ".pack");
+        if (pack.exists()) {
+            //Same objects as an existing pack
+            return pack;
+        }
+        packDir.mkdirs();
+        final File tmpPack = new File(packDir,
+                                      name + ".pack_tmp");
+        final File tmpIdx = new File(packDir,
+                                     name + ".idx_tmp");
+        try {
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpPack))) {
+                writer.writePack(NullProgressMonitor.INSTANCE,
+                                 NullProgressMonitor.INSTANCE,
+                                 out);
+            }
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpIdx))) {
+                writer.writeIndex(out);
+            }
+            Files.move(tmpPack.toPath(),
+                       pack.toPath(),
+                       StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmpIdx.toPath(),
+                       sibling(pack,
+                               ".idx").toPath(),
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpPack.toPath());
+            Files.deleteIfExists(tmpIdx.toPath());
+        }
+        objects.openPack(pack);
+        return pack;
+    }
+
+    /**
+     * @return the pack files of the directory.
+     */
+    static File[] list(final File packDir) {
+        final File[] packs = packDir.listFiles((dir, name) -> name.startsWith("pack-") && name.endsWith(".pack"));
+        return packs == null ? new File[0] : packs;
+    }
+
+    /**
+     * @return the file with the given extension (e.g. ".idx") next to the pack.
+     */
+    static File sibling(final File pack,
+                        final String extension) {
+        final String name = pack.getName();
+        return new File(pack.getParentFile(),
+                        name.substring(0,
+                                       name.length() - ".pack".length()) + extension);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Incremental repack: moves the loose objects of a repository into a new pack and leaves the existing packs as they
+ * are, which is much cheaper than the full GC that rewrites every pack. Unreachable objects are packed too; the next
+ * full GC drops them.
+ */
+public class PackLooseObjects {
+
+    private final FileRepository repository;
+
+    public PackLooseObjects(final FileRepository repository) {
+        this.repository = repository;
+    }
+
+    public void execute() {
+        try {
+            try (final RevWalk walk = new RevWalk(repository);
+                 final PackWriter writer = new PackWriter(repository)) {
+                final List<RevObject> objects = new ArrayList<>();
+                for (ObjectId id : listLooseObjects()) {
+                    try {
+                        objects.add(walk.parseAny(id));
+                    } catch (MissingObjectException e) {
+                        //Pruned meanwhile
+                    }
+                }
+                if (objects.isEmpty()) {
+                    return;
+                }
+                writer.preparePack(objects.iterator());
+                PackFiles.write(repository,
+                                writer);
+            }
+            new GC(repository).prunePacked();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<ObjectId> listLooseObjects() {
+        final List<ObjectId> ids = new ArrayList<>();
+        //The loose objects are stored as xx/yyyy..., the packs and infos in longer named directories
+        final File[] fanout = repository.getObjectsDirectory().listFiles((dir, name) -> name.length() == 2);
+        if (fanout == null) {
+            return ids;
+        }
+        for (File dir : fanout) {
+            final String[] names = dir.list();
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                if (ObjectId.isId(dir.getName() + name)) {
+                    ids.add(ObjectId.fromString(dir.getName() + name));
+                }
+            }
+        }
+        return ids;
+    }
+}
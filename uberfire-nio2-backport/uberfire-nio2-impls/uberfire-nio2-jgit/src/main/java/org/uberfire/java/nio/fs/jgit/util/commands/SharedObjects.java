@@ -0,0 +1,303 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.util.GitDateParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Object stores shared between a repository and its forks.
+ * <p>
+ * A shared fork has no objects of its own when it is created: its <code>objects/info/alternates</code> points to the
+ * objects of the origin, and only the objects written to the fork afterwards are stored in it. The origin counts its
+ * forks in the <code>forks</code> file of its git directory, one fork git directory per line. Entries of forks that
+ * were deleted are dropped the next time the file is read.
+ * <p>
+ * Garbage collection only knows the references of the repository it runs on, so it could drop objects of the origin
+ * that a fork still uses. Before the origin is collected the branches and tags of its forks are therefore mirrored into
+ * it under <code>refs/forks/&lt;fork&gt;/</code>, fetching the objects the forks wrote since they were forked, so
+ * every object a fork reaches is also reachable in the origin. A fork only packs the objects that the references of
+ * its origin don't reach, so it never stores a copy of the objects it borrows. Before an origin is deleted its forks
+ * are detached: they are repacked with every object they reach and stop borrowing from the origin.
+ */
+public final class SharedObjects {
+
+    static final String ALTERNATES = "objects/info/alternates";
+    static final String FORKS = "forks";
+
+    private static final String DEFAULT_PACK_EXPIRE = "1.hour.ago";
+
+    /**
+     * Prefix of the references mirroring the forks in the origin, which are not advertised to git clients.
+     */
+    public static final String FORK_REFS = "refs/forks/";
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedObjects.class);
+
+    private SharedObjects() {
+    }
+
+    /**
+     * Makes the fork borrow the objects of the origin and counts it as a fork of the origin.
+     */
+    static synchronized void share(final File originDir,
+                                   final File forkDir) throws IOException {
+        final File alternates = new File(forkDir,
+                                         ALTERNATES);
+        alternates.getParentFile().mkdirs();
+        Files.write(alternates.toPath(),
+                    Collections.singletonList(objectsDir(originDir).getPath()),
+                    StandardCharsets.UTF_8);
+
+        final List<File> forks = getForks(originDir);
+        forks.add(forkDir.getCanonicalFile());
+        writeForks(originDir,
+                   forks);
+    }
+
+    /**
+     * @return the forks that still borrow objects from the origin.
+     */
+    public static synchronized List<File> getForks(final File originDir) throws IOException {
+        final File file = new File(originDir,
+                                   FORKS);
+        final List<File> forks = new ArrayList<>();
+        if (!file.exists()) {
+            return forks;
+        }
+        final List<String> lines = Files.readAllLines(file.toPath(),
+                                                      StandardCharsets.UTF_8);
+        for (String line : lines) {
+            final File fork = new File(line);
+            if (!line.isEmpty() && isForkOf(fork,
+                                            originDir)) {
+                forks.add(fork);
+            }
+        }
+        if (forks.size() != lines.size()) {
+            writeForks(originDir,
+                       forks);
+        }
+        return forks;
+    }
+
+    /**
+     * @return true if the repository borrows objects from another repository.
+     */
+    public static boolean borrowsObjects(final File gitDir) {
+        return new File(gitDir,
+                        ALTERNATES).exists();
+    }
+
+    /**
+     * Mirrors the branches and tags of every fork of the origin under {@link #FORK_REFS}, and drops the mirrored
+     * references of the forks that are gone.
+     */
+    public static void mirrorForks(final Repository origin) throws IOException {
+        final Set<String> mirrored = new HashSet<>();
+        for (File fork : getForks(origin.getDirectory())) {
+            final String prefix = FORK_REFS + forkName(fork) + "/";
+            mirrored.add(prefix);
+            try {
+                org.eclipse.jgit.api.Git.wrap(origin)
+                        .fetch()
+                        .setRemote(fork.toURI().toString())
+                        .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + "*:" + prefix + "heads/*"),
+                                     new RefSpec("+" + Constants.R_TAGS + "*:" + prefix + "tags/*"))
+                        .setTagOpt(TagOpt.NO_TAGS)
+                        .setRemoveDeletedRefs(true)
+                        .call();
+            } catch (GitAPIException e) {
+                throw new IOException(e);
+            }
+        }
+        for (String refName : origin.getRefDatabase().getRefs(FORK_REFS).keySet()) {
+            //Fork names are made of the space and the repository name
+            final String[] segments = refName.split("/",
+                                                    3);
+            if (segments.length < 3 || !mirrored.contains(FORK_REFS + segments[0] + "/" + segments[1] + "/")) {
+                final RefUpdate refUpdate = origin.updateRef(FORK_REFS + refName);
+                refUpdate.setForceUpdate(true);
+                refUpdate.delete();
+            }
+        }
+    }
+
+    /**
+     * Packs the objects the fork reaches and its origin doesn't reach from its own references. The loose objects that
+     * got packed are dropped, as are the previous packs of the fork older than "gc.prunePackExpire" (one hour by
+     * default), so objects received while repacking are never lost.
+     */
+    public static void repack(final FileRepository fork) throws IOException, ParseException {
+        final ObjectDirectory objects = fork.getObjectDatabase();
+        final File packDir = objects.getPackDirectory();
+        final Date packExpire = getPackExpire(fork);
+        //Listed before the references are read, so the packs received afterwards are kept
+        final File[] oldPacks = PackFiles.list(packDir);
+
+        final Set<ObjectId> wants = getTips(fork);
+        final Set<ObjectId> haves;
+        try (final Repository origin = new FileRepositoryBuilder()
+                .setGitDir(getOriginDir(fork.getDirectory()))
+                .setMustExist(true)
+                .build()) {
+            haves = getTips(origin);
+        }
+
+        File newPack = null;
+        if (!wants.isEmpty()) {
+            try (final PackWriter writer = new PackWriter(fork)) {
+                //Not a thin pack: the objects of the origin are never written, not even as delta bases
+                writer.preparePack(NullProgressMonitor.INSTANCE,
+                                   wants,
+                                   haves);
+                newPack = PackFiles.write(fork,
+                                          writer);
+            }
+        }
+        for (File oldPack : oldPacks) {
+            if (!oldPack.equals(newPack) && oldPack.lastModified() < packExpire.getTime() && !PackFiles.sibling(oldPack,
+                                                                                                              ".keep").exists()) {
+                Files.deleteIfExists(PackFiles.sibling(oldPack,
+                                                       ".bitmap").toPath());
+                Files.deleteIfExists(PackFiles.sibling(oldPack,
+                                                       ".idx").toPath());
+                Files.deleteIfExists(oldPack.toPath());
+            }
+        }
+        //Drops the packs that were deleted
+        objects.close();
+        new GC(fork).prunePacked();
+    }
+
+    /**
+     * @return the objects the references point to, except the mirrors of forks.
+     */
+    private static Set<ObjectId> getTips(final Repository repository) throws IOException {
+        final Set<ObjectId> tips = new HashSet<>();
+        for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL).values()) {
+            if (!ref.getName().startsWith(FORK_REFS) && ref.getObjectId() != null) {
+                tips.add(ref.getObjectId());
+            }
+        }
+        return tips;
+    }
+
+    private static File getOriginDir(final File forkDir) throws IOException {
+        final List<String> lines = Files.readAllLines(new File(forkDir,
+                                                               ALTERNATES).toPath(),
+                                                      StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IOException("Fork <" + forkDir + "> borrows no objects.");
+        }
+        return new File(lines.get(0)).getParentFile();
+    }
+
+    private static Date getPackExpire(final Repository repository) throws ParseException {
+        final String packExpire = repository.getConfig().getString(ConfigConstants.CONFIG_GC_SECTION,
+                                                                   null,
+                                                                   "prunepackexpire");
+        return GitDateParser.parse(packExpire == null ? DEFAULT_PACK_EXPIRE : packExpire,
+                                   null);
+    }
+
+    /**
+     * Copies into the fork the objects it borrows, so it no longer depends on its origin. Must be called holding the
+     * lock of the fork file system.
+     */
+    public static void detach(final Repository fork) throws IOException {
+        logger.debug("Detaching fork <{}>",
+                     fork.getDirectory());
+        try {
+            //Repacks every object reachable from the fork, including the borrowed ones
+            org.eclipse.jgit.api.Git.wrap(fork).gc().call();
+        } catch (GitAPIException e) {
+            throw new IOException(e);
+        }
+        Files.delete(new File(fork.getDirectory(),
+                              ALTERNATES).toPath());
+        //Drops the objects of the origin the repository already looked up
+        fork.getObjectDatabase().close();
+    }
+
+    private static String forkName(final File fork) {
+        final String name = fork.getName();
+        return fork.getParentFile().getName() + "/" + (name.endsWith(".git") ? name.substring(0,
+                                                                                            name.length() - 4) : name);
+    }
+
+    private static boolean isForkOf(final File fork,
+                                    final File originDir) throws IOException {
+        final File alternates = new File(fork,
+                                         ALTERNATES);
+        return alternates.exists() && Files.readAllLines(alternates.toPath(),
+                                                         StandardCharsets.UTF_8).contains(objectsDir(originDir).getPath());
+    }
+
+    private static File objectsDir(final File gitDir) throws IOException {
+        return new File(gitDir.getCanonicalFile(),
+                        "objects");
+    }
+
+    private static void writeForks(final File originDir,
+                                   final List<File> forks) throws IOException {
+        final File tmp = new File(originDir,
+                                  FORKS + ".tmp");
+        final List<String> lines = new ArrayList<>();
+        for (File fork : forks) {
+            lines.add(fork.getPath());
+        }
+        Files.write(tmp.toPath(),
+                    lines,
+                    StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(),
+                   new File(originDir,
+                            FORKS).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+}
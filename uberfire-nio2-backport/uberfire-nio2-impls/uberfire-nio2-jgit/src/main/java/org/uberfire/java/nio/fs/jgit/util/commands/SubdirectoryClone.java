@@ -18,63 +18,71 @@ package org.uberfire.java.nio.fs.jgit.util.commands;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.eclipse.jgit.api.CreateBranchCommand.SetupUpstreamMode;
 import org.eclipse.jgit.api.RemoteRemoveCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.api.errors.InvalidRefNameException;
-import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
-import org.eclipse.jgit.api.errors.RefNotFoundException;
-import org.eclipse.jgit.dircache.DirCache;
-import org.eclipse.jgit.dircache.DirCacheEditor;
-import org.eclipse.jgit.dircache.DirCacheEntry;
-import org.eclipse.jgit.errors.AmbiguousObjectException;
-import org.eclipse.jgit.errors.CorruptObjectException;
-import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
-import org.eclipse.jgit.errors.UnmergedPathException;
 import org.eclipse.jgit.internal.ketch.KetchLeaderCache;
 import org.eclipse.jgit.internal.storage.file.WindowCache;
 import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.eclipse.jgit.transport.CredentialsProvider;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FS;
 import org.eclipse.jgit.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.data.Pair;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 
 import static java.lang.String.format;
-import static java.util.stream.Collectors.toList;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpty;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
 
 /**
  * Copies a single subdirectory of a repository, preserving all relevant history.
+ * <p>
+ * An origin on the local file system is read in place and only the objects of the subdirectory are copied, any
+ * other origin is cloned first. The tree of each rewritten commit is the tree of the subdirectory itself, looked up
+ * by path, and commits that don't change it are skipped. The rewritten commits are recorded in the clone (see
+ * {@link SubdirectoryCommitMap}), so {@link #update()} only rewrites the commits added to the origin since.
  */
 public class SubdirectoryClone {
 
+    private static final String FETCHED_REFS = "refs/subdirectory-clone/";
+
     private final File repoDir;
     private final String origin;
     private final CredentialsProvider credentialsProvider;
@@ -121,31 +129,181 @@ public class SubdirectoryClone {
     }
 
     public Git execute() {
+        final File originDir = getLocalOrigin();
+        if (originDir == null) {
+            return cloneAndRewrite();
+        }
+
+        if (repoDir.exists()) {
+            String message = String.format("Cannot clone because destination repository <%s> already exists",
+                                           repoDir.getAbsolutePath());
+            logger.error(message);
+            throw new Clone.CloneException(message);
+        }
+
+        final Git git = Git.createRepository(repoDir,
+                                             hookDir);
+        try (final Repository originRepository = openRepository(originDir)) {
+            rewrite(originRepository,
+                    git.getRepository(),
+                    resolveBranches(originRepository,
+                                    ""),
+                    new SubdirectoryCommitMap(subdirectory));
+            git.setHeadAsInitialized();
+
+            return git;
+        } catch (Exception e) {
+            throw cloneFailed(git,
+                              e);
+        }
+    }
+
+    /**
+     * Rewrites the commits added to the origin branches since this clone was created or last updated, and moves the
+     * branches of the clone to them.
+     */
+    public Git update() {
+        if (!repoDir.exists()) {
+            String message = String.format("Cannot update because repository <%s> does not exist",
+                                           repoDir.getAbsolutePath());
+            logger.error(message);
+            throw new Clone.CloneException(message);
+        }
+
+        final Git git = Git.createRepository(repoDir,
+                                             hookDir);
+        final Repository repository = git.getRepository();
+        try {
+            final SubdirectoryCommitMap commitMap = SubdirectoryCommitMap.load(repository.getDirectory(),
+                                                                               subdirectory);
+            final File originDir = getLocalOrigin();
+            if (originDir != null) {
+                try (final Repository originRepository = openRepository(originDir)) {
+                    rewrite(originRepository,
+                            repository,
+                            resolveBranches(originRepository,
+                                            ""),
+                            commitMap);
+                }
+            } else {
+                git.fetch(credentialsProvider,
+                          Pair.newPair("origin",
+                                       origin),
+                          branches.stream()
+                                  .filter(branch -> !branch.equals(Constants.HEAD))
+                                  .map(branch -> new RefSpec("+" + Constants.R_HEADS + branch + ":" + FETCHED_REFS + branch))
+                                  .collect(Collectors.toList()));
+                try {
+                    rewrite(repository,
+                            repository,
+                            resolveBranches(repository,
+                                            FETCHED_REFS),
+                            commitMap);
+                } finally {
+                    deleteFetchedRefs(repository);
+                    removeOriginRemote(repository);
+                }
+            }
+
+            return git;
+        } catch (Exception e) {
+            String message = String.format("Error updating clone of origin <%s> with subdirectory <%s>.",
+                                           origin,
+                                           subdirectory);
+            logger.error(message);
+            throw new Clone.CloneException(message,
+                                           e);
+        }
+    }
+
+    private Git cloneAndRewrite() {
         final Git git = new Clone(repoDir, origin, false, credentialsProvider, leaders, hookDir).execute().get();
         final Repository repository = git.getRepository();
 
-        try (final ObjectReader reader = repository.newObjectReader();
-                final ObjectInserter inserter = repository.newObjectInserter()) {
-            // Map all transformed commits that are non-empty so that we can properly map parents
-            final Map<ObjectId, ObjectId> commitMap = new HashMap<>();
-            final RevWalk revWalk = createRevWalk(repository, reader);
-            transformBranches(repository, reader, inserter, revWalk, commitMap);
-            overrideBranchNames(repository, revWalk, commitMap);
+        try {
+            rewrite(repository,
+                    repository,
+                    resolveBranches(repository,
+                                    ""),
+                    new SubdirectoryCommitMap(subdirectory));
 
             deleteUnfilteredBranches(repository);
             removeOriginRemote(repository);
 
             return git;
         } catch (Exception e) {
-            String message = String.format("Error cloning origin <%s> with subdirectory <%s>.",
-                                           origin,
-                                           subdirectory);
-            logger.error(message);
-            cleanupDir(git.getRepository().getDirectory());
-            throw new Clone.CloneException(message, e);
+            throw cloneFailed(git,
+                              e);
         }
     }
 
+    private Clone.CloneException cloneFailed(final Git git,
+                                             final Exception e) {
+        String message = String.format("Error cloning origin <%s> with subdirectory <%s>.",
+                                       origin,
+                                       subdirectory);
+        logger.error(message);
+        cleanupDir(git.getRepository().getDirectory());
+        return new Clone.CloneException(message, e);
+    }
+
+    /**
+     * Rewrites the commits reachable from the origin tips that were not rewritten yet, writing the new commits and
+     * the objects they need to the target, and points the target branches to the rewritten tips.
+     */
+    private void rewrite(final Repository source,
+                         final Repository target,
+                         final Map<String, ObjectId> originTips,
+                         final SubdirectoryCommitMap commitMap) throws IOException, GitAPIException {
+        try (final ObjectReader reader = source.newObjectReader();
+                final RevWalk revWalk = createRevWalk(reader, originTips.values(), commitMap.getOriginTips());
+                final RevWalk targetWalk = new RevWalk(target);
+                final ObjectInserter inserter = target.newObjectInserter()) {
+            // The origin objects are only copied when the target is a different repository
+            final Set<ObjectId> copied = source == target ? null : new HashSet<>();
+            // Trees of the commits written by this rewrite, which can't be read back before the inserter is flushed
+            final Map<ObjectId, ObjectId> newTrees = new HashMap<>();
+
+            for (final RevCommit commit : revWalk) {
+                if (commitMap.get(commit) != null) {
+                    continue;
+                }
+                try {
+                    final ObjectId tree = getSubdirectoryTree(reader, commit);
+                    if (tree == null) {
+                        continue;
+                    }
+                    final ObjectId[] newParentIds = closestMappedAncestorOrSelf(revWalk, commitMap, commit.getParents());
+
+                    /*
+                     * We want to prune empty commits (i.e. no changes from parent), which
+                     * will exist whenever an origin commit did not touch files in the subdirectory.
+                     *
+                     * But we don't want to remove merge commits.
+                     */
+                    if (newParentIds.length == 1 && tree.equals(getTree(targetWalk, newTrees, newParentIds[0]))) {
+                        continue;
+                    }
+
+                    if (copied != null) {
+                        copyTree(reader, targetWalk.getObjectReader(), inserter, copied, tree);
+                    }
+                    final ObjectId newCommitId = inserter.insert(generateNewCommit(commit, tree, newParentIds));
+                    newTrees.put(newCommitId, tree);
+                    commitMap.put(commit, newCommitId);
+                } catch (Throwable t) {
+                    throw new RuntimeException(String.format("Problem occurred for commit [%s].", commit.getId().name()), t);
+                }
+            }
+            inserter.flush();
+
+            overrideBranchNames(target, revWalk, targetWalk, originTips, commitMap);
+        }
+
+        originTips.forEach(commitMap::putOriginTip);
+        commitMap.save(target.getDirectory());
+    }
+
     private void deleteUnfilteredBranches(Repository repository) throws GitAPIException {
         final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.wrap(repository);
         final String[] toDelete = git.branchList()
@@ -161,24 +319,40 @@ public class SubdirectoryClone {
            .call();
     }
 
+    private void deleteFetchedRefs(final Repository repository) throws IOException {
+        for (String refName : repository.getRefDatabase().getRefs(FETCHED_REFS).keySet()) {
+            final RefUpdate refUpdate = repository.updateRef(FETCHED_REFS + refName);
+            refUpdate.setForceUpdate(true);
+            refUpdate.delete();
+        }
+    }
+
     private void removeOriginRemote(Repository repository) throws GitAPIException {
         final org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.wrap(repository);
         final RemoteRemoveCommand cmd = git.remoteRemove();
-        cmd.setName(origin);
+        // Clone and update add the origin with this name
+        cmd.setName("origin");
         cmd.call();
     }
 
     private void overrideBranchNames(final Repository repository,
-                           final RevWalk revWalk,
-                           final Map<ObjectId, ObjectId> commitMap) throws AmbiguousObjectException, IncorrectObjectTypeException, IOException, MissingObjectException, GitAPIException, RefAlreadyExistsException, RefNotFoundException, InvalidRefNameException {
-        for (String branchName : branches) {
-            if (branchName.equals("HEAD")) {
+                                     final RevWalk revWalk,
+                                     final RevWalk targetWalk,
+                                     final Map<String, ObjectId> originTips,
+                                     final SubdirectoryCommitMap commitMap) throws IOException, GitAPIException {
+        for (Map.Entry<String, ObjectId> originTip : originTips.entrySet()) {
+            final String branchName = originTip.getKey();
+            if (branchName.equals(Constants.HEAD)) {
                 continue;
             }
 
-            final ObjectId oldBranchTipId = repository.resolve(branchName);
-            final ObjectId newBranchTipId = closestMappedAncestorOrSelf(commitMap, revWalk.parseCommit(oldBranchTipId))[0];
-            final RevCommit newBranchTip = revWalk.parseCommit(newBranchTipId);
+            final ObjectId[] newBranchTipIds = closestMappedAncestorOrSelf(revWalk, commitMap, revWalk.parseCommit(originTip.getValue()));
+            if (newBranchTipIds.length == 0) {
+                throw new IllegalStateException(format("Branch [%s] has no commits in subdirectory [%s].",
+                                                       branchName,
+                                                       subdirectory));
+            }
+            final RevCommit newBranchTip = targetWalk.parseCommit(newBranchTipIds[0]);
             org.eclipse.jgit.api.Git.wrap(repository)
                                     .branchCreate()
                                     .setName(branchName)
@@ -189,87 +363,86 @@ public class SubdirectoryClone {
         }
     }
 
-    private void transformBranches(final Repository repository,
-                                   final ObjectReader reader,
-                                   final ObjectInserter inserter,
-                                   final RevWalk revWalk,
-                                   final Map<ObjectId, ObjectId> commitMap) throws MissingObjectException, IncorrectObjectTypeException, CorruptObjectException, IOException, UnmergedPathException {
-        for (final RevCommit commit : revWalk) {
-            try {
-                final Optional<ObjectId> oNewCommitTree = filterCommitTree(reader, inserter, commit);
-                if (oNewCommitTree.isPresent()) {
-                    final ObjectId newCommitTree = oNewCommitTree.get();
-                    final CommitBuilder commitBuilder = generateNewCommit(commitMap, commit, newCommitTree);
-                    final ObjectId newCommitId = inserter.insert(commitBuilder);
-
-                    /*
-                     * We want to prune empty commits (i.e. no changes from parent), which
-                     * will exist whenever an origin commit did not touch files in the subdirectory.
-                     *
-                     * But we don't want to remove merge commits.
-                     */
-                    if (isOrphanCommit(commitBuilder)
-                            || isMergeCommit(commitBuilder)
-                            || isDifferentFromParent(revWalk, commitBuilder)) {
-                        commitMap.put(commit.getId(), newCommitId);
-                    }
-                }
-            } catch (Throwable t) {
-                throw new RuntimeException(String.format("Problem occurred for commit [%s].", commit.getId().name()), t);
+    /**
+     * @return the id of the subdirectory tree in the commit, or null if the commit has no such subdirectory.
+     */
+    private ObjectId getSubdirectoryTree(final ObjectReader reader,
+                                         final RevCommit commit) throws IOException {
+        try (final TreeWalk treeWalk = TreeWalk.forPath(reader,
+                                                        subdirectory.substring(0, subdirectory.length() - 1),
+                                                        commit.getTree())) {
+            if (treeWalk == null || !FileMode.TREE.equals(treeWalk.getRawMode(0))) {
+                return null;
             }
+            return treeWalk.getObjectId(0);
         }
     }
 
-    private boolean isOrphanCommit(final CommitBuilder commitBuilder) {
-        return commitBuilder.getParentIds().length == 0;
-    }
-
-    private boolean isDifferentFromParent(final RevWalk revWalk, final CommitBuilder commitBuilder) throws MissingObjectException, IncorrectObjectTypeException, IOException {
-        final ObjectId parentId = commitBuilder.getParentIds()[0];
-        final RevCommit parentCommit = revWalk.parseCommit(parentId);
-        final ObjectId parentTreeId = parentCommit.getTree().getId();
-        final ObjectId commitTreeId = commitBuilder.getTreeId();
-        // A commit with the same tree as its parent has no changes.
-        return !commitTreeId.equals(parentTreeId);
-    }
-
-    private boolean isMergeCommit(final CommitBuilder commitBuilder) {
-        return commitBuilder.getParentIds().length > 1;
+    private ObjectId getTree(final RevWalk targetWalk,
+                             final Map<ObjectId, ObjectId> newTrees,
+                             final ObjectId newCommitId) throws IOException {
+        final ObjectId tree = newTrees.get(newCommitId);
+        if (tree != null) {
+            return tree;
+        }
+        // Written by a previous clone or update
+        return targetWalk.parseCommit(newCommitId).getTree().getId();
     }
 
-    private Optional<ObjectId> filterCommitTree(final ObjectReader reader,
-                                                final ObjectInserter inserter,
-                                                final RevCommit commit) throws MissingObjectException, IncorrectObjectTypeException, CorruptObjectException, IOException, UnmergedPathException {
-        final DirCache dc = DirCache.newInCore();
-        final DirCacheEditor editor = dc.editor();
-        @SuppressWarnings("resource")
-        final TreeWalk treeWalk = new TreeWalk(reader);
-        int treeId = treeWalk.addTree(commit.getTree());
-        treeWalk.setRecursive(true);
-        boolean empty = true;
-        while (treeWalk.next()) {
-            final String pathString = treeWalk.getPathString();
-            final CanonicalTreeParser treeParser = treeWalk.getTree(treeId, CanonicalTreeParser.class);
-            if (inSubdirectory(pathString)) {
-                moveFromSubdirectoryToRoot(editor, pathString, treeParser);
-                empty = false;
+    /**
+     * Copies a tree, and the trees and blobs it contains, from the origin unless the target already has them.
+     */
+    private void copyTree(final ObjectReader reader,
+                          final ObjectReader targetReader,
+                          final ObjectInserter inserter,
+                          final Set<ObjectId> copied,
+                          final ObjectId treeId) throws IOException {
+        if (!copied.add(treeId) || targetReader.has(treeId)) {
+            return;
+        }
+        try (final TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(treeId);
+            while (treeWalk.next()) {
+                final int mode = treeWalk.getRawMode(0);
+                final ObjectId id = treeWalk.getObjectId(0);
+                if (FileMode.TREE.equals(mode)) {
+                    copyTree(reader, targetReader, inserter, copied, id);
+                } else if (!FileMode.GITLINK.equals(mode) && copied.add(id) && !targetReader.has(id)) {
+                    copyObject(reader, inserter, id);
+                }
             }
         }
-        editor.finish();
+        copyObject(reader, inserter, treeId);
+    }
 
-        if (empty) {
-            return Optional.empty();
-        } else {
-            return Optional.of(dc.writeTree(inserter));
+    private void copyObject(final ObjectReader reader,
+                            final ObjectInserter inserter,
+                            final ObjectId id) throws IOException {
+        final ObjectLoader loader = reader.open(id);
+        try (final InputStream in = loader.openStream()) {
+            inserter.insert(loader.getType(),
+                            loader.getSize(),
+                            in);
         }
-
     }
 
-    private RevWalk createRevWalk(final Repository repository, final ObjectReader reader) throws MissingObjectException, IncorrectObjectTypeException, IOException {
+    private RevWalk createRevWalk(final ObjectReader reader,
+                                  final Collection<ObjectId> originTips,
+                                  final Collection<ObjectId> rewrittenTips) throws IOException {
         final RevWalk revWalk = new RevWalk(reader);
-        final List<RevCommit> branchTips = getBranchCommits(repository, revWalk);
         // So that we traverse all branch histories at once
-        revWalk.markStart(branchTips);
+        for (ObjectId originTip : originTips) {
+            revWalk.markStart(revWalk.parseCommit(originTip));
+        }
+        // Commits reachable from the tips of a previous rewrite are already mapped
+        for (ObjectId rewrittenTip : rewrittenTips) {
+            try {
+                revWalk.markUninteresting(revWalk.parseCommit(rewrittenTip));
+            } catch (MissingObjectException e) {
+                logger.warn("Commit [{}] is no longer in the origin, its history will be walked again.",
+                            rewrittenTip.name());
+            }
+        }
 
         // Gets parents before children
         revWalk.sort(RevSort.TOPO, true);
@@ -281,30 +454,35 @@ public class SubdirectoryClone {
         return revWalk;
     }
 
-    private List<RevCommit> getBranchCommits(final Repository repository, final RevWalk revWalk) {
-        final List<RevCommit> branchTips =
-                branches.stream()
-                        .map(b -> {
-                            try {
-                                return revWalk.parseCommit(repository.resolve(b));
-                            } catch (IOException ioe) {
-                                throw new IllegalArgumentException(format("Unable to parse branch [%s] in repository [%s].",
-                                                                          b,
-                                                                          repository.getDirectory()));
-                            }
-                        })
-                        .collect(toList());
-        return branchTips;
+    private Map<String, ObjectId> resolveBranches(final Repository repository,
+                                                  final String prefix) {
+        final Map<String, ObjectId> originTips = new LinkedHashMap<>();
+        for (String branch : branches) {
+            if (!prefix.isEmpty() && branch.equals(Constants.HEAD)) {
+                continue;
+            }
+            try {
+                final ObjectId originTip = repository.resolve(prefix + branch);
+                if (originTip == null) {
+                    throw new IOException("Not found.");
+                }
+                originTips.put(branch, originTip);
+            } catch (IOException ioe) {
+                throw new IllegalArgumentException(format("Unable to parse branch [%s] in repository [%s].",
+                                                          branch,
+                                                          repository.getDirectory()));
+            }
+        }
+        return originTips;
     }
 
-    private CommitBuilder generateNewCommit(final Map<ObjectId, ObjectId> commitMap, final RevCommit commit, final ObjectId newCommitTree) {
+    private CommitBuilder generateNewCommit(final RevCommit commit, final ObjectId newCommitTree, final ObjectId[] newParentIds) {
         final CommitBuilder commitBuilder = new CommitBuilder();
         commitBuilder.setAuthor(commit.getAuthorIdent());
         commitBuilder.setCommitter(commit.getCommitterIdent());
         commitBuilder.setTreeId(newCommitTree);
         commitBuilder.setMessage(commit.getFullMessage());
         commitBuilder.setEncoding(commit.getEncoding());
-        final ObjectId[] newParentIds = closestMappedAncestorOrSelf(commitMap, commit.getParents());
         if (newParentIds.length > 0) {
             commitBuilder.setParentIds(newParentIds);
         }
@@ -312,7 +490,7 @@ public class SubdirectoryClone {
         return commitBuilder;
     }
 
-    private ObjectId[] closestMappedAncestorOrSelf(final Map<ObjectId, ObjectId> commitMap, final RevCommit... start) {
+    private ObjectId[] closestMappedAncestorOrSelf(final RevWalk revWalk, final SubdirectoryCommitMap commitMap, final RevCommit... start) throws IOException {
         final Queue<RevCommit> commitQueue = new LinkedList<>();
         final Set<ObjectId> processed = new HashSet<>();
         commitQueue.addAll(Arrays.asList(start));
@@ -328,8 +506,9 @@ public class SubdirectoryClone {
                 if (mappedId != null) {
                     results.add(mappedId);
                 } else {
-                    Arrays.stream(cur.getParents())
-                          .forEach(p -> commitQueue.add(p));
+                    // Commits behind a previous rewrite are not parsed by the walk
+                    revWalk.parseHeaders(cur);
+                    commitQueue.addAll(Arrays.asList(cur.getParents()));
                 }
                 processed.add(cur.getId());
             }
@@ -338,22 +517,24 @@ public class SubdirectoryClone {
         return results.toArray(new ObjectId[results.size()]);
     }
 
-    private void moveFromSubdirectoryToRoot(final DirCacheEditor editor, final String pathString, final CanonicalTreeParser treeParser) {
-        final String newPath = pathString.substring(subdirectory.length());
-        final ObjectId entryObjectId = treeParser.getEntryObjectId();
-        final FileMode entryFileMode = treeParser.getEntryFileMode();
-        editor.add(new DirCacheEditor.PathEdit(new DirCacheEntry(newPath)) {
-
-            @Override
-            public void apply(DirCacheEntry ent) {
-                ent.setObjectId(entryObjectId);
-                ent.setFileMode(entryFileMode);
+    private File getLocalOrigin() {
+        try {
+            final URIish uri = new URIish(origin);
+            if (uri.getScheme() != null && !uri.getScheme().equals("file")) {
+                return null;
             }
-        });
+            return RepositoryCache.FileKey.resolve(new File(uri.getPath()),
+                                                   FS.DETECTED);
+        } catch (URISyntaxException e) {
+            return null;
+        }
     }
 
-    private boolean inSubdirectory(final String pathString) {
-        return pathString.startsWith(subdirectory);
+    private Repository openRepository(final File gitDir) throws IOException {
+        return new FileRepositoryBuilder()
+                .setGitDir(gitDir)
+                .setMustExist(true)
+                .build();
     }
 
     private void cleanupDir(final File gitDir) {
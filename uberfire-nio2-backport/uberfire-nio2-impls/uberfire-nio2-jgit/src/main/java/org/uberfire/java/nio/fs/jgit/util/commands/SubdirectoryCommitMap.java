@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * The commits rewritten by a {@link SubdirectoryClone}: the rewritten id of every origin commit that was kept, and
+ * the origin tip each branch was rewritten up to.
+ * <p>
+ * It is stored in the git directory of the clone, so later updates only rewrite the commits added since. Every line
+ * is a type and a value separated by the first space, so the subdirectory may contain spaces.
+ */
+class SubdirectoryCommitMap {
+
+    static final String FILE_NAME = "subdirectory-clone";
+
+    private static final String SUBDIRECTORY = "subdirectory";
+    private static final String BRANCH = "branch";
+
+    private final String subdirectory;
+    private final Map<ObjectId, ObjectId> commits = new HashMap<>();
+    private final Map<String, ObjectId> originTips = new HashMap<>();
+
+    SubdirectoryCommitMap(final String subdirectory) {
+        this.subdirectory = subdirectory;
+    }
+
+    /**
+     * @throws IllegalStateException if the repository was not cloned from the same subdirectory.
+     */
+    static SubdirectoryCommitMap load(final File gitDir,
+                                      final String subdirectory) throws IOException {
+        final File file = new File(gitDir,
+                                   FILE_NAME);
+        if (!file.exists()) {
+            throw new IllegalStateException(String.format("Repository <%s> is not a subdirectory clone.",
+                                                          gitDir));
+        }
+        final SubdirectoryCommitMap commitMap = new SubdirectoryCommitMap(subdirectory);
+        try (final BufferedReader reader = Files.newBufferedReader(file.toPath(),
+                                                                   StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(" ",
+                                                   2);
+                if (fields[0].equals(SUBDIRECTORY)) {
+                    if (!fields[1].equals(subdirectory)) {
+                        throw new IllegalStateException(String.format("Repository <%s> is a clone of subdirectory <%s>, not <%s>.",
+                                                                      gitDir,
+                                                                      fields[1],
+                                                                      subdirectory));
+                    }
+                } else if (fields[0].equals(BRANCH)) {
+                    //The tip id is last, after the branch name
+                    final int separator = fields[1].lastIndexOf(' ');
+                    commitMap.originTips.put(fields[1].substring(0,
+                                                                 separator),
+                                             ObjectId.fromString(fields[1].substring(separator + 1)));
+                } else {
+                    commitMap.commits.put(ObjectId.fromString(fields[0]),
+                                          ObjectId.fromString(fields[1]));
+                }
+            }
+        }
+        return commitMap;
+    }
+
+    void save(final File gitDir) throws IOException {
+        final File tmp = new File(gitDir,
+                                  FILE_NAME + ".tmp");
+        try (final BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(),
+                                                                   StandardCharsets.UTF_8)) {
+            writer.write(SUBDIRECTORY + " " + subdirectory);
+            writer.newLine();
+            for (Map.Entry<String, ObjectId> tip : originTips.entrySet()) {
+                writer.write(BRANCH + " " + tip.getKey() + " " + tip.getValue().name());
+                writer.newLine();
+            }
+            for (Map.Entry<ObjectId, ObjectId> commit : commits.entrySet()) {
+                writer.write(commit.getKey().name() + " " + commit.getValue().name());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp.toPath(),
+                   new File(gitDir,
+                            FILE_NAME).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    ObjectId get(final ObjectId originCommit) {
+        return commits.get(originCommit);
+    }
+
+    void put(final ObjectId originCommit,
+             final ObjectId newCommit) {
+        commits.put(originCommit.copy(),
+                    newCommit.copy());
+    }
+
+    Collection<ObjectId> getOriginTips() {
+        return originTips.values();
+    }
+
+    void putOriginTip(final String branch,
+                      final ObjectId originTip) {
+        originTips.put(branch,
+                       originTip.copy());
+    }
+
+    int size() {
+        return commits.size();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.model;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Copies a whole tree, identified by its object id on the source repository, under
+ * the target path. Blobs are reused as they are, and only transferred when the source
+ * repository is not the one being committed to.
+ */
+public class TreeCopyCommitContent implements CommitContent {
+
+    private final Repository sourceRepository;
+    private final ObjectId sourceTreeId;
+    private final String targetPath;
+
+    public TreeCopyCommitContent(final Repository sourceRepository,
+                                 final ObjectId sourceTreeId,
+                                 final String targetPath) {
+        this.sourceRepository = sourceRepository;
+        this.sourceTreeId = sourceTreeId;
+        this.targetPath = targetPath;
+    }
+
+    public Repository getSourceRepository() {
+        return sourceRepository;
+    }
+
+    public ObjectId getSourceTreeId() {
+        return sourceTreeId;
+    }
+
+    public String getTargetPath() {
+        return targetPath;
+    }
+}
@@ -16,18 +16,26 @@
 
 package org.uberfire.java.nio.fs.jgit;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Test;
 import org.uberfire.java.nio.base.options.CherryPickCopyOption;
+import org.uberfire.java.nio.base.options.TreeCopyOption;
 import org.uberfire.java.nio.base.version.VersionAttributes;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardCopyOption;
+import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.DefaultCommitContent;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -336,6 +344,121 @@ public class JGitFileSystemImplProviderCpMvTest extends AbstractTestInfra {
         }
     }
 
+    @Test
+    public void testCopyTreeAcrossRepositories() throws IOException {
+        final JGitFileSystem fs1 = (JGitFileSystem) provider.newFileSystem(URI.create("git://copytree-test-repo1"),
+                                                                           EMPTY_ENV);
+        provider.newFileSystem(URI.create("git://copytree-test-repo2"),
+                               EMPTY_ENV);
+
+        writeFile("git://master@copytree-test-repo1/myfile1.txt",
+                  "my cool content");
+        writeFile("git://master@copytree-test-repo2/path/myfile2.txt",
+                  "my cool content 2");
+        writeFile("git://master@copytree-test-repo2/path/deep/dir/myfile3.txt",
+                  "my cool content 3");
+        writeFile("git://master@copytree-test-repo2/myfile4.txt",
+                  "my cool content 4");
+
+        final RevCommit before = fs1.getGit().getLastCommit("master");
+
+        provider.copy(provider.getPath(URI.create("git://master@copytree-test-repo2/")),
+                      provider.getPath(URI.create("git://master@copytree-test-repo1/")),
+                      new TreeCopyOption(),
+                      StandardCopyOption.REPLACE_EXISTING);
+
+        final RevCommit after = fs1.getGit().getLastCommit("master");
+        assertThat(after.getParentCount()).isEqualTo(1);
+        assertThat(after.getParent(0)).isEqualTo(before);
+
+        assertThat(readFile("git://master@copytree-test-repo1/myfile1.txt")).isEqualTo("my cool content");
+        assertThat(readFile("git://master@copytree-test-repo1/path/myfile2.txt")).isEqualTo("my cool content 2");
+        assertThat(readFile("git://master@copytree-test-repo1/path/deep/dir/myfile3.txt")).isEqualTo("my cool content 3");
+        assertThat(readFile("git://master@copytree-test-repo1/myfile4.txt")).isEqualTo("my cool content 4");
+
+        provider.copy(provider.getPath(URI.create("git://master@copytree-test-repo2/path")),
+                      provider.getPath(URI.create("git://master@copytree-test-repo1/other/place")),
+                      new TreeCopyOption());
+
+        assertThat(readFile("git://master@copytree-test-repo1/other/place/deep/dir/myfile3.txt")).isEqualTo("my cool content 3");
+
+        assertThatThrownBy(() -> provider.copy(provider.getPath(URI.create("git://master@copytree-test-repo2/path")),
+                                               provider.getPath(URI.create("git://master@copytree-test-repo1/other/place")),
+                                               new TreeCopyOption()))
+                .isInstanceOf(FileAlreadyExistsException.class);
+
+        assertThatThrownBy(() -> provider.copy(provider.getPath(URI.create("git://master@copytree-test-repo2/not_exists")),
+                                               provider.getPath(URI.create("git://master@copytree-test-repo1/not_exists")),
+                                               new TreeCopyOption()))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    public void testCopyLargeTreeAcrossRepositories() throws IOException {
+        final int folders = 100;
+        final int filesPerFolder = 100;
+
+        final JGitFileSystem source = (JGitFileSystem) provider.newFileSystem(URI.create("git://copytree-large-source"),
+                                                                              EMPTY_ENV);
+        final JGitFileSystem target = (JGitFileSystem) provider.newFileSystem(URI.create("git://copytree-large-target"),
+                                                                              EMPTY_ENV);
+
+        final Map<String, File> content = new HashMap<>();
+        for (int folder = 0; folder < folders; folder++) {
+            for (int file = 0; file < filesPerFolder; file++) {
+                content.put("folder" + folder + "/file" + file + ".txt",
+                            tempFile("content " + folder + "/" + file));
+            }
+        }
+        source.getGit().commit("master",
+                               new CommitInfo(null,
+                                              "name",
+                                              "email",
+                                              "seed",
+                                              null,
+                                              null),
+                               false,
+                               null,
+                               new DefaultCommitContent(content));
+        content.values().forEach(File::delete);
+        writeFile("git://master@copytree-large-target/myfile.txt",
+                  "my cool content");
+
+        final RevCommit before = target.getGit().getLastCommit("master");
+
+        provider.copy(provider.getPath(URI.create("git://master@copytree-large-source/")),
+                      provider.getPath(URI.create("git://master@copytree-large-target/copy")),
+                      new TreeCopyOption());
+
+        // All the files land in a single commit
+        final RevCommit after = target.getGit().getLastCommit("master");
+        assertThat(after.getParentCount()).isEqualTo(1);
+        assertThat(after.getParent(0)).isEqualTo(before);
+
+        // The copied tree and its blobs are the source objects, not rewritten ones
+        assertThat(target.getGit().getPathInfo("master",
+                                               "copy").getObjectId())
+                .isEqualTo(source.getGit().getTreeFromRef("master"));
+        assertThat(target.getGit().getPathInfo("master",
+                                               "copy/folder42/file42.txt").getObjectId())
+                .isEqualTo(source.getGit().getPathInfo("master",
+                                                       "folder42/file42.txt").getObjectId());
+
+        assertThat(readFile("git://master@copytree-large-target/copy/folder42/file42.txt")).isEqualTo("content 42/42");
+        assertThat(readFile("git://master@copytree-large-target/myfile.txt")).isEqualTo("my cool content");
+    }
+
+    private void writeFile(final String uri,
+                           final String content) throws IOException {
+        try (final OutputStream outStream = provider.newOutputStream(provider.getPath(URI.create(uri)))) {
+            outStream.write(content.getBytes());
+        }
+    }
+
+    private String readFile(final String uri) {
+        return convertStreamToString(provider.newInputStream(provider.getPath(URI.create(uri))));
+    }
+
     @Test
     public void testMoveBranches() throws IOException {
         final URI newRepo = URI.create("git://movebranch-test-repo");
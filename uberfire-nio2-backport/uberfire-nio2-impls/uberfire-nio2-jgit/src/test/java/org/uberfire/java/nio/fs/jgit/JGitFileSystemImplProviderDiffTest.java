@@ -19,6 +19,7 @@ package org.uberfire.java.nio.fs.jgit;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -139,6 +140,67 @@ public class JGitFileSystemImplProviderDiffTest extends AbstractTestInfra {
         assertThat(diffs.size()).isEqualTo(5);
     }
 
+    @Test
+    public void testDiffsAreCachedAndStreamedByFile() throws IOException {
+
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        "repo.git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "master-1",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file1.txt",
+                           tempFile("temp1\ntemp1\ntemp3\nmiddle\nmoremiddle\nmoremiddle\nmoremiddle\nother\n"));
+                   }}).execute();
+
+        new CreateBranch((GitImpl) origin,
+                         "master",
+                         "develop").execute();
+
+        new Commit(origin,
+                   "develop",
+                   "name",
+                   "name@example.com",
+                   "develop-1",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file1.txt",
+                           tempFile("temp1\ntemp2\nmiddle\nmoremiddle\nmoremiddle\nmoremiddle\n"));
+                       put("file2.txt",
+                           tempFile("temp2"));
+                   }}).execute();
+
+        final List<FileDiff> diffs = origin.diffRefs("master",
+                                                     "develop");
+        assertThat(diffs).hasSize(3);
+
+        //Same trees, so the diff comes from the cache
+        final List<FileDiff> cachedDiffs = origin.diffRefs("master",
+                                                           "develop");
+        assertThat(cachedDiffs).isNotSameAs(diffs);
+        assertThat(cachedDiffs).containsExactlyElementsOf(diffs);
+
+        final List<List<FileDiff>> files = new ArrayList<>();
+        origin.diffRefs("master",
+                        "develop",
+                        files::add);
+        assertThat(files).hasSize(2);
+        assertThat(files.get(0)).hasSize(2);
+        assertThat(files.get(0).get(1).getLinesA()).containsExactly("other");
+        assertThat(files.get(1)).hasSize(1);
+    }
+
     @Test
     public void testBranchesDoNotHaveDifferences() throws IOException {
 
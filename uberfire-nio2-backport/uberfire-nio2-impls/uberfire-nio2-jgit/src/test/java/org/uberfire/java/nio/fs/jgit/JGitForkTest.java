@@ -23,12 +23,22 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.hooks.PostCommitHook;
 import org.eclipse.jgit.hooks.PreCommitHook;
+import org.eclipse.jgit.internal.storage.file.PackIndex;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.ObjectWalk;
+import org.eclipse.jgit.revwalk.RevObject;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.util.FileUtils;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,8 +49,12 @@ import org.uberfire.java.nio.fs.jgit.util.commands.Clone;
 import org.uberfire.java.nio.fs.jgit.util.commands.Commit;
 import org.uberfire.java.nio.fs.jgit.util.commands.CreateRepository;
 import org.uberfire.java.nio.fs.jgit.util.commands.Fork;
+import org.uberfire.java.nio.fs.jgit.util.commands.GarbageCollector;
 import org.uberfire.java.nio.fs.jgit.util.commands.ListRefs;
+import org.uberfire.java.nio.fs.jgit.util.commands.SharedObjects;
 import org.uberfire.java.nio.fs.jgit.util.exceptions.GitException;
+import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.PathType;
 
 public class JGitForkTest extends AbstractTestInfra {
 
@@ -300,4 +314,327 @@ public class JGitForkTest extends AbstractTestInfra {
         assertThat(foundPreCommitHook).isTrue();
         assertThat(foundPostCommitHook).isTrue();
     }
+
+    @Test
+    public void testForkSharingObjects() throws IOException, GitAPIException {
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+
+        new Commit(origin,
+                   "user_branch",
+                   "name",
+                   "name@example.com",
+                   "commit!",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file2.txt",
+                           tempFile("temp2222"));
+                   }}).execute();
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file.txt",
+                           tempFile("temp"));
+                   }}).execute();
+
+        final Git cloned = new Fork(parentFolder,
+                                    SOURCE_GIT,
+                                    TARGET_GIT,
+                                    CredentialsProvider.getDefault(),
+                                    null,
+                                    null,
+                                    true).execute();
+
+        assertThat(new ListRefs(cloned.getRepository()).execute()).hasSize(2);
+        assertThat(cloned.getLastCommit("master")).isEqualTo(origin.getLastCommit("master"));
+
+        final PathInfo pathInfo = cloned.getPathInfo("master",
+                                                     "file.txt");
+        assertThat(pathInfo.getPathType()).isEqualTo(PathType.FILE);
+        assertThat(new String(cloned.getRepository().open(pathInfo.getObjectId()).getBytes())).isEqualTo("temp");
+
+        //No object was copied
+        final File objects = new File(cloned.getRepository().getDirectory(),
+                                      "objects");
+        assertThat(objects.list()).containsOnly("info",
+                                                "pack");
+        assertThat(new File(objects,
+                            "pack").list()).isEmpty();
+
+        final String remotePath = ((GitImpl) cloned)._remoteList().call().get(0).getURIs().get(0).getPath();
+        assertThat(remotePath).isEqualTo(gitSource.getPath() + "/");
+
+        assertThat(SharedObjects.getForks(gitSource)).containsExactly(cloned.getRepository().getDirectory().getCanonicalFile());
+        assertThat(SharedObjects.borrowsObjects(gitSource)).isFalse();
+        assertThat(SharedObjects.borrowsObjects(cloned.getRepository().getDirectory())).isTrue();
+    }
+
+    @Test
+    public void testOriginGarbageCollectionKeepsTheObjectsOfForks() throws IOException, GitAPIException {
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+        //Unreachable objects are dropped right away
+        origin.getRepository().getConfig().setString("gc",
+                                                     null,
+                                                     "pruneExpire",
+                                                     "now");
+        origin.getRepository().getConfig().setString("gc",
+                                                     null,
+                                                     "prunePackExpire",
+                                                     "now");
+        origin.getRepository().getConfig().save();
+
+        new Commit(origin,
+                   "user_branch",
+                   "name",
+                   "name@example.com",
+                   "commit!",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file2.txt",
+                           tempFile("temp2222"));
+                   }}).execute();
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file.txt",
+                           tempFile("temp"));
+                   }}).execute();
+
+        final Git cloned = new Fork(parentFolder,
+                                    SOURCE_GIT,
+                                    TARGET_GIT,
+                                    CredentialsProvider.getDefault(),
+                                    null,
+                                    null,
+                                    true).execute();
+        new Commit(cloned,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "fork commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file3.txt",
+                           tempFile("fork"));
+                   }}).execute();
+
+        //The fork is the only one still reaching the branch
+        origin.deleteRef(origin.getRef("user_branch"));
+        new GarbageCollector((GitImpl) origin).execute();
+
+        assertThat(origin.getRepository().getRefDatabase().getRefs(SharedObjects.FORK_REFS).keySet())
+                .containsOnly("target/target/heads/master",
+                              "target/target/heads/user_branch");
+        final PathInfo pathInfo = cloned.getPathInfo("user_branch",
+                                                     "file2.txt");
+        assertThat(new String(cloned.getRepository().open(pathInfo.getObjectId()).getBytes())).isEqualTo("temp2222");
+
+        //The fork packs its own objects and still reads the borrowed ones
+        new GarbageCollector((GitImpl) cloned).execute();
+        assertThat(SharedObjects.borrowsObjects(cloned.getRepository().getDirectory())).isTrue();
+        assertThat(cloned.getPathInfo("master",
+                                      "file3.txt").getPathType()).isEqualTo(PathType.FILE);
+    }
+
+    @Test
+    public void testForkGarbageCollectionPacksNoObjectOfTheOrigin() throws IOException, GitAPIException {
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file.txt",
+                           tempFile("temp"));
+                   }}).execute();
+        new GarbageCollector((GitImpl) origin).execute();
+
+        final Git cloned = new Fork(parentFolder,
+                                    SOURCE_GIT,
+                                    TARGET_GIT,
+                                    CredentialsProvider.getDefault(),
+                                    null,
+                                    null,
+                                    true).execute();
+        new Commit(cloned,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "fork commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file2.txt",
+                           tempFile("fork"));
+                   }}).execute();
+
+        new GarbageCollector((GitImpl) cloned).execute();
+
+        final Set<ObjectId> originObjects = getReachableObjects(origin.getRepository());
+        final Set<ObjectId> packed = new HashSet<>();
+        final File[] indexes = new File(cloned.getRepository().getDirectory(),
+                                        "objects/pack").listFiles((dir, name) -> name.endsWith(".idx"));
+        for (File index : indexes) {
+            for (PackIndex.MutableEntry entry : PackIndex.open(index)) {
+                packed.add(entry.toObjectId());
+            }
+        }
+        assertThat(originObjects).isNotEmpty();
+        assertThat(packed).contains(cloned.getPathInfo("master",
+                                                       "file2.txt").getObjectId());
+        assertThat(packed).doesNotContainAnyElementsOf(originObjects);
+
+        assertThat(SharedObjects.borrowsObjects(cloned.getRepository().getDirectory())).isTrue();
+        assertThat(cloned.getPathInfo("master",
+                                      "file.txt").getPathType()).isEqualTo(PathType.FILE);
+    }
+
+    private Set<ObjectId> getReachableObjects(final Repository repository) throws IOException {
+        final Set<ObjectId> objects = new HashSet<>();
+        try (final ObjectWalk walk = new ObjectWalk(repository)) {
+            for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL).values()) {
+                walk.markStart(walk.parseAny(ref.getObjectId()));
+            }
+            RevObject object;
+            while ((object = walk.next()) != null) {
+                objects.add(object.copy());
+            }
+            while ((object = walk.nextObject()) != null) {
+                objects.add(object.copy());
+            }
+        }
+        return objects;
+    }
+
+    @Test
+    public void testDeletedForkIsNotCounted() throws IOException {
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file.txt",
+                           tempFile("temp"));
+                   }}).execute();
+
+        final Git cloned = new Fork(parentFolder,
+                                    SOURCE_GIT,
+                                    TARGET_GIT,
+                                    CredentialsProvider.getDefault(),
+                                    null,
+                                    null,
+                                    true).execute();
+        cloned.getRepository().close();
+        FileUtils.delete(cloned.getRepository().getDirectory(),
+                         FileUtils.RECURSIVE);
+
+        assertThat(SharedObjects.getForks(gitSource)).isEmpty();
+    }
+
+    @Test
+    public void testForkIsDetachedBeforeOriginIsDeleted() throws IOException {
+        final File parentFolder = createTempDirectory();
+
+        final File gitSource = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+        final Git origin = new CreateRepository(gitSource).execute().get();
+
+        new Commit(origin,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   "commit",
+                   null,
+                   null,
+                   false,
+                   new HashMap<String, File>() {{
+                       put("file.txt",
+                           tempFile("temp"));
+                   }}).execute();
+
+        final Git cloned = new Fork(parentFolder,
+                                    SOURCE_GIT,
+                                    TARGET_GIT,
+                                    CredentialsProvider.getDefault(),
+                                    null,
+                                    null,
+                                    true).execute();
+        //The fork looks up an object of the origin before it is detached
+        assertThat(cloned.getPathInfo("master",
+                                      "file.txt").getPathType()).isEqualTo(PathType.FILE);
+
+        SharedObjects.detach(cloned.getRepository());
+        origin.getRepository().close();
+        FileUtils.delete(gitSource,
+                         FileUtils.RECURSIVE);
+
+        assertThat(SharedObjects.borrowsObjects(cloned.getRepository().getDirectory())).isFalse();
+        final PathInfo pathInfo = cloned.getPathInfo("master",
+                                                     "file.txt");
+        assertThat(new String(cloned.getRepository().open(pathInfo.getObjectId()).getBytes())).isEqualTo("temp");
+    }
+
+    @Test
+    public void testForkSharingObjectsWrongSource() throws IOException {
+        final File parentFolder = createTempDirectory();
+
+        try {
+            new Fork(parentFolder,
+                     SOURCE_GIT,
+                     TARGET_GIT,
+                     CredentialsProvider.getDefault(),
+                     null,
+                     null,
+                     true).execute();
+            fail("If got here is because it could for the repository");
+        } catch (Clone.CloneException e) {
+            assertThat(new File(parentFolder,
+                                TARGET_GIT + ".git")).doesNotExist();
+        }
+    }
 }
@@ -243,6 +243,103 @@ public class JGitSubdirectoryCloneTest extends AbstractTestInfra {
         }
     }
     
+    @Test
+    public void cloneSubdirectoryCopiesOnlySubdirectoryObjects() throws Exception {
+        final File parentFolder = createTempDirectory();
+
+        final File sourceDir = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+
+        final File targetDir = new File(parentFolder,
+                                        TARGET_GIT + ".git");
+
+        final Git origin = gitRepo(sourceDir);
+        commit(origin, "master", "first", content("dir1/file.txt", "foo"));
+        commit(origin, "master", "second", content("dir2/file2.txt", "bar"));
+
+        final Git cloned = new SubdirectoryClone(targetDir,
+                                                 sourceDir.getAbsoluteFile().toURI().toString(),
+                                                 "dir1",
+                                                 singletonList("master"),
+                                                 CredentialsProvider.getDefault(),
+                                                 null,
+                                                 null).execute();
+
+        final RevCommit originTip = getCommits(origin, "master").get(0);
+        assertThat(cloned.getRepository().hasObject(findIdForPath(origin, originTip, "dir1"))).isTrue();
+        assertThat(cloned.getRepository().hasObject(findIdForPath(origin, originTip, "dir2"))).isFalse();
+        assertThat(cloned.getRepository().getRemoteNames()).isEmpty();
+    }
+
+    @Test
+    public void updateSubdirectoryClone() throws Exception {
+        final File parentFolder = createTempDirectory();
+
+        final File sourceDir = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+
+        final File targetDir = new File(parentFolder,
+                                        TARGET_GIT + ".git");
+
+        final Git origin = gitRepo(sourceDir);
+        commit(origin, "master", "first", content("dir1/file.txt", "foo"));
+
+        final SubdirectoryClone subdirectoryClone = new SubdirectoryClone(targetDir,
+                                                                          sourceDir.getAbsoluteFile().toURI().toString(),
+                                                                          "dir1",
+                                                                          singletonList("master"),
+                                                                          CredentialsProvider.getDefault(),
+                                                                          null,
+                                                                          null);
+        final RevCommit firstClonedCommit = getCommits(subdirectoryClone.execute(), "master").get(0);
+
+        commit(origin, "master", "second", content("dir2/file2.txt", "bar"));
+        commit(origin, "master", "third", content("dir1/file3.txt", "moogah"));
+
+        final Git updated = subdirectoryClone.update();
+
+        final List<RevCommit> cloneCommits = getCommits(updated, "master");
+        assertThat(cloneCommits).hasSize(2);
+        // The commits of the first clone are kept, not rewritten again
+        assertThat(cloneCommits.get(1)).isEqualTo(firstClonedCommit);
+
+        final List<RevCommit> originCommits = getCommits(origin, "master");
+        assertClonedCommitData(origin, "dir1", cloneCommits.get(0), originCommits.get(0));
+
+        // Nothing new in the origin, nothing to rewrite
+        assertThat(getCommits(subdirectoryClone.update(), "master")).isEqualTo(cloneCommits);
+    }
+
+    @Test
+    public void updateSubdirectoryCloneWithSpaceInName() throws Exception {
+        final File parentFolder = createTempDirectory();
+
+        final File sourceDir = new File(parentFolder,
+                                        SOURCE_GIT + ".git");
+
+        final File targetDir = new File(parentFolder,
+                                        TARGET_GIT + ".git");
+
+        final Git origin = gitRepo(sourceDir);
+        commit(origin, "master", "first", content("my dir/file.txt", "foo"));
+
+        final SubdirectoryClone subdirectoryClone = new SubdirectoryClone(targetDir,
+                                                                          sourceDir.getAbsoluteFile().toURI().toString(),
+                                                                          "my dir",
+                                                                          singletonList("master"),
+                                                                          CredentialsProvider.getDefault(),
+                                                                          null,
+                                                                          null);
+        final RevCommit firstClonedCommit = getCommits(subdirectoryClone.execute(), "master").get(0);
+
+        commit(origin, "master", "second", content("my dir/file2.txt", "bar"));
+
+        final List<RevCommit> cloneCommits = getCommits(subdirectoryClone.update(), "master");
+        assertThat(cloneCommits).hasSize(2);
+        assertThat(cloneCommits.get(1)).isEqualTo(firstClonedCommit);
+        assertClonedCommitData(origin, "my dir", cloneCommits.get(0), getCommits(origin, "master").get(0));
+    }
+
     @Test
     public void cloneSubdirectoryWithHookDir() throws Exception {
     	final File hooksDir = createTempDirectory();
@@ -66,4 +66,14 @@ public class HiddenBranchRefFilterTest {
                      set.size());
         assertFalse(set.stream().anyMatch(entry -> entry.getKey().equals("PR-1-from/develop-master")));
     }
+
+    @Test
+    public void testForkRefsFiltering() {
+        refs.put("refs/forks/space/fork/heads/master",
+                 ref);
+        final Map<String, Ref> filteredRefs = filter.filter(refs);
+        assertEquals(5,
+                     filteredRefs.size());
+        assertFalse(filteredRefs.containsKey("refs/forks/space/fork/heads/master"));
+    }
 }
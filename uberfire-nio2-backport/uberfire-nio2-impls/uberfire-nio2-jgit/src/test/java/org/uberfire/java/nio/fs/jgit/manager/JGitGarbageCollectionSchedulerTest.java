@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.commands.CreateRepository;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class JGitGarbageCollectionSchedulerTest {
+
+    private JGitGarbageCollectionScheduler scheduler;
+
+    @Before
+    public void setup() {
+        scheduler = new JGitGarbageCollectionScheduler(1,
+                                                       10);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testMaintenancePolicy() {
+        final GC.RepoStatistics statistics = new GC.RepoStatistics();
+        assertEquals(JGitGarbageCollectionScheduler.Maintenance.NONE,
+                     scheduler.choose(statistics,
+                                      100,
+                                      5));
+
+        statistics.numberOfLooseRefs = 10;
+        assertEquals(JGitGarbageCollectionScheduler.Maintenance.PACK_REFS,
+                     scheduler.choose(statistics,
+                                      100,
+                                      5));
+
+        statistics.numberOfLooseObjects = 25;
+        assertEquals(JGitGarbageCollectionScheduler.Maintenance.INCREMENTAL_REPACK,
+                     scheduler.choose(statistics,
+                                      100,
+                                      5));
+
+        statistics.numberOfPackFiles = 5;
+        assertEquals(JGitGarbageCollectionScheduler.Maintenance.FULL_GC,
+                     scheduler.choose(statistics,
+                                      100,
+                                      5));
+
+        statistics.numberOfPackFiles = 0;
+        statistics.numberOfLooseObjects = 100;
+        assertEquals(JGitGarbageCollectionScheduler.Maintenance.FULL_GC,
+                     scheduler.choose(statistics,
+                                      100,
+                                      5));
+    }
+
+    @Test
+    public void testMaintenanceIsCoalescedAndPrioritized() throws InterruptedException {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        final JGitFileSystem blocking = mockFileSystem("blocking",
+                                                       executed,
+                                                       done);
+        final Git blockingGit = blocking.getGit();
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await(5,
+                          TimeUnit.SECONDS);
+            executed.add("blocking");
+            done.countDown();
+            return null;
+        }).when(blockingGit).gc();
+        final JGitFileSystem low = mockFileSystem("low",
+                                                  executed,
+                                                  done);
+        final JGitFileSystem high = mockFileSystem("high",
+                                                   executed,
+                                                   done);
+
+        assertTrue(scheduler.schedule(blocking,
+                                      JGitGarbageCollectionScheduler.Priority.NORMAL));
+        assertTrue(running.await(5,
+                                 TimeUnit.SECONDS));
+
+        //Never two GCs on the same file system
+        assertFalse(scheduler.schedule(blocking,
+                                       JGitGarbageCollectionScheduler.Priority.HIGH));
+
+        assertTrue(scheduler.schedule(low,
+                                      JGitGarbageCollectionScheduler.Priority.LOW));
+        assertTrue(scheduler.schedule(high,
+                                      JGitGarbageCollectionScheduler.Priority.HIGH));
+        assertFalse(scheduler.schedule(low,
+                                       JGitGarbageCollectionScheduler.Priority.LOW));
+        assertEquals(2,
+                     scheduler.getQueueDepth());
+
+        release.countDown();
+        assertTrue(done.await(5,
+                              TimeUnit.SECONDS));
+
+        assertEquals(3,
+                     executed.size());
+        assertEquals("blocking",
+                     executed.get(0));
+        assertEquals("high",
+                     executed.get(1));
+        assertEquals("low",
+                     executed.get(2));
+    }
+
+    @Test
+    public void testGarbageCollectionDoesNotHoldTheFileSystemLock() {
+        final JGitFileSystem fs = mockFileSystem("unlocked",
+                                                 new CopyOnWriteArrayList<>(),
+                                                 new CountDownLatch(1));
+
+        scheduler.maintain(fs);
+
+        verify(fs.getGit()).gc();
+        verify(fs,
+               never()).lock();
+    }
+
+    @Test
+    public void testIncrementalRepackPacksTheLooseObjects() throws IOException {
+        final File dir = Files.createTempDirectory("gc-scheduler").toFile();
+        try {
+            final Git git = new CreateRepository(new File(dir,
+                                                          "repo.git")).execute().get();
+            final Repository repository = git.getRepository();
+            repository.getConfig().setInt(ConfigConstants.CONFIG_GC_SECTION,
+                                          null,
+                                          "auto",
+                                          100);
+            try (final ObjectInserter inserter = repository.newObjectInserter()) {
+                for (int i = 0; i < 25; i++) {
+                    inserter.insert(Constants.OBJ_BLOB,
+                                    ("content " + i).getBytes(StandardCharsets.UTF_8));
+                }
+                inserter.flush();
+            }
+            final JGitFileSystem fs = mock(JGitFileSystem.class);
+            when(fs.getGit()).thenReturn(git);
+
+            assertEquals(JGitGarbageCollectionScheduler.Maintenance.INCREMENTAL_REPACK,
+                         scheduler.maintain(fs));
+
+            final GC.RepoStatistics statistics = new GC(((FileRepository) repository)).getStatistics();
+            assertEquals(0,
+                         statistics.numberOfLooseObjects);
+            assertEquals(25,
+                         statistics.numberOfPackedObjects);
+            assertEquals(1,
+                         scheduler.getExecutedIncrementalRepacks());
+            verify(fs,
+                   never()).lock();
+        } finally {
+            FileUtils.delete(dir,
+                             FileUtils.RECURSIVE);
+        }
+    }
+
+    @Test
+    public void testClosedFileSystemIsSkipped() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final JGitFileSystem fs = mockFileSystem("closed",
+                                                 new CopyOnWriteArrayList<>(),
+                                                 done);
+        when(fs.isOpen()).thenReturn(false);
+
+        assertTrue(scheduler.schedule(fs,
+                                      JGitGarbageCollectionScheduler.Priority.NORMAL));
+
+        //Once the task is done the file system can be scheduled again
+        while (!scheduler.schedule(fs,
+                                   JGitGarbageCollectionScheduler.Priority.NORMAL)) {
+            Thread.sleep(10);
+        }
+        verify(fs.getGit(),
+               never()).gc();
+    }
+
+    private JGitFileSystem mockFileSystem(final String name,
+                                          final List<String> executed,
+                                          final CountDownLatch done) {
+        final JGitFileSystem fs = mock(JGitFileSystem.class);
+        final Git git = mock(Git.class);
+        when(fs.getName()).thenReturn(name);
+        when(fs.isOpen()).thenReturn(true);
+        when(fs.getGit()).thenReturn(git);
+        //Not a file based repository, so the scheduler always runs a full GC
+        when(git.getRepository()).thenReturn(mock(Repository.class));
+        doAnswer(invocation -> {
+            executed.add(name);
+            done.countDown();
+            return null;
+        }).when(git).gc();
+        return fs;
+    }
+}
@@ -328,6 +328,29 @@ public interface PreferenceStore {
      */
     Map<String, PreferenceScopedValue<Object>> searchScoped(Collection<String> keys);
 
+    /**
+     * Retrieves several scoped preferences at once, which keys were passed. Each one from the first scope of
+     * the scopeResolutionStrategy order that has the preference defined. Differently from
+     * {@link #searchScoped(PreferenceScopeResolutionStrategyInfo, Collection)}, each scope is read only once
+     * for all keys, so it should be preferred when loading many preferences together.
+     * @param scopeResolutionStrategyInfo Scope resolution strategy that defines the order on which the
+     * scopes will be searched. Must not be null.
+     * @param keys Preference keys to search. Must not be null.
+     * @return A Map containing all passed preference keys and its preference scoped value, which contains the
+     * preference value and its scope (or null, if the preference does not exist in any scope).
+     */
+    Map<String, PreferenceScopedValue<Object>> getAllScoped(PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                                                            Collection<String> keys);
+
+    /**
+     * Retrieves several scoped preferences at once, which keys were passed. Each one from the first scope of
+     * the default scope resolution strategy order that has the preference defined.
+     * @param keys Preference keys to search. Must not be null.
+     * @return A Map containing all passed preference keys and its preference scoped value, which contains the
+     * preference value and its scope (or null, if the preference does not exist in any scope).
+     */
+    Map<String, PreferenceScopedValue<Object>> getAllScoped(Collection<String> keys);
+
     /**
      * Retrieves all defined preferences from a specific scope.
      * @param scope Scope in which the preferences values will be searched. Must not be null.
@@ -17,10 +17,12 @@
 package org.uberfire.preferences.shared.bean;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.jboss.errai.bus.server.annotations.Remote;
 import org.uberfire.preferences.shared.PreferenceScope;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
+import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 
 /**
  * Service to manage preference beans.
@@ -48,6 +50,28 @@ public interface PreferenceBeanServerStore extends PreferenceBeanStore {
     <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T load(T emptyPortablePreference,
                                                                               PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo);
 
+    /**
+     * Loads several preference beans (and their shared sub-preferences) at once, reading each scope of the
+     * default resolution strategy only once.
+     * @param emptyPortablePreferences Newly created portable instances for the preference beans.
+     * @return A Map of the loaded preference bean portable instances, indexed by their identifiers. Each one is
+     * returned with the scope in which it was found (null scope if the preference was not found in any scope,
+     * and its default value was used).
+     */
+    Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadAll(Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences);
+
+    /**
+     * Loads several preference beans (and their shared sub-preferences) at once, following the passed scope
+     * resolution strategy and reading each of its scopes only once.
+     * @param emptyPortablePreferences Newly created portable instances for the preference beans.
+     * @param scopeResolutionStrategyInfo Custom scope resolution strategy to follow.
+     * @return A Map of the loaded preference bean portable instances, indexed by their identifiers. Each one is
+     * returned with the scope in which it was found (null scope if the preference was not found in any scope,
+     * and its default value was used).
+     */
+    Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadAll(Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                                                                          PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo);
+
     /**
      * Saves all preference data.
      * @param portablePreference Preference instance to be saved.
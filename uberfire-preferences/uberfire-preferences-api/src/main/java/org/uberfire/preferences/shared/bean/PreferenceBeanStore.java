@@ -17,11 +17,13 @@
 package org.uberfire.preferences.shared.bean;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.uberfire.mvp.Command;
 import org.uberfire.mvp.ParameterizedCommand;
 import org.uberfire.preferences.shared.PreferenceScope;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
+import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 
 /**
  * Service to manage preference beans, with server-side and client-side implementations.
@@ -54,6 +56,34 @@ public interface PreferenceBeanStore {
                                                                                  ParameterizedCommand<T> successCallback,
                                                                                  ParameterizedCommand<Throwable> errorCallback);
 
+    /**
+     * Loads several preference beans (and their shared sub-preferences) at once, in a single request
+     * that reads each scope of the resolution strategy only once.
+     * @param emptyPortablePreferences Newly created portable instances for the preference beans.
+     * @param successCallback Callback with a Map of the loaded preference bean portable instances, indexed by
+     * their identifiers. Each one is returned with the scope in which it was found (null scope if the preference
+     * was not found in any scope, and its default value was used).
+     * @param errorCallback Error callback that returns the exception that occurred (if any).
+     */
+    void loadAll(Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                 ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                 ParameterizedCommand<Throwable> errorCallback);
+
+    /**
+     * Loads several preference beans (and their shared sub-preferences) at once, following the passed scope
+     * resolution strategy, in a single request that reads each scope only once.
+     * @param emptyPortablePreferences Newly created portable instances for the preference beans.
+     * @param scopeResolutionStrategyInfo Custom scope resolution strategy to follow.
+     * @param successCallback Callback with a Map of the loaded preference bean portable instances, indexed by
+     * their identifiers. Each one is returned with the scope in which it was found (null scope if the preference
+     * was not found in any scope, and its default value was used).
+     * @param errorCallback Error callback that returns the exception that occurred (if any).
+     */
+    void loadAll(Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                 PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                 ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                 ParameterizedCommand<Throwable> errorCallback);
+
     /**
      * Saves all preference data.
      * @param portablePreference Preference instance to be saved.
@@ -20,9 +20,12 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import javax.enterprise.inject.Instance;
 import javax.enterprise.util.AnnotationLiteral;
 import javax.inject.Inject;
@@ -44,6 +47,7 @@ import org.uberfire.preferences.shared.bean.PreferenceBeanServerStore;
 import org.uberfire.preferences.shared.bean.PreferenceBeanStore;
 import org.uberfire.preferences.shared.bean.PreferenceHierarchyElement;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
+import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 
 /**
  * Backend implementation for {@link PreferenceBeanStore}.
@@ -83,9 +87,15 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
     @Override
     public <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T load(final T emptyPortablePreference,
                                                                                      final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
+        return load(emptyPortablePreference,
+                    identifier -> preferenceStore.get(scopeResolutionStrategyInfo,
+                                                      identifier));
+    }
+
+    private <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T load(final T emptyPortablePreference,
+                                                                                      final Function<String, Object> storedValues) {
         Class<U> clazz = emptyPortablePreference.getPojoClass();
-        T portablePreference = preferenceStore.get(scopeResolutionStrategyInfo,
-                                                   emptyPortablePreference.identifier());
+        T portablePreference = (T) storedValues.apply(emptyPortablePreference.identifier());
         if (portablePreference == null) {
             portablePreference = (T) emptyPortablePreference.defaultValue((U) emptyPortablePreference);
         }
@@ -93,7 +103,7 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
         try {
             return load(clazz,
                         portablePreference,
-                        scopeResolutionStrategyInfo);
+                        storedValues);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
@@ -129,6 +139,71 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
         }
     }
 
+    @Override
+    public Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences) {
+        return loadAll(emptyPortablePreferences,
+                       defaultScopeResolutionStrategy.getInfo());
+    }
+
+    @Override
+    public Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                                                                                 final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
+        final Set<String> identifiers = new LinkedHashSet<>();
+        for (BasePreferencePortable<?> emptyPortablePreference : emptyPortablePreferences) {
+            identifiers.add(emptyPortablePreference.identifier());
+            collectSharedPreferenceIdentifiers(emptyPortablePreference.getPojoClass(),
+                                               identifiers);
+        }
+
+        final Map<String, PreferenceScopedValue<Object>> storedValues = preferenceStore.getAllScoped(scopeResolutionStrategyInfo,
+                                                                                                     identifiers);
+        final Function<String, Object> storedValueProvider = storedValueProvider(storedValues);
+
+        final Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadedPreferences = new HashMap<>();
+        for (BasePreferencePortable emptyPortablePreference : emptyPortablePreferences) {
+            final String identifier = emptyPortablePreference.identifier();
+            final PreferenceScopedValue<Object> storedValue = storedValues.get(identifier);
+            final BasePreferencePortable<?> loadedPreference = load(emptyPortablePreference,
+                                                                    storedValueProvider);
+
+            loadedPreferences.put(identifier,
+                                  new PreferenceScopedValue<>(loadedPreference,
+                                                              storedValue != null ? storedValue.getScope() : null));
+        }
+
+        return loadedPreferences;
+    }
+
+    @Override
+    public void loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                        final ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                        final ParameterizedCommand<Throwable> errorCallback) {
+        loadAll(emptyPortablePreferences,
+                defaultScopeResolutionStrategy.getInfo(),
+                successCallback,
+                errorCallback);
+    }
+
+    @Override
+    public void loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                        final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                        final ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                        final ParameterizedCommand<Throwable> errorCallback) {
+        Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadedPreferences = null;
+        try {
+            loadedPreferences = loadAll(emptyPortablePreferences,
+                                        scopeResolutionStrategyInfo);
+        } catch (Exception e) {
+            if (errorCallback != null) {
+                errorCallback.execute(e);
+            }
+        }
+
+        if (successCallback != null) {
+            successCallback.execute(loadedPreferences);
+        }
+    }
+
     @Override
     public <U extends BasePreference<U>, T extends BasePreferencePortable<U>> void save(final T portablePreference) {
         save(portablePreference,
@@ -272,22 +347,79 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
     public PreferenceHierarchyElement<?> buildHierarchyStructureForPreference(final String identifier,
                                                                               final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
         BasePreferencePortable preference = getPortablePreferenceByIdentifier(identifier);
+
+        final Set<String> identifiers = new LinkedHashSet<>();
+        collectHierarchyIdentifiers(preference,
+                                    identifiers);
+        final Function<String, Object> storedValues = storedValueProvider(preferenceStore.getAllScoped(scopeResolutionStrategyInfo,
+                                                                                                       identifiers));
+
         preference = load(preference,
-                          scopeResolutionStrategyInfo);
+                          storedValues);
 
         final PreferenceHierarchyElement<?> rootElement = buildHierarchyElement(preference,
                                                                                 null,
                                                                                 false,
                                                                                 true,
                                                                                 preference.bundleKey(),
-                                                                                scopeResolutionStrategyInfo);
+                                                                                storedValues);
 
         return rootElement;
     }
 
+    private Function<String, Object> storedValueProvider(final Map<String, PreferenceScopedValue<Object>> storedValues) {
+        return identifier -> {
+            final PreferenceScopedValue<Object> storedValue = storedValues != null ? storedValues.get(identifier) : null;
+            return storedValue != null ? storedValue.getValue() : null;
+        };
+    }
+
+    /**
+     * Collects the identifiers of all persisted preferences needed to build a hierarchy, so that they can be read
+     * together: the root preference, its shared sub-preferences and the preferences annotated as its children.
+     */
+    private void collectHierarchyIdentifiers(final BasePreferencePortable<?> portablePreference,
+                                             final Set<String> identifiers) {
+        if (!identifiers.add(portablePreference.identifier())) {
+            return;
+        }
+
+        collectSharedPreferenceIdentifiers(portablePreference.getPojoClass(),
+                                           identifiers);
+
+        final List<BasePreferencePortable> annotatedChildren = getAnnotatedChildren(portablePreference.identifier());
+        if (annotatedChildren != null) {
+            annotatedChildren.forEach(child -> collectHierarchyIdentifiers(child,
+                                                                           identifiers));
+        }
+    }
+
+    /**
+     * Collects the identifiers of all shared preferences reachable from a preference bean class. Non-shared
+     * sub-preferences are stored inside their parent, but they can have shared preferences of their own.
+     */
+    private void collectSharedPreferenceIdentifiers(final Class<?> pojoClass,
+                                                    final Set<String> identifiers) {
+        for (Field field : pojoClass.getDeclaredFields()) {
+            Property propertyAnnotation = field.getAnnotation(Property.class);
+            if (propertyAnnotation != null && field.getType().isAnnotationPresent(WorkbenchPreference.class)) {
+                if (propertyAnnotation.shared()) {
+                    final BasePreferencePortable<?> sharedPreference = lookupPortablePreference((Class) field.getType());
+                    if (identifiers.add(sharedPreference.identifier())) {
+                        collectSharedPreferenceIdentifiers(field.getType(),
+                                                           identifiers);
+                    }
+                } else {
+                    collectSharedPreferenceIdentifiers(field.getType(),
+                                                       identifiers);
+                }
+            }
+        }
+    }
+
     private <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T load(final Class<U> clazz,
                                                                                       T portablePreference,
-                                                                                      final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) throws IllegalAccessException {
+                                                                                      final Function<String, Object> storedValues) throws IllegalAccessException {
         if (portablePreference == null) {
             portablePreference = lookupPortablePreference(clazz);
         }
@@ -303,13 +435,13 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
 
                     if (shared) {
                         BasePreferencePortable<?> loadedSharedProperty = loadSharedPreference(field,
-                                                                                              scopeResolutionStrategyInfo);
+                                                                                              storedValues);
                         field.set(portablePreference,
                                   loadedSharedProperty);
                     } else {
                         final BasePreferencePortable<?> subPreferenceValue = loadSubPreferenceValue(portablePreference,
                                                                                                     field,
-                                                                                                    scopeResolutionStrategyInfo);
+                                                                                                    storedValues);
                         field.set(portablePreference,
                                   subPreferenceValue);
                     }
@@ -321,20 +453,19 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
     }
 
     private <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T loadSharedPreference(final Field field,
-                                                                                                      final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
+                                                                                                      final Function<String, Object> storedValues) {
         final Class<U> propertyType = (Class<U>) field.getType();
         T loadedPreference;
 
         try {
             T emptyPortablePreference = lookupPortablePreference(propertyType);
-            T portablePreference = preferenceStore.get(scopeResolutionStrategyInfo,
-                                                       emptyPortablePreference.identifier());
+            T portablePreference = (T) storedValues.apply(emptyPortablePreference.identifier());
             if (portablePreference == null) {
                 portablePreference = (T) emptyPortablePreference.defaultValue((U) emptyPortablePreference);
             }
             loadedPreference = load(propertyType,
                                     portablePreference,
-                                    scopeResolutionStrategyInfo);
+                                    storedValues);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -344,12 +475,12 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
 
     private <U extends BasePreference<U>, T extends BasePreferencePortable<U>> T loadSubPreferenceValue(final Object portablePreference,
                                                                                                         final Field field,
-                                                                                                        final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) throws IllegalAccessException {
+                                                                                                        final Function<String, Object> storedValues) throws IllegalAccessException {
         final Class<U> propertyType = (Class<U>) field.getType();
         final T subPreferenceValue = (T) field.get(portablePreference);
         return load(propertyType,
                     subPreferenceValue,
-                    scopeResolutionStrategyInfo);
+                    storedValues);
     }
 
     private <U extends BasePreference<U>, T extends BasePreferencePortable<U>> void save(final Class<U> clazz,
@@ -445,7 +576,7 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
                                                                     final boolean shared,
                                                                     final boolean root,
                                                                     final String bundleKey,
-                                                                    final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
+                                                                    final Function<String, Object> storedValues) {
         PreferenceHierarchyElement<T> hierarchyElement = new PreferenceHierarchyElement<>(UUID.randomUUID().toString(),
                                                                                           portablePreference,
                                                                                           shared,
@@ -454,7 +585,7 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
 
         buildHierarchyElementForAnnotatedChildren(portablePreference,
                                                   hierarchyElement,
-                                                  scopeResolutionStrategyInfo);
+                                                  storedValues);
 
         try {
             hierarchyElement.setPortablePreference(portablePreference);
@@ -480,7 +611,7 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
                                                                                                  propertyAnnotation.shared(),
                                                                                                  false,
                                                                                                  propertyBundleKey,
-                                                                                                 scopeResolutionStrategyInfo);
+                                                                                                 storedValues);
 
                         hierarchyElement.getChildren().add(childElement);
                     } else {
@@ -507,18 +638,18 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanServerStore {
 
     private <T> void buildHierarchyElementForAnnotatedChildren(final BasePreferencePortable<T> portablePreference,
                                                                final PreferenceHierarchyElement<T> hierarchyElement,
-                                                               final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo) {
+                                                               final Function<String, Object> storedValues) {
         final List<BasePreferencePortable> annotatedChildren = getAnnotatedChildren(portablePreference.identifier());
         if (annotatedChildren != null) {
             annotatedChildren.forEach(childPreference -> {
                 final BasePreferencePortable<?> loadedChild = load(childPreference,
-                                                                   scopeResolutionStrategyInfo);
+                                                                   storedValues);
                 final PreferenceHierarchyElement<?> childElement = buildHierarchyElement(loadedChild,
                                                                                          hierarchyElement,
                                                                                          false,
                                                                                          true,
                                                                                          childPreference.bundleKey(),
-                                                                                         scopeResolutionStrategyInfo);
+                                                                                         storedValues);
 
                 hierarchyElement.getChildren().add(childElement);
             });
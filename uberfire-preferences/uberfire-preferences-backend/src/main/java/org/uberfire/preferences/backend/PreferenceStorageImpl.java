@@ -21,24 +21,35 @@ import static org.uberfire.java.nio.file.Files.walkFileTree;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.jboss.errai.marshalling.server.ServerMarshalling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.annotations.Customizable;
 import org.uberfire.backend.server.io.object.ObjectStorage;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
+import org.uberfire.commons.cluster.ClusterParameters;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.SimpleFileVisitor;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+import org.uberfire.preferences.backend.PreferenceValueCache.CachedValue;
 import org.uberfire.preferences.shared.PreferenceScope;
 import org.uberfire.preferences.shared.PreferenceScopeFactory;
 import org.uberfire.preferences.shared.PreferenceScopeTypes;
@@ -48,6 +59,9 @@ import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 import org.uberfire.preferences.shared.impl.exception.InvalidPreferenceScopeException;
 import org.uberfire.rpc.SessionInfo;
 import org.uberfire.spaces.SpacesAPI;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceRenamed;
 
 @ApplicationScoped
 public class PreferenceStorageImpl implements PreferenceStorage {
@@ -68,6 +82,12 @@ public class PreferenceStorageImpl implements PreferenceStorage {
 
     private ObjectStorage objectStorage;
 
+    private WatchEventRouter watchEventRouter;
+
+    private final PreferenceValueCache valueCache = new PreferenceValueCache();
+
+    private WatchEventRouter.Subscription subscription;
+
     protected PreferenceStorageImpl() {
     }
 
@@ -77,13 +97,15 @@ public class PreferenceStorageImpl implements PreferenceStorage {
                                  @Customizable final PreferenceScopeTypes scopeTypes,
                                  final PreferenceScopeFactory scopeFactory,
                                  final ObjectStorage objectStorage,
-                                 final SpacesAPI spaces) {
+                                 final SpacesAPI spaces,
+                                 final WatchEventRouter watchEventRouter) {
         this.ioService = ioService;
         this.sessionInfo = sessionInfo;
         this.scopeTypes = scopeTypes;
         this.scopeFactory = scopeFactory;
         this.objectStorage = objectStorage;
         this.spaces = spaces;
+        this.watchEventRouter = watchEventRouter;
     }
 
     @PostConstruct
@@ -91,6 +113,62 @@ public class PreferenceStorageImpl implements PreferenceStorage {
         objectStorage.init(spaces.resolveFileSystemURI(SpacesAPI.Scheme.GIT,
                                                        SpacesAPI.DEFAULT_SPACE,
                                                        "preferences"));
+        watchPreferencesFileSystem();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Cluster peers commit preferences directly into the shared file system, so cached values for the
+     * changed keys must also be evicted when the file system notifies a change. Local changes are already
+     * evicted by {@link #write(PreferenceScope, String, Object)} and {@link #delete(PreferenceScope, String)}.
+     * The preferences file system belongs to the configIO service, so it is registered with the
+     * {@link WatchEventRouter} before subscribing to it.
+     */
+    private void watchPreferencesFileSystem() {
+        if (!valueCache.isEnabled() || !new ClusterParameters().isAppFormerClustered()) {
+            return;
+        }
+
+        try {
+            final Path root = objectStorage.getPath("/");
+            watchEventRouter.watch(root.getFileSystem());
+            subscription = watchEventRouter.subscribe(root.toUri().toString(),
+                                                      this::invalidateCachedValues,
+                                                      valueCache::invalidateAll);
+        } catch (final Exception e) {
+            logger.warn("Preferences file system can't be watched, the preference value cache will be disabled.",
+                        e);
+            valueCache.disable();
+        }
+    }
+
+    private void invalidateCachedValues(final ResourceBatchChangesEvent event) {
+        for (final Map.Entry<org.uberfire.backend.vfs.Path, Collection<ResourceChange>> entry : event.getBatch().entrySet()) {
+            invalidateCachedValue(entry.getKey());
+            for (final ResourceChange change : entry.getValue()) {
+                if (change instanceof ResourceRenamed) {
+                    invalidateCachedValue(((ResourceRenamed) change).getDestinationPath());
+                }
+            }
+        }
+    }
+
+    private void invalidateCachedValue(final org.uberfire.backend.vfs.Path path) {
+        final String fileName = path.getFileName();
+        if (fileName != null && fileName.endsWith(FILE_FORMAT)) {
+            valueCache.invalidate(fileName.substring(0,
+                                                     fileName.length() - FILE_FORMAT_SIZE));
+        }
+    }
+
+    public PreferenceValueCache getValueCache() {
+        return valueCache;
     }
 
     @Override
@@ -125,46 +203,174 @@ public class PreferenceStorageImpl implements PreferenceStorage {
     @Override
     public <T> T read(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
                       final String key) {
-        for (PreferenceScope preferenceScope : scopeResolutionStrategyInfo.order()) {
-            T result = read(preferenceScope,
-                            key);
-            if (result != null) {
-                return result;
-            }
-        }
-
-        return null;
+        final PreferenceScopedValue<T> scopedValue = readWithScope(scopeResolutionStrategyInfo,
+                                                                   key);
+        return scopedValue != null ? scopedValue.getValue() : null;
     }
 
     @Override
     public <T> PreferenceScopedValue<T> readWithScope(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
                                                       final String key) {
-        for (PreferenceScope scope : scopeResolutionStrategyInfo.order()) {
+        final List<PreferenceScope> order = scopeResolutionStrategyInfo.order();
+        final List<String> scopeChain = order.stream()
+                .map(this::buildScopePath)
+                .collect(Collectors.toList());
+
+        final CachedValue cachedValue = valueCache.get(key,
+                                                       scopeChain);
+        if (cachedValue != null) {
+            if (cachedValue.getContent() == null) {
+                return null;
+            }
+            return new PreferenceScopedValue<>((T) ServerMarshalling.fromJSON(cachedValue.getContent()),
+                                               scopeFactory.cloneScope(cachedValue.getScope()));
+        }
+
+        final long version = valueCache.version(key);
+        for (PreferenceScope scope : order) {
             T result = read(scope,
                             key);
             if (result != null) {
+                if (valueCache.isEnabled()) {
+                    valueCache.put(key,
+                                   scopeChain,
+                                   new CachedValue(scopeChain,
+                                                   ServerMarshalling.toJSON(result),
+                                                   scopeFactory.cloneScope(scope)),
+                                   version);
+                }
                 return new PreferenceScopedValue<>(result,
                                                    scopeFactory.cloneScope(scope));
             }
         }
 
+        valueCache.put(key,
+                       scopeChain,
+                       new CachedValue(scopeChain,
+                                       null,
+                                       null),
+                       version);
+
         return null;
     }
 
+    @Override
+    public <T> Map<String, PreferenceScopedValue<T>> readAllWithScope(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                                                                      final Collection<String> keys) {
+        final List<PreferenceScope> order = scopeResolutionStrategyInfo.order();
+        final List<String> scopeChain = order.stream()
+                .map(this::buildScopePath)
+                .collect(Collectors.toList());
+
+        final Map<String, PreferenceScopedValue<T>> values = new HashMap<>();
+        final Map<String, Long> pendingKeys = new HashMap<>();
+
+        for (String key : keys) {
+            final CachedValue cachedValue = valueCache.get(key,
+                                                           scopeChain);
+            if (cachedValue == null) {
+                pendingKeys.put(key,
+                                valueCache.version(key));
+            } else if (cachedValue.getContent() != null) {
+                values.put(key,
+                           new PreferenceScopedValue<>((T) ServerMarshalling.fromJSON(cachedValue.getContent()),
+                                                       scopeFactory.cloneScope(cachedValue.getScope())));
+            } else {
+                values.put(key,
+                           null);
+            }
+        }
+
+        for (PreferenceScope scope : order) {
+            if (pendingKeys.isEmpty()) {
+                break;
+            }
+
+            final Set<String> scopeKeys = listScopeKeys(scope);
+            for (String key : new ArrayList<>(pendingKeys.keySet())) {
+                if (!scopeKeys.contains(key)) {
+                    continue;
+                }
+
+                final T result = read(scope,
+                                      key);
+                if (result != null) {
+                    final long version = pendingKeys.remove(key);
+                    if (valueCache.isEnabled()) {
+                        valueCache.put(key,
+                                       scopeChain,
+                                       new CachedValue(scopeChain,
+                                                       ServerMarshalling.toJSON(result),
+                                                       scopeFactory.cloneScope(scope)),
+                                       version);
+                    }
+                    values.put(key,
+                               new PreferenceScopedValue<>(result,
+                                                           scopeFactory.cloneScope(scope)));
+                }
+            }
+        }
+
+        pendingKeys.forEach((key, version) -> {
+            valueCache.put(key,
+                           scopeChain,
+                           new CachedValue(scopeChain,
+                                           null,
+                                           null),
+                           version);
+            values.put(key,
+                       null);
+        });
+
+        return values;
+    }
+
+    /**
+     * Lists the preference keys stored directly under a scope, without walking its child scopes.
+     */
+    private Set<String> listScopeKeys(final PreferenceScope scope) {
+        final Set<String> keys = new HashSet<>();
+        final Path path = objectStorage.getPath(buildScopePath(scope));
+
+        if (ioService.exists(path)) {
+            try (DirectoryStream<Path> stream = ioService.newDirectoryStream(path)) {
+                for (Path file : stream) {
+                    final String fileName = file.getFileName().toString();
+                    if (fileName.endsWith(FILE_FORMAT)) {
+                        keys.add(fileName.substring(0,
+                                                    fileName.length() - FILE_FORMAT_SIZE));
+                    }
+                }
+            }
+        }
+
+        return keys;
+    }
+
     @Override
     public void write(final PreferenceScope preferenceScope,
                       final String key,
                       final Object value) {
-        objectStorage.write(buildScopedPreferencePath(preferenceScope,
-                                                      key),
-                            value);
+        try {
+            objectStorage.write(buildScopedPreferencePath(preferenceScope,
+                                                          key),
+                                value);
+        } finally {
+            valueCache.invalidate(buildScopePath(preferenceScope),
+                                  key);
+        }
     }
 
     @Override
     public void delete(final PreferenceScope preferenceScope,
                        final String key) {
-        objectStorage.delete(buildScopedPreferencePath(preferenceScope,
-                                                       key));
+        try {
+            objectStorage.delete(buildScopedPreferencePath(preferenceScope,
+                                                           key));
+        } finally {
+            valueCache.invalidate(buildScopePath(preferenceScope),
+                                  key);
+        }
     }
 
     @Override
@@ -326,6 +326,19 @@ public class PreferenceStoreImpl implements PreferenceStore {
                             keys);
     }
 
+    @Override
+    public Map<String, PreferenceScopedValue<Object>> getAllScoped(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                                                                   final Collection<String> keys) {
+        return storage.readAllWithScope(scopeResolutionStrategyInfo,
+                                        keys);
+    }
+
+    @Override
+    public Map<String, PreferenceScopedValue<Object>> getAllScoped(final Collection<String> keys) {
+        return getAllScoped(defaultScopeResolutionStrategy.getInfo(),
+                            keys);
+    }
+
     @Override
     public Map<String, Object> all(final PreferenceScope scope) {
         return search(scope,
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.preferences.backend;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.uberfire.preferences.shared.PreferenceScope;
+
+/**
+ * Cache of preference values already resolved through a scope chain. Entries are indexed by preference
+ * key and then by the scope chain used to resolve them, so that a write or delete on a single scope
+ * only evicts the chains that include that scope. When the cache is full, the least recently used value
+ * is evicted.
+ * <p>
+ * Values are kept in their marshalled form, so every hit returns a fresh instance that callers are free
+ * to modify.
+ */
+public class PreferenceValueCache {
+
+    static final String CACHE_SIZE_PROPERTY = "org.uberfire.preferences.cache.size";
+
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private final int maxSize;
+
+    private volatile boolean enabled;
+
+    private final Map<String, KeyEntries> entriesByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Every cached value in access order, guarded by its own lock. It is only changed while holding the
+     * lock of the key in {@link #entriesByKey}, except when picking the values to evict.
+     */
+    private final LinkedHashMap<ValueKey, CachedValue> accessOrder = new LinkedHashMap<>(16,
+                                                                                        0.75f,
+                                                                                        true);
+
+    /**
+     * Source of the key versions. Keys without values are dropped, and are given the latest version when
+     * they come back, so a value read before a write is still rejected after its key was dropped.
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PreferenceValueCache() {
+        this(Integer.parseInt(System.getProperty(CACHE_SIZE_PROPERTY,
+                                                 String.valueOf(DEFAULT_CACHE_SIZE))));
+    }
+
+    public PreferenceValueCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.enabled = maxSize > 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void disable() {
+        enabled = false;
+        clear();
+    }
+
+    /**
+     * Returns the current version of a preference key. It must be obtained before reading the value from the
+     * storage and passed to {@link #put(String, List, CachedValue, long)}, so that a value read concurrently
+     * with a write is never cached.
+     */
+    public long version(final String key) {
+        final KeyEntries keyEntries = entriesByKey.get(key);
+        return keyEntries != null ? keyEntries.version : versions.get();
+    }
+
+    public CachedValue get(final String key,
+                           final List<String> scopeChain) {
+        final KeyEntries keyEntries = entriesByKey.get(key);
+        final CachedValue value = keyEntries != null ? keyEntries.values.get(chainId(scopeChain)) : null;
+
+        if (value != null) {
+            hits.incrementAndGet();
+            synchronized (accessOrder) {
+                accessOrder.get(new ValueKey(key,
+                                             chainId(scopeChain)));
+            }
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return value;
+    }
+
+    public void put(final String key,
+                    final List<String> scopeChain,
+                    final CachedValue value,
+                    final long version) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final String chainId = chainId(scopeChain);
+        entriesByKey.compute(key,
+                             (k, existing) -> {
+                                 final KeyEntries keyEntries = existing != null ? existing : new KeyEntries(versions.get());
+                                 if (keyEntries.version == version) {
+                                     keyEntries.values.put(chainId,
+                                                           value);
+                                     synchronized (accessOrder) {
+                                         accessOrder.put(new ValueKey(key,
+                                                                      chainId),
+                                                         value);
+                                     }
+                                 }
+                                 return keyEntries.values.isEmpty() ? null : keyEntries;
+                             });
+
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Evicts the values of a key resolved through any scope chain that includes the given scope.
+     */
+    public void invalidate(final String scopePath,
+                           final String key) {
+        final long version = versions.incrementAndGet();
+        entriesByKey.computeIfPresent(key,
+                                      (k, keyEntries) -> {
+                                          keyEntries.version = version;
+                                          keyEntries.values.entrySet().removeIf(entry -> {
+                                              if (entry.getValue().getScopeChain().contains(scopePath)) {
+                                                  forget(key,
+                                                         entry.getKey(),
+                                                         entry.getValue());
+                                                  evictions.incrementAndGet();
+                                                  return true;
+                                              }
+                                              return false;
+                                          });
+                                          return keyEntries.values.isEmpty() ? null : keyEntries;
+                                      });
+    }
+
+    /**
+     * Evicts the values of a key resolved through any scope chain.
+     */
+    public void invalidate(final String key) {
+        versions.incrementAndGet();
+        entriesByKey.computeIfPresent(key,
+                                      (k, keyEntries) -> {
+                                          keyEntries.values.forEach((chainId, value) -> forget(key,
+                                                                                               chainId,
+                                                                                               value));
+                                          evictions.addAndGet(keyEntries.values.size());
+                                          return null;
+                                      });
+    }
+
+    /**
+     * Evicts the values of every key, including those being read.
+     */
+    public void invalidateAll() {
+        entriesByKey.keySet().forEach(this::invalidate);
+    }
+
+    public void clear() {
+        // versions are kept, so that pending reads started before the clear are still checked
+        entriesByKey.keySet().forEach(key -> entriesByKey.computeIfPresent(key,
+                                                                           (k, keyEntries) -> {
+                                                                               keyEntries.values.forEach((chainId, value) -> forget(key,
+                                                                                                                                    chainId,
+                                                                                                                                    value));
+                                                                               return null;
+                                                                           }));
+    }
+
+    public int size() {
+        synchronized (accessOrder) {
+            return accessOrder.size();
+        }
+    }
+
+    //Package private to enable testing
+    int keyCount() {
+        return entriesByKey.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        final long hitCount = hits.get();
+        final long requestCount = hitCount + misses.get();
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final List<Map.Entry<ValueKey, CachedValue>> evicted = new ArrayList<>();
+        synchronized (accessOrder) {
+            final Iterator<Map.Entry<ValueKey, CachedValue>> eldest = accessOrder.entrySet().iterator();
+            while (accessOrder.size() > maxSize && eldest.hasNext()) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+
+        // the key lock is taken out of the access order lock, puts and invalidations take them the other way around
+        for (final Map.Entry<ValueKey, CachedValue> entry : evicted) {
+            final ValueKey valueKey = entry.getKey();
+            entriesByKey.computeIfPresent(valueKey.key,
+                                          (k, keyEntries) -> {
+                                              // the value may have been replaced since it was picked
+                                              if (keyEntries.values.remove(valueKey.chainId,
+                                                                           entry.getValue())) {
+                                                  evictions.incrementAndGet();
+                                              }
+                                              return keyEntries.values.isEmpty() ? null : keyEntries;
+                                          });
+        }
+    }
+
+    private void forget(final String key,
+                        final String chainId,
+                        final CachedValue value) {
+        synchronized (accessOrder) {
+            accessOrder.remove(new ValueKey(key,
+                                            chainId),
+                               value);
+        }
+    }
+
+    private String chainId(final List<String> scopeChain) {
+        return String.join("|",
+                           scopeChain);
+    }
+
+    private static class KeyEntries {
+
+        // only changed while holding the lock of the key
+        private volatile long version;
+
+        private final Map<String, CachedValue> values = new ConcurrentHashMap<>();
+
+        private KeyEntries(final long version) {
+            this.version = version;
+        }
+    }
+
+    private static class ValueKey {
+
+        private final String key;
+
+        private final String chainId;
+
+        private ValueKey(final String key,
+                         final String chainId) {
+            this.key = key;
+            this.chainId = chainId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ValueKey)) {
+                return false;
+            }
+            final ValueKey valueKey = (ValueKey) o;
+            return key.equals(valueKey.key) && chainId.equals(valueKey.chainId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key,
+                                chainId);
+        }
+    }
+
+    /**
+     * A value resolved through a scope chain. Unresolved values are cached as well, with a null content.
+     */
+    public static class CachedValue {
+
+        private final List<String> scopeChain;
+
+        private final String content;
+
+        private final PreferenceScope scope;
+
+        public CachedValue(final List<String> scopeChain,
+                           final String content,
+                           final PreferenceScope scope) {
+            this.scopeChain = scopeChain;
+            this.content = content;
+            this.scope = scope;
+        }
+
+        public List<String> getScopeChain() {
+            return scopeChain;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public PreferenceScope getScope() {
+            return scope;
+        }
+    }
+}
@@ -18,10 +18,14 @@ package org.uberfire.preferences.backend;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.uberfire.preferences.shared.PreferenceScope;
 import org.uberfire.preferences.shared.PreferenceScopeResolutionStrategy;
 import org.uberfire.preferences.shared.PreferenceStore;
@@ -30,6 +34,7 @@ import org.uberfire.preferences.shared.bean.BasePreference;
 import org.uberfire.preferences.shared.bean.BasePreferencePortable;
 import org.uberfire.preferences.shared.bean.PreferenceHierarchyElement;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
+import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -171,6 +176,61 @@ public class PreferenceBeanStoreImplTest {
                      loadedMySharedPreference2);
     }
 
+    @Test
+    public void loadAllTest() {
+        MyPreference myPreference = new MyPreferencePortableGeneratedImpl();
+        MySharedPreference mySharedPreference = new MySharedPreferencePortableGeneratedImpl();
+        PreferenceScope scope = mock(PreferenceScope.class);
+
+        final Map<String, PreferenceScopedValue<Object>> storedValues = new HashMap<>();
+        storedValues.put(MyPreference.class.getSimpleName(),
+                         new PreferenceScopedValue<>(myPreference,
+                                                     scope));
+        storedValues.put(MySharedPreference.class.getSimpleName(),
+                         new PreferenceScopedValue<>(mySharedPreference,
+                                                     scope));
+        storedValues.put(MySharedPreference2.class.getSimpleName(),
+                         null);
+        doReturn(storedValues).when(preferenceStore).getAllScoped(any(PreferenceScopeResolutionStrategyInfo.class),
+                                                                  anyCollection());
+
+        final List<BasePreferencePortable<? extends BasePreference<?>>> emptyPreferences = new ArrayList<>();
+        emptyPreferences.add(new MyPreferencePortableGeneratedImpl());
+        emptyPreferences.add(new MySharedPreference2PortableGeneratedImpl());
+
+        final Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> loadedPreferences = preferenceBeanStoreImpl.loadAll(emptyPreferences);
+
+        final ArgumentCaptor<Collection> identifiersCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(preferenceStore).getAllScoped(eq(scopeInfo),
+                                             identifiersCaptor.capture());
+        verify(preferenceStore,
+               never()).get(any(PreferenceScopeResolutionStrategyInfo.class),
+                            anyString());
+
+        final Collection<String> identifiers = identifiersCaptor.getValue();
+        assertEquals(3,
+                     identifiers.size());
+        assertTrue(identifiers.contains(MyPreference.class.getSimpleName()));
+        assertTrue(identifiers.contains(MySharedPreference.class.getSimpleName()));
+        assertTrue(identifiers.contains(MySharedPreference2.class.getSimpleName()));
+
+        assertEquals(2,
+                     loadedPreferences.size());
+
+        final PreferenceScopedValue<BasePreferencePortable<?>> loadedMyPreference = loadedPreferences.get(MyPreference.class.getSimpleName());
+        assertEquals(myPreference,
+                     loadedMyPreference.getValue());
+        assertSame(scope,
+                   loadedMyPreference.getScope());
+        assertEquals(mySharedPreference,
+                     ((MyPreference) loadedMyPreference.getValue()).mySharedPreference);
+
+        final PreferenceScopedValue<BasePreferencePortable<?>> loadedMySharedPreference2 = loadedPreferences.get(MySharedPreference2.class.getSimpleName());
+        assertEquals(new MySharedPreference2PortableGeneratedImpl(),
+                     loadedMySharedPreference2.getValue());
+        assertNull(loadedMySharedPreference2.getScope());
+    }
+
     @Test
     public void saveTest() {
         final MyPreferencePortableGeneratedImpl myPreference = preferenceBeanStoreImpl.load(new MyPreferencePortableGeneratedImpl());
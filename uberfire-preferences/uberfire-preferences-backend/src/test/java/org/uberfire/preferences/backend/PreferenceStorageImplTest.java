@@ -18,7 +18,9 @@ package org.uberfire.preferences.backend;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 
 import org.jboss.errai.marshalling.server.MappingContextSingleton;
 import org.junit.After;
@@ -26,6 +28,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.uberfire.backend.server.io.object.ObjectStorage;
 import org.uberfire.backend.server.io.object.ObjectStorageImpl;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.backend.server.spaces.SpacesAPIImpl;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
@@ -95,7 +98,8 @@ public class PreferenceStorageImplTest {
                                                                         scopeTypes,
                                                                         scopeFactory,
                                                                         objectStorage,
-                                                                        new SpacesAPIImpl());
+                                                                        new SpacesAPIImpl(),
+                                                                        new WatchEventRouter());
         preferenceStorageServiceBackendImpl.init();
 
         userEntireApplicationScope = scopeFactory.createScope(userScope,
@@ -486,6 +490,151 @@ public class PreferenceStorageImplTest {
         return new SessionInfoMock(userScopeKey);
     }
 
+    @Test
+    public void resolvedValueIsCachedTest() {
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "global_value");
+        final PreferenceValueCache cache = preferenceStorageServiceBackendImpl.getValueCache();
+
+        final PreferenceScopedValue<String> value1 = preferenceStorageServiceBackendImpl.readWithScope(scopeResolutionStrategyInfo,
+                                                                                                       "my.preference.key");
+        final PreferenceScopedValue<String> value2 = preferenceStorageServiceBackendImpl.readWithScope(scopeResolutionStrategyInfo,
+                                                                                                       "my.preference.key");
+
+        assertEquals(value1,
+                     value2);
+        assertEquals(1,
+                     cache.getMissCount());
+        assertEquals(1,
+                     cache.getHitCount());
+        assertEquals(0.5,
+                     cache.getHitRatio(),
+                     0.0);
+    }
+
+    @Test
+    public void cachedValueIsACopyTest() {
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  new CustomObject(61L,
+                                                                   "some text"));
+
+        final CustomObject value1 = preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                                             "my.preference.key");
+        value1.text = "changed text";
+        final CustomObject value2 = preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                                             "my.preference.key");
+
+        assertNotSame(value1,
+                      value2);
+        assertEquals("some text",
+                     value2.text);
+    }
+
+    @Test
+    public void writeInvalidatesCachedValueTest() {
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "global_value");
+        assertEquals("global_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "user_value");
+
+        assertEquals("user_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+    }
+
+    @Test
+    public void deleteInvalidatesCachedValueTest() {
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "user_value");
+        assertEquals("user_value",
+                     preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                              "my.preference.key"));
+
+        preferenceStorageServiceBackendImpl.delete(userEntireApplicationScope,
+                                                   "my.preference.key");
+
+        assertNull(preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                            "my.preference.key"));
+    }
+
+    @Test
+    public void writeOnUnrelatedScopeKeepsCachedValueTest() {
+        final PreferenceScope otherUserScope = scopeFactory.createScope(new PreferenceScopeImpl(userScopeType,
+                                                                                                "other-user",
+                                                                                                null),
+                                                                        entireApplicationScope);
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "user_value");
+        preferenceStorageServiceBackendImpl.read(scopeResolutionStrategyInfo,
+                                                 "my.preference.key");
+
+        preferenceStorageServiceBackendImpl.write(otherUserScope,
+                                                  "my.preference.key",
+                                                  "other_user_value");
+
+        assertEquals(1,
+                     preferenceStorageServiceBackendImpl.getValueCache().size());
+    }
+
+    @Test
+    public void readAllWithScopeTest() {
+        preferenceStorageServiceBackendImpl.write(userEntireApplicationScope,
+                                                  "my.first.key",
+                                                  "user_value");
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.first.key",
+                                                  "global_value");
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.second.key",
+                                                  "global_value");
+
+        final Map<String, PreferenceScopedValue<String>> values = preferenceStorageServiceBackendImpl.readAllWithScope(scopeResolutionStrategyInfo,
+                                                                                                                      Arrays.asList("my.first.key",
+                                                                                                                                    "my.second.key",
+                                                                                                                                    "my.nonexistent.key"));
+
+        assertEquals(3,
+                     values.size());
+        assertEquals("user_value",
+                     values.get("my.first.key").getValue());
+        assertEquals(userScopeKey,
+                     values.get("my.first.key").getScope().key());
+        assertEquals("global_value",
+                     values.get("my.second.key").getValue());
+        assertEquals(allUsersScopeKey,
+                     values.get("my.second.key").getScope().key());
+        assertTrue(values.containsKey("my.nonexistent.key"));
+        assertNull(values.get("my.nonexistent.key"));
+    }
+
+    @Test
+    public void readAllWithScopeSharesCacheTest() {
+        preferenceStorageServiceBackendImpl.write(allUsersEntireApplicationScope,
+                                                  "my.preference.key",
+                                                  "global_value");
+        preferenceStorageServiceBackendImpl.readAllWithScope(scopeResolutionStrategyInfo,
+                                                             Arrays.asList("my.preference.key",
+                                                                           "my.nonexistent.key"));
+
+        final PreferenceScopedValue<String> value = preferenceStorageServiceBackendImpl.readWithScope(scopeResolutionStrategyInfo,
+                                                                                                      "my.preference.key");
+
+        assertEquals("global_value",
+                     value.getValue());
+        assertEquals(1,
+                     preferenceStorageServiceBackendImpl.getValueCache().getHitCount());
+    }
+
     private FileSystem mockFileSystem() {
         return fileSystemTestingUtils.getFileSystem();
     }
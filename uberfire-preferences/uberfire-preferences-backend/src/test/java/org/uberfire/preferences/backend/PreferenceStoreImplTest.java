@@ -29,6 +29,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.uberfire.backend.server.io.object.ObjectStorage;
 import org.uberfire.backend.server.io.object.ObjectStorageImpl;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.backend.server.spaces.SpacesAPIImpl;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileSystem;
@@ -122,7 +123,8 @@ public class PreferenceStoreImplTest {
                                                 scopeTypes,
                                                 scopeFactory,
                                                 objectStorage,
-                                                new SpacesAPIImpl()));
+                                                new SpacesAPIImpl(),
+                                                new WatchEventRouter()));
         storage.init();
 
         preferenceStore = spy(new PreferenceStoreImpl(storage,
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.preferences.backend;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.preferences.backend.PreferenceValueCache.CachedValue;
+
+import static org.junit.Assert.*;
+
+public class PreferenceValueCacheTest {
+
+    private static final List<String> USER_CHAIN = Arrays.asList("/config/user/admin/",
+                                                                 "/config/all-users/all-users/");
+
+    private static final List<String> OTHER_USER_CHAIN = Arrays.asList("/config/user/other/",
+                                                                       "/config/all-users/all-users/");
+
+    private PreferenceValueCache cache;
+
+    @Before
+    public void setup() {
+        cache = new PreferenceValueCache(3);
+    }
+
+    @Test
+    public void putAndGetTest() {
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"value\""),
+                  cache.version("key"));
+
+        assertEquals("\"value\"",
+                     cache.get("key",
+                               USER_CHAIN).getContent());
+        assertNull(cache.get("key",
+                             OTHER_USER_CHAIN));
+        assertEquals(1,
+                     cache.getHitCount());
+        assertEquals(1,
+                     cache.getMissCount());
+    }
+
+    @Test
+    public void valueReadBeforeAWriteIsNotCachedTest() {
+        final long version = cache.version("key");
+
+        cache.invalidate("/config/user/admin/",
+                         "key");
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"stale\""),
+                  version);
+
+        assertNull(cache.get("key",
+                             USER_CHAIN));
+        assertEquals(0,
+                     cache.size());
+    }
+
+    @Test
+    public void invalidateOnlyEvictsChainsContainingTheScopeTest() {
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"user\""),
+                  cache.version("key"));
+        cache.put("key",
+                  OTHER_USER_CHAIN,
+                  value(OTHER_USER_CHAIN,
+                        "\"other\""),
+                  cache.version("key"));
+
+        cache.invalidate("/config/user/admin/",
+                         "key");
+
+        assertNull(cache.get("key",
+                             USER_CHAIN));
+        assertNotNull(cache.get("key",
+                                OTHER_USER_CHAIN));
+
+        cache.invalidate("/config/all-users/all-users/",
+                         "key");
+
+        assertNull(cache.get("key",
+                             OTHER_USER_CHAIN));
+        assertEquals(2,
+                     cache.getEvictionCount());
+    }
+
+    @Test
+    public void cacheIsBoundedTest() {
+        for (int i = 0; i < 4; i++) {
+            cache.put("key" + i,
+                      USER_CHAIN,
+                      value(USER_CHAIN,
+                            null),
+                      cache.version("key" + i));
+        }
+
+        assertEquals(3,
+                     cache.size());
+        assertEquals(3,
+                     cache.keyCount());
+        assertEquals(1,
+                     cache.getEvictionCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedValueIsEvictedTest() {
+        for (int i = 0; i < 3; i++) {
+            cache.put("key" + i,
+                      USER_CHAIN,
+                      value(USER_CHAIN,
+                            null),
+                      cache.version("key" + i));
+        }
+        cache.get("key0",
+                  USER_CHAIN);
+
+        cache.put("key3",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        null),
+                  cache.version("key3"));
+
+        assertNotNull(cache.get("key0",
+                                USER_CHAIN));
+        assertNull(cache.get("key1",
+                             USER_CHAIN));
+        assertNotNull(cache.get("key2",
+                                USER_CHAIN));
+        assertNotNull(cache.get("key3",
+                                USER_CHAIN));
+    }
+
+    @Test
+    public void keysWithoutValuesAreDroppedTest() {
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"user\""),
+                  cache.version("key"));
+        cache.put("key",
+                  OTHER_USER_CHAIN,
+                  value(OTHER_USER_CHAIN,
+                        "\"other\""),
+                  cache.version("key"));
+
+        cache.invalidate("/config/user/admin/",
+                         "key");
+        assertEquals(1,
+                     cache.keyCount());
+
+        cache.invalidate("/config/all-users/all-users/",
+                         "key");
+        assertEquals(0,
+                     cache.keyCount());
+        assertEquals(0,
+                     cache.size());
+    }
+
+    @Test
+    public void valueReadBeforeAWriteIsNotCachedAfterItsKeyIsDroppedTest() {
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"value\""),
+                  cache.version("key"));
+        final long version = cache.version("key");
+
+        cache.invalidate("key");
+        assertEquals(0,
+                     cache.keyCount());
+
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"stale\""),
+                  version);
+
+        assertNull(cache.get("key",
+                             USER_CHAIN));
+    }
+
+    @Test
+    public void disabledCacheTest() {
+        cache.disable();
+        cache.put("key",
+                  USER_CHAIN,
+                  value(USER_CHAIN,
+                        "\"value\""),
+                  cache.version("key"));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("key",
+                             USER_CHAIN));
+    }
+
+    private CachedValue value(final List<String> scopeChain,
+                              final String content) {
+        return new CachedValue(scopeChain,
+                               content,
+                               null);
+    }
+}
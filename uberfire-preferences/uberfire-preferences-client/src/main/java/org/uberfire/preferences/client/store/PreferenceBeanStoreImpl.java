@@ -17,6 +17,7 @@
 package org.uberfire.preferences.client.store;
 
 import java.util.Collection;
+import java.util.Map;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -31,6 +32,7 @@ import org.uberfire.preferences.shared.bean.BasePreferencePortable;
 import org.uberfire.preferences.shared.bean.PreferenceBeanServerStore;
 import org.uberfire.preferences.shared.bean.PreferenceBeanStore;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
+import org.uberfire.preferences.shared.impl.PreferenceScopedValue;
 
 /**
  * Client implementation for {@link PreferenceBeanStore}. It just pass along the method calls to the backend
@@ -96,6 +98,42 @@ public class PreferenceBeanStoreImpl implements PreferenceBeanStore {
                            scopeResolutionStrategyInfo);
     }
 
+    @Override
+    public void loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                        final ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                        final ParameterizedCommand<Throwable> errorCallback) {
+        store.call((Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> portablePreferences) -> {
+                       if (successCallback != null) {
+                           successCallback.execute(portablePreferences);
+                       }
+                   },
+                   (message, throwable) -> {
+                       if (errorCallback != null) {
+                           errorCallback.execute(throwable);
+                       }
+                       return false;
+                   }).loadAll(emptyPortablePreferences);
+    }
+
+    @Override
+    public void loadAll(final Collection<BasePreferencePortable<? extends BasePreference<?>>> emptyPortablePreferences,
+                        final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                        final ParameterizedCommand<Map<String, PreferenceScopedValue<BasePreferencePortable<?>>>> successCallback,
+                        final ParameterizedCommand<Throwable> errorCallback) {
+        store.call((Map<String, PreferenceScopedValue<BasePreferencePortable<?>>> portablePreferences) -> {
+                       if (successCallback != null) {
+                           successCallback.execute(portablePreferences);
+                       }
+                   },
+                   (message, throwable) -> {
+                       if (errorCallback != null) {
+                           errorCallback.execute(throwable);
+                       }
+                       return false;
+                   }).loadAll(emptyPortablePreferences,
+                              scopeResolutionStrategyInfo);
+    }
+
     @Override
     public <U extends BasePreference<U>, T extends BasePreferencePortable<U>> void save(final T portablePreference,
                                                                                         final Command successCallback,
@@ -787,6 +787,52 @@ public class PreferenceStore {
                      errorCallback);
     }
 
+    public void getAllScoped(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                             final Collection<String> keys) {
+        getAllScoped(scopeResolutionStrategyInfo,
+                     keys,
+                     emptySuccessCallback());
+    }
+
+    public void getAllScoped(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                             final Collection<String> keys,
+                             final RemoteCallback<Map<String, PreferenceScopedValue<Object>>> successCallback) {
+        getAllScoped(scopeResolutionStrategyInfo,
+                     keys,
+                     successCallback,
+                     defaultErrorCallback());
+    }
+
+    public void getAllScoped(final PreferenceScopeResolutionStrategyInfo scopeResolutionStrategyInfo,
+                             final Collection<String> keys,
+                             final RemoteCallback<Map<String, PreferenceScopedValue<Object>>> successCallback,
+                             final ErrorCallback<Message> errorCallback) {
+        preferenceStoreCaller.call(successCallback,
+                                   errorCallback).getAllScoped(scopeResolutionStrategyInfo,
+                                                               keys);
+    }
+
+    public void getAllScoped(final Collection<String> keys) {
+        getAllScoped(scopeResolutionStrategyInfo,
+                     keys);
+    }
+
+    public void getAllScoped(final Collection<String> keys,
+                             final RemoteCallback<Map<String, PreferenceScopedValue<Object>>> successCallback) {
+        getAllScoped(scopeResolutionStrategyInfo,
+                     keys,
+                     successCallback);
+    }
+
+    public void getAllScoped(final Collection<String> keys,
+                             final RemoteCallback<Map<String, PreferenceScopedValue<Object>>> successCallback,
+                             final ErrorCallback<Message> errorCallback) {
+        getAllScoped(scopeResolutionStrategyInfo,
+                     keys,
+                     successCallback,
+                     errorCallback);
+    }
+
     public void all(final PreferenceScope scope) {
         all(scope,
             emptySuccessCallback());
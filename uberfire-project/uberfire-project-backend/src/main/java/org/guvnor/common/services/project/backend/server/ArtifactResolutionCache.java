@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.common.services.project.model.MavenRepositoryMetadata;
+
+/**
+ * Caches whether a GAV can be resolved against a Remote Repository, so GAV conflict checks don't resolve the same
+ * artifact against every Remote Repository each time a Module is saved.
+ * <p>
+ * Both outcomes are cached: artifacts that resolved are kept for {@link #TTL} milliseconds and artifacts that did
+ * not resolve for {@link #NEGATIVE_TTL} milliseconds, which is shorter as the artifact may be deployed at any time.
+ * Entries are keyed by GAV and Repository id and URL, so changing the URL of a Repository does not reuse stale
+ * results.
+ */
+@ApplicationScoped
+public class ArtifactResolutionCache {
+
+    public static final String TTL = "org.guvnor.project.artifact.resolution.cache.ttl";
+    public static final String NEGATIVE_TTL = "org.guvnor.project.artifact.resolution.cache.negative.ttl";
+    public static final String MAX_SIZE = "org.guvnor.project.artifact.resolution.cache.size";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttl;
+    private final long negativeTtl;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    public ArtifactResolutionCache() {
+        this(Long.getLong(TTL,
+                          5 * 60 * 1000L),
+             Long.getLong(NEGATIVE_TTL,
+                          30 * 1000L),
+             Integer.getInteger(MAX_SIZE,
+                                10000),
+             System::currentTimeMillis);
+    }
+
+    public ArtifactResolutionCache(final long ttl,
+                                   final long negativeTtl,
+                                   final int maxSize,
+                                   final LongSupplier clock) {
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached resolution of the GAV against the Repository, or null if there is none or it has expired.
+     */
+    public Entry get(final GAV gav,
+                     final RemoteRepository repository) {
+        final String key = toKey(gav,
+                                 repository);
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key,
+                           entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Records the resolution of the GAV against the Repository.
+     * @param metadata the Repository the artifact was resolved from, or null when it could not be resolved.
+     */
+    public void put(final GAV gav,
+                    final RemoteRepository repository,
+                    final MavenRepositoryMetadata metadata) {
+        final long now = clock.getAsLong();
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(toKey(gav,
+                          repository),
+                    new Entry(metadata,
+                              now + (metadata == null ? negativeTtl : ttl)));
+    }
+
+    /**
+     * Drops the resolutions of the GAV, e.g. after it has been deployed.
+     */
+    public void invalidate(final GAV gav) {
+        final String prefix = gav.toString() + "|";
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(final long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    private String toKey(final GAV gav,
+                         final RemoteRepository repository) {
+        return gav.toString() + "|" + repository.getId() + "|" + repository.getUrl();
+    }
+
+    public static class Entry {
+
+        private final MavenRepositoryMetadata metadata;
+        private final long expiresAt;
+
+        private Entry(final MavenRepositoryMetadata metadata,
+                      final long expiresAt) {
+            this.metadata = metadata;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isResolved() {
+            return metadata != null;
+        }
+
+        public MavenRepositoryMetadata getMetadata() {
+            return metadata;
+        }
+    }
+}
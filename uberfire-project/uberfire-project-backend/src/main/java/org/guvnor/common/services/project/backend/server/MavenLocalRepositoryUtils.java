@@ -20,11 +20,21 @@ import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.guvnor.common.services.project.model.GAV;
 
 public class MavenLocalRepositoryUtils {
 
+    public static final String POOL_SIZE = "org.guvnor.project.m2.temp.repository.pool.size";
+
+    private static final int MAX_POOLED_REPOSITORIES = Integer.getInteger(POOL_SIZE,
+                                                                          4);
+    private static final Queue<java.nio.file.Path> pooledRepositories = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledRepositoriesCount = new AtomicInteger();
+
     /**
      * Get a Path pointing to a transient M2 Local Repository
      * @param gav GAV (helper to name temporary folder)
@@ -36,6 +46,68 @@ public class MavenLocalRepositoryUtils {
         return tempLocalRepositoryBasePath;
     }
 
+    /**
+     * Get a Path pointing to an empty transient M2 Local Repository, reusing a pooled one when available.
+     * The Repository must be returned with {@link #releaseRepositoryPath(java.nio.file.Path)}.
+     * @param gav GAV (helper to name temporary folder)
+     * @return
+     * @throws IOException
+     */
+    public static java.nio.file.Path acquireRepositoryPath(final GAV gav) throws IOException {
+        final java.nio.file.Path pooled = pooledRepositories.poll();
+        if (pooled == null) {
+            return getRepositoryPath(gav);
+        }
+        pooledRepositoriesCount.decrementAndGet();
+        if (!Files.isDirectory(pooled)) {
+            return getRepositoryPath(gav);
+        }
+        return pooled;
+    }
+
+    /**
+     * Empty a transient M2 Local Repository and return it to the pool, or destroy it if the pool is full.
+     * @param m2Folder
+     */
+    public static void releaseRepositoryPath(final java.nio.file.Path m2Folder) {
+        if (m2Folder == null) {
+            return;
+        }
+        if (!emptyMavenRepository(m2Folder) || pooledRepositoriesCount.incrementAndGet() > MAX_POOLED_REPOSITORIES) {
+            pooledRepositoriesCount.decrementAndGet();
+            tearDownMavenRepository(m2Folder);
+            return;
+        }
+        pooledRepositories.offer(m2Folder);
+    }
+
+    private static boolean emptyMavenRepository(final java.nio.file.Path m2Folder) {
+        try {
+            Files.walkFileTree(m2Folder,
+                               new java.nio.file.SimpleFileVisitor<java.nio.file.Path>() {
+
+                                   @Override
+                                   public FileVisitResult visitFile(final java.nio.file.Path file,
+                                                                    final BasicFileAttributes attrs) throws IOException {
+                                       Files.delete(file);
+                                       return FileVisitResult.CONTINUE;
+                                   }
+
+                                   @Override
+                                   public FileVisitResult postVisitDirectory(final java.nio.file.Path dir,
+                                                                             final IOException exc) throws IOException {
+                                       if (!dir.equals(m2Folder)) {
+                                           Files.delete(dir);
+                                       }
+                                       return FileVisitResult.CONTINUE;
+                                   }
+                               });
+            return true;
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
     private static String toFileName(final GAV gav) {
         final StringBuilder sb = new StringBuilder();
         sb.append("m2-").append(gav.getGroupId() + "-" + gav.getArtifactId() + "-" + gav.getVersion());
@@ -70,8 +70,8 @@ import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.preferences.shared.impl.PreferenceScopeResolutionStrategyInfo;
 
-import static org.guvnor.common.services.project.backend.server.MavenLocalRepositoryUtils.getRepositoryPath;
-import static org.guvnor.common.services.project.backend.server.MavenLocalRepositoryUtils.tearDownMavenRepository;
+import static org.guvnor.common.services.project.backend.server.MavenLocalRepositoryUtils.acquireRepositoryPath;
+import static org.guvnor.common.services.project.backend.server.MavenLocalRepositoryUtils.releaseRepositoryPath;
 
 @Service
 @WorkspaceScoped
@@ -88,16 +88,29 @@ public class ModuleRepositoryResolverImpl
 
     private WorkbenchPreferenceScopeResolutionStrategies scopeResolutionStrategies;
 
+    private ArtifactResolutionCache resolutionCache;
+
     public ModuleRepositoryResolverImpl() {
     }
 
+    public ModuleRepositoryResolverImpl(final IOService ioService,
+                                        final Instance<GAVPreferences> gavPreferencesProvider,
+                                        final WorkbenchPreferenceScopeResolutionStrategies scopeResolutionStrategies) {
+        this(ioService,
+             gavPreferencesProvider,
+             scopeResolutionStrategies,
+             null);
+    }
+
     @Inject
     public ModuleRepositoryResolverImpl(final @Named("ioStrategy") IOService ioService,
                                         final Instance<GAVPreferences> gavPreferencesProvider,
-                                        @Customizable final WorkbenchPreferenceScopeResolutionStrategies scopeResolutionStrategies) {
+                                        @Customizable final WorkbenchPreferenceScopeResolutionStrategies scopeResolutionStrategies,
+                                        final ArtifactResolutionCache resolutionCache) {
         this.ioService = ioService;
         this.gavPreferencesProvider = gavPreferencesProvider;
         this.scopeResolutionStrategies = scopeResolutionStrategies;
+        this.resolutionCache = resolutionCache;
     }
 
     @Override
@@ -333,7 +346,19 @@ public class ModuleRepositoryResolverImpl
         //Remote Repositories
         try {
             for (Map.Entry<MavenRepositorySource, Collection<RemoteRepository>> e : repositories.entrySet()) {
-                for (ArtifactRepository repository : e.getValue()) {
+                for (RemoteRepository repository : e.getValue()) {
+                    final ArtifactResolutionCache.Entry cached = resolutionCache == null ? null : resolutionCache.get(gav,
+                                                                                                                     repository);
+                    if (cached != null) {
+                        if (cached.isResolved()) {
+                            repositoriesResolvingArtifact.add(new MavenRepositoryMetadata(cached.getMetadata().getId(),
+                                                                                          cached.getMetadata().getUrl(),
+                                                                                          e.getKey()));
+                        }
+                        continue;
+                    }
+
+                    MavenRepositoryMetadata artifactRepositoryMetaData = null;
                     artifactRequest = new ArtifactRequest();
                     artifactRequest.setArtifact(artifact);
                     java.nio.file.Path tempLocalRepositoryBasePath = null;
@@ -342,15 +367,15 @@ public class ModuleRepositoryResolverImpl
                         // if the Artifact is available on a RemoteRepository. Therefore substitute the default RepositorySystemSession
                         // with one that provides a LocalRepositoryManager that always uses an empty transient LocalRepository to ensure
                         // Maven does not resolve Artifacts locally.
-                        artifactRequest.addRepository((RemoteRepository) repository);
-                        tempLocalRepositoryBasePath = getRepositoryPath(gav);
+                        artifactRequest.addRepository(repository);
+                        tempLocalRepositoryBasePath = acquireRepositoryPath(gav);
                         result = aether.getSystem().resolveArtifact(new MavenRepositorySystemSessionWrapper(tempLocalRepositoryBasePath.toString(),
                                                                                                             aether.getSession()),
                                                                     artifactRequest);
 
                         if (result != null && result.isResolved()) {
-                            final MavenRepositoryMetadata artifactRepositoryMetaData = makeRepositoryMetaData(result.getRepository(),
-                                                                                                              e.getKey());
+                            artifactRepositoryMetaData = makeRepositoryMetaData(result.getRepository(),
+                                                                                e.getKey());
                             if (artifactRepositoryMetaData != null) {
                                 repositoriesResolvingArtifact.add(artifactRepositoryMetaData);
                             }
@@ -358,7 +383,12 @@ public class ModuleRepositoryResolverImpl
                     } catch (ArtifactResolutionException are) {
                         //Ignore - this means the Artifact could not be resolved against the given RemoteRepository
                     } finally {
-                        tearDownMavenRepository(tempLocalRepositoryBasePath);
+                        releaseRepositoryPath(tempLocalRepositoryBasePath);
+                    }
+                    if (resolutionCache != null) {
+                        resolutionCache.put(gav,
+                                            repository,
+                                            artifactRepositoryMetaData);
                     }
                 }
             }
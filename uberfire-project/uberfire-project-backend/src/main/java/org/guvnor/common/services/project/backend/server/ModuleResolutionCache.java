@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+
+import org.apache.maven.model.Model;
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.structure.repositories.RepositoryRemovedEvent;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceChangeType;
+import org.uberfire.workbench.events.ResourceCopiedEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+
+/**
+ * Caches the results of the Module and Package resolution, which otherwise walk the repository on every call.
+ * <p>
+ * Resolutions are partitioned by branch. Adding, deleting, renaming or copying a resource can change the Module
+ * or Package a path resolves to, so any such change drops the cache of the branch; content updates don't affect
+ * the resolution and keep it. Parsed POM models are cached by the id of the blob they were read from, so they are
+ * never stale and are only bounded in number.
+ */
+@ApplicationScoped
+public class ModuleResolutionCache {
+
+    public static final String POM_CACHE_SIZE = "org.guvnor.project.pom.cache.size";
+
+    private final ConcurrentMap<String, BranchCache> branches = new ConcurrentHashMap<>();
+    private final Map<String, Model> pomModels;
+
+    public ModuleResolutionCache() {
+        this(Integer.getInteger(POM_CACHE_SIZE,
+                                500));
+    }
+
+    public ModuleResolutionCache(final int pomCacheSize) {
+        this.pomModels = new LinkedHashMap<String, Model>(16,
+                                                          0.75f,
+                                                          true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Model> eldest) {
+                return size() > pomCacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return the resolution cache of the branch the path belongs to.
+     */
+    public BranchCache getBranch(final org.uberfire.java.nio.file.Path path) {
+        return branches.computeIfAbsent(getBranchKey(path),
+                                        key -> new BranchCache());
+    }
+
+    public Model getPOMModel(final String blobId) {
+        synchronized (pomModels) {
+            return pomModels.get(blobId);
+        }
+    }
+
+    public void putPOMModel(final String blobId,
+                            final Model model) {
+        synchronized (pomModels) {
+            pomModels.put(blobId,
+                          model);
+        }
+    }
+
+    public void invalidate(final Path path) {
+        if (path != null) {
+            branches.remove(getBranchKey(Paths.convert(path)));
+        }
+    }
+
+    public void invalidateAll() {
+        branches.clear();
+    }
+
+    public void onResourceAdded(@Observes final ResourceAddedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void onResourceDeleted(@Observes final ResourceDeletedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void onResourceRenamed(@Observes final ResourceRenamedEvent event) {
+        invalidate(event.getPath());
+        invalidate(event.getDestinationPath());
+    }
+
+    public void onResourceCopied(@Observes final ResourceCopiedEvent event) {
+        invalidate(event.getDestinationPath());
+    }
+
+    public void onBatchResourceChanges(@Observes final ResourceBatchChangesEvent event) {
+        for (Map.Entry<Path, Collection<ResourceChange>> entry : event.getBatch().entrySet()) {
+            for (ResourceChange change : entry.getValue()) {
+                if (!ResourceChangeType.UPDATE.equals(change.getType())) {
+                    invalidate(entry.getKey());
+                    break;
+                }
+            }
+        }
+    }
+
+    public void onRepositoryRemoved(@Observes final RepositoryRemovedEvent event) {
+        invalidateAll();
+    }
+
+    private String getBranchKey(final org.uberfire.java.nio.file.Path path) {
+        final org.uberfire.java.nio.file.Path root = path.getRoot();
+        return root == null ? "" : root.toUri().toString();
+    }
+
+    /**
+     * Resolutions of a single branch, keyed by path URI.
+     */
+    public static class BranchCache {
+
+        private final ConcurrentMap<String, Boolean> pomExists = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Package> packages = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Set<Package>> modulePackages = new ConcurrentHashMap<>();
+
+        public boolean hasPom(final org.uberfire.java.nio.file.Path directory,
+                              final Predicate<org.uberfire.java.nio.file.Path> lookup) {
+            return pomExists.computeIfAbsent(directory.toUri().toString(),
+                                             key -> lookup.test(directory));
+        }
+
+        /**
+         * Unresolved Packages are not cached, as the resource may not have been written yet.
+         */
+        public Package getPackage(final Path resource,
+                                  final Supplier<Package> lookup) {
+            final String key = resource.toURI();
+            final Package pkg = packages.get(key);
+            if (pkg != null) {
+                return pkg;
+            }
+            final Package resolved = lookup.get();
+            if (resolved != null) {
+                packages.put(key,
+                             resolved);
+            }
+            return resolved;
+        }
+
+        public Set<Package> getPackages(final Path moduleRoot,
+                                        final Supplier<Set<Package>> lookup) {
+            final String key = moduleRoot.toURI();
+            Set<Package> resolved = modulePackages.get(key);
+            if (resolved == null) {
+                resolved = lookup.get();
+                modulePackages.put(key,
+                                   new HashSet<>(resolved));
+            }
+            return new HashSet<>(resolved);
+        }
+
+        public int size() {
+            return pomExists.size() + packages.size() + modulePackages.size();
+        }
+    }
+}
@@ -51,6 +51,8 @@ import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
+import org.uberfire.java.nio.file.Files;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.mvp.Command;
 
 @Service
@@ -70,10 +72,31 @@ public class POMServiceImpl
 
     private CommentedOptionFactory optionsFactory;
 
+    private ModuleResolutionCache resolutionCache;
+
     public POMServiceImpl() {
         // For Weld
     }
 
+    public POMServiceImpl(final IOService ioService,
+                          final POMContentHandler pomContentHandler,
+                          final M2RepoService m2RepoService,
+                          final MetadataService metadataService,
+                          final Event<ModuleUpdatedEvent> moduleUpdatedEvent,
+                          final ModuleService<? extends Module> moduleService,
+                          final CommentedOptionFactory optionsFactory,
+                          final PomEnhancer pomEnhancer) {
+        this(ioService,
+             pomContentHandler,
+             m2RepoService,
+             metadataService,
+             moduleUpdatedEvent,
+             moduleService,
+             optionsFactory,
+             pomEnhancer,
+             null);
+    }
+
     @Inject
     public POMServiceImpl(final @Named("ioStrategy") IOService ioService,
                           final POMContentHandler pomContentHandler,
@@ -82,7 +105,8 @@ public class POMServiceImpl
                           final Event<ModuleUpdatedEvent> moduleUpdatedEvent,
                           final ModuleService<? extends Module> moduleService,
                           final CommentedOptionFactory optionsFactory,
-                          final @Customizable PomEnhancer pomEnhancer) {
+                          final @Customizable PomEnhancer pomEnhancer,
+                          final ModuleResolutionCache resolutionCache) {
         this.ioService = ioService;
         this.pomContentHandler = pomContentHandler;
         this.m2RepoService = m2RepoService;
@@ -92,6 +116,7 @@ public class POMServiceImpl
         this.optionsFactory = optionsFactory;
         writer = new MavenXpp3Writer();
         this.pomEnhancer = pomEnhancer;
+        this.resolutionCache = resolutionCache;
     }
 
     @Override
@@ -135,12 +160,40 @@ public class POMServiceImpl
     @Override
     public POM load(final Path pomPath) {
         try {
-            return pomContentHandler.toModel(loadPomXMLString(pomPath));
+            final String blobId = getBlobId(pomPath);
+            if (blobId == null) {
+                return pomContentHandler.toModel(loadPomXMLString(pomPath));
+            }
+
+            Model model = resolutionCache.getPOMModel(blobId);
+            if (model == null) {
+                model = pomContentHandler.parse(loadPomXMLString(pomPath));
+                //Only cache the model if the pom.xml was not changed while it was being read
+                if (blobId.equals(getBlobId(pomPath))) {
+                    resolutionCache.putPOMModel(blobId,
+                                                model);
+                }
+            }
+            return pomContentHandler.toModel(model);
         } catch (Exception e) {
             throw ExceptionUtilities.handleException(e);
         }
     }
 
+    //The id of the blob holding the file content, null if the file system doesn't provide it
+    private String getBlobId(final Path pomPath) {
+        if (resolutionCache == null) {
+            return null;
+        }
+        try {
+            final Object fileKey = Files.readAttributes(Paths.convert(pomPath),
+                                                        BasicFileAttributes.class).fileKey();
+            return fileKey == null ? null : fileKey.toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private String loadPomXMLString(final Path pomPath) {
         final org.uberfire.java.nio.file.Path nioPath = Paths.convert(pomPath);
         return ioService.readAllString(nioPath);
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
 
 import org.apache.commons.lang3.StringUtils;
 import org.guvnor.common.services.backend.exceptions.ExceptionUtilities;
@@ -58,6 +59,10 @@ public abstract class ResourceResolver<T extends Module>
     protected CommentedOptionFactory commentedOptionFactory;
     protected List<ModuleResourcePathResolver> resourcePathResolvers = new ArrayList<>();
 
+    //Optional, resolutions are not cached when not available
+    @Inject
+    protected ModuleResolutionCache resolutionCache;
+
     public ResourceResolver() {
     }
 
@@ -123,6 +128,9 @@ public abstract class ResourceResolver<T extends Module>
             if (pkgPath == null) {
                 throw new PackageAlreadyExistsException(packageName);
             }
+            if (resolutionCache != null) {
+                resolutionCache.invalidate(pkgPath);
+            }
 
             //Return new package
             final Package newPackage = resolvePackage(pkgPath);
@@ -224,11 +232,20 @@ public abstract class ResourceResolver<T extends Module>
 
     @Override
     public Set<Package> resolvePackages(final Module module) {
-        final Set<Package> packages = new HashSet<>();
-        final Set<String> packageNames = new HashSet<>();
         if (module == null) {
-            return packages;
+            return new HashSet<>();
+        }
+        if (resolutionCache == null) {
+            return doResolvePackages(module);
         }
+        return resolutionCache.getBranch(Paths.convert(module.getRootPath()))
+                .getPackages(module.getRootPath(),
+                             () -> doResolvePackages(module));
+    }
+
+    private Set<Package> doResolvePackages(final Module module) {
+        final Set<Package> packages = new HashSet<>();
+        final Set<String> packageNames = new HashSet<>();
         //Build a set of all package names across /src/main/java, /src/main/resources, /src/test/java and /src/test/resources paths
         //It is possible (if the module was not created within the workbench that some packages only exist in certain paths)
         final Path moduleRoot = module.getRootPath();
@@ -435,24 +452,33 @@ public abstract class ResourceResolver<T extends Module>
                 return null;
             }
 
-            //If Path is not within a Module we cannot resolve a package
-            final Module module = resolveModule(resource);
-            if (module == null) {
-                return null;
+            if (resolutionCache == null) {
+                return doResolvePackage(resource);
             }
-
-            //pom.xml is not inside a package
-            if (isPom(resource)) {
-                return null;
-            }
-
-            return makePackage(module,
-                               resource);
+            return resolutionCache.getBranch(Paths.convert(resource))
+                    .getPackage(resource,
+                                () -> doResolvePackage(resource));
         } catch (Exception e) {
             throw ExceptionUtilities.handleException(e);
         }
     }
 
+    private Package doResolvePackage(final Path resource) {
+        //If Path is not within a Module we cannot resolve a package
+        final Module module = resolveModule(resource);
+        if (module == null) {
+            return null;
+        }
+
+        //pom.xml is not inside a package
+        if (isPom(resource)) {
+            return null;
+        }
+
+        return makePackage(module,
+                           resource);
+    }
+
     public String getDefaultWorkspacePath(final GAV gav) {
         return StringUtils.join(getLegalId(gav.getGroupId()),
                                 "/") + "/" + StringUtils.join(getLegalId(gav.getArtifactId()),
@@ -465,8 +491,12 @@ public abstract class ResourceResolver<T extends Module>
     }
 
     protected boolean hasPom(final org.uberfire.java.nio.file.Path path) {
-        final org.uberfire.java.nio.file.Path pomPath = path.resolve(POM_PATH);
-        return Files.exists(pomPath);
+        if (resolutionCache == null) {
+            return Files.exists(path.resolve(POM_PATH));
+        }
+        return resolutionCache.getBranch(path)
+                .hasPom(path,
+                        directory -> Files.exists(directory.resolve(POM_PATH)));
     }
 
     protected T makeModule(final org.uberfire.java.nio.file.Path nioModuleRootPath) {
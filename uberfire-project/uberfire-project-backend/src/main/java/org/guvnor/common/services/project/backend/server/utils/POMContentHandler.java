@@ -131,8 +131,17 @@ public class POMContentHandler {
     }
 
     public POM toModel(final String pomAsString) throws IOException, XmlPullParserException {
-        Model model = new MavenXpp3Reader().read(new StringReader(pomAsString));
+        return toModel(parse(pomAsString));
+    }
+
+    public Model parse(final String pomAsString) throws IOException, XmlPullParserException {
+        return new MavenXpp3Reader().read(new StringReader(pomAsString));
+    }
 
+    /**
+     * Builds the client model of a parsed pom.xml, the parsed model is not modified.
+     */
+    public POM toModel(final Model model) {
         POM pomModel = new POM(
                 model.getName(),
                 model.getDescription(),
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.common.services.project.model.MavenRepositoryMetadata;
+import org.guvnor.common.services.project.model.MavenRepositorySource;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArtifactResolutionCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private ArtifactResolutionCache cache;
+
+    private GAV gav;
+    private RemoteRepository repository;
+    private MavenRepositoryMetadata metadata;
+
+    @Before
+    public void setup() {
+        cache = new ArtifactResolutionCache(1000,
+                                            100,
+                                            3,
+                                            now::get);
+        gav = new GAV("org.guvnor",
+                      "test",
+                      "1.0");
+        repository = new RemoteRepository.Builder("repo",
+                                                  "default",
+                                                  "file:///repo").build();
+        metadata = new MavenRepositoryMetadata("repo",
+                                               "file:///repo",
+                                               MavenRepositorySource.SETTINGS);
+    }
+
+    @Test
+    public void testResolvedArtifactExpires() {
+        cache.put(gav,
+                  repository,
+                  metadata);
+
+        now.set(999);
+        final ArtifactResolutionCache.Entry entry = cache.get(gav,
+                                                              repository);
+        assertTrue(entry.isResolved());
+        assertEquals(metadata,
+                     entry.getMetadata());
+
+        now.set(1000);
+        assertNull(cache.get(gav,
+                             repository));
+        assertEquals(0,
+                     cache.size());
+    }
+
+    @Test
+    public void testUnresolvedArtifactExpiresSooner() {
+        cache.put(gav,
+                  repository,
+                  null);
+
+        now.set(99);
+        assertFalse(cache.get(gav,
+                              repository).isResolved());
+
+        now.set(100);
+        assertNull(cache.get(gav,
+                             repository));
+    }
+
+    @Test
+    public void testRepositoryUrlIsPartOfTheKey() {
+        cache.put(gav,
+                  repository,
+                  metadata);
+
+        assertNull(cache.get(gav,
+                             new RemoteRepository.Builder("repo",
+                                                          "default",
+                                                          "file:///other").build()));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final GAV other = new GAV("org.guvnor",
+                                  "test",
+                                  "1.1");
+        cache.put(gav,
+                  repository,
+                  metadata);
+        cache.put(other,
+                  repository,
+                  metadata);
+
+        cache.invalidate(gav);
+
+        assertNull(cache.get(gav,
+                             repository));
+        assertNotNull(cache.get(other,
+                                repository));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        for (int i = 0; i < 3; i++) {
+            cache.put(new GAV("org.guvnor",
+                              "test",
+                              "1." + i),
+                      repository,
+                      null);
+        }
+        now.set(100);
+
+        //Full of expired entries, which are evicted first
+        cache.put(gav,
+                  repository,
+                  metadata);
+        assertEquals(1,
+                     cache.size());
+    }
+}
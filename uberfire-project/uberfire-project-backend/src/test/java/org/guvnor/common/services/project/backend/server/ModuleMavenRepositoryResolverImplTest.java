@@ -46,6 +46,7 @@ import org.uberfire.java.nio.file.Path;
 
 import static org.guvnor.common.services.project.backend.server.MavenLocalRepositoryUtils.tearDownMavenRepository;
 import static org.guvnor.common.services.project.backend.server.RepositoryResolverTestUtils.deployArtifact;
+import static org.guvnor.common.services.project.backend.server.RepositoryResolverTestUtils.fileRepository;
 import static org.guvnor.common.services.project.backend.server.RepositoryResolverTestUtils.generateSettingsXml;
 import static org.guvnor.common.services.project.backend.server.RepositoryResolverTestUtils.installArtifact;
 import static org.junit.Assert.*;
@@ -1365,6 +1366,81 @@ public class ModuleMavenRepositoryResolverImplTest {
         }
     }
 
+    @Test
+    public void testGetRepositoriesResolvingArtifact_ResolutionIsCached() {
+        final String oldSettingsXmlPath = System.getProperty(MavenSettings.CUSTOM_SETTINGS_PROPERTY);
+
+        java.nio.file.Path remoteRepositoryFolder = null;
+
+        try {
+            remoteRepositoryFolder = Files.createTempDirectory("file-remote-repo");
+            final java.nio.file.Path fileRemoteSettingsXmlPath = generateSettingsXml(m2Folder,
+                                                                                    fileRepository("file-remote-repo",
+                                                                                                   remoteRepositoryFolder));
+
+            final String pomXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<project xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\" xmlns=\"http://maven.apache.org/POM/4.0.0\"\n" +
+                    "    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n" +
+                    "  <modelVersion>4.0.0</modelVersion>\n" +
+                    "  <groupId>org.guvnor</groupId>\n" +
+                    "  <artifactId>test</artifactId>\n" +
+                    "  <version>0.0.23</version>\n" +
+                    "  <distributionManagement>\n" +
+                    "    <repository>\n" +
+                    "      <id>file-remote-repo</id>\n" +
+                    "      <name>File Remote Repository</name>\n" +
+                    "      <url>" + remoteRepositoryFolder.toUri().toString() + "</url>\n" +
+                    "    </repository>\n" +
+                    "  </distributionManagement>\n" +
+                    "</project>";
+
+            final GAV gav = new GAV("org.guvnor",
+                                    "test",
+                                    "0.0.23");
+
+            System.setProperty(MavenSettings.CUSTOM_SETTINGS_PROPERTY,
+                               fileRemoteSettingsXmlPath.toString());
+            MavenSettings.reinitSettings();
+
+            final ArtifactResolutionCache resolutionCache = new ArtifactResolutionCache();
+            service = new ModuleRepositoryResolverImpl(ioService,
+                                                       gavPreferencesProvider,
+                                                       scopeResolutionStrategies,
+                                                       resolutionCache);
+
+            //Not deployed yet, which is cached
+            assertEquals(0,
+                         service.getRepositoriesResolvingArtifact(gav).size());
+
+            final InputStream pomStream = new ByteArrayInputStream(pomXml.getBytes(StandardCharsets.UTF_8));
+            final MavenProject mavenProject = MavenProjectLoader.parseMavenPom(pomStream);
+            deployArtifact(mavenProject,
+                           pomXml);
+            //As the Guvnor M2 Repository does when it deploys an artifact
+            resolutionCache.invalidate(gav);
+
+            final Set<MavenRepositoryMetadata> metadata = service.getRepositoriesResolvingArtifact(gav);
+            assertEquals(1,
+                         metadata.size());
+            assertContainsRepository("file-remote-repo",
+                                     remoteRepositoryFolder.toUri().toString(),
+                                     MavenRepositorySource.SETTINGS,
+                                     metadata);
+
+            //Resolved from the cache, even if the Remote Repository no longer has the artifact
+            tearDownMavenRepository(remoteRepositoryFolder);
+            assertEquals(metadata,
+                         service.getRepositoriesResolvingArtifact(gav));
+        } catch (IOException ioe) {
+            fail(ioe.getMessage());
+        } finally {
+            tearDownMavenRepository(remoteRepositoryFolder);
+            resetSystemProperty(MavenSettings.CUSTOM_SETTINGS_PROPERTY,
+                                oldSettingsXmlPath);
+            MavenSettings.reinitSettings();
+        }
+    }
+
     private void assertContainsRepository(final String id,
                                           final String url,
                                           final MavenRepositorySource source,
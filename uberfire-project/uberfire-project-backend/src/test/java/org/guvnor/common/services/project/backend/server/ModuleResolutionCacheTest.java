@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.project.backend.server;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.model.Model;
+import org.guvnor.common.services.project.model.Package;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.rpc.SessionInfo;
+import org.uberfire.workbench.events.ResourceAdded;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ModuleResolutionCacheTest {
+
+    private ModuleResolutionCache cache;
+
+    private Path modulePath;
+    private Path resourcePath;
+
+    @Before
+    public void setup() {
+        cache = new ModuleResolutionCache(2);
+        modulePath = PathFactory.newPath("module",
+                                         "file:///repo/module");
+        resourcePath = PathFactory.newPath("Resource.drl",
+                                           "file:///repo/module/src/main/resources/org/test/Resource.drl");
+    }
+
+    @Test
+    public void testHasPomIsCached() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final org.uberfire.java.nio.file.Path nioModulePath = Paths.convert(modulePath);
+
+        assertTrue(cache.getBranch(nioModulePath).hasPom(nioModulePath,
+                                                         path -> lookups.incrementAndGet() > 0));
+        assertTrue(cache.getBranch(nioModulePath).hasPom(nioModulePath,
+                                                         path -> lookups.incrementAndGet() > 0));
+        assertEquals(1,
+                     lookups.get());
+    }
+
+    @Test
+    public void testUnresolvedPackageIsNotCached() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final ModuleResolutionCache.BranchCache branch = cache.getBranch(Paths.convert(resourcePath));
+
+        assertNull(branch.getPackage(resourcePath,
+                                     () -> {
+                                         lookups.incrementAndGet();
+                                         return null;
+                                     }));
+        final Package pkg = mock(Package.class);
+        assertSame(pkg,
+                   branch.getPackage(resourcePath,
+                                     () -> {
+                                         lookups.incrementAndGet();
+                                         return pkg;
+                                     }));
+        assertSame(pkg,
+                   branch.getPackage(resourcePath,
+                                     () -> null));
+        assertEquals(2,
+                     lookups.get());
+    }
+
+    @Test
+    public void testBranchesArePartitioned() {
+        final org.uberfire.java.nio.file.Path master = mockBranchPath("default://master@repo/");
+        final org.uberfire.java.nio.file.Path dev = mockBranchPath("default://dev@repo/");
+
+        cache.getBranch(master).hasPom(master,
+                                       path -> true);
+
+        assertEquals(1,
+                     cache.getBranch(master).size());
+        assertEquals(0,
+                     cache.getBranch(dev).size());
+    }
+
+    @Test
+    public void testContentUpdatesKeepResolutions() {
+        cache.getBranch(Paths.convert(resourcePath)).getPackage(resourcePath,
+                                                                () -> mock(Package.class));
+
+        cache.onBatchResourceChanges(batch(new ResourceUpdated("")));
+        assertEquals(1,
+                     cache.getBranch(Paths.convert(resourcePath)).size());
+
+        cache.onBatchResourceChanges(batch(new ResourceAdded("")));
+        assertEquals(0,
+                     cache.getBranch(Paths.convert(resourcePath)).size());
+    }
+
+    @Test
+    public void testAddedResourceInvalidatesBranch() {
+        final org.uberfire.java.nio.file.Path nioModulePath = Paths.convert(modulePath);
+        cache.getBranch(nioModulePath).hasPom(nioModulePath,
+                                              path -> false);
+
+        cache.onResourceAdded(new ResourceAddedEvent(PathFactory.newPath("pom.xml",
+                                                                         "file:///repo/module/pom.xml"),
+                                                     "",
+                                                     mock(SessionInfo.class)));
+
+        assertTrue(cache.getBranch(nioModulePath).hasPom(nioModulePath,
+                                                         path -> true));
+    }
+
+    @Test
+    public void testPOMModelsAreBounded() {
+        final Model model = new Model();
+        cache.putPOMModel("a",
+                          model);
+        cache.putPOMModel("b",
+                          model);
+        cache.getPOMModel("a");
+        cache.putPOMModel("c",
+                          model);
+
+        assertSame(model,
+                   cache.getPOMModel("a"));
+        assertNull(cache.getPOMModel("b"));
+    }
+
+    private ResourceBatchChangesEvent batch(final ResourceChange change) {
+        final Map<Path, Collection<ResourceChange>> batch = new HashMap<>();
+        batch.put(resourcePath,
+                  Collections.singletonList(change));
+        return new ResourceBatchChangesEvent(batch,
+                                             "",
+                                             mock(SessionInfo.class));
+    }
+
+    private org.uberfire.java.nio.file.Path mockBranchPath(final String uri) {
+        final org.uberfire.java.nio.file.Path path = mock(org.uberfire.java.nio.file.Path.class);
+        final org.uberfire.java.nio.file.Path root = mock(org.uberfire.java.nio.file.Path.class);
+        when(path.getRoot()).thenReturn(root);
+        when(root.toUri()).thenReturn(URI.create(uri));
+        when(path.toUri()).thenReturn(URI.create(uri + "module"));
+        return path;
+    }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.maven.model.DeploymentRepository;
@@ -189,6 +190,23 @@ public class RepositoryResolverTestUtils {
         return remoteRepoBuilder.build();
     }
 
+    /**
+     * A {code}<repository>{code} element for a fake Remote Repository backed by a local folder. Artifacts can be
+     * deployed to it with {@link #deployArtifact(MavenProject, String)} by using the same folder as the Project's
+     * {code}<distributionManagement>{code} Repository.
+     * @param id
+     * @param folder
+     * @return
+     */
+    public static String fileRepository(final String id,
+                                        final java.nio.file.Path folder) {
+        return "<repository>\n" +
+                "<id>" + id + "</id>\n" +
+                "<name>" + id + "</name>\n" +
+                "<url>" + folder.toUri().toString() + "</url>\n" +
+                "</repository>\n";
+    }
+
     /**
      * Generate a temporary settings.xml file.
      * @param m2Folder
@@ -196,16 +214,27 @@ public class RepositoryResolverTestUtils {
      * @throws IOException
      */
     public static java.nio.file.Path generateSettingsXml(final java.nio.file.Path m2Folder) throws IOException {
+        return generateSettingsXml(m2Folder,
+                                   REPO_1,
+                                   REPO_2,
+                                   REPO_3);
+    }
+
+    /**
+     * Generate a temporary settings.xml file, with the given {code}<repository>{code} elements.
+     * @param m2Folder
+     * @param repositories
+     * @return
+     * @throws IOException
+     */
+    public static java.nio.file.Path generateSettingsXml(final java.nio.file.Path m2Folder,
+                                                         final String... repositories) throws IOException {
         final java.nio.file.Path settingsXmlPath = Files.createTempFile(m2Folder,
                                                                         "settings",
                                                                         ".xml");
 
         final List<String> settingsXmlLines = new ArrayList<String>();
-        final List<String> additionalRepositories = new ArrayList<String>() {{
-            add(REPO_1);
-            add(REPO_2);
-            add(REPO_3);
-        }};
+        final List<String> additionalRepositories = Arrays.asList(repositories);
         settingsXmlLines.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
         settingsXmlLines.add("<settings>\n");
         settingsXmlLines.add("  <localRepository>" + m2Folder.toString() + "</localRepository>\n");
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.builder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.enterprise.event.Event;
+
+import org.guvnor.common.services.project.builder.model.BuildResults;
+import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
+import org.guvnor.common.services.project.builder.service.BuildService;
+import org.guvnor.common.services.project.model.Module;
+import org.guvnor.common.services.project.service.ModuleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceChange;
+
+/**
+ * Coalesces the build requests of each Module into a single build.
+ * <p>
+ * Modules are identified by their root path, so a request for a Module whose pom.xml changed meanwhile still
+ * belongs to the same Module; the build uses the Module of the latest request.
+ * <p>
+ * Requests are collected until no new request has been received for the Module during the quiet period
+ * (bounded by {@link #MAX_DELAY_FACTOR} times the quiet period since the first pending request), and are
+ * then merged into one incremental build. A pending full build supersedes any pending incremental change,
+ * and no more than one build runs at a time for a Module: requests received meanwhile are dispatched
+ * when the running build completes. The quiet periods are timed by a task of the given executor, which
+ * only runs while builds are waiting for their quiet period to end.
+ */
+public class ModuleBuildScheduler {
+
+    public static final String QUIET_PERIOD = "org.guvnor.builder.quiet.period";
+
+    static final long DEFAULT_QUIET_PERIOD = 500;
+    static final int MAX_DELAY_FACTOR = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleBuildScheduler.class);
+
+    private final Supplier<IncrementalBuilderExecutorManager> executorManager;
+    private final ExecutorService executorService;
+    private final long quietPeriod;
+    private final DelayQueue<PendingBuild> timeouts = new DelayQueue<>();
+
+    //Guarded by this
+    private final Map<Path, PendingBuild> pendingBuilds = new HashMap<>();
+    private final Set<Path> runningBuilds = new HashSet<>();
+    private boolean timerRunning;
+    private boolean shutdown;
+
+    private final AtomicLong receivedRequests = new AtomicLong();
+    private final AtomicLong executedBuilds = new AtomicLong();
+
+    public ModuleBuildScheduler(final Supplier<IncrementalBuilderExecutorManager> executorManager,
+                                final ExecutorService executorService) {
+        this(executorManager,
+             executorService,
+             Long.getLong(QUIET_PERIOD,
+                          DEFAULT_QUIET_PERIOD));
+    }
+
+    /**
+     * @param executorService runs the task timing the quiet periods.
+     */
+    public ModuleBuildScheduler(final Supplier<IncrementalBuilderExecutorManager> executorManager,
+                                final ExecutorService executorService,
+                                final long quietPeriod) {
+        this.executorManager = executorManager;
+        this.executorService = executorService;
+        this.quietPeriod = Math.max(0,
+                                    quietPeriod);
+    }
+
+    public void scheduleIncrementalBuild(final Module module,
+                                         final Path resource,
+                                         final ResourceChange change) {
+        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+        final List<ResourceChange> resourceChanges = new ArrayList<>();
+        resourceChanges.add(change);
+        changes.put(resource,
+                    resourceChanges);
+        scheduleIncrementalBuild(module,
+                                 changes);
+    }
+
+    public void scheduleIncrementalBuild(final Module module,
+                                         final Map<Path, Collection<ResourceChange>> changes) {
+        if (module == null || changes.isEmpty()) {
+            return;
+        }
+        receivedRequests.incrementAndGet();
+        final boolean dispatchNow;
+        synchronized (this) {
+            final PendingBuild pending = getPendingBuild(module);
+            //A queued full build already covers these changes
+            if (!pending.fullBuild) {
+                pending.merge(changes);
+            }
+            dispatchNow = arm(pending);
+        }
+        if (dispatchNow) {
+            dispatch(module.getRootPath());
+        }
+    }
+
+    public void scheduleFullBuild(final Module module) {
+        if (module == null) {
+            return;
+        }
+        receivedRequests.incrementAndGet();
+        final boolean dispatchNow;
+        synchronized (this) {
+            final PendingBuild pending = getPendingBuild(module);
+            pending.fullBuild = true;
+            pending.changes.clear();
+            dispatchNow = arm(pending);
+        }
+        if (dispatchNow) {
+            dispatch(module.getRootPath());
+        }
+    }
+
+    /**
+     * @return the number of Modules with a build waiting to be dispatched.
+     */
+    public synchronized int getQueueDepth() {
+        return pendingBuilds.size();
+    }
+
+    public long getReceivedRequests() {
+        return receivedRequests.get();
+    }
+
+    public long getExecutedBuilds() {
+        return executedBuilds.get();
+    }
+
+    /**
+     * @return the average number of build requests served by each executed build.
+     */
+    public double getCoalescingRatio() {
+        final long builds = executedBuilds.get();
+        return builds == 0 ? 0 : (double) receivedRequests.get() / builds;
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            pendingBuilds.clear();
+        }
+        timeouts.clear();
+    }
+
+    //Must be called holding the lock
+    private PendingBuild getPendingBuild(final Module module) {
+        PendingBuild pending = pendingBuilds.get(module.getRootPath());
+        if (pending == null) {
+            pending = new PendingBuild(System.currentTimeMillis());
+            pendingBuilds.put(module.getRootPath(),
+                              pending);
+        }
+        pending.module = module;
+        return pending;
+    }
+
+    //Must be called holding the lock, returns true if the build has to be dispatched straight away
+    private boolean arm(final PendingBuild pending) {
+        //The running build dispatches the pending one when it completes
+        if (runningBuilds.contains(pending.module.getRootPath()) || shutdown) {
+            return false;
+        }
+        if (quietPeriod == 0) {
+            return true;
+        }
+        final long elapsed = System.currentTimeMillis() - pending.firstRequest;
+        final long delay = Math.max(0,
+                                    Math.min(quietPeriod,
+                                             quietPeriod * MAX_DELAY_FACTOR - elapsed));
+        timeouts.remove(pending);
+        pending.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        timeouts.add(pending);
+        if (!timerRunning) {
+            timerRunning = true;
+            try {
+                executorService.execute(this::runTimer);
+            } catch (RuntimeException e) {
+                timerRunning = false;
+                logger.error("Unable to time the quiet period of the build requests, building straight away.",
+                             e);
+                timeouts.remove(pending);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dispatches the builds whose quiet period ended, until no build is waiting.
+     */
+    private void runTimer() {
+        try {
+            while (true) {
+                final PendingBuild pending = timeouts.poll(quietPeriod,
+                                                           TimeUnit.MILLISECONDS);
+                if (pending != null) {
+                    dispatch(pending.module.getRootPath());
+                }
+                synchronized (this) {
+                    if (shutdown || timeouts.isEmpty()) {
+                        timerRunning = false;
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                timerRunning = false;
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(final Path rootPath) {
+        final PendingBuild pending;
+        synchronized (this) {
+            if (runningBuilds.contains(rootPath)) {
+                return;
+            }
+            pending = pendingBuilds.remove(rootPath);
+            if (pending == null) {
+                return;
+            }
+            timeouts.remove(pending);
+            runningBuilds.add(rootPath);
+        }
+        final Module module = pending.module;
+
+        try {
+            executorManager.get().execute(new AsyncIncrementalBuilder() {
+
+                @Override
+                public void execute(final ModuleService projectService,
+                                    final BuildService buildService,
+                                    final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
+                                    final Event<BuildResults> buildResultsEvent) {
+                    try {
+                        logger.info("Incremental build request being processed: " + module.getRootPath() + ".");
+
+                        //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
+                        if (!pending.fullBuild && buildService.isBuilt(module)) {
+                            final IncrementalBuildResults results = buildService.applyBatchResourceChanges(module,
+                                                                                                           pending.changes);
+                            incrementalBuildResultsEvent.fire(results);
+                        } else {
+                            final BuildResults results = buildService.build(module);
+                            buildResultsEvent.fire(results);
+                        }
+                    } catch (Exception e) {
+                        logger.error(e.getMessage(),
+                                     e);
+                    } finally {
+                        completed(rootPath);
+                    }
+                }
+
+                @Override
+                public String getDescription() {
+                    return (pending.fullBuild ? "Build [" : "Incremental Build [") + module.getModuleName() + "]";
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Unable to schedule build of " + module.getModuleName() + ": " + e.getMessage(),
+                         e);
+            completed(rootPath);
+        }
+    }
+
+    private void completed(final Path rootPath) {
+        executedBuilds.incrementAndGet();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Build requests: " + receivedRequests.get() + ", builds: " + executedBuilds.get() +
+                                 ", queue depth: " + getQueueDepth() + ".");
+        }
+        final boolean dispatchNow;
+        synchronized (this) {
+            runningBuilds.remove(rootPath);
+            final PendingBuild pending = pendingBuilds.get(rootPath);
+            dispatchNow = pending != null && arm(pending);
+        }
+        if (dispatchNow) {
+            dispatch(rootPath);
+        }
+    }
+
+    private static class PendingBuild implements Delayed {
+
+        private final long firstRequest;
+        private final Map<Path, Collection<ResourceChange>> changes = new LinkedHashMap<>();
+        private Module module;
+        private boolean fullBuild;
+        //In System.nanoTime(), only changed while out of the timeouts queue
+        private volatile long deadline;
+
+        private PendingBuild(final long firstRequest) {
+            this.firstRequest = firstRequest;
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(),
+                                TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(deadline,
+                                ((PendingBuild) other).deadline);
+        }
+
+        private void merge(final Map<Path, Collection<ResourceChange>> newChanges) {
+            for (Map.Entry<Path, Collection<ResourceChange>> e : newChanges.entrySet()) {
+                Collection<ResourceChange> resourceChanges = changes.get(e.getKey());
+                if (resourceChanges == null) {
+                    resourceChanges = new ArrayList<>();
+                    changes.put(e.getKey(),
+                                resourceChanges);
+                }
+                for (ResourceChange change : e.getValue()) {
+                    //Repeated changes of the same type are built once
+                    if (resourceChanges.isEmpty() || getLast(resourceChanges).getType() != change.getType()) {
+                        resourceChanges.add(change);
+                    }
+                }
+            }
+        }
+
+        private static ResourceChange getLast(final Collection<ResourceChange> resourceChanges) {
+            ResourceChange last = null;
+            for (ResourceChange change : resourceChanges) {
+                last = change;
+            }
+            return last;
+        }
+    }
+}
@@ -19,16 +19,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
-import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.guvnor.common.services.project.builder.model.BuildResults;
-import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
-import org.guvnor.common.services.project.builder.service.BuildService;
 import org.guvnor.common.services.project.model.Module;
 import org.guvnor.common.services.project.model.Package;
 import org.guvnor.common.services.project.service.ModuleService;
@@ -36,8 +33,12 @@ import org.guvnor.common.services.shared.config.AppConfigService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.vfs.Path;
+import org.uberfire.commons.concurrent.Managed;
 import org.uberfire.commons.services.cdi.ApplicationStarted;
+import org.uberfire.workbench.events.ResourceAdded;
 import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceDeleted;
+import org.uberfire.workbench.events.ResourceUpdated;
 
 /**
  * Listener for changes to project resources to handle incremental builds
@@ -59,9 +60,17 @@ public class ResourceChangeIncrementalBuilder {
     private IncrementalBuilderExecutorManagerFactory executorManagerProducer;
     private IncrementalBuilderExecutorManager executorManager = null;
 
+    @Inject
+    @Managed
+    private ExecutorService executorService;
+
+    private ModuleBuildScheduler buildScheduler;
+
     @PostConstruct
     private void setup() {
         isIncrementalEnabled = isIncrementalBuildEnabled();
+        buildScheduler = new ModuleBuildScheduler(this::getExecutor,
+                                                  executorService);
     }
 
     public void configureOnEvent(@Observes ApplicationStarted applicationStartedEvent) {
@@ -76,6 +85,9 @@ public class ResourceChangeIncrementalBuilder {
 
     @PreDestroy
     private void destroyExecutorService() {
+        if (buildScheduler != null) {
+            buildScheduler.shutdown();
+        }
         if (executorManager != null && !isEjb(executorManager,
                                               IncrementalBuilderExecutorManager.class)) {
             executorManager.shutdown();
@@ -98,6 +110,10 @@ public class ResourceChangeIncrementalBuilder {
         return executorManager;
     }
 
+    protected ModuleBuildScheduler getBuildScheduler() {
+        return buildScheduler;
+    }
+
     public void addResource(final Path resource) {
         //Do nothing if incremental builds are disabled
         if (!isIncrementalEnabled) {
@@ -113,36 +129,9 @@ public class ResourceChangeIncrementalBuilder {
         }
 
         //Schedule an incremental build
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (added).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.addPackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (added)]";
-            }
-        });
+        buildScheduler.scheduleIncrementalBuild(moduleService.resolveModule(resource),
+                                                resource,
+                                                new ResourceAdded(""));
     }
 
     public void deleteResource(final Path resource) {
@@ -160,36 +149,9 @@ public class ResourceChangeIncrementalBuilder {
         }
 
         //Schedule an incremental build
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (deleted).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.deletePackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (deleted)]";
-            }
-        });
+        buildScheduler.scheduleIncrementalBuild(moduleService.resolveModule(resource),
+                                                resource,
+                                                new ResourceDeleted(""));
     }
 
     public void updateResource(final Path resource) {
@@ -219,63 +181,14 @@ public class ResourceChangeIncrementalBuilder {
 
     //Schedule a re-build of a Project (changes to pom.xml or kmodule.xml require a full build)
     protected void scheduleProjectResourceUpdate(final Path resource) {
-        final Module module = moduleService.resolveModule(resource);
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + module.getRootPath() + " (updated).");
-                    final BuildResults results = buildService.build(module);
-                    buildResultsEvent.fire(results);
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (updated)]";
-            }
-        });
+        buildScheduler.scheduleFullBuild(moduleService.resolveModule(resource));
     }
 
     //Schedule an incremental build for a package resource
     protected void schedulePackageResourceUpdate(final Path resource) {
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (updated).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.updatePackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (updated)]";
-            }
-        });
+        buildScheduler.scheduleIncrementalBuild(moduleService.resolveModule(resource),
+                                                resource,
+                                                new ResourceUpdated(""));
     }
 
     public void batchResourceChanges(final Map<Path, Collection<ResourceChange>> batch) {
@@ -314,38 +227,8 @@ public class ResourceChangeIncrementalBuilder {
 
         //Schedule an incremental build for each Project
         for (final Map.Entry<Module, Map<Path, Collection<ResourceChange>>> e : projectBatchChanges.entrySet()) {
-            getExecutor().execute(new AsyncIncrementalBuilder() {
-
-                @Override
-                public void execute(final ModuleService projectService,
-                                    final BuildService buildService,
-                                    final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                    final Event<BuildResults> buildResultsEvent) {
-                    try {
-                        logger.info("Batch incremental build request being processed.");
-                        final Module module = e.getKey();
-                        final Map<Path, Collection<ResourceChange>> changes = e.getValue();
-
-                        //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                        if (buildService.isBuilt(module)) {
-                            final IncrementalBuildResults results = buildService.applyBatchResourceChanges(module,
-                                                                                                           changes);
-                            incrementalBuildResultsEvent.fire(results);
-                        } else {
-                            final BuildResults results = buildService.build(module);
-                            buildResultsEvent.fire(results);
-                        }
-                    } catch (Exception e) {
-                        logger.error(e.getMessage(),
-                                     e);
-                    }
-                }
-
-                @Override
-                public String getDescription() {
-                    return "Batch incremental build [" + e.getKey().getModuleName() + "]";
-                }
-            });
+            buildScheduler.scheduleIncrementalBuild(e.getKey(),
+                                                    e.getValue());
         }
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.common.services.builder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.event.Event;
+
+import org.guvnor.common.services.project.builder.model.BuildResults;
+import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
+import org.guvnor.common.services.project.builder.service.BuildService;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.common.services.project.model.Module;
+import org.guvnor.common.services.project.model.POM;
+import org.guvnor.common.services.project.service.ModuleService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAdded;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class ModuleBuildSchedulerTest {
+
+    private IncrementalBuilderExecutorManager executorManager;
+    private ModuleService moduleService;
+    private BuildService buildService;
+    private Event<IncrementalBuildResults> incrementalBuildResultsEvent;
+    private Event<BuildResults> buildResultsEvent;
+
+    private ExecutorService executorService;
+    private List<AsyncIncrementalBuilder> tasks;
+    private ModuleBuildScheduler scheduler;
+
+    private Module module;
+    private Path rootPath;
+    private Path resource1;
+    private Path resource2;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        executorManager = mock(IncrementalBuilderExecutorManager.class);
+        moduleService = mock(ModuleService.class);
+        buildService = mock(BuildService.class);
+        incrementalBuildResultsEvent = mock(Event.class);
+        buildResultsEvent = mock(Event.class);
+
+        //Tasks are queued so the tests control when builds run
+        tasks = new ArrayList<>();
+        doAnswer(invocation -> tasks.add((AsyncIncrementalBuilder) invocation.getArguments()[0]))
+                .when(executorManager).execute(any(AsyncIncrementalBuilder.class));
+        executorService = Executors.newCachedThreadPool();
+        scheduler = new ModuleBuildScheduler(() -> executorManager,
+                                             executorService,
+                                             0);
+
+        rootPath = mock(Path.class);
+        module = mock(Module.class);
+        when(module.getRootPath()).thenReturn(rootPath);
+        resource1 = mock(Path.class);
+        resource2 = mock(Path.class);
+        when(buildService.isBuilt(module)).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangesReceivedWhileBuildingAreCoalesced() {
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceAdded(""));
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceUpdated(""));
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource2,
+                                           new ResourceUpdated(""));
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource2,
+                                           new ResourceUpdated(""));
+
+        //Only the first request is running, the others wait for it
+        assertEquals(1,
+                     tasks.size());
+        assertEquals(1,
+                     scheduler.getQueueDepth());
+
+        runNextTask();
+
+        assertEquals(1,
+                     tasks.size());
+        assertEquals(0,
+                     scheduler.getQueueDepth());
+
+        runNextTask();
+
+        final ArgumentCaptor<Map> changesCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(buildService,
+               times(2)).applyBatchResourceChanges(eq(module),
+                                                   changesCaptor.capture());
+        final Map<Path, Collection<ResourceChange>> changes = changesCaptor.getAllValues().get(1);
+        assertEquals(2,
+                     changes.size());
+        assertEquals(1,
+                     changes.get(resource1).size());
+        assertEquals(1,
+                     changes.get(resource2).size());
+        verify(buildService,
+               never()).build(any(Module.class));
+
+        assertEquals(2,
+                     scheduler.getExecutedBuilds());
+        assertEquals(2.0,
+                     scheduler.getCoalescingRatio(),
+                     0);
+    }
+
+    @Test
+    public void testFullBuildSupersedesIncrementalChanges() {
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceAdded(""));
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceUpdated(""));
+        scheduler.scheduleFullBuild(module);
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource2,
+                                           new ResourceUpdated(""));
+
+        runNextTask();
+        runNextTask();
+
+        assertTrue(tasks.isEmpty());
+        verify(buildService,
+               times(1)).applyBatchResourceChanges(eq(module),
+                                                   anyMap());
+        verify(buildService,
+               times(1)).build(module);
+    }
+
+    @Test
+    public void testModuleWithChangedPomIsTheSameModule() {
+        final Path pomXMLPath = mock(Path.class);
+        final Module before = new Module(rootPath,
+                                         pomXMLPath,
+                                         new POM(new GAV("org.test",
+                                                         "module",
+                                                         "1.0")));
+        final Module after = new Module(rootPath,
+                                        pomXMLPath,
+                                        new POM(new GAV("org.test",
+                                                        "module",
+                                                        "2.0")));
+        when(buildService.isBuilt(any(Module.class))).thenReturn(true);
+
+        scheduler.scheduleIncrementalBuild(before,
+                                           resource1,
+                                           new ResourceAdded(""));
+        scheduler.scheduleIncrementalBuild(before,
+                                           resource2,
+                                           new ResourceUpdated(""));
+        scheduler.scheduleFullBuild(after);
+
+        //The build of the new pom.xml waits for the running one and supersedes the pending changes
+        assertEquals(1,
+                     tasks.size());
+        assertEquals(1,
+                     scheduler.getQueueDepth());
+
+        runNextTask();
+
+        assertEquals(1,
+                     tasks.size());
+        assertEquals(0,
+                     scheduler.getQueueDepth());
+
+        runNextTask();
+
+        assertTrue(tasks.isEmpty());
+        verify(buildService,
+               times(1)).applyBatchResourceChanges(eq(before),
+                                                   anyMap());
+        verify(buildService,
+               times(1)).build(after);
+    }
+
+    @Test
+    public void testFullBuildWhenModuleNotBuilt() {
+        when(buildService.isBuilt(module)).thenReturn(false);
+
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceAdded(""));
+        runNextTask();
+
+        verify(buildService).build(module);
+        verify(buildService,
+               never()).applyBatchResourceChanges(any(Module.class),
+                                                  anyMap());
+    }
+
+    @Test
+    public void testQuietPeriod() throws InterruptedException {
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            tasks.add((AsyncIncrementalBuilder) invocation.getArguments()[0]);
+            dispatched.countDown();
+            return null;
+        }).when(executorManager).execute(any(AsyncIncrementalBuilder.class));
+        scheduler = new ModuleBuildScheduler(() -> executorManager,
+                                             executorService,
+                                             50);
+
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource1,
+                                           new ResourceAdded(""));
+        scheduler.scheduleIncrementalBuild(module,
+                                           resource2,
+                                           new ResourceAdded(""));
+
+        assertTrue(dispatched.await(5,
+                                    TimeUnit.SECONDS));
+        assertEquals(1,
+                     tasks.size());
+        assertEquals(0,
+                     scheduler.getQueueDepth());
+    }
+
+    private void runNextTask() {
+        tasks.remove(0).execute(moduleService,
+                                buildService,
+                                incrementalBuildResultsEvent,
+                                buildResultsEvent);
+    }
+}
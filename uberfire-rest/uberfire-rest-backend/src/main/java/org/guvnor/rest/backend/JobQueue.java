@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the jobs of the REST API on a shared executor, one job at a time per space and at most a fixed number of jobs
+ * at a time overall, so a burst of requests never takes more than its share of the executor.
+ * <p>
+ * Jobs of the same space run in submission order. Spaces with pending jobs take turns, so a space with many jobs
+ * does not delay the others. The number of pending jobs is bounded and jobs over the bound are refused.
+ */
+class JobQueue {
+
+    private final Executor executor;
+    private final int maxRunning;
+    private final int maxPending;
+
+    private final Map<String, Deque<Runnable>> pendingBySpace = new HashMap<>();
+    private final Deque<String> readySpaces = new ArrayDeque<>();
+    private int running = 0;
+    private int pending = 0;
+
+    JobQueue(final Executor executor,
+             final int maxRunning,
+             final int maxPending) {
+        this.executor = executor;
+        this.maxRunning = Math.max(1,
+                                   maxRunning);
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * @return false if the queue is full and the job was not queued.
+     */
+    synchronized boolean submit(final String space,
+                                final Runnable job) {
+        if (pending >= maxPending) {
+            return false;
+        }
+        final String key = space == null ? "" : space;
+        Deque<Runnable> jobs = pendingBySpace.get(key);
+        if (jobs == null) {
+            jobs = new ArrayDeque<>();
+            pendingBySpace.put(key,
+                               jobs);
+            readySpaces.add(key);
+        }
+        jobs.add(job);
+        pending++;
+        dispatch();
+        return true;
+    }
+
+    synchronized int getPending() {
+        return pending;
+    }
+
+    synchronized int getRunning() {
+        return running;
+    }
+
+    private void dispatch() {
+        while (running < maxRunning && !readySpaces.isEmpty()) {
+            final String space = readySpaces.poll();
+            final Runnable job = pendingBySpace.get(space).poll();
+            pending--;
+            running++;
+            try {
+                executor.execute(() -> {
+                    try {
+                        job.run();
+                    } finally {
+                        complete(space);
+                    }
+                });
+            } catch (RuntimeException e) {
+                pendingBySpace.get(space).addFirst(job);
+                pending++;
+                running--;
+                requeue(space);
+                throw e;
+            }
+        }
+    }
+
+    private synchronized void complete(final String space) {
+        running--;
+        requeue(space);
+        dispatch();
+    }
+
+    private void requeue(final String space) {
+        if (pendingBySpace.get(space).isEmpty()) {
+            pendingBySpace.remove(space);
+        } else {
+            readySpaces.add(space);
+        }
+    }
+}
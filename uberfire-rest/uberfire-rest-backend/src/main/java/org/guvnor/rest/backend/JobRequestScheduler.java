@@ -41,6 +41,7 @@ import org.guvnor.rest.client.DeleteProjectRequest;
 import org.guvnor.rest.client.DeployProjectRequest;
 import org.guvnor.rest.client.InstallProjectRequest;
 import org.guvnor.rest.client.JobRequest;
+import org.guvnor.rest.client.JobResult;
 import org.guvnor.rest.client.JobStatus;
 import org.guvnor.rest.client.RemoveSpaceRequest;
 import org.guvnor.rest.client.SpaceRequest;
@@ -52,14 +53,21 @@ import org.uberfire.commons.concurrent.Managed;
 import static org.guvnor.rest.backend.cmd.AbstractJobCommand.JOB_REQUEST_KEY;
 
 /**
- * Utility class observing requests for various functions of the REST service
+ * Utility class observing requests for various functions of the REST service.
+ * <p>
+ * Jobs are run through a {@link JobQueue}: one at a time per space, at most
+ * <code>org.uberfire.rest.job.concurrency</code> at a time overall and at most
+ * <code>org.uberfire.rest.job.queue.size</code> waiting. Requests over the limit are DENIED.
  */
 @ApplicationScoped
 public class JobRequestScheduler {
 
+    public static final String JOB_CONCURRENCY = "org.uberfire.rest.job.concurrency";
+    public static final String JOB_QUEUE_SIZE = "org.uberfire.rest.job.queue.size";
+
     private static final Logger logger = LoggerFactory.getLogger(JobRequestScheduler.class);
 
-    private ExecutorService executorService;
+    private JobQueue jobQueue;
 
     private JobResultManager jobResultManager;
 
@@ -73,7 +81,11 @@ public class JobRequestScheduler {
     public JobRequestScheduler(@Managed ExecutorService executorService,
                                JobResultManager jobResultManager,
                                JobRequestHelper jobRequestHelper) {
-        this.executorService = executorService;
+        this.jobQueue = new JobQueue(executorService,
+                                     Integer.getInteger(JOB_CONCURRENCY,
+                                                        4),
+                                     Integer.getInteger(JOB_QUEUE_SIZE,
+                                                        1000));
         this.jobResultManager = jobResultManager;
         this.jobRequestHelper = jobRequestHelper;
     }
@@ -86,6 +98,7 @@ public class JobRequestScheduler {
                    "cloneProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new CloneRepositoryCmd(jobRequestHelper,
                                            jobResultManager,
                                            params));
@@ -101,6 +114,7 @@ public class JobRequestScheduler {
                    "createProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new CreateProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -114,6 +128,7 @@ public class JobRequestScheduler {
                    "deleteProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new DeleteProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -127,6 +142,7 @@ public class JobRequestScheduler {
                    "compileProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new CompileProjectCmd(jobRequestHelper,
                                           jobResultManager,
                                           params));
@@ -140,6 +156,7 @@ public class JobRequestScheduler {
                    "installProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new InstallProjectCmd(jobRequestHelper,
                                           jobResultManager,
                                           params));
@@ -153,6 +170,7 @@ public class JobRequestScheduler {
                    "testProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new TestProjectCmd(jobRequestHelper,
                                        jobResultManager,
                                        params));
@@ -166,6 +184,7 @@ public class JobRequestScheduler {
                    "deployProject");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new DeployProjectCmd(jobRequestHelper,
                                          jobResultManager,
                                          params));
@@ -177,6 +196,7 @@ public class JobRequestScheduler {
                    "createOrgUnit");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new CreateSpaceCmd(jobRequestHelper,
                                        jobResultManager,
                                        params));
@@ -190,6 +210,7 @@ public class JobRequestScheduler {
                    "addRepositoryToOrgUnit");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new AddProjectToSpaceCmd(jobRequestHelper,
                                              jobResultManager,
                                              params));
@@ -201,6 +222,7 @@ public class JobRequestScheduler {
                    "removeOrgUnit");
 
         scheduleJob(jobRequest,
+                    jobRequest.getSpaceName(),
                     new RemoveSpaceCmd(jobRequestHelper,
                                        jobResultManager,
                                        params));
@@ -218,11 +240,23 @@ public class JobRequestScheduler {
     }
 
     private void scheduleJob(final JobRequest jobRequest,
+                             final String spaceName,
                              final AbstractJobCommand command) {
         jobRequest.setStatus(JobStatus.APPROVED);
         logger.debug("Scheduling job request with id: {} and command class: {}",
                      jobRequest.getJobId(),
                      command.getClass().getName());
-        this.executorService.execute(command);
+        if (!jobQueue.submit(spaceName,
+                             command)) {
+            logger.warn("Job request with id: {} denied, there are too many pending jobs",
+                        jobRequest.getJobId());
+            jobRequest.setStatus(JobStatus.DENIED);
+            final JobResult jobResult = new JobResult();
+            jobResult.setJobId(jobRequest.getJobId());
+            jobResult.setStatus(JobStatus.DENIED);
+            jobResult.setResult("Request denied because there are too many pending jobs, try again later");
+            jobResult.setLastModified(System.currentTimeMillis());
+            jobResultManager.putJob(jobResult);
+        }
     }
 }
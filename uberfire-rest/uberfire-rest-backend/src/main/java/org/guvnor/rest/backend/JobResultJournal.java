@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
+
+/**
+ * Append only file of the {@link JobResult} changes, so the results of the REST jobs survive a restart.
+ * <p>
+ * Every put and remove is appended as one record. Reading replays the records and drops the records from the first
+ * one that was only partially written or is corrupt. When most records are outdated the file is rewritten with the
+ * current results only. Until {@link #load()} succeeds the file is not open and puts and removes are ignored.
+ */
+class JobResultJournal {
+
+    static final String FILE_NAME = "jobs.journal";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int MIN_COMPACT_RECORDS = 1000;
+
+    private final File file;
+    private DataOutputStream out;
+    private int records = 0;
+
+    JobResultJournal(final File dir) {
+        this.file = new File(dir,
+                             FILE_NAME);
+    }
+
+    /**
+     * @return the stored results, in the order they were last put.
+     */
+    synchronized Collection<JobResult> load() throws IOException {
+        final Map<String, JobResult> results = new LinkedHashMap<>();
+        records = 0;
+        if (file.exists()) {
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    final byte type = in.readByte();
+                    if (type == PUT) {
+                        final JobResult result = readResult(in);
+                        results.remove(result.getJobId());
+                        results.put(result.getJobId(),
+                                    result);
+                    } else if (type == REMOVE) {
+                        results.remove(readString(in));
+                    } else {
+                        break;
+                    }
+                    records++;
+                }
+            } catch (EOFException | StreamCorruptedException e) {
+                //The last record was not completely written, the rewrite truncates it
+            }
+        }
+        rewrite(results.values());
+        return results.values();
+    }
+
+    synchronized void put(final JobResult result) throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.writeByte(PUT);
+        writeResult(out,
+                    result);
+        out.flush();
+        records++;
+    }
+
+    synchronized void remove(final String jobId) throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.writeByte(REMOVE);
+        writeString(out,
+                    jobId);
+        out.flush();
+        records++;
+    }
+
+    /**
+     * Rewrites the file when it holds more than twice as many records as there are live results.
+     */
+    synchronized void compact(final Collection<JobResult> results) throws IOException {
+        if (out != null && records > MIN_COMPACT_RECORDS && records > 2 * results.size()) {
+            rewrite(results);
+        }
+    }
+
+    synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void rewrite(final Collection<JobResult> results) throws IOException {
+        close();
+        file.getParentFile().mkdirs();
+        final File tmp = new File(file.getParentFile(),
+                                  FILE_NAME + ".tmp");
+        try (final DataOutputStream tmpOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            for (JobResult result : results) {
+                tmpOut.writeByte(PUT);
+                writeResult(tmpOut,
+                            result);
+            }
+        }
+        Files.move(tmp.toPath(),
+                   file.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        records = results.size();
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file,
+                                                                                 true)));
+    }
+
+    private static void writeResult(final DataOutputStream out,
+                                    final JobResult result) throws IOException {
+        writeString(out,
+                    result.getJobId());
+        writeString(out,
+                    result.getStatus() == null ? null : result.getStatus().name());
+        writeString(out,
+                    result.getResult());
+        out.writeLong(result.getLastModified() == null ? 0 : result.getLastModified());
+        final List<String> detailedResult = result.getDetailedResult();
+        out.writeInt(detailedResult == null ? -1 : detailedResult.size());
+        if (detailedResult != null) {
+            for (String line : detailedResult) {
+                writeString(out,
+                            line);
+            }
+        }
+    }
+
+    private static JobResult readResult(final DataInputStream in) throws IOException {
+        final JobResult result = new JobResult();
+        result.setJobId(readString(in));
+        final String status = readString(in);
+        try {
+            result.setStatus(status == null ? null : JobStatus.valueOf(status));
+        } catch (IllegalArgumentException e) {
+            throw new StreamCorruptedException("Unknown job status " + status);
+        }
+        result.setResult(readString(in));
+        result.setLastModified(in.readLong());
+        final int lines = in.readInt();
+        if (lines < -1) {
+            throw new StreamCorruptedException("Invalid number of lines " + lines);
+        }
+        if (lines >= 0) {
+            final List<String> detailedResult = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                detailedResult.add(readString(in));
+            }
+            result.setDetailedResult(detailedResult);
+        }
+        return result;
+    }
+
+    private static void writeString(final DataOutputStream out,
+                                    final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < -1) {
+            throw new StreamCorruptedException("Invalid string length " + length);
+        }
+        if (length == -1) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes,
+                          StandardCharsets.UTF_8);
+    }
+}
@@ -15,44 +15,67 @@
 
 package org.guvnor.rest.backend;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 
 import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps the results of the REST jobs. Lookups read a concurrent map without locking. Results expire
+ * <code>org.uberfire.rest.job.result.ttl</code> seconds after their last change, and the oldest ones are dropped
+ * when there are more than <code>org.uberfire.rest.job.result.max</code>.
+ * <p>
+ * Every change is also written to a {@link JobResultJournal} in <code>org.uberfire.rest.job.dir</code>, so results
+ * survive a restart. Jobs that were still waiting or running at the restart are reported as failed.
+ */
 @ApplicationScoped
 public class JobResultManager {
 
+    public static final String JOB_DIR = "org.uberfire.rest.job.dir";
+    public static final String RESULT_TTL = "org.uberfire.rest.job.result.ttl";
+    public static final String RESULT_MAX = "org.uberfire.rest.job.result.max";
+
+    static final String JOBS_ROOT_DIR = ".jobs";
+
     private static final Logger logger = LoggerFactory.getLogger(JobResultManager.class);
     private static AtomicInteger created = new AtomicInteger(0);
 
-    private static class Cache extends LinkedHashMap<String, JobResult> {
+    private final ConcurrentMap<String, JobResult> jobs = new ConcurrentHashMap<>();
 
-        private int maxSize = 1000;
+    private File jobDir;
 
-        public Cache(int maxSize) {
-            this.maxSize = maxSize;
-        }
+    private long ttl;
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, JobResult> stringFutureEntry) {
-            return size() > maxSize;
-        }
+    private int maxCacheSize;
 
-        public void setMaxSize(int maxSize) {
-            this.maxSize = maxSize;
-        }
-    }
+    private JobResultJournal journal;
 
-    private Map<String, JobResult> jobs = null;
+    public JobResultManager() {
+        this(defaultJobDir(),
+             TimeUnit.SECONDS.toMillis(Long.getLong(RESULT_TTL,
+                                                    TimeUnit.DAYS.toSeconds(1))),
+             Integer.getInteger(RESULT_MAX,
+                                10000));
+    }
 
-    private int maxCacheSize = 10000;
+    JobResultManager(final File jobDir,
+                     final long ttl,
+                     final int maxCacheSize) {
+        this.jobDir = jobDir;
+        this.ttl = ttl;
+        this.maxCacheSize = maxCacheSize;
+    }
 
     @PostConstruct
     public void start() {
@@ -60,20 +83,123 @@ public class JobResultManager {
                                    1)) {
             throw new IllegalStateException("Only 1 JobResultManager instance is allowed per container!");
         }
-        Cache cache = new Cache(maxCacheSize);
-        jobs = Collections.synchronizedMap(cache);
+        journal = new JobResultJournal(jobDir);
+        try {
+            final long now = System.currentTimeMillis();
+            for (JobResult job : journal.load()) {
+                if (isExpired(job,
+                              now)) {
+                    continue;
+                }
+                if (JobStatus.ACCEPTED.equals(job.getStatus()) || JobStatus.APPROVED.equals(job.getStatus())) {
+                    job.setStatus(JobStatus.SERVER_ERROR);
+                    job.setResult("Request failed because the server was restarted before it completed");
+                    job.setLastModified(now);
+                    journal.put(job);
+                }
+                jobs.put(job.getJobId(),
+                         job);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to open the job results journal in <{}>, results are kept in memory only.",
+                        jobDir,
+                        e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close the job results journal.",
+                        e);
+        }
+        created.set(0);
     }
 
     public JobResult getJob(String jobId) {
-        return jobs.get(jobId);
+        final JobResult job = jobs.get(jobId);
+        if (job != null && isExpired(job,
+                                     System.currentTimeMillis())) {
+            removeJob(jobId);
+            return null;
+        }
+        return job;
     }
 
     public void putJob(JobResult job) {
+        if (job.getLastModified() == null) {
+            job.setLastModified(System.currentTimeMillis());
+        }
         jobs.put(job.getJobId(),
                  job);
+        try {
+            journal.put(job);
+        } catch (IOException e) {
+            logger.warn("Unable to store the result of job {}.",
+                        job.getJobId(),
+                        e);
+        }
+        if (jobs.size() > maxCacheSize) {
+            evict();
+        }
+        try {
+            journal.compact(jobs.values());
+        } catch (IOException e) {
+            logger.warn("Unable to compact the job results journal.",
+                        e);
+        }
     }
 
     public JobResult removeJob(String jobId) {
-        return jobs.remove(jobId);
+        final JobResult job = jobs.remove(jobId);
+        if (job != null) {
+            try {
+                journal.remove(jobId);
+            } catch (IOException e) {
+                logger.warn("Unable to remove the result of job {}.",
+                            jobId,
+                            e);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Drops the expired results and, while still over the limit, the least recently changed ones. Evicts down to
+     * 90% of the limit so it does not run again on the next put.
+     */
+    private synchronized void evict() {
+        final long now = System.currentTimeMillis();
+        for (JobResult job : jobs.values()) {
+            if (isExpired(job,
+                          now)) {
+                removeJob(job.getJobId());
+            }
+        }
+        final int target = maxCacheSize - maxCacheSize / 10;
+        if (jobs.size() > target) {
+            jobs.values().stream()
+                    .sorted(Comparator.comparing(JobResult::getLastModified))
+                    .limit(jobs.size() - target)
+                    .map(JobResult::getJobId)
+                    .forEach(this::removeJob);
+        }
+    }
+
+    private boolean isExpired(final JobResult job,
+                              final long now) {
+        return job.getLastModified() != null && now - job.getLastModified() > ttl;
+    }
+
+    static File defaultJobDir() {
+        final String value = System.getProperty(JOB_DIR);
+        if (value == null || value.trim().isEmpty()) {
+            return new File(JOBS_ROOT_DIR);
+        } else {
+            return new File(value.trim(),
+                            JOBS_ROOT_DIR);
+        }
     }
-}
\ No newline at end of file
+}
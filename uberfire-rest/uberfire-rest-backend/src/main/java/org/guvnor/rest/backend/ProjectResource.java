@@ -515,6 +515,10 @@ public class ProjectResource {
     }
 
     protected Response createAcceptedStatusResponse(final JobRequest jobRequest) {
+        if (JobStatus.DENIED.equals(jobRequest.getStatus())) {
+            //The job queue is full
+            return Response.status(Status.SERVICE_UNAVAILABLE).entity(jobRequest).variant(defaultVariant).build();
+        }
         return Response.status(Status.ACCEPTED).entity(jobRequest).variant(defaultVariant).build();
     }
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JobQueueTest {
+
+    private List<Runnable> submitted;
+    private List<String> executed;
+    private JobQueue queue;
+
+    @Before
+    public void setUp() {
+        submitted = new ArrayList<>();
+        executed = new ArrayList<>();
+        queue = new JobQueue(submitted::add,
+                             2,
+                             4);
+    }
+
+    @Test
+    public void testJobsOfASpaceRunOneAtATime() {
+        queue.submit("space1",
+                     job("a1"));
+        queue.submit("space1",
+                     job("a2"));
+
+        assertEquals(1,
+                     submitted.size());
+        assertEquals(1,
+                     queue.getPending());
+
+        runNext();
+        assertEquals(1,
+                     submitted.size());
+        runNext();
+
+        assertEquals(Arrays.asList("a1",
+                                   "a2"),
+                     executed);
+        assertEquals(0,
+                     queue.getRunning());
+    }
+
+    @Test
+    public void testSpacesTakeTurns() {
+        queue = new JobQueue(submitted::add,
+                             1,
+                             10);
+        queue.submit("space1",
+                     job("a1"));
+        queue.submit("space1",
+                     job("a2"));
+        queue.submit("space1",
+                     job("a3"));
+        queue.submit("space2",
+                     job("b1"));
+
+        while (!submitted.isEmpty()) {
+            runNext();
+        }
+
+        assertEquals(Arrays.asList("a1",
+                                   "b1",
+                                   "a2",
+                                   "a3"),
+                     executed);
+    }
+
+    @Test
+    public void testConcurrencyAndQueueAreBounded() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(queue.submit("space" + i,
+                                    job("job" + i)));
+        }
+        assertFalse(queue.submit("space6",
+                                 job("job6")));
+
+        assertEquals(2,
+                     submitted.size());
+        assertEquals(2,
+                     queue.getRunning());
+        assertEquals(4,
+                     queue.getPending());
+
+        runNext();
+        assertTrue(queue.submit("space6",
+                                job("job6")));
+    }
+
+    private void runNext() {
+        submitted.remove(0).run();
+    }
+
+    private Runnable job(final String name) {
+        return () -> executed.add(name);
+    }
+}
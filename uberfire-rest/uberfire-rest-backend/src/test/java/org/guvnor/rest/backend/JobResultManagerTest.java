@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class JobResultManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File jobDir;
+    private JobResultManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        jobDir = folder.newFolder("jobs");
+        manager = start(60000,
+                        100);
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+    }
+
+    @Test
+    public void testResultsSurviveRestart() {
+        final JobResult done = job("1",
+                                   JobStatus.SUCCESS);
+        done.setResult("Done");
+        done.setDetailedResult(Arrays.asList("line 1",
+                                             "line 2"));
+        manager.putJob(done);
+        manager.putJob(job("2",
+                           JobStatus.APPROVED));
+        manager.putJob(job("3",
+                           JobStatus.SUCCESS));
+        manager.removeJob("3");
+
+        restart(60000,
+                100);
+
+        final JobResult loaded = manager.getJob("1");
+        assertEquals(JobStatus.SUCCESS,
+                     loaded.getStatus());
+        assertEquals("Done",
+                     loaded.getResult());
+        assertEquals(Arrays.asList("line 1",
+                                   "line 2"),
+                     loaded.getDetailedResult());
+        //The job did not complete before the restart
+        assertEquals(JobStatus.SERVER_ERROR,
+                     manager.getJob("2").getStatus());
+        assertNull(manager.getJob("3"));
+    }
+
+    @Test
+    public void testPartiallyWrittenRecordIsIgnored() throws Exception {
+        manager.putJob(job("1",
+                           JobStatus.SUCCESS));
+        manager.putJob(job("2",
+                           JobStatus.SUCCESS));
+        manager.stop();
+
+        final File journal = new File(jobDir,
+                                      JobResultJournal.FILE_NAME);
+        try (final RandomAccessFile file = new RandomAccessFile(journal,
+                                                                "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        manager = start(60000,
+                        100);
+        assertNotNull(manager.getJob("1"));
+        assertNull(manager.getJob("2"));
+    }
+
+    @Test
+    public void testRecordWithUnknownStatusIsTruncated() throws Exception {
+        manager.putJob(job("1",
+                           JobStatus.SUCCESS));
+        manager.stop();
+
+        final File journal = new File(jobDir,
+                                      JobResultJournal.FILE_NAME);
+        try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(journal,
+                                                                                    true))) {
+            out.writeByte(1);
+            writeString(out,
+                        "2");
+            writeString(out,
+                        "UNKNOWN");
+        }
+
+        manager = start(60000,
+                        100);
+        assertNotNull(manager.getJob("1"));
+        assertNull(manager.getJob("2"));
+
+        //The results put after the corrupt record are readable
+        manager.putJob(job("3",
+                           JobStatus.SUCCESS));
+        restart(60000,
+                100);
+        assertNotNull(manager.getJob("1"));
+        assertNotNull(manager.getJob("3"));
+    }
+
+    @Test
+    public void testResultsAreKeptInMemoryWhenTheJournalCannotBeOpened() throws Exception {
+        manager.stop();
+        jobDir = folder.newFile("not-a-directory");
+
+        manager = start(60000,
+                        100);
+        manager.putJob(job("1",
+                           JobStatus.SUCCESS));
+        manager.putJob(job("2",
+                           JobStatus.SUCCESS));
+        manager.removeJob("2");
+
+        assertNotNull(manager.getJob("1"));
+        assertNull(manager.getJob("2"));
+    }
+
+    @Test
+    public void testResultsExpire() throws Exception {
+        restart(0,
+                100);
+        manager.putJob(job("1",
+                           JobStatus.SUCCESS));
+        Thread.sleep(5);
+
+        assertNull(manager.getJob("1"));
+    }
+
+    @Test
+    public void testOldestResultsAreEvicted() {
+        for (int i = 0; i <= 100; i++) {
+            final JobResult job = job(String.valueOf(i),
+                                      JobStatus.SUCCESS);
+            job.setLastModified(System.currentTimeMillis() + i);
+            manager.putJob(job);
+        }
+
+        assertNull(manager.getJob("0"));
+        assertNull(manager.getJob("10"));
+        assertNotNull(manager.getJob("11"));
+        assertNotNull(manager.getJob("100"));
+
+        restart(60000,
+                100);
+        assertNull(manager.getJob("10"));
+        assertNotNull(manager.getJob("11"));
+    }
+
+    private void restart(final long ttl,
+                         final int maxSize) {
+        manager.stop();
+        manager = start(ttl,
+                        maxSize);
+    }
+
+    private JobResultManager start(final long ttl,
+                                   final int maxSize) {
+        final JobResultManager jobResultManager = new JobResultManager(jobDir,
+                                                                       ttl,
+                                                                       maxSize);
+        jobResultManager.start();
+        return jobResultManager;
+    }
+
+    private static void writeString(final DataOutputStream out,
+                                    final String value) throws Exception {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private JobResult job(final String jobId,
+                          final JobStatus status) {
+        final JobResult job = new JobResult();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        return job;
+    }
+}
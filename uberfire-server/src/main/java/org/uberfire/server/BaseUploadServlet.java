@@ -17,6 +17,8 @@
 package org.uberfire.server;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Iterator;
 
 import javax.servlet.http.HttpServletRequest;
@@ -35,6 +37,18 @@ import org.uberfire.java.nio.file.Path;
 
 public abstract class BaseUploadServlet extends BaseFilteredServlet {
 
+    /**
+     * Maximum size in bytes of an uploaded file, -1 (the default) for no limit.
+     */
+    public static final String MAX_FILE_SIZE = "org.uberfire.upload.max.file.size";
+
+    /**
+     * Maximum size in bytes of a whole upload request, -1 (the default) for no limit.
+     */
+    public static final String MAX_REQUEST_SIZE = "org.uberfire.upload.max.request.size";
+
+    static final int BUFFER_SIZE = 8192;
+
     private static final Logger logger = LoggerFactory.getLogger(BaseUploadServlet.class);
 
     protected FileItem getFileItem(HttpServletRequest request) throws FileUploadException {
@@ -59,6 +73,8 @@ public abstract class BaseUploadServlet extends BaseFilteredServlet {
         FileItemFactory factory = new DiskFileItemFactory();
         ServletFileUpload upload = new ServletFileUpload(factory);
         upload.setHeaderEncoding("UTF-8");
+        upload.setFileSizeMax(getSizeLimit(MAX_FILE_SIZE));
+        upload.setSizeMax(getSizeLimit(MAX_REQUEST_SIZE));
         return upload;
     }
 
@@ -67,14 +83,27 @@ public abstract class BaseUploadServlet extends BaseFilteredServlet {
                              final FileItem uploadedItem) throws IOException {
         try {
             ioService.startBatch(path.getFileSystem());
-            ioService.write(path,
-                            IOUtils.toByteArray(uploadedItem.getInputStream()));
+            try (final InputStream in = uploadedItem.getInputStream();
+                 final OutputStream out = ioService.newOutputStream(path)) {
+                IOUtils.copyLarge(in,
+                                  out,
+                                  new byte[BUFFER_SIZE]);
+            }
         } finally {
-            uploadedItem.getInputStream().close();
             ioService.endBatch();
         }
     }
 
+    long getSizeLimit(final String property) {
+        try {
+            return Long.parseLong(System.getProperty(property,
+                                                     "-1"));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value for " + property + ", uploads are not limited.");
+            return -1;
+        }
+    }
+
     protected void logError(Throwable e) {
         logger.error("Failed to upload a file.",
                      e);
@@ -17,6 +17,8 @@
 package org.uberfire.server;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -30,13 +32,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.server.util.FileServletUtil;
 
 import static java.lang.String.format;
 
+/**
+ * Streams a file to the client through a fixed size buffer, so the file is never held in memory.
+ * <p>
+ * The ETag of a file is its Git blob id when the file system provides one (its size and last modified time
+ * otherwise), so clients holding the same version receive a 304 on If-None-Match. A single byte range is served
+ * with a 206, honouring If-Range; other range requests are answered with the whole file.
+ */
 public class FileDownloadServlet
         extends BaseFilteredServlet {
 
+    static final int BUFFER_SIZE = 8192;
+
     private static final Logger logger = LoggerFactory.getLogger(FileDownloadServlet.class);
 
     @Inject
@@ -57,8 +70,18 @@ public class FileDownloadServlet
             }
 
             final Path path = ioService.get(uri);
-
-            byte[] bytes = ioService.readAllBytes(path);
+            final BasicFileAttributes attributes = readAttributes(path);
+            final String eTag = makeETag(attributes);
+
+            if (eTag != null) {
+                response.setHeader("ETag",
+                                   eTag);
+                if (matches(request.getHeader("If-None-Match"),
+                            eTag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
 
             response.setHeader("Content-Disposition",
                                format("attachment; filename=\"%s\";",
@@ -66,10 +89,45 @@ public class FileDownloadServlet
 
             response.setContentType("application/octet-stream");
 
-            response.getOutputStream().write(
-                    bytes,
-                    0,
-                    bytes.length);
+            if (attributes == null) {
+                copy(path,
+                     response.getOutputStream(),
+                     0,
+                     -1);
+                return;
+            }
+
+            final long size = attributes.size();
+            response.setHeader("Accept-Ranges",
+                               "bytes");
+
+            final String ifRange = request.getHeader("If-Range");
+            final long[] range = ifRange == null || ifRange.equals(eTag) ? parseRange(request.getHeader("Range"),
+                                                                                    size) : null;
+            if (range == null) {
+                response.setContentLengthLong(size);
+                copy(path,
+                     response.getOutputStream(),
+                     0,
+                     size);
+            } else if (range.length == 0) {
+                response.setHeader("Content-Range",
+                                   format("bytes */%d",
+                                          size));
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            } else {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range",
+                                   format("bytes %d-%d/%d",
+                                          range[0],
+                                          range[1],
+                                          size));
+                response.setContentLengthLong(range[1] - range[0] + 1);
+                copy(path,
+                     response.getOutputStream(),
+                     range[0],
+                     range[1] - range[0] + 1);
+            }
         } catch (final Exception e) {
             logger.error("Failed to download a file.",
                          e);
@@ -80,4 +138,110 @@ public class FileDownloadServlet
         final String encodedPath = FileServletUtil.encodeFileNamePart(path);
         return new URI(encodedPath);
     }
+
+    String makeETag(final BasicFileAttributes attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        if (attributes.fileKey() != null) {
+            return "\"" + attributes.fileKey() + "\"";
+        }
+        if (attributes.lastModifiedTime() == null) {
+            return null;
+        }
+        return format("W/\"%x-%x\"",
+                      attributes.size(),
+                      attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * @return null when the whole file must be sent, an empty array when the range can't be satisfied, or the first
+     * and last positions of the requested range.
+     */
+    long[] parseRange(final String header,
+                      final long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        final String spec = header.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            final long first;
+            final long last;
+            if (dash == 0) {
+                final long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                first = Math.max(0,
+                                 size - suffix);
+                last = size - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0,
+                                                      dash));
+                last = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)),
+                                                                       size - 1);
+            }
+            if (first < 0 || first >= size || last < first) {
+                return new long[0];
+            }
+            return new long[]{first, last};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private BasicFileAttributes readAttributes(final Path path) {
+        final BasicFileAttributeView view = ioService.getFileAttributeView(path,
+                                                                           BasicFileAttributeView.class);
+        return view == null ? null : view.readAttributes();
+    }
+
+    private boolean matches(final String ifNoneMatch,
+                            final String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || ("W/" + value).equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies length bytes starting at offset, or everything from offset when length is negative.
+     */
+    private void copy(final Path path,
+                      final OutputStream out,
+                      final long offset,
+                      final long length) throws IOException {
+        try (final InputStream in = ioService.newInputStream(path)) {
+            long skipped = 0;
+            while (skipped < offset) {
+                final long n = in.skip(offset - skipped);
+                if (n <= 0) {
+                    return;
+                }
+                skipped += n;
+            }
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length < 0 ? Long.MAX_VALUE : length;
+            int count;
+            while (remaining > 0 && (count = in.read(buffer,
+                                                     0,
+                                                     (int) Math.min(buffer.length,
+                                                                    remaining))) >= 0) {
+                out.write(buffer,
+                          0,
+                          count);
+                remaining -= count;
+            }
+        }
+    }
 }
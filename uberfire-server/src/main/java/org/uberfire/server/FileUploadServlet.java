@@ -26,6 +26,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileUploadBase;
 import org.apache.commons.fileupload.FileUploadException;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
@@ -73,6 +74,11 @@ public class FileUploadServlet
                                  fileItem,
                                  uri);
             }
+        } catch (FileUploadBase.SizeException e) {
+            logError(e);
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            writeResponse(response,
+                          RESPONSE_FAIL);
         } catch (FileUploadException e) {
             logError(e);
             writeResponse(response,
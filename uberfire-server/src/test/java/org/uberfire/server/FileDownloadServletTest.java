@@ -16,6 +16,7 @@
 
 package org.uberfire.server;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 
 import javax.servlet.ServletOutputStream;
@@ -29,12 +30,18 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributeView;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.server.util.FileServletUtil;
 
 import static java.lang.String.format;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,12 +53,20 @@ public class FileDownloadServletTest {
 
     private static final String TEST_ROOT_PATH = "default://master@test-repository/test-project/src/main/resources/test";
 
+    private static final String BLOB_ID = "3b18e512dba79e4c8300dd08aeb37f8e728b8dad";
+
     @Mock
     private IOService ioService;
 
     @Mock
     private ServletOutputStream servletOutputStream;
 
+    @Mock
+    private BasicFileAttributeView attributeView;
+
+    @Mock
+    private BasicFileAttributes attributes;
+
     @InjectMocks
     private FileDownloadServlet downloadServlet;
 
@@ -72,6 +87,96 @@ public class FileDownloadServletTest {
                          fileContent);
     }
 
+    @Test
+    public void notModifiedWhenETagMatches() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        mockFile(TEST_ROOT_PATH + "/file.txt",
+                 "file.txt",
+                 "the local file content");
+        when(request.getParameter(PARAM_PATH)).thenReturn(TEST_ROOT_PATH + "/file.txt");
+        when(request.getHeader("If-None-Match")).thenReturn("\"other\", \"" + BLOB_ID + "\"");
+
+        downloadServlet.doGet(request,
+                              response);
+
+        verify(response).setHeader("ETag",
+                                   "\"" + BLOB_ID + "\"");
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response,
+               never()).getOutputStream();
+        verify(ioService,
+               never()).newInputStream(any(Path.class));
+    }
+
+    @Test
+    public void downloadRange() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        final String fileContent = "the local file content";
+        mockFile(TEST_ROOT_PATH + "/file.txt",
+                 "file.txt",
+                 fileContent);
+        when(request.getParameter(PARAM_PATH)).thenReturn(TEST_ROOT_PATH + "/file.txt");
+        when(request.getHeader("Range")).thenReturn("bytes=4-8");
+        when(response.getOutputStream()).thenReturn(servletOutputStream);
+
+        downloadServlet.doGet(request,
+                              response);
+
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range",
+                                   format("bytes 4-8/%d",
+                                          fileContent.length()));
+        verify(response).setContentLengthLong(5);
+        verify(servletOutputStream).write(any(byte[].class),
+                                          eq(0),
+                                          eq(5));
+    }
+
+    @Test
+    public void unsatisfiableRange() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        mockFile(TEST_ROOT_PATH + "/file.txt",
+                 "file.txt",
+                 "content");
+        when(request.getParameter(PARAM_PATH)).thenReturn(TEST_ROOT_PATH + "/file.txt");
+        when(request.getHeader("Range")).thenReturn("bytes=100-");
+
+        downloadServlet.doGet(request,
+                              response);
+
+        verify(response).setHeader("Content-Range",
+                                   "bytes */7");
+        verify(response).sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(ioService,
+               never()).newInputStream(any(Path.class));
+    }
+
+    @Test
+    public void testParseRange() {
+        assertArrayEquals(new long[]{0, 9},
+                          downloadServlet.parseRange("bytes=0-",
+                                                     10));
+        assertArrayEquals(new long[]{7, 9},
+                          downloadServlet.parseRange("bytes=-3",
+                                                     10));
+        assertArrayEquals(new long[]{2, 9},
+                          downloadServlet.parseRange("bytes=2-100",
+                                                     10));
+        assertArrayEquals(new long[0],
+                          downloadServlet.parseRange("bytes=5-2",
+                                                     10));
+        assertNull(downloadServlet.parseRange("bytes=0-1,4-5",
+                                              10));
+        assertNull(downloadServlet.parseRange("items=0-1",
+                                              10));
+    }
+
     @Test
     public void testMakeURI() throws Exception {
 
@@ -96,20 +201,12 @@ public class FileDownloadServletTest {
         //mock the servlet output stream
         when(response.getOutputStream()).thenReturn(servletOutputStream);
 
-        //mock the path to be generated by the ioService
-        Path path = mock(Path.class);
-        Path pathFileName = mock(Path.class);
-        when(path.getFileName()).thenReturn(pathFileName);
-        when(pathFileName.toString()).thenReturn(sourceFileName);
-
         //Expected URI
         URI expectedURI = new URI(FileServletUtil.encodeFileNamePart(sourcePath));
 
-        //mock the path generation
-        when(ioService.get(expectedURI)).thenReturn(path);
-
-        //mock the returned content
-        when(ioService.readAllBytes(path)).thenReturn(fileContent.getBytes());
+        Path path = mockFile(sourcePath,
+                             sourceFileName,
+                             fileContent);
 
         downloadServlet.doGet(request,
                               response);
@@ -123,14 +220,42 @@ public class FileDownloadServletTest {
         verify(response,
                times(1)).getOutputStream();
 
+        verify(response,
+               times(1)).setContentLengthLong(fileContent.getBytes().length);
+        verify(response,
+               times(1)).setHeader("ETag",
+                                   "\"" + BLOB_ID + "\"");
+
         verify(servletOutputStream,
-               times(1)).write(fileContent.getBytes(),
-                               0,
-                               fileContent.getBytes().length);
+               times(1)).write(any(byte[].class),
+                               eq(0),
+                               eq(fileContent.getBytes().length));
 
         verify(ioService,
                times(1)).get(eq(expectedURI));
         verify(ioService,
-               times(1)).readAllBytes(eq(path));
+               times(1)).newInputStream(eq(path));
+    }
+
+    private Path mockFile(String sourcePath,
+                          String sourceFileName,
+                          String fileContent) throws Exception {
+        //mock the path to be generated by the ioService
+        Path path = mock(Path.class);
+        Path pathFileName = mock(Path.class);
+        when(path.getFileName()).thenReturn(pathFileName);
+        when(pathFileName.toString()).thenReturn(sourceFileName);
+
+        //mock the path generation
+        when(ioService.get(new URI(FileServletUtil.encodeFileNamePart(sourcePath)))).thenReturn(path);
+
+        //mock the attributes and the returned content
+        when(ioService.getFileAttributeView(path,
+                                            BasicFileAttributeView.class)).thenReturn(attributeView);
+        when(attributeView.readAttributes()).thenReturn(attributes);
+        when(attributes.fileKey()).thenReturn(BLOB_ID);
+        when(attributes.size()).thenReturn((long) fileContent.getBytes().length);
+        when(ioService.newInputStream(path)).thenReturn(new ByteArrayInputStream(fileContent.getBytes()));
+        return path;
     }
 }
@@ -28,6 +28,7 @@ import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -43,6 +44,7 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -85,12 +87,53 @@ public class FileUploadServletTest {
     @InjectMocks
     private FileUploadServlet uploadServlet;
 
+    private ByteArrayOutputStream uploadedContent;
+
     @Before
     public void setup() {
+        uploadedContent = new ByteArrayOutputStream();
         when(ioService.get(any(URI.class))).thenReturn(path);
+        when(ioService.newOutputStream(path)).thenReturn(uploadedContent);
         when(path.getFileSystem()).thenReturn(fileSystem);
     }
 
+    @After
+    public void tearDown() {
+        System.clearProperty(BaseUploadServlet.MAX_FILE_SIZE);
+    }
+
+    @Test
+    public void uploadLargerThanTheLimitIsRejected() throws Exception {
+        System.setProperty(BaseUploadServlet.MAX_FILE_SIZE,
+                           "4");
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        when(request.getParameter(PARAM_PATH)).thenReturn(TEST_ROOT_PATH + "/FileNameWithNoSpaces.someextension");
+
+        String requestContent = mockMultipartRequestContent("local_file_name.txt",
+                                                            "the local file content");
+        when(request.getContentLength()).thenReturn(requestContent.getBytes().length);
+        when(request.getContentType()).thenReturn(CONTENT_TYPE);
+        when(request.getInputStream()).thenReturn(new MockServletInputStream(new ByteArrayInputStream(requestContent.getBytes())));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintWriter printWriter = new PrintWriter(outputStream);
+        when(response.getWriter()).thenReturn(printWriter);
+
+        uploadServlet.doPost(request,
+                             response);
+
+        verify(response).setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        verify(ioService,
+               never()).newOutputStream(any(Path.class));
+
+        printWriter.flush();
+        assertEquals("FAIL",
+                     new String(outputStream.toByteArray()));
+    }
+
     /**
      * Tests the uploading of a file given the following parameters:
      * <p>
@@ -282,8 +325,9 @@ public class FileUploadServletTest {
         verify(ioService,
                times(1)).get(eq(expectedURI));
         verify(ioService,
-               times(1)).write(any(Path.class),
-                               eq(fileContent.getBytes()));
+               times(1)).newOutputStream(any(Path.class));
+        assertEquals(fileContent,
+                     new String(uploadedContent.toByteArray()));
         verify(ioService,
                times(1)).endBatch();
 
@@ -333,8 +377,9 @@ public class FileUploadServletTest {
         verify(ioService,
                times(1)).get(eq(expectedURI));
         verify(ioService,
-               times(1)).write(any(Path.class),
-                               eq(fileContent.getBytes()));
+               times(1)).newOutputStream(any(Path.class));
+        assertEquals(fileContent,
+                     new String(uploadedContent.toByteArray()));
         verify(ioService,
                times(1)).endBatch();
 
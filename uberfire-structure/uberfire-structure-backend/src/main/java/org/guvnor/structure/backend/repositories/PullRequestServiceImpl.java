@@ -17,58 +17,60 @@
 package org.guvnor.structure.backend.repositories;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.guvnor.structure.repositories.GitMetadata;
 import org.guvnor.structure.repositories.GitMetadataStore;
 import org.guvnor.structure.repositories.PullRequest;
-import org.guvnor.structure.repositories.PullRequestAlreadyExistsException;
 import org.guvnor.structure.repositories.PullRequestService;
 import org.guvnor.structure.repositories.PullRequestStatus;
 import org.guvnor.structure.repositories.Repository;
-import org.guvnor.structure.repositories.RepositoryNotFoundException;
 import org.guvnor.structure.repositories.RepositoryService;
-import org.guvnor.structure.repositories.impl.GitMetadataImpl;
-import org.guvnor.structure.repositories.impl.PullRequestImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.base.FileDiff;
 import org.uberfire.java.nio.base.options.MergeCopyOption;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.spaces.SpacesAPI;
 
-import static java.lang.Integer.min;
-import static java.util.stream.Collectors.toMap;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpty;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
 import static org.uberfire.backend.server.util.Paths.convert;
 
 public class PullRequestServiceImpl implements PullRequestService {
 
-    private final GitMetadataStore metadataStore;
     private final IOService ioService;
     private final RepositoryService repositoryService;
     private final SpacesAPI spaces;
+    private final PullRequestStore pullRequestStore;
 
     private Logger logger = LoggerFactory.getLogger(PullRequestServiceImpl.class);
 
-    @Inject
     public PullRequestServiceImpl(final GitMetadataStore metadataStore,
-                                  final @Named("ioStrategy") IOService ioService,
+                                  final IOService ioService,
                                   final RepositoryService repositoryService,
                                   final SpacesAPI spaces) {
-        this.metadataStore = metadataStore;
+        this(ioService,
+             repositoryService,
+             spaces,
+             new PullRequestStore(metadataStore,
+                                  ioService,
+                                  spaces,
+                                  new WatchEventRouter()));
+    }
+
+    @Inject
+    public PullRequestServiceImpl(final @Named("ioStrategy") IOService ioService,
+                                  final RepositoryService repositoryService,
+                                  final SpacesAPI spaces,
+                                  final PullRequestStore pullRequestStore) {
         this.ioService = ioService;
         this.repositoryService = repositoryService;
         this.spaces = spaces;
+        this.pullRequestStore = pullRequestStore;
     }
 
     @Override
@@ -88,55 +90,18 @@ public class PullRequestServiceImpl implements PullRequestService {
         checkNotEmpty("targetBranch",
                       targetBranch);
 
-        final Optional<GitMetadata> targetRepositoryMetadata = this.metadataStore.read(targetRepository);
-
-        PullRequestImpl storablePullRequest;
-        if (targetRepositoryMetadata.isPresent()) {
-
-            GitMetadata metadata = targetRepositoryMetadata.get();
-
-            long generatedId = this.generatePullRequestId(metadata);
-
-            List<PullRequest> pullRequests = metadata.getPullRequests();
+        final PullRequest storablePullRequest = this.pullRequestStore.create(sourceSpace,
+                                                                            sourceRepository,
+                                                                            sourceBranch,
+                                                                            targetSpace,
+                                                                            targetRepository,
+                                                                            targetBranch);
 
-            if (pullRequests == null) {
-                pullRequests = new ArrayList<>();
-            }
-
-            storablePullRequest = new PullRequestImpl(generatedId,
-                                                      sourceSpace,
-                                                      sourceRepository,
-                                                      sourceBranch,
-                                                      targetSpace,
-                                                      targetRepository,
-                                                      targetBranch,
-                                                      PullRequestStatus.OPEN);
-
-            if (metadata.exists(storablePullRequest)) {
-                throw new PullRequestAlreadyExistsException(storablePullRequest);
-            }
-
-            pullRequests.add(storablePullRequest);
-
-            GitMetadata newMetadata = new GitMetadataImpl(metadata.getName(),
-                                                          metadata.getOrigin(),
-                                                          metadata.getForks(),
-                                                          pullRequests);
-
-            this.metadataStore.write(metadata.getName(),
-                                     newMetadata);
-
-            if (logger.isDebugEnabled()) {
-                logger.debug("Pull request PR-{} created. Target repository: {} / {}",
-                             storablePullRequest.getId(),
-                             storablePullRequest.getTargetRepository(),
-                             storablePullRequest.getTargetBranch());
-            }
-        } else {
-            throw new RepositoryNotFoundException(
-                    String.format("The repository or branch does not exists %s/%s",
-                                  targetRepository,
-                                  targetBranch));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Pull request PR-{} created. Target repository: {} / {}",
+                         storablePullRequest.getId(),
+                         storablePullRequest.getTargetRepository(),
+                         storablePullRequest.getTargetBranch());
         }
 
         return storablePullRequest;
@@ -153,14 +118,15 @@ public class PullRequestServiceImpl implements PullRequestService {
 
         String repository = pullRequest.getTargetRepository();
         long id = pullRequest.getId();
-        final GitMetadata metadata = this.getRepositoryMetadata(repository);
-        final PullRequest acceptPullRequest = metadata.getPullRequest(id);
+        final PullRequest acceptPullRequest = this.pullRequestStore.get(repository,
+                                                                        id);
         this.createHiddenBranch(acceptPullRequest);
         this.mergePullRequest(acceptPullRequest);
         this.changePullRequestStatus(repository,
                                      id,
                                      PullRequestStatus.MERGED);
-        return this.getRepositoryMetadata(repository).getPullRequest(id);
+        return this.pullRequestStore.get(repository,
+                                         id);
     }
 
     @Override
@@ -178,7 +144,8 @@ public class PullRequestServiceImpl implements PullRequestService {
         this.changePullRequestStatus(repository,
                                      id,
                                      PullRequestStatus.REJECTED);
-        return this.getRepositoryMetadata(repository).getPullRequest(id);
+        return this.pullRequestStore.get(repository,
+                                         id);
     }
 
     @Override
@@ -196,7 +163,8 @@ public class PullRequestServiceImpl implements PullRequestService {
         this.changePullRequestStatus(repository,
                                      id,
                                      PullRequestStatus.CLOSED);
-        return this.getRepositoryMetadata(repository).getPullRequest(id);
+        return this.pullRequestStore.get(repository,
+                                         id);
     }
 
     @Override
@@ -204,23 +172,19 @@ public class PullRequestServiceImpl implements PullRequestService {
                                                      Integer pageSize,
                                                      final String repository,
                                                      final String branch) {
-        GitMetadata metadata = getRepositoryMetadata(repository);
-        List<PullRequest> pullRequests = metadata.getPullRequests(elem -> elem.getTargetBranch().equals(branch));
-        return this.paginate(page,
-                             pageSize,
-                             pullRequests);
+        return this.pullRequestStore.getByBranch(repository,
+                                                 branch,
+                                                 page,
+                                                 pageSize);
     }
 
     @Override
     public List<PullRequest> getPullRequestsByRepository(Integer page,
                                                          Integer pageSize,
                                                          final String repository) {
-
-        GitMetadata metadata = getRepositoryMetadata(repository);
-        List<PullRequest> pullRequests = metadata.getPullRequests();
-        return this.paginate(page,
-                             pageSize,
-                             pullRequests);
+        return this.pullRequestStore.getByRepository(repository,
+                                                     page,
+                                                     pageSize);
     }
 
     @Override
@@ -228,14 +192,10 @@ public class PullRequestServiceImpl implements PullRequestService {
                                                      Integer pageSize,
                                                      final String repository,
                                                      final PullRequestStatus status) {
-
-        final List<PullRequest> pullRequests = this.getPullRequestsByRepository(page,
-                                                                                pageSize,
-                                                                                repository);
-        final List<PullRequest> finalPullRequests = pullRequests.stream().filter(elem -> elem.getStatus().equals(status)).collect(Collectors.toList());
-        return this.paginate(page,
-                             pageSize,
-                             finalPullRequests);
+        return this.pullRequestStore.getByStatus(repository,
+                                                 status,
+                                                 page,
+                                                 pageSize);
     }
 
     @Override
@@ -251,45 +211,12 @@ public class PullRequestServiceImpl implements PullRequestService {
         String repository = pullRequest.getTargetRepository();
         long id = pullRequest.getId();
 
-        GitMetadata metadata = getRepositoryMetadata(repository);
-        PullRequest removablePullRequest = metadata.getPullRequest(id);
-
-        List<PullRequest> finalPullRequests = metadata.getPullRequests();
-        finalPullRequests.remove(removablePullRequest);
-
-        GitMetadata storableMetadata = new GitMetadataImpl(metadata.getName(),
-                                                           metadata.getOrigin(),
-                                                           metadata.getForks(),
-                                                           finalPullRequests);
-        this.metadataStore.write(storableMetadata.getName(),
-                                 storableMetadata);
+        final PullRequest removablePullRequest = this.pullRequestStore.delete(repository,
+                                                                              id);
 
         this.deleteHiddenBranch(removablePullRequest);
     }
 
-    protected List<PullRequest> paginate(Integer page,
-                                         Integer pageSize,
-                                         List<PullRequest> pullRequests) {
-
-        if (page == 0 && pageSize == 0) {
-            return pullRequests;
-        }
-
-        Integer finalPageSize = pageSize == 0 ? 10 : pageSize;
-
-        final Map<Integer, List<PullRequest>> map = IntStream.iterate(0,
-                                                                      i -> i + finalPageSize)
-                .limit((pullRequests.size() + finalPageSize - 1) / finalPageSize)
-                .boxed()
-                .collect(toMap(i -> i / finalPageSize,
-                               i -> pullRequests.subList(i,
-                                                         min(i + finalPageSize,
-                                                             pullRequests.size()))));
-
-        return map.getOrDefault(page,
-                                new ArrayList<>());
-    }
-
     @Override
     public List<FileDiff> diff(final PullRequest pullRequest) {
 
@@ -313,46 +240,9 @@ public class PullRequestServiceImpl implements PullRequestService {
         checkNotNull("status",
                      status);
 
-        GitMetadata metadata = getRepositoryMetadata(repository);
-        PullRequest pullRequest = metadata.getPullRequest(id);
-        PullRequestImpl finalPullRequest = new PullRequestImpl(pullRequest.getId(),
-                                                               pullRequest.getSourceSpace(),
-                                                               pullRequest.getSourceRepository(),
-                                                               pullRequest.getSourceBranch(),
-                                                               pullRequest.getTargetSpace(),
-                                                               pullRequest.getTargetRepository(),
-                                                               pullRequest.getTargetBranch(),
-                                                               status);
-
-        List<PullRequest> finalPullRequests = metadata.getPullRequests(elem -> elem.getId() != id);
-        finalPullRequests.add(finalPullRequest);
-
-        GitMetadata storableMetadata = new GitMetadataImpl(metadata.getName(),
-                                                           metadata.getOrigin(),
-                                                           metadata.getForks(),
-                                                           finalPullRequests);
-        this.metadataStore.write(storableMetadata.getName(),
-                                 storableMetadata);
-    }
-
-    private GitMetadata getRepositoryMetadata(final String repository) {
-        final Optional<GitMetadata> optional = this.metadataStore.read(repository);
-
-        if (!optional.isPresent()) {
-            throw new RepositoryNotFoundException(
-                    String.format("The repository does not exists <<%s>>",
-                                  repository));
-        }
-
-        return optional.get();
-    }
-
-    private synchronized long generatePullRequestId(final GitMetadata metadata) {
-
-        List<PullRequest> pullRequests = metadata.getPullRequests();
-        final Optional<PullRequest> last = pullRequests.stream().max((first, second) -> Long.compare(first.getId(),
-                                                                                                     second.getId()));
-        return last.map(pr -> pr.getId() + 1).orElse(1l);
+        this.pullRequestStore.changeStatus(repository,
+                                           id,
+                                           status);
     }
 
     protected void createHiddenBranch(final PullRequest pullRequest) {
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.backend.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.guvnor.structure.repositories.GitMetadata;
+import org.guvnor.structure.repositories.GitMetadataStore;
+import org.guvnor.structure.repositories.PullRequest;
+import org.guvnor.structure.repositories.PullRequestAlreadyExistsException;
+import org.guvnor.structure.repositories.PullRequestStatus;
+import org.guvnor.structure.repositories.RepositoryNotFoundException;
+import org.guvnor.structure.repositories.RepositoryRemovedEvent;
+import org.guvnor.structure.repositories.impl.GitMetadataImpl;
+import org.guvnor.structure.repositories.impl.PullRequestImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.spaces.SpacesAPI;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceRenamed;
+
+/**
+ * Keeps the Pull Requests of each target repository indexed by id, target branch and status, so queries walk only
+ * the Pull Requests they return instead of reading and filtering the whole repository metadata.
+ * <p>
+ * The {@link GitMetadataStore} remains the storage: the index of a repository is loaded from its metadata the first
+ * time it is used and dropped whenever the metadata file system notifies a change of the repository through the
+ * {@link WatchEventRouter}, so changes made by other nodes or pushed through git are seen. Every change is made in a batch of the metadata file system, which
+ * holds its lock: the metadata is read again, the change is applied to a new index built from it and written
+ * through, and the new index is only published once the write succeeds. Ids are the highest stored id plus one.
+ */
+@ApplicationScoped
+public class PullRequestStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PullRequestStore.class);
+    private static final String METADATA_EXTENSION = ".metadata";
+
+    private final ConcurrentMap<String, RepositoryPullRequests> repositories = new ConcurrentHashMap<>();
+    private GitMetadataStore metadataStore;
+    private IOService ioService;
+    private SpacesAPI spaces;
+    private WatchEventRouter watchEventRouter;
+    private FileSystem metadataFileSystem;
+    private String metadataRoot;
+    private WatchEventRouter.Subscription subscription;
+
+    public PullRequestStore() {
+    }
+
+    @Inject
+    public PullRequestStore(final GitMetadataStore metadataStore,
+                            final @Named("configIO") IOService ioService,
+                            final SpacesAPI spaces,
+                            final WatchEventRouter watchEventRouter) {
+        this.metadataStore = metadataStore;
+        this.ioService = ioService;
+        this.spaces = spaces;
+        this.watchEventRouter = watchEventRouter;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            final FileSystem fileSystem = getMetadataFileSystem();
+            metadataRoot = fileSystem.getRootDirectories().iterator().next().toUri().toString();
+            //The configIO file systems have no IO watch service
+            watchEventRouter.watch(fileSystem);
+            subscription = watchEventRouter.subscribe(metadataRoot,
+                                                      this::onMetadataChanged,
+                                                      repositories::clear);
+        } catch (Exception e) {
+            LOG.warn("Metadata file system can't be watched, Pull Requests changed by other nodes won't be seen until restart.",
+                     e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Stores a new OPEN Pull Request with the next id of the target repository.
+     * @throws PullRequestAlreadyExistsException if the same Pull Request is already open.
+     */
+    public PullRequest create(final String sourceSpace,
+                              final String sourceRepository,
+                              final String sourceBranch,
+                              final String targetSpace,
+                              final String targetRepository,
+                              final String targetBranch) {
+        return update(targetRepository,
+                      pullRequests -> {
+                          final PullRequest pullRequest = new PullRequestImpl(pullRequests.nextId(),
+                                                                              sourceSpace,
+                                                                              sourceRepository,
+                                                                              sourceBranch,
+                                                                              targetSpace,
+                                                                              targetRepository,
+                                                                              targetBranch,
+                                                                              PullRequestStatus.OPEN);
+                          if (pullRequests.isOpen(pullRequest)) {
+                              throw new PullRequestAlreadyExistsException(pullRequest);
+                          }
+                          pullRequests.add(pullRequest);
+                          return pullRequest;
+                      });
+    }
+
+    /**
+     * @throws NoSuchElementException if the repository has no Pull Request with the id.
+     */
+    public PullRequest get(final String repository,
+                           final long id) {
+        return getRepository(repository).get(id);
+    }
+
+    public PullRequest changeStatus(final String repository,
+                                    final long id,
+                                    final PullRequestStatus status) {
+        return update(repository,
+                      pullRequests -> {
+                          final PullRequest previous = pullRequests.get(id);
+                          final PullRequest pullRequest = new PullRequestImpl(previous.getId(),
+                                                                              previous.getSourceSpace(),
+                                                                              previous.getSourceRepository(),
+                                                                              previous.getSourceBranch(),
+                                                                              previous.getTargetSpace(),
+                                                                              previous.getTargetRepository(),
+                                                                              previous.getTargetBranch(),
+                                                                              status);
+                          pullRequests.add(pullRequest);
+                          return pullRequest;
+                      });
+    }
+
+    /**
+     * @return the deleted Pull Request.
+     */
+    public PullRequest delete(final String repository,
+                              final long id) {
+        return update(repository,
+                      pullRequests -> {
+                          final PullRequest pullRequest = pullRequests.get(id);
+                          pullRequests.remove(id);
+                          return pullRequest;
+                      });
+    }
+
+    public List<PullRequest> getByRepository(final String repository,
+                                             final Integer page,
+                                             final Integer pageSize) {
+        return page(getRepository(repository).byId.values(),
+                    page,
+                    pageSize);
+    }
+
+    public List<PullRequest> getByBranch(final String repository,
+                                         final String branch,
+                                         final Integer page,
+                                         final Integer pageSize) {
+        return page(getRepository(repository).byBranch.getOrDefault(branch,
+                                                                    new TreeMap<>()).values(),
+                    page,
+                    pageSize);
+    }
+
+    public List<PullRequest> getByStatus(final String repository,
+                                         final PullRequestStatus status,
+                                         final Integer page,
+                                         final Integer pageSize) {
+        return page(getRepository(repository).byStatus.getOrDefault(status,
+                                                                    new TreeMap<>()).values(),
+                    page,
+                    pageSize);
+    }
+
+    /**
+     * Drops the index of the repository, which is loaded again from its metadata when next used.
+     */
+    public void invalidate(final String repository) {
+        repositories.remove(repository);
+    }
+
+    public void invalidateAll() {
+        repositories.clear();
+    }
+
+    public void onRepositoryRemoved(@Observes final RepositoryRemovedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Page and page size 0 return everything and a page size of 0 means pages of 10.
+     */
+    List<PullRequest> page(final Collection<PullRequest> pullRequests,
+                           final Integer page,
+                           final Integer pageSize) {
+        if (page == 0 && pageSize == 0) {
+            return new ArrayList<>(pullRequests);
+        }
+        final int finalPageSize = pageSize == 0 ? 10 : pageSize;
+        final long offset = (long) page * finalPageSize;
+        final List<PullRequest> result = new ArrayList<>();
+        if (page < 0 || offset >= pullRequests.size()) {
+            return result;
+        }
+        final Iterator<PullRequest> iterator = pullRequests.iterator();
+        for (long i = 0; i < offset; i++) {
+            iterator.next();
+        }
+        while (iterator.hasNext() && result.size() < finalPageSize) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    void onMetadataChanged(final ResourceBatchChangesEvent event) {
+        for (Map.Entry<Path, Collection<ResourceChange>> entry : event.getBatch().entrySet()) {
+            invalidate(entry.getKey());
+            for (ResourceChange change : entry.getValue()) {
+                if (change instanceof ResourceRenamed) {
+                    invalidate(((ResourceRenamed) change).getDestinationPath());
+                }
+            }
+        }
+    }
+
+    private void invalidate(final Path path) {
+        final String uri = path.toURI();
+        if (!uri.startsWith(metadataRoot)) {
+            return;
+        }
+        //Metadata files are stored as /<space>/<repository>.metadata
+        final String file = uri.substring(metadataRoot.length());
+        if (file.endsWith(METADATA_EXTENSION)) {
+            invalidate(file.substring(file.startsWith("/") ? 1 : 0,
+                                      file.length() - METADATA_EXTENSION.length()));
+        }
+    }
+
+    private RepositoryPullRequests getRepository(final String repository) {
+        final RepositoryPullRequests pullRequests = repositories.computeIfAbsent(repository,
+                                                                                 name -> readMetadata(name).map(RepositoryPullRequests::new).orElse(null));
+        if (pullRequests == null) {
+            throw repositoryNotFound(repository);
+        }
+        return pullRequests;
+    }
+
+    /**
+     * Applies the change to the stored Pull Requests of the repository, holding the lock of the metadata file system.
+     * The index is replaced by the changed one only when the change was written.
+     */
+    private <T> T update(final String repository,
+                         final Function<RepositoryPullRequests, T> change) {
+        ioService.startBatch(getMetadataFileSystem());
+        try {
+            final Optional<GitMetadata> metadata = readMetadata(repository);
+            if (!metadata.isPresent()) {
+                invalidate(repository);
+                throw repositoryNotFound(repository);
+            }
+            final RepositoryPullRequests pullRequests = new RepositoryPullRequests(metadata.get());
+            final T result = change.apply(pullRequests);
+            //Origin and forks are maintained by the metadata store, so they are kept as stored
+            metadataStore.write(repository,
+                                new GitMetadataImpl(repository,
+                                                    metadata.get().getOrigin(),
+                                                    metadata.get().getForks(),
+                                                    new ArrayList<>(pullRequests.byId.values())));
+            repositories.put(repository,
+                             pullRequests);
+            return result;
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    private FileSystem getMetadataFileSystem() {
+        if (metadataFileSystem == null) {
+            metadataFileSystem = ioService.getFileSystem(spaces.resolveFileSystemURI(SpacesAPI.Scheme.DEFAULT,
+                                                                                     SpacesAPI.DEFAULT_SPACE,
+                                                                                     "metadata"));
+        }
+        return metadataFileSystem;
+    }
+
+    private Optional<GitMetadata> readMetadata(final String repository) {
+        return metadataStore.read(repository);
+    }
+
+    private RepositoryNotFoundException repositoryNotFound(final String repository) {
+        return new RepositoryNotFoundException(String.format("The repository does not exists <<%s>>",
+                                                             repository));
+    }
+
+    private static class RepositoryPullRequests {
+
+        private final NavigableMap<Long, PullRequest> byId = new TreeMap<>();
+        private final Map<String, NavigableMap<Long, PullRequest>> byBranch = new HashMap<>();
+        private final Map<PullRequestStatus, NavigableMap<Long, PullRequest>> byStatus = new EnumMap<>(PullRequestStatus.class);
+
+        private RepositoryPullRequests(final GitMetadata metadata) {
+            metadata.getPullRequests().forEach(this::add);
+        }
+
+        private long nextId() {
+            return byId.isEmpty() ? 1 : byId.lastKey() + 1;
+        }
+
+        private PullRequest get(final long id) {
+            final PullRequest pullRequest = byId.get(id);
+            if (pullRequest == null) {
+                throw new NoSuchElementException("The Pull Request with ID #" + id + " not found");
+            }
+            return pullRequest;
+        }
+
+        private void add(final PullRequest pullRequest) {
+            remove(pullRequest.getId());
+            byId.put(pullRequest.getId(),
+                     pullRequest);
+            byBranch.computeIfAbsent(pullRequest.getTargetBranch(),
+                                     branch -> new TreeMap<>()).put(pullRequest.getId(),
+                                                                    pullRequest);
+            byStatus.computeIfAbsent(pullRequest.getStatus(),
+                                     status -> new TreeMap<>()).put(pullRequest.getId(),
+                                                                    pullRequest);
+        }
+
+        private void remove(final long id) {
+            final PullRequest pullRequest = byId.remove(id);
+            if (pullRequest == null) {
+                return;
+            }
+            removeFrom(byBranch,
+                       pullRequest.getTargetBranch(),
+                       id);
+            removeFrom(byStatus,
+                       pullRequest.getStatus(),
+                       id);
+        }
+
+        private boolean isOpen(final PullRequest pullRequest) {
+            return byBranch.getOrDefault(pullRequest.getTargetBranch(),
+                                         new TreeMap<>()).values().stream().anyMatch(
+                    pr -> pr.getStatus().equals(PullRequestStatus.OPEN)
+                            && pr.getSourceBranch().equals(pullRequest.getSourceBranch())
+                            && pr.getSourceRepository().equals(pullRequest.getSourceRepository())
+                            && pr.getTargetRepository().equals(pullRequest.getTargetRepository()));
+        }
+
+        private static <K> void removeFrom(final Map<K, NavigableMap<Long, PullRequest>> index,
+                                           final K key,
+                                           final long id) {
+            final NavigableMap<Long, PullRequest> pullRequests = index.get(key);
+            if (pullRequests != null) {
+                pullRequests.remove(id);
+                if (pullRequests.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+}
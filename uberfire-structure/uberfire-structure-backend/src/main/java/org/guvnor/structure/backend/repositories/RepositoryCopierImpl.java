@@ -32,6 +32,7 @@ import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.options.TreeCopyOption;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
 import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.FileVisitor;
@@ -99,15 +100,9 @@ public class RepositoryCopierImpl
         final org.uberfire.java.nio.file.Path nioTargetRepositoryRoot = Paths.convert(targetRoot);
         final org.uberfire.java.nio.file.Path originRepositoryRoot = Paths.convert(originRoot);
 
-        ioService.startBatch(nioTargetRepositoryRoot.getFileSystem());
-        try {
-            copyFolders(nioTargetRepositoryRoot,
-                        originRepositoryRoot);
-            copyRootFiles(targetRoot,
-                          originRepositoryRoot);
-        } finally {
-            ioService.endBatch();
-        }
+        copyContent(targetRoot,
+                    nioTargetRepositoryRoot,
+                    originRepositoryRoot);
 
         if (!branchExisted) {
             fireNewBranchEvent(targetRoot,
@@ -123,15 +118,9 @@ public class RepositoryCopierImpl
         final org.uberfire.java.nio.file.Path nioTargetRepositoryRoot = Paths.convert(targetRoot);
         final org.uberfire.java.nio.file.Path originRepositoryRoot = Paths.convert(originRoot);
 
-        ioService.startBatch(nioTargetRepositoryRoot.getFileSystem());
-        try {
-            copyFolders(nioTargetRepositoryRoot,
-                        originRepositoryRoot);
-            copyRootFiles(targetRoot,
-                          originRepositoryRoot);
-        } finally {
-            ioService.endBatch();
-        }
+        copyContent(targetRoot,
+                    nioTargetRepositoryRoot,
+                    originRepositoryRoot);
 
         if (!branchExisted) {
             fireNewBranchEvent(space,
@@ -177,6 +166,48 @@ public class RepositoryCopierImpl
         }
     }
 
+    private void copyContent(final Path targetRoot,
+                             final org.uberfire.java.nio.file.Path nioTargetRepositoryRoot,
+                             final org.uberfire.java.nio.file.Path originRepositoryRoot) {
+        ioService.startBatch(nioTargetRepositoryRoot.getFileSystem());
+        try {
+            if (!copyTree(nioTargetRepositoryRoot,
+                          originRepositoryRoot)) {
+                copyFolders(nioTargetRepositoryRoot,
+                            originRepositoryRoot);
+                copyRootFiles(targetRoot,
+                              originRepositoryRoot);
+            }
+        } finally {
+            ioService.endBatch();
+        }
+    }
+
+    /**
+     * Both ends are git repositories: the target tree is built from the origin object ids
+     * and written as a single commit, instead of re-writing the repository file by file.
+     * @return false if the file system can't copy trees, so the content has to be walked.
+     */
+    private boolean copyTree(final org.uberfire.java.nio.file.Path nioTargetRepositoryRoot,
+                             final org.uberfire.java.nio.file.Path originRepositoryRoot) {
+        if (!isGit(nioTargetRepositoryRoot) || !isGit(originRepositoryRoot)) {
+            return false;
+        }
+        try {
+            Files.copy(originRepositoryRoot,
+                       nioTargetRepositoryRoot,
+                       new TreeCopyOption(),
+                       StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private boolean isGit(final org.uberfire.java.nio.file.Path path) {
+        return GitRepository.SCHEME.toString().equals(path.getFileSystem().provider().getScheme());
+    }
+
     private void copyFolders(final org.uberfire.java.nio.file.Path nioTargetRepositoryRoot,
                              final org.uberfire.java.nio.file.Path originRepositoryRoot) {
         final RecursiveCopier copier = new RecursiveCopier(originRepositoryRoot,
@@ -17,7 +17,6 @@
 package org.guvnor.structure.backend.repositories;
 
 import java.net.URI;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -559,43 +558,4 @@ public class PullRequestServiceTest {
 
         verify(ioService).get(uri);
     }
-
-    @Test
-    public void testPagination() {
-        final PullRequestImpl pr = new PullRequestImpl(1,
-                                                       "test-realm",
-                                                       "source/a",
-                                                       "develop",
-                                                       "test-realm",
-                                                       "target/a",
-                                                       "master",
-                                                       PullRequestStatus.OPEN);
-        List<PullRequest> pullRequests = Arrays.asList(pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr,
-                                                       pr);
-
-        assertEquals(10,
-                     ((PullRequestServiceImpl) service).paginate(0,
-                                                                 0,
-                                                                 pullRequests).size());
-        assertEquals(10,
-                     ((PullRequestServiceImpl) service).paginate(0,
-                                                                 15,
-                                                                 pullRequests).size());
-        assertEquals(5,
-                     ((PullRequestServiceImpl) service).paginate(1,
-                                                                 5,
-                                                                 pullRequests).size());
-        assertEquals(1,
-                     ((PullRequestServiceImpl) service).paginate(9,
-                                                                 1,
-                                                                 pullRequests).size());
-    }
 }
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.backend.repositories;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.guvnor.structure.repositories.GitMetadata;
+import org.guvnor.structure.repositories.GitMetadataStore;
+import org.guvnor.structure.repositories.PullRequest;
+import org.guvnor.structure.repositories.PullRequestStatus;
+import org.guvnor.structure.repositories.RepositoryNotFoundException;
+import org.guvnor.structure.repositories.RepositoryRemovedEvent;
+import org.guvnor.structure.repositories.impl.GitMetadataImpl;
+import org.guvnor.structure.repositories.impl.PullRequestImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.uberfire.backend.server.io.watch.WatchEventRouter;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.WatchService;
+import org.uberfire.spaces.SpacesAPI;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PullRequestStoreTest {
+
+    private static final String REPOSITORY = "parent/a";
+    private static final String METADATA_ROOT = "default://master@system/metadata/";
+
+    @Mock
+    private GitMetadataStore metadataStore;
+
+    @Mock
+    private IOService ioService;
+
+    @Mock
+    private SpacesAPI spaces;
+
+    @Mock
+    private FileSystem fileSystem;
+
+    @Mock
+    private org.uberfire.java.nio.file.Path rootDirectory;
+
+    @Mock
+    private WatchService watchService;
+
+    private WatchEventRouter watchEventRouter;
+
+    private Map<String, GitMetadata> metadatas;
+
+    private PullRequestStore store;
+
+    @Before
+    public void setUp() {
+        metadatas = new HashMap<>();
+        doAnswer(invocationOnMock -> Optional.ofNullable(metadatas.get(invocationOnMock.getArgumentAt(0,
+                                                                                                      String.class))))
+                .when(metadataStore).read(anyString());
+        doAnswer(invocationOnMock -> metadatas.put(invocationOnMock.getArgumentAt(0,
+                                                                                  String.class),
+                                                   invocationOnMock.getArgumentAt(1,
+                                                                                  GitMetadata.class)))
+                .when(metadataStore).write(anyString(),
+                                           any(GitMetadata.class));
+        metadatas.put(REPOSITORY,
+                      new GitMetadataImpl(REPOSITORY,
+                                          "",
+                                          Arrays.asList("child/a"),
+                                          new ArrayList<>(Arrays.asList(pullRequest(3,
+                                                                                    "master",
+                                                                                    PullRequestStatus.MERGED),
+                                                                        pullRequest(7,
+                                                                                    "develop",
+                                                                                    PullRequestStatus.OPEN)))));
+        when(spaces.resolveFileSystemURI(SpacesAPI.Scheme.DEFAULT,
+                                         SpacesAPI.DEFAULT_SPACE,
+                                         "metadata")).thenReturn(URI.create("default://system/metadata"));
+        when(ioService.getFileSystem(URI.create("default://system/metadata"))).thenReturn(fileSystem);
+        when(fileSystem.getRootDirectories()).thenReturn(Collections.singletonList(rootDirectory));
+        when(rootDirectory.toUri()).thenReturn(URI.create(METADATA_ROOT));
+        when(fileSystem.newWatchService()).thenReturn(watchService);
+        //Delivers the routed changes synchronously
+        watchEventRouter = new WatchEventRouter();
+        store = new PullRequestStore(metadataStore,
+                                     ioService,
+                                     spaces,
+                                     watchEventRouter);
+        store.init();
+    }
+
+    @Test
+    public void testMetadataFileSystemIsRouted() {
+        verify(fileSystem).newWatchService();
+        assertTrue(watchEventRouter.hasSubscriptions());
+
+        store.shutdown();
+        assertFalse(watchEventRouter.hasSubscriptions());
+    }
+
+    @Test
+    public void testIndexIsLoadedFromMetadata() {
+        assertEquals(Arrays.asList(3L,
+                                   7L),
+                     ids(store.getByRepository(REPOSITORY,
+                                               0,
+                                               0)));
+        assertEquals(8,
+                     create("child/b",
+                            "master").getId());
+        assertEquals(Arrays.asList(3L,
+                                   8L),
+                     ids(store.getByBranch(REPOSITORY,
+                                           "master",
+                                           0,
+                                           0)));
+        //Only the metadata read on load and on write
+        verify(metadataStore,
+               times(2)).read(REPOSITORY);
+    }
+
+    @Test
+    public void testWritesKeepOriginAndForks() {
+        create("child/b",
+               "master");
+
+        final GitMetadata metadata = metadatas.get(REPOSITORY);
+        assertEquals(Arrays.asList("child/a"),
+                     metadata.getForks());
+        assertEquals(3,
+                     metadata.getPullRequests().size());
+    }
+
+    @Test
+    public void testStatusIsFilteredBeforePaging() {
+        for (int i = 0; i < 5; i++) {
+            store.changeStatus(REPOSITORY,
+                               create("child/" + i,
+                                      "master").getId(),
+                               PullRequestStatus.REJECTED);
+            create("other/" + i,
+                   "master");
+        }
+
+        assertEquals(Arrays.asList(12L,
+                                   14L),
+                     ids(store.getByStatus(REPOSITORY,
+                                           PullRequestStatus.REJECTED,
+                                           1,
+                                           2)));
+        assertEquals(Arrays.asList(16L),
+                     ids(store.getByStatus(REPOSITORY,
+                                           PullRequestStatus.REJECTED,
+                                           2,
+                                           2)));
+        assertTrue(store.getByStatus(REPOSITORY,
+                                     PullRequestStatus.REJECTED,
+                                     3,
+                                     2).isEmpty());
+        assertEquals(6,
+                     store.getByStatus(REPOSITORY,
+                                       PullRequestStatus.OPEN,
+                                       0,
+                                       0).size());
+    }
+
+    @Test
+    public void testFailedWriteIsUndone() {
+        doThrow(new RuntimeException("Mocked exception")).when(metadataStore).write(anyString(),
+                                                                                   any(GitMetadata.class));
+        try {
+            create("child/b",
+                   "master");
+            fail("Should throw exception before this point");
+        } catch (RuntimeException e) {
+            assertEquals(2,
+                         store.getByRepository(REPOSITORY,
+                                               0,
+                                               0).size());
+        }
+        try {
+            store.changeStatus(REPOSITORY,
+                               7,
+                               PullRequestStatus.CLOSED);
+            fail("Should throw exception before this point");
+        } catch (RuntimeException e) {
+            assertEquals(PullRequestStatus.OPEN,
+                         store.get(REPOSITORY,
+                                   7).getStatus());
+            assertTrue(store.getByStatus(REPOSITORY,
+                                         PullRequestStatus.CLOSED,
+                                         0,
+                                         0).isEmpty());
+        }
+
+        //The id was not used
+        doAnswer(invocationOnMock -> null).when(metadataStore).write(anyString(),
+                                                                     any(GitMetadata.class));
+        assertEquals(8,
+                     create("child/b",
+                            "master").getId());
+    }
+
+    @Test(expected = RepositoryNotFoundException.class)
+    public void testRemovedRepositoryIsNotServedFromTheIndex() {
+        store.getByRepository(REPOSITORY,
+                              0,
+                              0);
+        metadatas.remove(REPOSITORY);
+        store.onRepositoryRemoved(new RepositoryRemovedEvent());
+
+        store.getByRepository(REPOSITORY,
+                              0,
+                              0);
+    }
+
+    @Test
+    public void testIndexIsDroppedWhenTheMetadataChanges() {
+        store.getByRepository(REPOSITORY,
+                              0,
+                              0);
+        //Another node stores a Pull Request
+        final GitMetadata metadata = metadatas.get(REPOSITORY);
+        final List<PullRequest> pullRequests = new ArrayList<>(metadata.getPullRequests());
+        pullRequests.add(pullRequest(9,
+                                     "master",
+                                     PullRequestStatus.OPEN));
+        metadatas.put(REPOSITORY,
+                      new GitMetadataImpl(REPOSITORY,
+                                          metadata.getOrigin(),
+                                          metadata.getForks(),
+                                          pullRequests));
+
+        metadataChange("other/a.metadata");
+        assertEquals(2,
+                     store.getByRepository(REPOSITORY,
+                                           0,
+                                           0).size());
+
+        metadataChange(REPOSITORY + ".metadata");
+        assertEquals(Arrays.asList(3L,
+                                   7L,
+                                   9L),
+                     ids(store.getByRepository(REPOSITORY,
+                                               0,
+                                               0)));
+    }
+
+    @Test
+    public void testIdIsAllocatedFromTheStoredMetadata() {
+        store.getByRepository(REPOSITORY,
+                              0,
+                              0);
+        //Another node stores a Pull Request, the change is not notified yet
+        final GitMetadata metadata = metadatas.get(REPOSITORY);
+        final List<PullRequest> pullRequests = new ArrayList<>(metadata.getPullRequests());
+        pullRequests.add(pullRequest(9,
+                                     "master",
+                                     PullRequestStatus.OPEN));
+        metadatas.put(REPOSITORY,
+                      new GitMetadataImpl(REPOSITORY,
+                                          metadata.getOrigin(),
+                                          metadata.getForks(),
+                                          pullRequests));
+
+        assertEquals(10,
+                     create("child/b",
+                            "master").getId());
+        assertEquals(Arrays.asList(3L,
+                                   7L,
+                                   9L,
+                                   10L),
+                     ids(metadatas.get(REPOSITORY).getPullRequests()));
+        assertEquals(Arrays.asList(3L,
+                                   7L,
+                                   9L,
+                                   10L),
+                     ids(store.getByRepository(REPOSITORY,
+                                               0,
+                                               0)));
+        //The metadata is read and written holding the lock of the metadata file system
+        verify(ioService).startBatch(fileSystem);
+        verify(ioService).endBatch();
+    }
+
+    @Test
+    public void testPaging() {
+        final List<PullRequest> pullRequests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pullRequests.add(pullRequest(i,
+                                         "master",
+                                         PullRequestStatus.OPEN));
+        }
+
+        assertEquals(10,
+                     store.page(pullRequests,
+                                0,
+                                0).size());
+        assertEquals(10,
+                     store.page(pullRequests,
+                                0,
+                                15).size());
+        assertEquals(Arrays.asList(5L,
+                                   6L,
+                                   7L,
+                                   8L,
+                                   9L),
+                     ids(store.page(pullRequests,
+                                    1,
+                                    5)));
+        assertEquals(Arrays.asList(9L),
+                     ids(store.page(pullRequests,
+                                    9,
+                                    1)));
+        assertTrue(store.page(pullRequests,
+                              10,
+                              1).isEmpty());
+    }
+
+    private PullRequest create(final String sourceRepository,
+                               final String targetBranch) {
+        return store.create("test-realm",
+                            sourceRepository,
+                            "develop",
+                            "test-realm",
+                            REPOSITORY,
+                            targetBranch);
+    }
+
+    private PullRequest pullRequest(final long id,
+                                    final String targetBranch,
+                                    final PullRequestStatus status) {
+        return new PullRequestImpl(id,
+                                   "test-realm",
+                                   "child/a",
+                                   "develop",
+                                   "test-realm",
+                                   REPOSITORY,
+                                   targetBranch,
+                                   status);
+    }
+
+    private void metadataChange(final String file) {
+        final Path path = PathFactory.newPath(file.substring(file.lastIndexOf('/') + 1),
+                                              METADATA_ROOT + file);
+        final Map<Path, Collection<ResourceChange>> changes = new HashMap<>();
+        changes.put(path,
+                    Collections.singletonList(new ResourceUpdated("")));
+        watchEventRouter.route(changes,
+                               "",
+                               null);
+    }
+
+    private List<Long> ids(final List<PullRequest> pullRequests) {
+        return pullRequests.stream().map(PullRequest::getId).collect(Collectors.toList());
+    }
+}
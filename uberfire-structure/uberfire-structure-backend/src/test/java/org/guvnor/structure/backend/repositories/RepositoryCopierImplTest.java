@@ -107,5 +107,9 @@ public class RepositoryCopierImplTest {
         verify(ioService).endBatch();
         verify(newBranchEventEvent,
                never()).fire(any(NewBranchEvent.class));
+
+        assertTrue(fileSystemTestingUtils.getIoService().exists(fileSystemTestingUtils.getIoService().get(URI.create(PATH_PREFIX + "to/sub1/file1.txt"))));
+        assertTrue(fileSystemTestingUtils.getIoService().exists(fileSystemTestingUtils.getIoService().get(URI.create(PATH_PREFIX + "to/sub1/file2.txt"))));
+        assertTrue(fileSystemTestingUtils.getIoService().exists(fileSystemTestingUtils.getIoService().get(URI.create(PATH_PREFIX + "to/sub2/file3.txt"))));
     }
 }
\ No newline at end of file